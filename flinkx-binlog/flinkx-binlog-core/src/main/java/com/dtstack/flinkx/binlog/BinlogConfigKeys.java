@@ -45,4 +45,8 @@ public class BinlogConfigKeys {
 
     public final static String KEY_TABLE = "table";
 
+    public final static String KEY_QUEUE_SIZE = "queueSize";
+
+    public final static String KEY_DRAIN_BATCH_SIZE = "drainBatchSize";
+
 }
@@ -19,7 +19,9 @@ package com.dtstack.flinkx.binlog.reader;
 
 import com.alibaba.otter.canal.common.AbstractCanalLifeCycle;
 import com.alibaba.otter.canal.protocol.CanalEntry;
+import com.alibaba.otter.canal.protocol.position.EntryPosition;
 import com.alibaba.otter.canal.sink.exception.CanalSinkException;
+import com.dtstack.flinkx.reader.RowHandoffQueue;
 import org.apache.flink.types.Row;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,8 +30,6 @@ import java.net.InetSocketAddress;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.SynchronousQueue;
 
 
 public class BinlogEventSink extends AbstractCanalLifeCycle implements com.alibaba.otter.canal.sink.CanalEventSink<List<CanalEntry.Entry>> {
@@ -38,13 +38,14 @@ public class BinlogEventSink extends AbstractCanalLifeCycle implements com.aliba
 
     private BinlogInputFormat format;
 
-    private BlockingQueue<Row> queue;
+    private RowHandoffQueue queue;
 
     private boolean pavingData;
 
-    public BinlogEventSink(BinlogInputFormat format) {
+    public BinlogEventSink(BinlogInputFormat format, int queueSize, int drainBatchSize) {
         this.format = format;
-        queue = new SynchronousQueue<>(false);
+        queue = new RowHandoffQueue(queueSize, drainBatchSize);
+        queue.setPositionListener(position -> format.updateLastPos((EntryPosition) position));
     }
 
     @Override
@@ -133,10 +134,22 @@ public class BinlogEventSink extends AbstractCanalLifeCycle implements com.aliba
         return map;
     }
 
+    public RowHandoffQueue getQueue() {
+        return queue;
+    }
+
     public void setPavingData(boolean pavingData) {
         this.pavingData = pavingData;
     }
 
+    public void putPosition(EntryPosition position) {
+        try {
+            queue.putPosition(position);
+        } catch (InterruptedException e) {
+            LOG.error("putPosition interrupted position:{} error:{}", position, e);
+        }
+    }
+
     public Row takeEvent() {
         Row row = null;
         try {
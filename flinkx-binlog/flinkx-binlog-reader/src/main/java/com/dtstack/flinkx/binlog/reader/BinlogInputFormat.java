@@ -24,6 +24,7 @@ import com.alibaba.otter.canal.protocol.position.EntryPosition;
 import com.dtstack.flinkx.binlog.BinlogJournalValidator;
 import com.dtstack.flinkx.config.RestoreConfig;
 import com.dtstack.flinkx.inputformat.RichInputFormat;
+import com.dtstack.flinkx.reader.RowHandoffQueue;
 import com.dtstack.flinkx.restore.FormatState;
 import org.apache.commons.collections.MapUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -72,6 +73,10 @@ public class BinlogInputFormat extends RichInputFormat {
 
     private int bufferSize;
 
+    private int queueSize = RowHandoffQueue.DEFAULT_CAPACITY;
+
+    private int drainBatchSize = RowHandoffQueue.DEFAULT_DRAIN_BATCH_SIZE;
+
     private volatile EntryPosition entryPosition;
 
     private List<String> categories = new ArrayList<>();
@@ -129,13 +134,14 @@ public class BinlogInputFormat extends RichInputFormat {
 
         controller.setAlarmHandler(new BinlogAlarmHandler(this));
 
-        BinlogEventSink sink = new BinlogEventSink(this);
+        BinlogEventSink sink = new BinlogEventSink(this, queueSize, drainBatchSize);
         sink.setPavingData(pavingData);
+        sink.getQueue().registerMetrics(getRuntimeContext().getMetricGroup());
         binlogEventSink = sink;
 
         controller.setEventSink(sink);
 
-        controller.setLogPositionManager(new BinlogPositionManager(this));
+        controller.setLogPositionManager(new BinlogPositionManager(sink));
 
         EntryPosition startPosition = findStartPosition();
         if (startPosition != null) {
@@ -285,6 +291,14 @@ public class BinlogInputFormat extends RichInputFormat {
         this.bufferSize = bufferSize;
     }
 
+    public void setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    public void setDrainBatchSize(int drainBatchSize) {
+        this.drainBatchSize = drainBatchSize;
+    }
+
     public void setPavingData(boolean pavingData) {
         this.pavingData = pavingData;
     }
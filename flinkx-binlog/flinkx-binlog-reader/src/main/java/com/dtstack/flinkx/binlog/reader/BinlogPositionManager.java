@@ -28,10 +28,10 @@ public class BinlogPositionManager extends AbstractLogPositionManager {
 
     private static final Logger LOG = LoggerFactory.getLogger(BinlogPositionManager.class);
 
-    private final BinlogInputFormat format;
+    private final BinlogEventSink sink;
 
-    public BinlogPositionManager(BinlogInputFormat format) {
-        this.format = format;
+    public BinlogPositionManager(BinlogEventSink sink) {
+        this.sink = sink;
     }
 
     @Override
@@ -41,7 +41,9 @@ public class BinlogPositionManager extends AbstractLogPositionManager {
 
     @Override
     public void persistLogPosition(String destination, LogPosition logPosition) throws CanalParseException {
-        format.updateLastPos(logPosition.getPostion());
+        // canal persists the position after the rows of the transaction are sunk, the position takes effect
+        // only after the task thread has emitted all of them
+        sink.putPosition(logPosition.getPostion());
     }
 
 }
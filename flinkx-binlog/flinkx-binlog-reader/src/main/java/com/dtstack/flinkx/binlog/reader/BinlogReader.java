@@ -20,6 +20,7 @@ package com.dtstack.flinkx.binlog.reader;
 import com.dtstack.flinkx.config.DataTransferConfig;
 import com.dtstack.flinkx.config.ReaderConfig;
 import com.dtstack.flinkx.reader.DataReader;
+import com.dtstack.flinkx.reader.RowHandoffQueue;
 import org.apache.flink.streaming.api.datastream.DataStream;
 import org.apache.flink.streaming.api.environment.StreamExecutionEnvironment;
 import org.apache.flink.types.Row;
@@ -60,6 +61,10 @@ public class BinlogReader extends DataReader {
 
     private List<String> table;
 
+    private int queueSize;
+
+    private int drainBatchSize;
+
     public BinlogReader(DataTransferConfig config, StreamExecutionEnvironment env) {
         super(config, env);
         ReaderConfig readerConfig = config.getJob().getContent().get(0).getReader();
@@ -75,6 +80,8 @@ public class BinlogReader extends DataReader {
         bufferSize = readerConfig.getParameter().getIntVal(KEY_BUFFER_SIZE, 1024);
         pavingData = readerConfig.getParameter().getBooleanVal(KEY_PAVING_DATA, false);
         table = (List<String>) readerConfig.getParameter().getVal(KEY_TABLE);
+        queueSize = readerConfig.getParameter().getIntVal(KEY_QUEUE_SIZE, RowHandoffQueue.DEFAULT_CAPACITY);
+        drainBatchSize = readerConfig.getParameter().getIntVal(KEY_DRAIN_BATCH_SIZE, RowHandoffQueue.DEFAULT_DRAIN_BATCH_SIZE);
     }
 
     @Override
@@ -92,6 +99,8 @@ public class BinlogReader extends DataReader {
         format.setBufferSize(bufferSize);
         format.setPavingData(pavingData);
         format.setTable(table);
+        format.setQueueSize(queueSize);
+        format.setDrainBatchSize(drainBatchSize);
         format.setRestoreConfig(restoreConfig);
 
         return createInput(format, "binlogreader");
@@ -31,9 +31,12 @@ public class SpeedConfig extends AbstractConfig {
 
     public static final String KEY_BYTES = "bytes";
     public static final String KEY_NUM_CHANNELS = "channel";
+    public static final String KEY_ROW_SIZE_SAMPLE_INTERVAL = "rowSizeSampleInterval";
+    public static final String KEY_APPEND_CHANNEL_FIELD = "appendChannelField";
 
     public static final long DEFAULT_SPEED_BYTES = Long.MAX_VALUE;
     public static final int DEFAULT_NUM_CHANNALS = 1;
+    public static final int DEFAULT_ROW_SIZE_SAMPLE_INTERVAL = 1;
 
     public SpeedConfig(Map<String, Object> map) {
         super(map);
@@ -62,4 +65,20 @@ public class SpeedConfig extends AbstractConfig {
         setIntVal(KEY_NUM_CHANNELS, channel);
     }
 
+    public int getRowSizeSampleInterval() {
+        return getIntVal(KEY_ROW_SIZE_SAMPLE_INTERVAL, DEFAULT_ROW_SIZE_SAMPLE_INTERVAL);
+    }
+
+    public void setRowSizeSampleInterval(int rowSizeSampleInterval) {
+        setIntVal(KEY_ROW_SIZE_SAMPLE_INTERVAL, rowSizeSampleInterval);
+    }
+
+    public boolean isAppendChannelField() {
+        return getBooleanVal(KEY_APPEND_CHANNEL_FIELD, false);
+    }
+
+    public void setAppendChannelField(boolean appendChannelField) {
+        setBooleanVal(KEY_APPEND_CHANNEL_FIELD, appendChannelField);
+    }
+
 }
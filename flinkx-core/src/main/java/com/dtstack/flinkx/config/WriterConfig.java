@@ -61,6 +61,10 @@ public class WriterConfig extends AbstractConfig {
     public static class ParameterConfig extends AbstractConfig {
         public static final String KEY_COLUMN_LIST = "column";
         public static final String KEY_CONNECTION_CONFIG_LIST = "connection";
+        public static final String KEY_BATCH_BYTES = "batchBytes";
+        public static final String KEY_FLUSH_INTERVAL_MS = "flushIntervalMs";
+        public static final String KEY_ASYNC_FLUSH = "asyncFlush";
+        public static final String KEY_MAX_IN_FLIGHT_BATCHES = "maxInFlightBatches";
 
         List column;
         List<ConnectionConfig> connection;
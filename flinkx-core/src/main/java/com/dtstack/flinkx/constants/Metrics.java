@@ -40,6 +40,10 @@ public class Metrics {
 
     public static final String READ_DURATION = "readDuration";
 
+    public static final String READ_BYTES_LOCAL = "byteReadLocal";
+
+    public static final String READ_BYTES_REMOTE = "byteReadRemote";
+
     public static final String WRITE_BYTES = "byteWrite";
 
     public static final String WRITE_DURATION = "writeDuration";
@@ -68,10 +72,44 @@ public class Metrics {
 
     public static final String METRIC_GROUP_VALUE_OUTPUT = "output";
 
+    public static final String METRIC_GROUP_VALUE_INPUT = "input";
+
     public static final String LAST_WRITE_LOCATION_PREFIX = "last_write_location";
 
     public static final String LAST_WRITE_NUM__PREFIX = "last_write_num";
 
     public static final String SUFFIX_RATE = "PerSecond";
 
+    public static final String HANDOFF_QUEUE_SIZE = "handoffQueueSize";
+
+    public static final String HANDOFF_PUT_WAIT = "handoffPutWaitMillis";
+
+    public static final String HANDOFF_TAKE_WAIT = "handoffTakeWaitMillis";
+
+    public static final String METRIC_GROUP_KEY_SOURCE = "source";
+
+    public static final String SOURCE_NUM_READS = "sourceNumRead";
+
+    public static final String OPEN_WRITERS = "openWriters";
+
+    public static final String WRITER_EVICTIONS = "writerEvictions";
+
+    public static final String WRITER_REOPENS = "writerReopens";
+
+    public static final String ACTIVE_TIME_PARTITIONS = "activeTimePartitions";
+
+    public static final String EVENT_TIME_WATERMARK = "eventTimeWatermark";
+
+    public static final String LATE_EVENTS = "lateEvents";
+
+    public static final String FUTURE_EVENTS = "futureEvents";
+
+    public static final String BATCH_RECOVERIES = "batchRecoveries";
+
+    public static final String BATCH_RECOVERY_RETRIES = "batchRecoveryRetries";
+
+    public static final String BATCH_RECOVERY_SINGLE_WRITES = "batchRecoverySingleWrites";
+
+    public static final String BATCH_RECOVERY_DURATION = "batchRecoveryDuration";
+
 }
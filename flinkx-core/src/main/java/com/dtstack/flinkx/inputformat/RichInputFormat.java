@@ -22,8 +22,10 @@ import com.dtstack.flinkx.config.RestoreConfig;
 import com.dtstack.flinkx.constants.Metrics;
 import com.dtstack.flinkx.metrics.AccumulatorCollector;
 import com.dtstack.flinkx.metrics.BaseMetric;
+import com.dtstack.flinkx.metrics.RowSizeCalculator;
 import com.dtstack.flinkx.reader.ByteRateLimiter;
 import com.dtstack.flinkx.restore.FormatState;
+import com.dtstack.flinkx.types.ChannelRow;
 import org.apache.commons.lang.StringUtils;
 import org.apache.flink.api.common.accumulators.LongCounter;
 import org.apache.flink.api.common.io.DefaultInputSplitAssigner;
@@ -35,6 +37,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Map;
 
 /**
@@ -57,10 +60,20 @@ public abstract class RichInputFormat extends org.apache.flink.api.common.io.Ric
     protected long bytes;
     protected ByteRateLimiter byteRateLimiter;
 
+    protected int rowSizeSampleInterval = RowSizeCalculator.SAMPLE_ALL;
+
+    protected transient RowSizeCalculator rowSizeCalculator;
+
+    /** Append the channel index to the fields of the row instead of using {@link ChannelRow} */
+    protected boolean appendChannelField = false;
+
     protected RestoreConfig restoreConfig;
 
     protected FormatState formatState;
 
+    /** The states of all the channels when restored, used by the formats whose splits are not bound to a channel */
+    protected transient Collection<FormatState> allRestoreStates;
+
     protected transient BaseMetric inputMetric;
 
     protected int indexOfSubtask;
@@ -84,6 +97,7 @@ public abstract class RichInputFormat extends org.apache.flink.api.common.io.Ric
         if(!inited){
             initAccumulatorCollector();
             initStatisticsAccumulator();
+            rowSizeCalculator = RowSizeCalculator.getRowSizeCalculator(rowSizeSampleInterval);
             openByteRateLimiter();
             initRestoreInfo();
 
@@ -165,20 +179,24 @@ public abstract class RichInputFormat extends org.apache.flink.api.common.io.Ric
             byteRateLimiter.acquire();
         }
         Row internalRow = nextRecordInternal(row);
+        if(bytesReadCounter!=null){
+            bytesReadCounter.add(rowSizeCalculator.getRowSize(internalRow));
+        }
         internalRow = setChannelInformation(internalRow);
 
         updateDuration();
         if(numReadCounter !=null ){
             numReadCounter.add(1);
         }
-        if(bytesReadCounter!=null){
-            bytesReadCounter.add(internalRow.toString().length());
-        }
         return internalRow;
     }
 
     private Row setChannelInformation(Row internalRow){
         if (internalRow != null){
+            if (!appendChannelField) {
+                return new ChannelRow(internalRow, indexOfSubtask);
+            }
+
             Row rowWithChannel = new Row(internalRow.getArity() + 1);
             for (int i = 0; i < internalRow.getArity(); i++) {
                 rowWithChannel.setField(i, internalRow.getField(i));
@@ -257,7 +275,19 @@ public abstract class RichInputFormat extends org.apache.flink.api.common.io.Ric
         this.formatState = formatState;
     }
 
+    public void setAllRestoreStates(Collection<FormatState> allRestoreStates) {
+        this.allRestoreStates = allRestoreStates;
+    }
+
     public RestoreConfig getRestoreConfig() {
         return restoreConfig;
     }
+
+    public void setRowSizeSampleInterval(int rowSizeSampleInterval) {
+        this.rowSizeSampleInterval = rowSizeSampleInterval;
+    }
+
+    public void setAppendChannelField(boolean appendChannelField) {
+        this.appendChannelField = appendChannelField;
+    }
 }
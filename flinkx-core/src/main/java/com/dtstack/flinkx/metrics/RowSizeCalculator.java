@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.flinkx.metrics;
+
+import org.apache.flink.types.Row;
+
+import java.io.Serializable;
+
+/**
+ * Estimates the size of a row for the byte metrics, speed control and file rolling,
+ * without building the string representation of the row
+ *
+ * Company: www.dtstack.com
+ */
+public abstract class RowSizeCalculator implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Measure every row
+     */
+    public static final int SAMPLE_ALL = 1;
+
+    /**
+     * Get the estimated size of the row in bytes
+     * @param row the row to measure, may be null
+     * @return the estimated size
+     */
+    public abstract long getRowSize(Row row);
+
+    /**
+     * Create the calculator used by the input and output formats
+     * @param sampleInterval measure one row in every sampleInterval rows, measure every row when less than or equal to 1
+     * @return RowSizeCalculator
+     */
+    public static RowSizeCalculator getRowSizeCalculator(int sampleInterval) {
+        RowSizeCalculator calculator = new TypedRowSizeCalculator();
+        if (sampleInterval > SAMPLE_ALL) {
+            return new SampledRowSizeCalculator(calculator, sampleInterval);
+        }
+
+        return calculator;
+    }
+}
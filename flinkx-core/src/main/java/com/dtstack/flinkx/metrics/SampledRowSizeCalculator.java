@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.flinkx.metrics;
+
+import org.apache.flink.types.Row;
+
+/**
+ * Measure one row in every sampleInterval rows with the delegate calculator,
+ * the other rows are counted with the average size of the measured rows
+ *
+ * Company: www.dtstack.com
+ */
+public class SampledRowSizeCalculator extends RowSizeCalculator {
+
+    private static final long serialVersionUID = 1L;
+
+    private RowSizeCalculator delegate;
+
+    private int sampleInterval;
+
+    private long numRows;
+
+    private long numSampledRows;
+
+    private long sampledBytes;
+
+    private long averageRowSize;
+
+    public SampledRowSizeCalculator(RowSizeCalculator delegate, int sampleInterval) {
+        this.delegate = delegate;
+        this.sampleInterval = sampleInterval;
+    }
+
+    @Override
+    public long getRowSize(Row row) {
+        if (numRows++ % sampleInterval != 0) {
+            return averageRowSize;
+        }
+
+        long rowSize = delegate.getRowSize(row);
+        numSampledRows++;
+        sampledBytes += rowSize;
+        averageRowSize = sampledBytes / numSampledRows;
+
+        return rowSize;
+    }
+}
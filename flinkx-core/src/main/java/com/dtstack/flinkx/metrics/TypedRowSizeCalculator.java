@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.flinkx.metrics;
+
+import org.apache.flink.types.Row;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Calculate the row size field by field, the sizer of each field type is resolved by the class of the value
+ * and cached, so the size of the common types is computed without allocation.
+ * A class without its own sizer uses the sizer of the nearest superclass, then of the nearest interface.
+ * Types without a registered sizer fall back to the length of the string representation.
+ *
+ * Company: www.dtstack.com
+ */
+public class TypedRowSizeCalculator extends RowSizeCalculator {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int NULL_SIZE = 0;
+
+    private transient Map<Class<?>, FieldSizer> sizers;
+
+    /** The sizer resolved for each concrete class, kept apart from the registered ones */
+    private transient Map<Class<?>, FieldSizer> resolvedSizers;
+
+    public TypedRowSizeCalculator() {
+        initSizers();
+    }
+
+    /**
+     * Register a sizer for values of the class, it is also used for the subclasses without their own sizer
+     */
+    public void registerSizer(Class<?> clazz, FieldSizer sizer) {
+        getSizers().put(clazz, sizer);
+        resolvedSizers.clear();
+    }
+
+    @Override
+    public long getRowSize(Row row) {
+        if (row == null) {
+            return NULL_SIZE;
+        }
+
+        long size = 0;
+        for (int i = 0; i < row.getArity(); i++) {
+            size += getFieldSize(row.getField(i));
+        }
+
+        return size;
+    }
+
+    public long getFieldSize(Object value) {
+        if (value == null) {
+            return NULL_SIZE;
+        }
+
+        return getSizer(value.getClass()).getSize(value, this);
+    }
+
+    private FieldSizer getSizer(Class<?> clazz) {
+        getSizers();
+        FieldSizer sizer = resolvedSizers.get(clazz);
+        if (sizer == null) {
+            sizer = resolveSizer(clazz);
+            resolvedSizers.put(clazz, sizer);
+        }
+
+        return sizer;
+    }
+
+    /**
+     * Look up the most specific registered sizer: the class itself and its superclasses first,
+     * then the interfaces breadth first, so the result never depends on the order of the map
+     */
+    private FieldSizer resolveSizer(Class<?> clazz) {
+        Deque<Class<?>> interfaces = new ArrayDeque<>();
+        for (Class<?> current = clazz; current != null; current = current.getSuperclass()) {
+            FieldSizer sizer = sizers.get(current);
+            if (sizer != null) {
+                return sizer;
+            }
+            for (Class<?> anInterface : current.getInterfaces()) {
+                interfaces.add(anInterface);
+            }
+        }
+
+        Set<Class<?>> visited = new HashSet<>();
+        while (!interfaces.isEmpty()) {
+            Class<?> anInterface = interfaces.poll();
+            if (!visited.add(anInterface)) {
+                continue;
+            }
+
+            FieldSizer sizer = sizers.get(anInterface);
+            if (sizer != null) {
+                return sizer;
+            }
+            for (Class<?> superInterface : anInterface.getInterfaces()) {
+                interfaces.add(superInterface);
+            }
+        }
+
+        if (clazz.isArray()) {
+            return (value, calculator) -> java.lang.reflect.Array.getLength(value);
+        }
+
+        return (value, calculator) -> value.toString().length();
+    }
+
+    private Map<Class<?>, FieldSizer> getSizers() {
+        if (sizers == null) {
+            initSizers();
+        }
+
+        return sizers;
+    }
+
+    private void initSizers() {
+        sizers = new HashMap<>(32);
+        resolvedSizers = new HashMap<>(32);
+
+        sizers.put(String.class, (value, calculator) -> ((String) value).length());
+        sizers.put(byte[].class, (value, calculator) -> ((byte[]) value).length);
+        sizers.put(char[].class, (value, calculator) -> ((char[]) value).length);
+        sizers.put(Boolean.class, (value, calculator) -> 1);
+        sizers.put(Byte.class, (value, calculator) -> Byte.BYTES);
+        sizers.put(Short.class, (value, calculator) -> Short.BYTES);
+        sizers.put(Character.class, (value, calculator) -> Character.BYTES);
+        sizers.put(Integer.class, (value, calculator) -> Integer.BYTES);
+        sizers.put(Long.class, (value, calculator) -> Long.BYTES);
+        sizers.put(Float.class, (value, calculator) -> Float.BYTES);
+        sizers.put(Double.class, (value, calculator) -> Double.BYTES);
+        sizers.put(BigInteger.class, (value, calculator) -> ((BigInteger) value).bitLength() / Byte.SIZE + 1);
+        sizers.put(BigDecimal.class, (value, calculator) -> ((BigDecimal) value).unscaledValue().bitLength() / Byte.SIZE + 1 + Integer.BYTES);
+        sizers.put(Timestamp.class, (value, calculator) -> Long.BYTES + Integer.BYTES);
+        sizers.put(java.sql.Date.class, (value, calculator) -> Long.BYTES);
+        sizers.put(java.sql.Time.class, (value, calculator) -> Long.BYTES);
+        sizers.put(Date.class, (value, calculator) -> Long.BYTES);
+        sizers.put(Map.class, (value, calculator) -> {
+            long size = 0;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                size += calculator.getFieldSize(entry.getKey()) + calculator.getFieldSize(entry.getValue());
+            }
+            return size;
+        });
+        sizers.put(Collection.class, (value, calculator) -> {
+            long size = 0;
+            for (Object element : (Collection<?>) value) {
+                size += calculator.getFieldSize(element);
+            }
+            return size;
+        });
+        sizers.put(Row.class, (value, calculator) -> calculator.getRowSize((Row) value));
+    }
+
+    /**
+     * Compute the size of a single field value
+     */
+    @FunctionalInterface
+    public interface FieldSizer {
+
+        /**
+         * @param value the not null value of the field
+         * @param calculator the calculator used to measure the nested values
+         * @return the estimated size in bytes
+         */
+        long getSize(Object value, TypedRowSizeCalculator calculator);
+    }
+}
@@ -27,6 +27,9 @@ import org.apache.commons.lang.StringUtils;
 import org.apache.flink.types.Row;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.NavigableMap;
+import java.util.TreeMap;
 
 /**
  * @author jiangbo
@@ -48,6 +51,9 @@ public abstract class FileOutputFormat extends RichOutputFormat {
 
     protected long flushInterval = 0;
 
+    /** 小文件合并后的目标文件大小，小于等于0时不合并 */
+    protected long compactTargetSize = 0;
+
     protected static final String APPEND_MODE = "APPEND";
 
     protected static final String DATA_SUBDIR = ".data";
@@ -92,6 +98,14 @@ public abstract class FileOutputFormat extends RichOutputFormat {
 
     protected long lastWriteTime = System.currentTimeMillis();
 
+    /** 当前文件writer被flush的次数，每次flush后缓存的数据都已经写出 */
+    private long flushCount;
+
+    private long snapshotCheckpointId;
+
+    /** 还没有完成的检查点及其提交的最大block序号 */
+    private TreeMap<Long, Integer> uncompletedCommits = new TreeMap<>();
+
     @Override
     protected void openInternal(int taskNumber, int numTasks) throws IOException {
         initPath();
@@ -240,6 +254,9 @@ public abstract class FileOutputFormat extends RichOutputFormat {
             sumRowsOfBlock = 0;
             formatState.setJobId(jobId);
             formatState.setFileIndex(blockIndex-1);
+            if (compactTargetSize > 0) {
+                uncompletedCommits.put(snapshotCheckpointId, blockIndex - 1);
+            }
             LOG.info("jobId = {}, blockIndex = {}", jobId, blockIndex);
 
             super.getFormatState();
@@ -249,6 +266,30 @@ public abstract class FileOutputFormat extends RichOutputFormat {
         return null;
     }
 
+    @Override
+    public void prepareSnapshot(long checkpointId) {
+        snapshotCheckpointId = checkpointId;
+    }
+
+    /**
+     * 检查点完成后，该检查点提交到数据目录的block文件在任务恢复时不会再被删除，此时才可以合并这些文件
+     */
+    @Override
+    public void notifyCheckpointComplete(long checkpointId) {
+        if (compactTargetSize <= 0 || !restoreConfig.isStream()) {
+            return;
+        }
+
+        NavigableMap<Long, Integer> completedCommits = uncompletedCommits.headMap(checkpointId, true);
+        if (completedCommits.isEmpty()) {
+            return;
+        }
+
+        int maxBlockIndex = Collections.max(completedCommits.values());
+        completedCommits.clear();
+        compactDataFiles(maxBlockIndex, false);
+    }
+
     @Override
     public void closeInternal() throws IOException {
         readyCheckpoint = false;
@@ -279,6 +320,11 @@ public abstract class FileOutputFormat extends RichOutputFormat {
                     //正常被close，触发 .data 目录下的文件移动到数据目录
                     moveAllTemporaryDataFileToDirectory();
 
+                    // 所有通道的数据都已提交，合并本次任务写入的小文件
+                    if (compactTargetSize > 0) {
+                        compactDataFiles(Integer.MAX_VALUE, true);
+                    }
+
                     LOG.info("The task ran successfully,clear temporary data files");
                     clearTemporaryDataFiles();
                 }
@@ -337,6 +383,7 @@ public abstract class FileOutputFormat extends RichOutputFormat {
                 LOG.info("flush file:{} rows:{} sumRowsOfBlock:{}", currentBlockFileName, rowsOfCurrentBlock, sumRowsOfBlock);
             }
             rowsOfCurrentBlock = 0;
+            flushCount++;
         }
     }
 
@@ -344,6 +391,26 @@ public abstract class FileOutputFormat extends RichOutputFormat {
         return lastWriteTime;
     }
 
+    public long getFlushCount() {
+        return flushCount;
+    }
+
+    /**
+     * 是否还有提交到数据目录但检查点未完成、还没有合并的block文件
+     */
+    protected boolean hasUncompletedCommits() {
+        return !uncompletedCommits.isEmpty();
+    }
+
+    /**
+     * 合并数据目录下已经提交的小文件，合并必须在{@link #closeSource()}之前完成
+     * @param maxBlockIndex 只合并序号不大于该值的block文件
+     * @param allTasks 是否合并所有通道写入的文件，为false时只合并当前通道的文件
+     */
+    protected void compactDataFiles(int maxBlockIndex, boolean allTasks) {
+        LOG.warn("Compaction is not supported by {}", getClass().getSimpleName());
+    }
+
     protected abstract void cleanDirtyData();
 
     protected abstract void createActionFinishedTag();
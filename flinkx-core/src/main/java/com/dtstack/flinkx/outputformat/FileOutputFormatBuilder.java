@@ -70,6 +70,13 @@ public class FileOutputFormatBuilder extends RichOutputFormatBuilder {
         format.flushInterval = interval;
     }
 
+    /**
+     * 小文件合并后的目标文件大小，小于等于0时不合并
+     */
+    public void setCompactTargetSize(long compactTargetSize){
+        format.compactTargetSize = compactTargetSize;
+    }
+
     @Override
     protected void checkFormat() {
         if (format.path == null || format.path.length() == 0) {
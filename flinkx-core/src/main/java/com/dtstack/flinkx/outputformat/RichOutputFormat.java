@@ -26,7 +26,9 @@ import com.dtstack.flinkx.latch.LocalLatch;
 import com.dtstack.flinkx.latch.MetricLatch;
 import com.dtstack.flinkx.metrics.AccumulatorCollector;
 import com.dtstack.flinkx.metrics.BaseMetric;
+import com.dtstack.flinkx.metrics.RowSizeCalculator;
 import com.dtstack.flinkx.restore.FormatState;
+import com.dtstack.flinkx.types.ChannelRow;
 import com.dtstack.flinkx.util.ExceptionUtil;
 import com.dtstack.flinkx.util.URLUtil;
 import com.dtstack.flinkx.writer.DirtyDataManager;
@@ -45,10 +47,20 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.sql.BatchUpdateException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static com.dtstack.flinkx.writer.WriteErrorTypes.*;
 
@@ -66,6 +78,8 @@ public abstract class RichOutputFormat extends org.apache.flink.api.common.io.Ri
 
     public static final int LOG_PRINT_INTERNAL = 2000;
 
+    public static final int DEFAULT_MAX_IN_FLIGHT_BATCHES = 2;
+
     /** Dirty data manager */
     protected DirtyDataManager dirtyDataManager;
 
@@ -84,6 +98,38 @@ public abstract class RichOutputFormat extends org.apache.flink.api.common.io.Ri
     /** 存储用于批量写入的数据 */
     protected List<Row> rows = new ArrayList();
 
+    /** 批量数据的字节数达到该值时提交，小于等于0时不生效 */
+    protected long batchBytes = 0;
+
+    /** 距离上次提交超过该毫秒数时提交缓存的数据，由写入的数据或sink的处理时间定时器触发，小于等于0时不生效 */
+    protected long flushIntervalMs = 0;
+
+    /** 当前批次数据的字节数 */
+    private transient long bytesOfBatch;
+
+    private transient long lastFlushTime;
+
+    /** 是否由后台线程异步提交批量数据 */
+    protected boolean asyncFlush = false;
+
+    /** 异步提交时允许同时等待提交的最大批次数，达到后阻塞写入 */
+    protected int maxInFlightBatches = DEFAULT_MAX_IN_FLIGHT_BATCHES;
+
+    /** 异步提交模式下任务线程写入的数据，写满一批后交给后台线程提交 */
+    private transient List<Row> bufferRows;
+
+    private transient ExecutorService flushExecutor;
+
+    private transient Semaphore inFlightBatches;
+
+    private transient AtomicReference<Throwable> asyncFlushError;
+
+    /** 后台线程写入成功的数据条数，由任务线程累加到统计指标中 */
+    private transient AtomicLong asyncWrittenRows;
+
+    /** 后台线程写入失败的批次，由任务线程定位脏数据 */
+    private transient Queue<FailedBatch> failedBatches;
+
     /** 总记录数 */
     protected LongCounter numWriteCounter;
 
@@ -112,6 +158,18 @@ public abstract class RichOutputFormat extends org.apache.flink.api.common.io.Ri
 
     protected LongCounter durationCounter;
 
+    /** 批量写入失败后做过恢复的批次数 */
+    protected LongCounter batchRecoveryCounter;
+
+    /** 恢复过程中重试的批次数 */
+    protected LongCounter batchRecoveryRetryCounter;
+
+    /** 恢复过程中逐条写入的数据条数 */
+    protected LongCounter batchRecoverySingleWriteCounter;
+
+    /** 恢复过程的耗时 */
+    protected LongCounter batchRecoveryDurationCounter;
+
     /** 错误阈值 */
     protected Integer errors;
 
@@ -149,6 +207,18 @@ public abstract class RichOutputFormat extends org.apache.flink.api.common.io.Ri
 
     protected boolean initAccumulatorAndDirty = true;
 
+    /** 行大小采样间隔，每隔多少条数据计算一次行大小 */
+    protected int rowSizeSampleInterval = RowSizeCalculator.SAMPLE_ALL;
+
+    protected transient RowSizeCalculator rowSizeCalculator;
+
+    /** 最近一次写入的数据的大小，供包装了当前format的format复用，避免重复计算 */
+    protected transient long lastRowSize;
+
+    public long getLastRowSize() {
+        return lastRowSize;
+    }
+
     public String getDirtyPath() {
         return dirtyPath;
     }
@@ -195,6 +265,7 @@ public abstract class RichOutputFormat extends org.apache.flink.api.common.io.Ri
         this.taskNumber = taskNumber;
         context = (StreamingRuntimeContext) getRuntimeContext();
         this.numTasks = numTasks;
+        rowSizeCalculator = RowSizeCalculator.getRowSizeCalculator(rowSizeSampleInterval);
 
         initStatisticsAccumulator();
         initJobInfo();
@@ -213,12 +284,102 @@ public abstract class RichOutputFormat extends org.apache.flink.api.common.io.Ri
         }
 
         openInternal(taskNumber, numTasks);
+        openAsyncFlush();
+        openBatchTriggers();
+
         if(needWaitBeforeWriteRecords()) {
             beforeWriteRecords();
             waitWhile("#2");
         }
     }
 
+    void openAsyncFlush(){
+        asyncFlushError = new AtomicReference<>();
+        if(!asyncFlush || batchInterval <= 1) {
+            return;
+        }
+
+        if(!supportsAsyncFlush()) {
+            LOG.warn("subtask[{}] {} does not support async flush, write batches in the task thread", taskNumber, getClass().getSimpleName());
+            return;
+        }
+
+        bufferRows = new ArrayList<>(batchInterval);
+        asyncWrittenRows = new AtomicLong();
+        failedBatches = new ConcurrentLinkedQueue<>();
+        inFlightBatches = new Semaphore(maxInFlightBatches);
+        flushExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "async-flush-" + jobName + "-" + taskNumber);
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        LOG.info("subtask[{}] open async flush, batchInterval:{}, maxInFlightBatches:{}", taskNumber, batchInterval, maxInFlightBatches);
+    }
+
+    void openBatchTriggers(){
+        lastFlushTime = System.currentTimeMillis();
+        if(batchBytes <= 0 && flushIntervalMs <= 0) {
+            return;
+        }
+
+        // 数据逐条写入或者由子类自行写入时没有缓存的批次
+        if(batchInterval <= 1) {
+            LOG.warn("subtask[{}] batchBytes and flushIntervalMs only take effect when batchInterval is greater than 1, {} ignores them",
+                    taskNumber, getClass().getSimpleName());
+            return;
+        }
+
+        LOG.info("subtask[{}] open batch triggers, batchBytes:{}, flushIntervalMs:{}", taskNumber, batchBytes, flushIntervalMs);
+    }
+
+    /**
+     * 距离上次提交超过flushIntervalMs时提交缓存的数据，由sink的处理时间定时器在检查点锁中调用，
+     * 和数据写入同在任务线程中执行
+     * @param now 当前时间
+     * @return 下一次检查的时间，小于等于0时不需要按时间提交
+     */
+    public synchronized long flushByInterval(long now){
+        if(flushIntervalMs <= 0 || batchInterval <= 1) {
+            return 0;
+        }
+
+        if(getNumOfBufferedRows() == 0) {
+            return now + flushIntervalMs;
+        }
+
+        if(now - lastFlushTime >= flushIntervalMs) {
+            flushBatch();
+            return now + flushIntervalMs;
+        }
+
+        return lastFlushTime + flushIntervalMs;
+    }
+
+    /**
+     * 创建检查点前提交缓存的数据，检查点之前收到的数据都要在创建状态前写入
+     */
+    public synchronized void flushBufferedRows(){
+        if(getNumOfBufferedRows() > 0) {
+            flushBatch();
+        }
+    }
+
+    private int getNumOfBufferedRows(){
+        return flushExecutor != null ? bufferRows.size() : rows.size();
+    }
+
+    private void flushBatch(){
+        if(flushExecutor != null) {
+            submitBatch();
+        } else {
+            writeRecordInternal();
+        }
+
+        bytesOfBatch = 0;
+        lastFlushTime = System.currentTimeMillis();
+    }
+
     private void initAccumulatorCollector(){
         accumulatorCollector = new AccumulatorCollector(jobId, monitorUrl, getRuntimeContext(), 2,
                 Arrays.asList(Metrics.NUM_ERRORS,
@@ -279,6 +440,10 @@ public abstract class RichOutputFormat extends org.apache.flink.api.common.io.Ri
         snapshotWriteCounter = context.getLongCounter(Metrics.SNAPSHOT_WRITES);
         bytesWriteCounter = context.getLongCounter(Metrics.WRITE_BYTES);
         durationCounter = context.getLongCounter(Metrics.WRITE_DURATION);
+        batchRecoveryCounter = context.getLongCounter(Metrics.BATCH_RECOVERIES);
+        batchRecoveryRetryCounter = context.getLongCounter(Metrics.BATCH_RECOVERY_RETRIES);
+        batchRecoverySingleWriteCounter = context.getLongCounter(Metrics.BATCH_RECOVERY_SINGLE_WRITES);
+        batchRecoveryDurationCounter = context.getLongCounter(Metrics.BATCH_RECOVERY_DURATION);
 
         outputMetric = new BaseMetric(context);
         outputMetric.addMetric(Metrics.NUM_ERRORS, errCounter);
@@ -290,6 +455,10 @@ public abstract class RichOutputFormat extends org.apache.flink.api.common.io.Ri
         outputMetric.addMetric(Metrics.SNAPSHOT_WRITES, snapshotWriteCounter);
         outputMetric.addMetric(Metrics.WRITE_BYTES, bytesWriteCounter, true);
         outputMetric.addMetric(Metrics.WRITE_DURATION, durationCounter);
+        outputMetric.addMetric(Metrics.BATCH_RECOVERIES, batchRecoveryCounter);
+        outputMetric.addMetric(Metrics.BATCH_RECOVERY_RETRIES, batchRecoveryRetryCounter);
+        outputMetric.addMetric(Metrics.BATCH_RECOVERY_SINGLE_WRITES, batchRecoverySingleWriteCounter);
+        outputMetric.addMetric(Metrics.BATCH_RECOVERY_DURATION, batchRecoveryDurationCounter);
 
         startTime = System.currentTimeMillis();
     }
@@ -385,6 +554,31 @@ public abstract class RichOutputFormat extends org.apache.flink.api.common.io.Ri
 
     protected abstract void writeMultipleRecordsInternal() throws Exception;
 
+    /**
+     * 是否支持由后台线程异步提交批量数据，支持时需要实现{@link #writeMultipleRecordsInternal(List)}
+     */
+    protected boolean supportsAsyncFlush() {
+        return false;
+    }
+
+    /**
+     * 异步提交时在后台线程中写入一批数据。批次通过参数传入，实现中不能访问{@link #rows}、统计指标和脏数据，
+     * 写入失败时抛出异常，由任务线程定位并记录脏数据。任务线程只会在所有批次写入完成后才使用同一个写入器
+     * @param batch 本批数据
+     * @throws Exception 写入失败
+     */
+    protected void writeMultipleRecordsInternal(List<Row> batch) throws Exception {
+        throw new UnsupportedOperationException(getClass().getName() + " does not support async flush");
+    }
+
+    /**
+     * 批量写入失败后是否可以把批次拆开重新按批次写入。重写一部分数据不会产生重复数据、
+     * 并且失败的批次没有生效或已经回滚的写入器才能返回true，否则失败的批次整批逐条写入
+     */
+    protected boolean supportsBatchBisection() {
+        return false;
+    }
+
     protected void writeRecordInternal() {
         try {
             writeMultipleRecords();
@@ -392,36 +586,237 @@ public abstract class RichOutputFormat extends org.apache.flink.api.common.io.Ri
             if(restoreConfig.isRestore()){
                 throw new RuntimeException(e);
             } else {
-                rows.forEach(this::writeSingleRecord);
+                recoverFailedBatch(e);
             }
         }
         rows.clear();
     }
 
+    /**
+     * 批量写入失败后，支持二分的写入器把失败的批次二分后继续按批次重试，直到定位出写入失败的数据，
+     * 只有这些数据通过writeSingleRecord逐条写入并记录脏数据，避免一条脏数据导致整批数据逐条写入。
+     * 不支持二分的写入器仍然把整批数据逐条写入
+     */
+    private void recoverFailedBatch(Exception e) {
+        List<Row> batch = rows;
+        long start = System.currentTimeMillis();
+        batchRecoveryCounter.add(1);
+        LOG.warn("subtask[{}] write batch of {} rows error, start to isolate the error rows, error:{}",
+                taskNumber, batch.size(), ExceptionUtil.getErrorMessage(e));
+
+        try {
+            if (supportsBatchBisection()) {
+                isolateErrorRows(batch, e);
+            } else {
+                writeSingleRecords(batch);
+            }
+        } finally {
+            rows = batch;
+            batchRecoveryDurationCounter.add(System.currentTimeMillis() - start);
+        }
+    }
+
+    private void isolateErrorRows(List<Row> batch, Exception e) {
+        // 驱动已经给出了失败的数据，其余数据已经生效，失败的数据直接逐条写入
+        List<Row> failedRows = getFailedRows(batch, e);
+        if (failedRows != null) {
+            numWriteCounter.add(batch.size() - failedRows.size());
+            writeSingleRecords(failedRows);
+            return;
+        }
+
+        if (batch.size() == 1) {
+            writeSingleRecords(batch);
+            return;
+        }
+
+        int mid = batch.size() >>> 1;
+        retryBatch(batch.subList(0, mid));
+        retryBatch(batch.subList(mid, batch.size()));
+    }
+
+    private void writeSingleRecords(List<Row> batch) {
+        batchRecoverySingleWriteCounter.add(batch.size());
+        batch.forEach(this::writeSingleRecord);
+    }
+
+    private void retryBatch(List<Row> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        batchRecoveryRetryCounter.add(1);
+        rows = batch;
+        try {
+            writeMultipleRecords();
+        } catch (Exception e) {
+            isolateErrorRows(batch, e);
+        }
+    }
+
+    /**
+     * 驱动返回了批次中每条数据的执行结果，并且只有部分数据失败时，直接取出失败的数据。
+     * 只返回了部分结果或者全部失败时无法判断哪些数据已经生效，返回null继续二分重试
+     */
+    private List<Row> getFailedRows(List<Row> batch, Exception e) {
+        Throwable cause = e;
+        while (cause != null && !(cause instanceof BatchUpdateException)) {
+            cause = cause.getCause();
+        }
+
+        if (cause == null) {
+            return null;
+        }
+        BatchUpdateException batchException = (BatchUpdateException) cause;
+
+        int[] updateCounts = batchException.getUpdateCounts();
+        if (updateCounts == null || updateCounts.length != batch.size()) {
+            return null;
+        }
+
+        List<Row> failedRows = new ArrayList<>();
+        for (int i = 0; i < updateCounts.length; i++) {
+            if (updateCounts[i] == Statement.EXECUTE_FAILED) {
+                failedRows.add(batch.get(i));
+            }
+        }
+
+        return failedRows.isEmpty() || failedRows.size() == batch.size() ? null : failedRows;
+    }
+
+    /**
+     * Hand the buffered rows to the background thread, block when there are already maxInFlightBatches batches
+     * waiting to be written. The background thread only writes the batch, the counters and the dirty data
+     * are updated by the task thread in {@link #drainAsyncResults()}.
+     */
+    private void submitBatch() {
+        List<Row> batch = bufferRows;
+        bufferRows = new ArrayList<>(batchInterval);
+
+        try {
+            inFlightBatches.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the in-flight batches", e);
+        }
+
+        try {
+            flushExecutor.execute(() -> {
+                try {
+                    if (asyncFlushError.get() == null) {
+                        writeMultipleRecordsInternal(batch);
+                        asyncWrittenRows.addAndGet(batch.size());
+                    }
+                } catch (Exception e) {
+                    // 断点续传模式下写入失败的批次已经回滚，之后的批次不能再写入
+                    if (restoreConfig.isRestore()) {
+                        asyncFlushError.compareAndSet(null, e);
+                    } else {
+                        failedBatches.add(new FailedBatch(batch, e));
+                    }
+                } catch (Throwable e) {
+                    asyncFlushError.compareAndSet(null, e);
+                } finally {
+                    inFlightBatches.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlightBatches.release();
+            throw new RuntimeException("Submit batch error", e);
+        }
+    }
+
+    /**
+     * Wait until all the batches submitted to the background thread are written,
+     * rethrow the error of the background thread if there is one
+     */
+    public void waitForInFlightBatches() {
+        if (flushExecutor == null) {
+            if (asyncFlushError != null) {
+                checkAsyncFlushError();
+            }
+            return;
+        }
+
+        awaitInFlightBatches();
+        drainAsyncResults();
+    }
+
+    private void awaitInFlightBatches() {
+        try {
+            inFlightBatches.acquire(maxInFlightBatches);
+            inFlightBatches.release(maxInFlightBatches);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the in-flight batches", e);
+        }
+    }
+
+    /**
+     * Runs in the task thread, publish the results of the background thread to the counters.
+     * The failed batches are written again after all the in-flight batches finished,
+     * so the recovery never shares the writer with the background thread.
+     */
+    private void drainAsyncResults() {
+        checkAsyncFlushError();
+
+        if (!failedBatches.isEmpty()) {
+            awaitInFlightBatches();
+            FailedBatch failedBatch;
+            while ((failedBatch = failedBatches.poll()) != null) {
+                rows = failedBatch.rows;
+                try {
+                    recoverFailedBatch(failedBatch.error);
+                } finally {
+                    rows = new ArrayList<>();
+                }
+            }
+        }
+
+        long writtenRows = asyncWrittenRows.getAndSet(0);
+        if (writtenRows > 0 && !restoreConfig.isRestore()) {
+            numWriteCounter.add(writtenRows);
+        }
+    }
+
+    private void checkAsyncFlushError() {
+        Throwable e = asyncFlushError.get();
+        if (e != null) {
+            throw new RuntimeException("Write batch records error in background thread", e);
+        }
+    }
+
     @Override
     public void writeRecord(Row row) throws IOException {
-        Row internalRow = setChannelInfo(row);
+        Row internalRow = ChannelRow.getData(row);
+        long rowSize = rowSizeCalculator.getRowSize(internalRow);
+        lastRowSize = rowSize;
         if(batchInterval <= 1) {
             writeSingleRecord(internalRow);
         } else {
-            rows.add(internalRow);
-            if(rows.size() == batchInterval) {
-                writeRecordInternal();
-            }
+            addToBatch(internalRow, rowSize);
         }
 
         updateDuration();
         if(bytesWriteCounter!=null){
-            bytesWriteCounter.add(row.toString().length());
+            bytesWriteCounter.add(rowSize);
         }
     }
 
-    private Row setChannelInfo(Row row){
-        Row internalRow = new Row(row.getArity() - 1);
-        for (int i = 0; i < internalRow.getArity(); i++) {
-            internalRow.setField(i, row.getField(i));
+    private synchronized void addToBatch(Row row, long rowSize) {
+        if(flushExecutor != null) {
+            drainAsyncResults();
+            bufferRows.add(row);
+        } else {
+            rows.add(row);
+        }
+
+        bytesOfBatch += rowSize;
+        if(getNumOfBufferedRows() >= batchInterval
+                || (batchBytes > 0 && bytesOfBatch >= batchBytes)
+                || (flushIntervalMs > 0 && System.currentTimeMillis() - lastFlushTime >= flushIntervalMs)) {
+            flushBatch();
         }
-        return internalRow;
     }
 
     @Override
@@ -429,8 +824,17 @@ public abstract class RichOutputFormat extends org.apache.flink.api.common.io.Ri
         LOG.info("subtask[" + taskNumber + "] close()");
 
         try{
-            if(rows.size() != 0) {
-                writeRecordInternal();
+            synchronized (this) {
+                if(flushExecutor != null) {
+                    if(!bufferRows.isEmpty()) {
+                        submitBatch();
+                    }
+                    waitForInFlightBatches();
+                }
+
+                if(rows.size() != 0) {
+                    writeRecordInternal();
+                }
             }
 
             if(durationCounter != null){
@@ -442,6 +846,10 @@ public abstract class RichOutputFormat extends org.apache.flink.api.common.io.Ri
                 waitWhile("#3");
             }
         }finally {
+            if(flushExecutor != null) {
+                flushExecutor.shutdownNow();
+            }
+
             try{
                 closeInternal();
                 if(needWaitAfterCloseInternal()) {
@@ -547,6 +955,20 @@ public abstract class RichOutputFormat extends org.apache.flink.api.common.io.Ri
         this.formatState = formatState;
     }
 
+    /**
+     * 创建检查点时在{@link #getFormatState()}之前调用
+     * @param checkpointId 检查点id
+     */
+    public void prepareSnapshot(long checkpointId) {
+    }
+
+    /**
+     * 检查点完成后调用，此时该检查点及之前提交的数据在任务恢复时都不会再被回滚
+     * @param checkpointId 检查点id
+     */
+    public void notifyCheckpointComplete(long checkpointId) {
+    }
+
     protected boolean needWaitBeforeWriteRecords() {
         return false;
     }
@@ -589,7 +1011,36 @@ public abstract class RichOutputFormat extends org.apache.flink.api.common.io.Ri
         return batchInterval;
     }
 
+    public void setBatchBytes(long batchBytes) {
+        this.batchBytes = batchBytes;
+    }
+
+    public void setFlushIntervalMs(long flushIntervalMs) {
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    public void setAsyncFlush(boolean asyncFlush, int maxInFlightBatches) {
+        this.asyncFlush = asyncFlush;
+        this.maxInFlightBatches = maxInFlightBatches > 0 ? maxInFlightBatches : DEFAULT_MAX_IN_FLIGHT_BATCHES;
+    }
+
+    public void setRowSizeSampleInterval(int rowSizeSampleInterval) {
+        this.rowSizeSampleInterval = rowSizeSampleInterval;
+    }
+
     public RestoreConfig getRestoreConfig() {
         return restoreConfig;
     }
+
+    private static class FailedBatch {
+
+        private final List<Row> rows;
+
+        private final Exception error;
+
+        FailedBatch(List<Row> rows, Exception error) {
+            this.rows = rows;
+            this.error = error;
+        }
+    }
 }
@@ -63,6 +63,18 @@ public abstract class RichOutputFormatBuilder {
         format.batchInterval = batchInterval;
     }
 
+    public void setBatchBytes(long batchBytes) {
+        format.setBatchBytes(batchBytes);
+    }
+
+    public void setFlushIntervalMs(long flushIntervalMs) {
+        format.setFlushIntervalMs(flushIntervalMs);
+    }
+
+    public void setAsyncFlush(boolean asyncFlush, int maxInFlightBatches) {
+        format.setAsyncFlush(asyncFlush, maxInFlightBatches);
+    }
+
     public void setRestoreConfig(RestoreConfig restoreConfig){
         format.restoreConfig = restoreConfig;
     }
@@ -21,6 +21,8 @@ package com.dtstack.flinkx.reader;
 import com.dtstack.flinkx.config.DataTransferConfig;
 import com.dtstack.flinkx.config.RestoreConfig;
 import com.dtstack.flinkx.config.DirtyConfig;
+import com.dtstack.flinkx.inputformat.RichInputFormat;
+import com.dtstack.flinkx.types.ChannelRowTypeInfo;
 import org.apache.flink.api.common.io.InputFormat;
 import org.apache.flink.api.common.typeinfo.TypeInformation;
 import org.apache.flink.api.java.typeutils.TypeExtractor;
@@ -48,6 +50,10 @@ public abstract class DataReader {
 
     protected long bytes = Long.MAX_VALUE;
 
+    protected int rowSizeSampleInterval;
+
+    protected boolean appendChannelField;
+
     protected String monitorUrls;
 
     protected RestoreConfig restoreConfig;
@@ -81,6 +87,8 @@ public abstract class DataReader {
         this.env = env;
         this.numPartitions = config.getJob().getSetting().getSpeed().getChannel();
         this.bytes = config.getJob().getSetting().getSpeed().getBytes();
+        this.rowSizeSampleInterval = config.getJob().getSetting().getSpeed().getRowSizeSampleInterval();
+        this.appendChannelField = config.getJob().getSetting().getSpeed().isAppendChannelField();
         this.monitorUrls = config.getMonitorUrls();
         this.restoreConfig = config.getJob().getSetting().getRestoreConfig();
         this.exceptionIndex = config.getJob().getContent().get(0).getReader().getParameter().getLongVal("exceptionIndex",0);
@@ -113,7 +121,15 @@ public abstract class DataReader {
     protected DataStream<Row> createInput(InputFormat inputFormat, String sourceName) {
         Preconditions.checkNotNull(sourceName);
         Preconditions.checkNotNull(inputFormat);
-        TypeInformation typeInfo = TypeExtractor.getInputFormatTypes(inputFormat);
+        TypeInformation typeInfo;
+        if (inputFormat instanceof RichInputFormat) {
+            ((RichInputFormat) inputFormat).setRowSizeSampleInterval(rowSizeSampleInterval);
+            ((RichInputFormat) inputFormat).setAppendChannelField(appendChannelField);
+            // 不使用GenericTypeInfo，避免Kryo为每条数据写入类名
+            typeInfo = new ChannelRowTypeInfo();
+        } else {
+            typeInfo = TypeExtractor.getInputFormatTypes(inputFormat);
+        }
         DtInputFormatSourceFunction function = new DtInputFormatSourceFunction(inputFormat, typeInfo);
         return env.addSource(function, sourceName, typeInfo);
     }
@@ -0,0 +1,227 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.flinkx.reader;
+
+import com.dtstack.flinkx.constants.Metrics;
+import org.apache.flink.metrics.Gauge;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.types.Row;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Bounded queue used to hand the rows from the consumer thread of a streaming reader to the task thread.
+ *
+ * The producer blocks when the queue is full, which gives back pressure to the consumer thread.
+ * The task thread drains up to drainBatchSize rows at a time into a local buffer,
+ * so it does not need to contend with the producer for every row.
+ *
+ * The producer can attach a position to a row, or put a position after a group of rows. The position is
+ * handed to the listener only after the task thread has emitted the row, which is when it asks for the next one,
+ * so a position that is checkpointed never runs ahead of the rows still buffered in the queue.
+ *
+ * Company: www.dtstack.com
+ */
+public class RowHandoffQueue {
+
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    public static final int DEFAULT_DRAIN_BATCH_SIZE = 256;
+
+    private final BlockingQueue<Element> queue;
+
+    private final int capacity;
+
+    private final int drainBatchSize;
+
+    /** only accessed by the task thread */
+    private final ArrayDeque<Element> drainedElements;
+
+    /** position of the row returned last time, only accessed by the task thread */
+    private Object pendingPosition;
+
+    private Consumer<Object> positionListener;
+
+    private final AtomicLong putWaitNanos = new AtomicLong();
+
+    private final AtomicLong takeWaitNanos = new AtomicLong();
+
+    public RowHandoffQueue(int capacity, int drainBatchSize) {
+        this.capacity = capacity > 0 ? capacity : DEFAULT_CAPACITY;
+        this.drainBatchSize = drainBatchSize > 0 ? Math.min(drainBatchSize, this.capacity) : Math.min(DEFAULT_DRAIN_BATCH_SIZE, this.capacity);
+        this.queue = new ArrayBlockingQueue<>(this.capacity);
+        this.drainedElements = new ArrayDeque<>(this.drainBatchSize);
+    }
+
+    /**
+     * Set the listener called by the task thread with the positions of the emitted rows
+     */
+    public void setPositionListener(Consumer<Object> positionListener) {
+        this.positionListener = positionListener;
+    }
+
+    /**
+     * Called by the consumer thread, blocks while the queue is full
+     */
+    public void put(Row row) throws InterruptedException {
+        put(new Element(row, null));
+    }
+
+    /**
+     * Called by the consumer thread, the position is reported after the row is emitted
+     */
+    public void put(Row row, Object position) throws InterruptedException {
+        put(new Element(row, position));
+    }
+
+    /**
+     * Called by the consumer thread, the position is reported after all the rows put before it are emitted
+     */
+    public void putPosition(Object position) throws InterruptedException {
+        put(new Element(null, position));
+    }
+
+    private void put(Element element) throws InterruptedException {
+        if (queue.offer(element)) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        queue.put(element);
+        putWaitNanos.addAndGet(System.nanoTime() - start);
+    }
+
+    /**
+     * Called by the task thread, blocks while there is no row
+     */
+    public Row take() throws InterruptedException {
+        reportPosition(pendingPosition);
+        pendingPosition = null;
+
+        while (true) {
+            Element element = drainedElements.poll();
+            if (element == null) {
+                element = queue.poll();
+                if (element == null) {
+                    long start = System.nanoTime();
+                    element = queue.take();
+                    takeWaitNanos.addAndGet(System.nanoTime() - start);
+                }
+                queue.drainTo(drainedElements, drainBatchSize - 1);
+            }
+
+            if (element.row != null) {
+                pendingPosition = element.position;
+                return element.row;
+            }
+            reportPosition(element.position);
+        }
+    }
+
+    /**
+     * Called by the task thread, returns null if there is no row within the timeout
+     */
+    public Row poll(long timeout, TimeUnit unit) throws InterruptedException {
+        reportPosition(pendingPosition);
+        pendingPosition = null;
+
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (true) {
+            Element element = drainedElements.poll();
+            if (element == null) {
+                element = queue.poll();
+                if (element == null) {
+                    long start = System.nanoTime();
+                    element = queue.poll(deadline - start, TimeUnit.NANOSECONDS);
+                    takeWaitNanos.addAndGet(System.nanoTime() - start);
+                    if (element == null) {
+                        return null;
+                    }
+                }
+                queue.drainTo(drainedElements, drainBatchSize - 1);
+            }
+
+            if (element.row != null) {
+                pendingPosition = element.position;
+                return element.row;
+            }
+            reportPosition(element.position);
+        }
+    }
+
+    private void reportPosition(Object position) {
+        if (position != null && positionListener != null) {
+            positionListener.accept(position);
+        }
+    }
+
+    public int size() {
+        return queue.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * The consumer should stop fetching when the queue is above the high watermark
+     */
+    public boolean isAboveHighWatermark() {
+        return queue.size() >= capacity * 3 / 4;
+    }
+
+    /**
+     * The consumer can resume fetching when the queue is below the low watermark
+     */
+    public boolean isBelowLowWatermark() {
+        return queue.size() <= capacity / 4;
+    }
+
+    public long getPutWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(putWaitNanos.get());
+    }
+
+    public long getTakeWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(takeWaitNanos.get());
+    }
+
+    public void registerMetrics(MetricGroup metricGroup) {
+        MetricGroup group = metricGroup.addGroup(Metrics.METRIC_GROUP_KEY_FLINKX, Metrics.METRIC_GROUP_VALUE_INPUT);
+        group.gauge(Metrics.HANDOFF_QUEUE_SIZE, (Gauge<Integer>) this::size);
+        group.gauge(Metrics.HANDOFF_PUT_WAIT, (Gauge<Long>) this::getPutWaitMillis);
+        group.gauge(Metrics.HANDOFF_TAKE_WAIT, (Gauge<Long>) this::getTakeWaitMillis);
+    }
+
+    private static class Element {
+
+        private final Row row;
+
+        private final Object position;
+
+        Element(Row row, Object position) {
+            this.row = row;
+            this.position = position;
+        }
+    }
+}
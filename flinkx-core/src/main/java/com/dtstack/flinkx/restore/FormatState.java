@@ -47,6 +47,16 @@ public class FormatState implements Serializable {
 
     private int fileIndex;
 
+    /**
+     * the states of the splits, key is the split number
+     */
+    private Map<Integer, SplitState> splitStates;
+
+    /**
+     * the plan of the splits that the split states refer to
+     */
+    private Object splitPlan;
+
     public FormatState() {
     }
 
@@ -71,6 +81,22 @@ public class FormatState implements Serializable {
         this.fileIndex = fileIndex;
     }
 
+    public Map<Integer, SplitState> getSplitStates() {
+        return splitStates;
+    }
+
+    public void setSplitStates(Map<Integer, SplitState> splitStates) {
+        this.splitStates = splitStates;
+    }
+
+    public Object getSplitPlan() {
+        return splitPlan;
+    }
+
+    public void setSplitPlan(Object splitPlan) {
+        this.splitPlan = splitPlan;
+    }
+
     public long getNumberRead() {
         return numberRead;
     }
@@ -128,6 +154,7 @@ public class FormatState implements Serializable {
                 ", numberWrite=" + numberWrite +
                 ", jobId='" + jobId + '\'' +
                 ", fileIndex=" + fileIndex +
+                ", splitStates=" + splitStates +
                 '}';
     }
 }
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.flinkx.restore;
+
+import java.io.Serializable;
+
+/**
+ * The restore state of one input split, used by the formats whose splits are not bound to a channel
+ *
+ * Company: www.dtstack.com
+ */
+public class SplitState implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** 分片中最后读取的数据的位置 */
+    private Object location;
+
+    /** 分片是否已经读取完成 */
+    private boolean finished;
+
+    /** 分片每被一个通道重新读取一次加1，恢复时同一个分片以版本号最大的状态为准 */
+    private int version;
+
+    public SplitState() {
+    }
+
+    public SplitState(Object location, boolean finished, int version) {
+        this.location = location;
+        this.finished = finished;
+        this.version = version;
+    }
+
+    /**
+     * Merge the states of the same split from different channels,
+     * a finished split is never read again, otherwise the state with greater version wins
+     */
+    public static SplitState merge(SplitState state, SplitState other) {
+        if (state == null) {
+            return other;
+        }
+
+        if (other == null) {
+            return state;
+        }
+
+        if (state.isFinished() != other.isFinished()) {
+            return state.isFinished() ? state : other;
+        }
+
+        return state.getVersion() >= other.getVersion() ? state : other;
+    }
+
+    public Object getLocation() {
+        return location;
+    }
+
+    public void setLocation(Object location) {
+        this.location = location;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public void setFinished(boolean finished) {
+        this.finished = finished;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
+    @Override
+    public String toString() {
+        return "SplitState{" +
+                "location=" + location +
+                ", finished=" + finished +
+                ", version=" + version +
+                '}';
+    }
+}
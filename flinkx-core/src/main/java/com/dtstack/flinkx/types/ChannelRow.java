@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.flinkx.types;
+
+import org.apache.flink.types.Row;
+
+/**
+ * A row that carries the index of the reader channel out of band, so the reader does not need to append
+ * the channel to the fields and the writer does not need to strip it again.
+ * The fields are delegated to the wrapped row without copying.
+ *
+ * Company: www.dtstack.com
+ */
+public class ChannelRow extends Row {
+
+    private static final long serialVersionUID = 1L;
+
+    private Row row;
+
+    private int channel;
+
+    public ChannelRow(Row row, int channel) {
+        super(0);
+        this.row = row;
+        this.channel = channel;
+    }
+
+    public Row getRow() {
+        return row;
+    }
+
+    public int getChannel() {
+        return channel;
+    }
+
+    @Override
+    public int getArity() {
+        return row.getArity();
+    }
+
+    @Override
+    public Object getField(int pos) {
+        return row.getField(pos);
+    }
+
+    @Override
+    public void setField(int pos, Object value) {
+        row.setField(pos, value);
+    }
+
+    @Override
+    public String toString() {
+        return row.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        ChannelRow that = (ChannelRow) o;
+        return channel == that.channel && row.equals(that.row);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * row.hashCode() + channel;
+    }
+
+    /**
+     * Get the index of the reader channel the row comes from
+     * @param row the row emitted by the reader
+     * @return the index of the channel
+     */
+    public static int getChannel(Row row) {
+        if (row instanceof ChannelRow) {
+            return ((ChannelRow) row).getChannel();
+        }
+
+        return (Integer) row.getField(row.getArity() - 1);
+    }
+
+    /**
+     * Get the data of the row emitted by the reader without the channel information
+     * @param row the row emitted by the reader
+     * @return the row contains the data fields only
+     */
+    public static Row getData(Row row) {
+        if (row instanceof ChannelRow) {
+            return ((ChannelRow) row).getRow();
+        }
+
+        Row internalRow = new Row(row.getArity() - 1);
+        for (int i = 0; i < internalRow.getArity(); i++) {
+            internalRow.setField(i, row.getField(i));
+        }
+        return internalRow;
+    }
+}
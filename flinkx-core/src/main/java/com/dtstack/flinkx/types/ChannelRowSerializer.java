@@ -0,0 +1,334 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dtstack.flinkx.types;
+
+import org.apache.flink.api.common.typeutils.CompositeTypeSerializerSnapshot;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.common.typeutils.TypeSerializerSnapshot;
+import org.apache.flink.api.common.typeutils.base.BigDecSerializer;
+import org.apache.flink.api.common.typeutils.base.SqlDateSerializer;
+import org.apache.flink.api.common.typeutils.base.SqlTimestampSerializer;
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.types.Row;
+import org.apache.flink.types.StringValue;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.Arrays;
+
+/**
+ * Serializer for the rows emitted by the readers. The channel of a {@link ChannelRow} is written as a plain int
+ * and the common field types are written with a one byte tag, so the class name of the row and of these fields
+ * is not written for every record. Other field types fall back to the given serializer, usually Kryo.
+ *
+ * Company: www.dtstack.com
+ */
+public class ChannelRowSerializer extends TypeSerializer<Row> {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final byte ROW = 0;
+    private static final byte CHANNEL_ROW = 1;
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte INT = 2;
+    private static final byte LONG = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte FLOAT = 5;
+    private static final byte BOOLEAN = 6;
+    private static final byte DECIMAL = 7;
+    private static final byte TIMESTAMP = 8;
+    private static final byte DATE = 9;
+    private static final byte BYTES = 10;
+    private static final byte GENERIC = 11;
+
+    private final TypeSerializer<Object> fieldSerializer;
+
+    public ChannelRowSerializer(TypeSerializer<Object> fieldSerializer) {
+        this.fieldSerializer = fieldSerializer;
+    }
+
+    TypeSerializer<Object> getFieldSerializer() {
+        return fieldSerializer;
+    }
+
+    @Override
+    public boolean isImmutableType() {
+        return false;
+    }
+
+    @Override
+    public TypeSerializer<Row> duplicate() {
+        TypeSerializer<Object> duplicate = fieldSerializer.duplicate();
+        return duplicate == fieldSerializer ? this : new ChannelRowSerializer(duplicate);
+    }
+
+    @Override
+    public Row createInstance() {
+        return new Row(0);
+    }
+
+    @Override
+    public Row copy(Row from) {
+        if (from == null) {
+            return null;
+        }
+
+        if (from instanceof ChannelRow) {
+            ChannelRow channelRow = (ChannelRow) from;
+            return new ChannelRow(copyFields(channelRow.getRow()), channelRow.getChannel());
+        }
+
+        return copyFields(from);
+    }
+
+    @Override
+    public Row copy(Row from, Row reuse) {
+        return copy(from);
+    }
+
+    private Row copyFields(Row from) {
+        Row row = new Row(from.getArity());
+        for (int i = 0; i < from.getArity(); i++) {
+            row.setField(i, copyField(from.getField(i)));
+        }
+        return row;
+    }
+
+    private Object copyField(Object value) {
+        if (value instanceof Timestamp) {
+            return SqlTimestampSerializer.INSTANCE.copy((Timestamp) value);
+        } else if (value instanceof Date) {
+            return SqlDateSerializer.INSTANCE.copy((Date) value);
+        } else if (value instanceof byte[]) {
+            return Arrays.copyOf((byte[]) value, ((byte[]) value).length);
+        } else if (value == null || getTag(value) != GENERIC) {
+            return value;
+        }
+
+        return fieldSerializer.copy(value);
+    }
+
+    @Override
+    public int getLength() {
+        return -1;
+    }
+
+    @Override
+    public void serialize(Row record, DataOutputView target) throws IOException {
+        Row row = record;
+        if (record instanceof ChannelRow) {
+            target.writeByte(CHANNEL_ROW);
+            target.writeInt(((ChannelRow) record).getChannel());
+            row = ((ChannelRow) record).getRow();
+        } else {
+            target.writeByte(ROW);
+        }
+
+        target.writeInt(row.getArity());
+        for (int i = 0; i < row.getArity(); i++) {
+            serializeField(row.getField(i), target);
+        }
+    }
+
+    private void serializeField(Object value, DataOutputView target) throws IOException {
+        byte tag = getTag(value);
+        target.writeByte(tag);
+        switch (tag) {
+            case NULL:
+                break;
+            case STRING:
+                StringValue.writeString((String) value, target);
+                break;
+            case INT:
+                target.writeInt((Integer) value);
+                break;
+            case LONG:
+                target.writeLong((Long) value);
+                break;
+            case DOUBLE:
+                target.writeDouble((Double) value);
+                break;
+            case FLOAT:
+                target.writeFloat((Float) value);
+                break;
+            case BOOLEAN:
+                target.writeBoolean((Boolean) value);
+                break;
+            case DECIMAL:
+                BigDecSerializer.INSTANCE.serialize((BigDecimal) value, target);
+                break;
+            case TIMESTAMP:
+                SqlTimestampSerializer.INSTANCE.serialize((Timestamp) value, target);
+                break;
+            case DATE:
+                SqlDateSerializer.INSTANCE.serialize((Date) value, target);
+                break;
+            case BYTES:
+                byte[] bytes = (byte[]) value;
+                target.writeInt(bytes.length);
+                target.write(bytes);
+                break;
+            default:
+                fieldSerializer.serialize(value, target);
+                break;
+        }
+    }
+
+    private static byte getTag(Object value) {
+        if (value == null) {
+            return NULL;
+        }
+
+        // match the exact class only, subclasses may carry extra state that the generic serializer keeps
+        Class<?> clazz = value.getClass();
+        if (clazz == String.class) {
+            return STRING;
+        } else if (clazz == Integer.class) {
+            return INT;
+        } else if (clazz == Long.class) {
+            return LONG;
+        } else if (clazz == Double.class) {
+            return DOUBLE;
+        } else if (clazz == Float.class) {
+            return FLOAT;
+        } else if (clazz == Boolean.class) {
+            return BOOLEAN;
+        } else if (clazz == BigDecimal.class) {
+            return DECIMAL;
+        } else if (clazz == Timestamp.class) {
+            return TIMESTAMP;
+        } else if (clazz == Date.class) {
+            return DATE;
+        } else if (clazz == byte[].class) {
+            return BYTES;
+        }
+
+        return GENERIC;
+    }
+
+    @Override
+    public Row deserialize(DataInputView source) throws IOException {
+        byte type = source.readByte();
+        int channel = type == CHANNEL_ROW ? source.readInt() : 0;
+
+        Row row = new Row(source.readInt());
+        for (int i = 0; i < row.getArity(); i++) {
+            row.setField(i, deserializeField(source));
+        }
+
+        return type == CHANNEL_ROW ? new ChannelRow(row, channel) : row;
+    }
+
+    private Object deserializeField(DataInputView source) throws IOException {
+        byte tag = source.readByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case STRING:
+                return StringValue.readString(source);
+            case INT:
+                return source.readInt();
+            case LONG:
+                return source.readLong();
+            case DOUBLE:
+                return source.readDouble();
+            case FLOAT:
+                return source.readFloat();
+            case BOOLEAN:
+                return source.readBoolean();
+            case DECIMAL:
+                return BigDecSerializer.readBigDecimal(source);
+            case TIMESTAMP:
+                return SqlTimestampSerializer.INSTANCE.deserialize(source);
+            case DATE:
+                return SqlDateSerializer.INSTANCE.deserialize(source);
+            case BYTES:
+                byte[] bytes = new byte[source.readInt()];
+                source.readFully(bytes);
+                return bytes;
+            case GENERIC:
+                return fieldSerializer.deserialize(source);
+            default:
+                throw new IOException("Unknown field tag: " + tag);
+        }
+    }
+
+    @Override
+    public Row deserialize(Row reuse, DataInputView source) throws IOException {
+        return deserialize(source);
+    }
+
+    @Override
+    public void copy(DataInputView source, DataOutputView target) throws IOException {
+        serialize(deserialize(source), target);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof ChannelRowSerializer && fieldSerializer.equals(((ChannelRowSerializer) obj).fieldSerializer);
+    }
+
+    @Override
+    public int hashCode() {
+        return fieldSerializer.hashCode();
+    }
+
+    @Override
+    public TypeSerializerSnapshot<Row> snapshotConfiguration() {
+        return new ChannelRowSerializerSnapshot(this);
+    }
+
+    /**
+     * Snapshot of the serializer, only the serializer of the generic fields is nested
+     */
+    public static final class ChannelRowSerializerSnapshot extends CompositeTypeSerializerSnapshot<Row, ChannelRowSerializer> {
+
+        private static final int VERSION = 1;
+
+        public ChannelRowSerializerSnapshot() {
+            super(ChannelRowSerializer.class);
+        }
+
+        ChannelRowSerializerSnapshot(ChannelRowSerializer serializer) {
+            super(serializer);
+        }
+
+        @Override
+        protected int getCurrentOuterSnapshotVersion() {
+            return VERSION;
+        }
+
+        @Override
+        protected TypeSerializer<?>[] getNestedSerializers(ChannelRowSerializer outerSerializer) {
+            return new TypeSerializer<?>[]{outerSerializer.getFieldSerializer()};
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected ChannelRowSerializer createOuterSerializerWithNestedSerializers(TypeSerializer<?>[] nestedSerializers) {
+            return new ChannelRowSerializer((TypeSerializer<Object>) nestedSerializers[0]);
+        }
+    }
+}
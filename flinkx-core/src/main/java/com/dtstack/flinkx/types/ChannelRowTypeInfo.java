@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dtstack.flinkx.types;
+
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.java.typeutils.runtime.kryo.KryoSerializer;
+import org.apache.flink.types.Row;
+
+/**
+ * Type information of the rows emitted by the readers, the fields have no fixed types so
+ * only the uncommon field types are serialized by Kryo.
+ *
+ * Company: www.dtstack.com
+ */
+public class ChannelRowTypeInfo extends TypeInformation<Row> {
+
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public boolean isBasicType() {
+        return false;
+    }
+
+    @Override
+    public boolean isTupleType() {
+        return false;
+    }
+
+    @Override
+    public int getArity() {
+        return 1;
+    }
+
+    @Override
+    public int getTotalFields() {
+        return 1;
+    }
+
+    @Override
+    public Class<Row> getTypeClass() {
+        return Row.class;
+    }
+
+    @Override
+    public boolean isKeyType() {
+        return false;
+    }
+
+    @Override
+    public TypeSerializer<Row> createSerializer(ExecutionConfig config) {
+        return new ChannelRowSerializer(new KryoSerializer<>(Object.class, config));
+    }
+
+    @Override
+    public String toString() {
+        return "ChannelRow";
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof ChannelRowTypeInfo && ((ChannelRowTypeInfo) obj).canEqual(this);
+    }
+
+    @Override
+    public int hashCode() {
+        return ChannelRowTypeInfo.class.hashCode();
+    }
+
+    @Override
+    public boolean canEqual(Object obj) {
+        return obj instanceof ChannelRowTypeInfo;
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.flinkx.util;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+/**
+ * 按分隔符切分一行文本，结果和{@link String#split(String)}一致
+ *
+ * 分隔符不含正则元字符时直接按字面值查找，只记录每个字段的起止位置，
+ * 调用{@link #getField(int)}时才生成对应字段的字符串，未用到的字段不会被解码；
+ * 对于UTF-8等单字节兼容的编码可以直接在字节数组上切分，不需要先把整行解码成字符串。
+ * 分隔符是正则表达式时退化为预编译的{@link Pattern#split(CharSequence)}
+ *
+ * Company: www.dtstack.com
+ */
+public class FieldTokenizer {
+
+    private static final String REGEX_META_CHARS = ".$|()[{^?*+\\";
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final String delimiter;
+
+    private final Pattern pattern;
+
+    private byte[] delimiterBytes;
+
+    private Charset delimiterCharset;
+
+    private String line;
+
+    private byte[] bytes;
+
+    private Charset charset;
+
+    private String[] splitFields;
+
+    private int[] starts = new int[INITIAL_CAPACITY];
+
+    private int[] ends = new int[INITIAL_CAPACITY];
+
+    private String[] fields = new String[INITIAL_CAPACITY];
+
+    private int fieldCount;
+
+    public FieldTokenizer(String delimiter) {
+        if (delimiter == null) {
+            throw new IllegalArgumentException("delimiter can not be null");
+        }
+
+        this.delimiter = delimiter;
+        this.pattern = isLiteral(delimiter) ? null : Pattern.compile(delimiter);
+    }
+
+    private static boolean isLiteral(String delimiter) {
+        if (delimiter.isEmpty()) {
+            return false;
+        }
+
+        for (int i = 0; i < delimiter.length(); i++) {
+            if (REGEX_META_CHARS.indexOf(delimiter.charAt(i)) != -1) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * 切分一行字符串
+     * @param line 一行数据
+     */
+    public void tokenize(String line) {
+        reset();
+        this.line = line;
+
+        if (pattern != null) {
+            splitFields = pattern.split(line);
+            fieldCount = splitFields.length;
+            return;
+        }
+
+        boolean matched = false;
+        int from = 0;
+        int pos;
+        while ((pos = line.indexOf(delimiter, from)) != -1) {
+            addField(from, pos);
+            from = pos + delimiter.length();
+            matched = true;
+        }
+        addField(from, line.length());
+
+        if (matched) {
+            removeTrailingEmptyFields();
+        }
+    }
+
+    /**
+     * 切分字节数组中的一行数据，编码不是UTF-8、US-ASCII或ISO-8859-1时先解码再切分
+     * @param bytes 数据
+     * @param offset 起始位置
+     * @param length 长度
+     * @param charset 编码
+     */
+    public void tokenize(byte[] bytes, int offset, int length, Charset charset) {
+        if (pattern != null || !isAsciiCompatible(charset)) {
+            tokenize(new String(bytes, offset, length, charset));
+            return;
+        }
+
+        reset();
+        this.bytes = bytes;
+        this.charset = charset;
+
+        if (!charset.equals(delimiterCharset)) {
+            delimiterBytes = delimiter.getBytes(charset);
+            delimiterCharset = charset;
+        }
+
+        byte first = delimiterBytes[0];
+        int delimiterLength = delimiterBytes.length;
+        int end = offset + length;
+        int from = offset;
+        int i = offset;
+        boolean matched = false;
+        while (i <= end - delimiterLength) {
+            if (bytes[i] == first && matchesDelimiter(bytes, i)) {
+                addField(from, i);
+                i += delimiterLength;
+                from = i;
+                matched = true;
+            } else {
+                i++;
+            }
+        }
+        addField(from, end);
+
+        if (matched) {
+            removeTrailingEmptyFields();
+        }
+    }
+
+    /**
+     * 这些编码中多字节字符的每个字节都不会和ASCII字符混淆，可以直接在字节上查找分隔符
+     */
+    private static boolean isAsciiCompatible(Charset charset) {
+        return StandardCharsets.UTF_8.equals(charset)
+                || StandardCharsets.US_ASCII.equals(charset)
+                || StandardCharsets.ISO_8859_1.equals(charset);
+    }
+
+    private boolean matchesDelimiter(byte[] bytes, int pos) {
+        for (int j = 1; j < delimiterBytes.length; j++) {
+            if (bytes[pos + j] != delimiterBytes[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return 字段个数，和String.split一样不包含末尾的空字段
+     */
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * @param index 字段下标
+     * @return 字段值，第一次访问时才生成字符串
+     */
+    public String getField(int index) {
+        if (index < 0 || index >= fieldCount) {
+            throw new IndexOutOfBoundsException("Field index: " + index + ", field count: " + fieldCount);
+        }
+
+        if (splitFields != null) {
+            return splitFields[index];
+        }
+
+        String field = fields[index];
+        if (field == null) {
+            if (line != null) {
+                field = line.substring(starts[index], ends[index]);
+            } else {
+                field = new String(bytes, starts[index], ends[index] - starts[index], charset);
+            }
+            fields[index] = field;
+        }
+
+        return field;
+    }
+
+    private void addField(int start, int end) {
+        if (fieldCount == starts.length) {
+            int capacity = fieldCount * 2;
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            fields = Arrays.copyOf(fields, capacity);
+        }
+
+        starts[fieldCount] = start;
+        ends[fieldCount] = end;
+        fields[fieldCount] = null;
+        fieldCount++;
+    }
+
+    private void removeTrailingEmptyFields() {
+        while (fieldCount > 0 && starts[fieldCount - 1] == ends[fieldCount - 1]) {
+            fieldCount--;
+        }
+    }
+
+    private void reset() {
+        line = null;
+        bytes = null;
+        splitFields = null;
+        fieldCount = 0;
+    }
+}
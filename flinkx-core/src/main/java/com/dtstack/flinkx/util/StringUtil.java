@@ -75,7 +75,17 @@ public class StringUtil {
             return str;
         }
 
-        ColumnType columnType = ColumnType.getType(type.toUpperCase());
+        return string2col(str, ColumnType.getType(type.toUpperCase()), customTimeFormat);
+    }
+
+    /**
+     * 按已解析好的字段类型转换字符串，用于预先确定了字段类型的场景，避免每次解析类型名称
+     */
+    public static Object string2col(String str, ColumnType columnType, SimpleDateFormat customTimeFormat) {
+        if(str == null || str.length() == 0 || columnType == null){
+            return str;
+        }
+
         Object ret;
         switch(columnType) {
             case TINYINT:
@@ -21,6 +21,8 @@ package com.dtstack.flinkx.writer;
 import com.dtstack.flinkx.config.DataTransferConfig;
 import com.dtstack.flinkx.config.DirtyConfig;
 import com.dtstack.flinkx.config.RestoreConfig;
+import com.dtstack.flinkx.config.WriterConfig;
+import com.dtstack.flinkx.outputformat.RichOutputFormat;
 import com.dtstack.flinkx.reader.MetaColumn;
 import org.apache.commons.lang.StringUtils;
 import org.apache.flink.api.common.io.OutputFormat;
@@ -56,6 +58,16 @@ public abstract class DataWriter {
 
     protected RestoreConfig restoreConfig;
 
+    protected int rowSizeSampleInterval;
+
+    protected long batchBytes;
+
+    protected long flushIntervalMs;
+
+    protected boolean asyncFlush;
+
+    protected int maxInFlightBatches;
+
     protected List<String> srcCols = new ArrayList<>();
 
     public List<String> getSrcCols() {
@@ -69,6 +81,14 @@ public abstract class DataWriter {
     public DataWriter(DataTransferConfig config) {
         this.monitorUrls = config.getMonitorUrls();
         this.restoreConfig = config.getJob().getSetting().getRestoreConfig();
+        this.rowSizeSampleInterval = config.getJob().getSetting().getSpeed().getRowSizeSampleInterval();
+
+        WriterConfig.ParameterConfig parameterConfig = config.getJob().getContent().get(0).getWriter().getParameter();
+        this.batchBytes = parameterConfig.getLongVal(WriterConfig.ParameterConfig.KEY_BATCH_BYTES, 0);
+        this.flushIntervalMs = parameterConfig.getLongVal(WriterConfig.ParameterConfig.KEY_FLUSH_INTERVAL_MS, 0);
+        this.asyncFlush = parameterConfig.getBooleanVal(WriterConfig.ParameterConfig.KEY_ASYNC_FLUSH, false);
+        this.maxInFlightBatches = parameterConfig.getIntVal(WriterConfig.ParameterConfig.KEY_MAX_IN_FLIGHT_BATCHES,
+                RichOutputFormat.DEFAULT_MAX_IN_FLIGHT_BATCHES);
         this.errors = config.getJob().getSetting().getErrorLimit().getRecord();
         Double percentage = config.getJob().getSetting().getErrorLimit().getPercentage();
         if(percentage != null){
@@ -155,6 +175,12 @@ public abstract class DataWriter {
         Preconditions.checkNotNull(dataSet);
         Preconditions.checkNotNull(sinkName);
         Preconditions.checkNotNull(outputFormat);
+        if (outputFormat instanceof RichOutputFormat) {
+            ((RichOutputFormat) outputFormat).setRowSizeSampleInterval(rowSizeSampleInterval);
+            ((RichOutputFormat) outputFormat).setBatchBytes(batchBytes);
+            ((RichOutputFormat) outputFormat).setFlushIntervalMs(flushIntervalMs);
+            ((RichOutputFormat) outputFormat).setAsyncFlush(asyncFlush, maxInFlightBatches);
+        }
 
         DtOutputFormatSinkFunction sinkFunction = new DtOutputFormatSinkFunction(outputFormat);
         DataStreamSink<?> dataStreamSink = dataSet.addSink(sinkFunction);
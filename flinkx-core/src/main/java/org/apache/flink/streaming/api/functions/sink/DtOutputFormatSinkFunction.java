@@ -36,12 +36,16 @@ import org.apache.flink.runtime.state.CheckpointListener;
 import org.apache.flink.runtime.state.FunctionInitializationContext;
 import org.apache.flink.runtime.state.FunctionSnapshotContext;
 import org.apache.flink.streaming.api.checkpoint.CheckpointedFunction;
+import org.apache.flink.streaming.api.operators.StreamingRuntimeContext;
+import org.apache.flink.streaming.runtime.tasks.ProcessingTimeCallback;
+import org.apache.flink.streaming.runtime.tasks.ProcessingTimeService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
 
 /**
  * Simple implementation of the SinkFunction writing tuples in the specified
@@ -53,7 +57,7 @@ import java.util.Map;
  */
 @PublicEvolving
 @Deprecated
-public class DtOutputFormatSinkFunction<IN> extends OutputFormatSinkFunction<IN> implements CheckpointedFunction {
+public class DtOutputFormatSinkFunction<IN> extends OutputFormatSinkFunction<IN> implements CheckpointedFunction, CheckpointListener, ProcessingTimeCallback {
 
     private static final long serialVersionUID = 1L;
 
@@ -68,6 +72,10 @@ public class DtOutputFormatSinkFunction<IN> extends OutputFormatSinkFunction<IN>
 
     private Map<Integer,FormatState> formatStateMap;
 
+    private transient ProcessingTimeService processingTimeService;
+
+    private transient ScheduledFuture<?> flushTimer;
+
     public DtOutputFormatSinkFunction(OutputFormat<IN> format) {
         super(format);
         this.format = format;
@@ -85,6 +93,28 @@ public class DtOutputFormatSinkFunction<IN> extends OutputFormatSinkFunction<IN>
         int indexInSubtaskGroup = context.getIndexOfThisSubtask();
         int currentNumberOfSubtasks = context.getNumberOfParallelSubtasks();
         format.open(indexInSubtaskGroup, currentNumberOfSubtasks);
+
+        if (format instanceof com.dtstack.flinkx.outputformat.RichOutputFormat && context instanceof StreamingRuntimeContext) {
+            processingTimeService = ((StreamingRuntimeContext) context).getProcessingTimeService();
+            registerFlushTimer();
+        }
+    }
+
+    /**
+     * the timer fires in the task thread under the checkpoint lock, so the buffered rows of an idle stream
+     * are flushed after flushIntervalMs without racing with invoke and snapshotState
+     */
+    @Override
+    public void onProcessingTime(long timestamp) throws Exception {
+        registerFlushTimer();
+    }
+
+    private void registerFlushTimer() {
+        long now = processingTimeService.getCurrentProcessingTime();
+        long nextFlushTime = ((com.dtstack.flinkx.outputformat.RichOutputFormat) format).flushByInterval(now);
+        if (nextFlushTime > 0) {
+            flushTimer = processingTimeService.registerTimer(nextFlushTime, this);
+        }
     }
 
     @Override
@@ -115,6 +145,11 @@ public class DtOutputFormatSinkFunction<IN> extends OutputFormatSinkFunction<IN>
 
     @Override
     public void close() throws IOException {
+        if (flushTimer != null) {
+            flushTimer.cancel(false);
+            flushTimer = null;
+        }
+
         try {
             format.close();
         } catch (Exception ex) {
@@ -136,7 +171,16 @@ public class DtOutputFormatSinkFunction<IN> extends OutputFormatSinkFunction<IN>
 
     @Override
     public void snapshotState(FunctionSnapshotContext context) throws Exception {
-        FormatState formatState = ((com.dtstack.flinkx.outputformat.RichOutputFormat) format).getFormatState();
+        com.dtstack.flinkx.outputformat.RichOutputFormat richOutputFormat = (com.dtstack.flinkx.outputformat.RichOutputFormat) format;
+        FormatState formatState;
+        // the rows received before the barrier are flushed and the batches written by the background thread
+        // must be finished before the subclass creates the state
+        synchronized (richOutputFormat) {
+            richOutputFormat.flushBufferedRows();
+            richOutputFormat.waitForInFlightBatches();
+            richOutputFormat.prepareSnapshot(context.getCheckpointId());
+            formatState = richOutputFormat.getFormatState();
+        }
         if (formatState != null){
             LOG.info("OutputFormat format state:{}", formatState);
             unionOffsetStates.clear();
@@ -144,6 +188,13 @@ public class DtOutputFormatSinkFunction<IN> extends OutputFormatSinkFunction<IN>
         }
     }
 
+    @Override
+    public void notifyCheckpointComplete(long checkpointId) throws Exception {
+        if (format instanceof com.dtstack.flinkx.outputformat.RichOutputFormat) {
+            ((com.dtstack.flinkx.outputformat.RichOutputFormat) format).notifyCheckpointComplete(checkpointId);
+        }
+    }
+
     @Override
     public void initializeState(FunctionInitializationContext context) throws Exception {
         LOG.info("Start initialize output format state");
@@ -40,6 +40,7 @@ import org.apache.flink.streaming.api.operators.StreamingRuntimeContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
@@ -93,6 +94,7 @@ public class DtInputFormatSourceFunction<OUT> extends InputFormatSourceFunction<
 			isStream = restoreConfig != null && restoreConfig.isStream();
             if(formatStateMap != null){
                 ((com.dtstack.flinkx.inputformat.RichInputFormat) format).setRestoreState(formatStateMap.get(context.getIndexOfThisSubtask()));
+                ((com.dtstack.flinkx.inputformat.RichInputFormat) format).setAllRestoreStates(new ArrayList<>(formatStateMap.values()));
             }
         }
 
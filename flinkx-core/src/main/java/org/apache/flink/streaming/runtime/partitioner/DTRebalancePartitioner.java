@@ -17,6 +17,7 @@
 
 package org.apache.flink.streaming.runtime.partitioner;
 
+import com.dtstack.flinkx.types.ChannelRow;
 import org.apache.flink.annotation.Internal;
 import org.apache.flink.runtime.plugable.SerializationDelegate;
 import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
@@ -34,7 +35,7 @@ public class DTRebalancePartitioner<T> extends StreamPartitioner<T> {
     @Override
     public int selectChannel(SerializationDelegate<StreamRecord<T>> streamRecordSerializationDelegate) {
         Row row = (Row) streamRecordSerializationDelegate.getInstance().getValue();
-        return (Integer)row.getField(row.getArity() - 1);
+        return ChannelRow.getChannel(row);
     }
 
     @Override
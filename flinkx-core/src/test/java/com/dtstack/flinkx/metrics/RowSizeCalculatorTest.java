@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.flinkx.metrics;
+
+import org.apache.flink.types.Row;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Collections;
+
+public class RowSizeCalculatorTest {
+
+    @Test
+    public void typedRowSizeTest() {
+        Row row = new Row(6);
+        row.setField(0, "test");
+        row.setField(1, 1L);
+        row.setField(2, null);
+        row.setField(3, new byte[10]);
+        row.setField(4, new Timestamp(0));
+        row.setField(5, Collections.singletonMap("key", "value"));
+
+        RowSizeCalculator calculator = RowSizeCalculator.getRowSizeCalculator(RowSizeCalculator.SAMPLE_ALL);
+        MatcherAssert.assertThat(calculator, Matchers.instanceOf(TypedRowSizeCalculator.class));
+        MatcherAssert.assertThat(calculator.getRowSize(row), Matchers.equalTo(4L + 8L + 0L + 10L + 12L + 8L));
+        MatcherAssert.assertThat(calculator.getRowSize(null), Matchers.equalTo(0L));
+    }
+
+    @Test
+    public void unknownTypeFallbackTest() {
+        TypedRowSizeCalculator calculator = new TypedRowSizeCalculator();
+        MatcherAssert.assertThat(calculator.getFieldSize(new StringBuilder("abc")), Matchers.equalTo(3L));
+
+        calculator.registerSizer(CharSequence.class, (value, c) -> 100);
+        MatcherAssert.assertThat(calculator.getFieldSize(new StringBuffer("abc")), Matchers.equalTo(100L));
+        MatcherAssert.assertThat(calculator.getFieldSize(BigDecimal.ONE), Matchers.equalTo(5L));
+    }
+
+    @Test
+    public void mostSpecificSizerTest() {
+        TypedRowSizeCalculator calculator = new TypedRowSizeCalculator();
+        // Timestamp和Date都注册了读取器，子类使用最近的父类Timestamp的读取器
+        MatcherAssert.assertThat(calculator.getFieldSize(new Timestamp(0) {}), Matchers.equalTo(12L));
+        MatcherAssert.assertThat(calculator.getFieldSize(new java.util.Date(0) {}), Matchers.equalTo(8L));
+
+        // 父类上注册的读取器优先于接口上注册的读取器
+        calculator.registerSizer(java.util.AbstractList.class, (value, c) -> 7);
+        MatcherAssert.assertThat(calculator.getFieldSize(new java.util.ArrayList<>(Collections.singletonList("abc"))), Matchers.equalTo(7L));
+        MatcherAssert.assertThat(calculator.getFieldSize(Collections.singleton("abc")), Matchers.equalTo(3L));
+    }
+
+    @Test
+    public void sampledRowSizeTest() {
+        RowSizeCalculator calculator = RowSizeCalculator.getRowSizeCalculator(3);
+        MatcherAssert.assertThat(calculator, Matchers.instanceOf(SampledRowSizeCalculator.class));
+
+        Row small = Row.of("ab");
+        Row big = Row.of("abcdef");
+
+        MatcherAssert.assertThat(calculator.getRowSize(small), Matchers.equalTo(2L));
+        MatcherAssert.assertThat(calculator.getRowSize(big), Matchers.equalTo(2L));
+        MatcherAssert.assertThat(calculator.getRowSize(big), Matchers.equalTo(2L));
+        MatcherAssert.assertThat(calculator.getRowSize(big), Matchers.equalTo(6L));
+        MatcherAssert.assertThat(calculator.getRowSize(small), Matchers.equalTo(4L));
+    }
+}
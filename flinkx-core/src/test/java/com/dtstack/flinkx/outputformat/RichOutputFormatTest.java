@@ -0,0 +1,378 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dtstack.flinkx.outputformat;
+
+import com.dtstack.flinkx.config.RestoreConfig;
+import com.dtstack.flinkx.exception.WriteRecordException;
+import com.dtstack.flinkx.metrics.RowSizeCalculator;
+import com.dtstack.flinkx.types.ChannelRow;
+import org.apache.flink.api.common.accumulators.LongCounter;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.runtime.state.FunctionSnapshotContext;
+import org.apache.flink.streaming.api.functions.sink.DtOutputFormatSinkFunction;
+import org.apache.flink.streaming.api.operators.StreamingRuntimeContext;
+import org.apache.flink.streaming.runtime.tasks.TestProcessingTimeService;
+import org.apache.flink.types.Row;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.sql.BatchUpdateException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class RichOutputFormatTest {
+
+    private TestOutputFormat format;
+
+    @Before
+    public void setUp() {
+        format = new TestOutputFormat();
+        format.restoreConfig = RestoreConfig.defaultConfig();
+        format.numWriteCounter = new LongCounter();
+        format.snapshotWriteCounter = new LongCounter();
+        format.errCounter = new LongCounter();
+        format.batchRecoveryCounter = new LongCounter();
+        format.batchRecoveryRetryCounter = new LongCounter();
+        format.batchRecoverySingleWriteCounter = new LongCounter();
+        format.batchRecoveryDurationCounter = new LongCounter();
+        format.rowSizeCalculator = RowSizeCalculator.getRowSizeCalculator(RowSizeCalculator.SAMPLE_ALL);
+    }
+
+    @Test
+    public void testIsolateSingleErrorRow() {
+        format.errorRows.add(37);
+        writeBatch(1024);
+
+        MatcherAssert.assertThat(format.singleWrites, Matchers.contains(37));
+        MatcherAssert.assertThat(format.written.size(), Matchers.equalTo(1023));
+        MatcherAssert.assertThat(format.numWriteCounter.getLocalValue(), Matchers.equalTo(1024L));
+        MatcherAssert.assertThat(format.errCounter.getLocalValue(), Matchers.equalTo(1L));
+        MatcherAssert.assertThat(format.batchRecoveryCounter.getLocalValue(), Matchers.equalTo(1L));
+        // 每层二分重试两个批次
+        MatcherAssert.assertThat(format.batchRecoveryRetryCounter.getLocalValue(), Matchers.equalTo(20L));
+        MatcherAssert.assertThat(format.rows.size(), Matchers.equalTo(0));
+    }
+
+    @Test
+    public void testIsolateMultipleErrorRows() {
+        format.errorRows.addAll(Arrays.asList(0, 5, 6, 99));
+        writeBatch(100);
+
+        MatcherAssert.assertThat(format.singleWrites, Matchers.containsInAnyOrder(0, 5, 6, 99));
+        MatcherAssert.assertThat(format.written.size(), Matchers.equalTo(96));
+        MatcherAssert.assertThat(format.numWriteCounter.getLocalValue(), Matchers.equalTo(100L));
+        MatcherAssert.assertThat(format.errCounter.getLocalValue(), Matchers.equalTo(4L));
+    }
+
+    @Test
+    public void testUseUpdateCounts() {
+        format.errorRows.addAll(Arrays.asList(3, 7));
+        format.reportUpdateCounts = true;
+        writeBatch(10);
+
+        MatcherAssert.assertThat(format.singleWrites, Matchers.containsInAnyOrder(3, 7));
+        MatcherAssert.assertThat(format.written.size(), Matchers.equalTo(8));
+        MatcherAssert.assertThat(format.numWriteCounter.getLocalValue(), Matchers.equalTo(10L));
+        // 驱动给出的失败数据直接逐条写入，不再二分
+        MatcherAssert.assertThat(format.batchRecoveryRetryCounter.getLocalValue(), Matchers.equalTo(0L));
+        MatcherAssert.assertThat(format.batchRecoverySingleWriteCounter.getLocalValue(), Matchers.equalTo(2L));
+    }
+
+    @Test
+    public void testSingleWriteWithoutBisection() {
+        format.bisectionSupported = false;
+        format.errorRows.add(37);
+        writeBatch(100);
+
+        MatcherAssert.assertThat(format.singleWrites.size(), Matchers.equalTo(100));
+        MatcherAssert.assertThat(format.written.size(), Matchers.equalTo(99));
+        MatcherAssert.assertThat(format.errCounter.getLocalValue(), Matchers.equalTo(1L));
+        MatcherAssert.assertThat(format.batchRecoveryRetryCounter.getLocalValue(), Matchers.equalTo(0L));
+        MatcherAssert.assertThat(format.batchRecoverySingleWriteCounter.getLocalValue(), Matchers.equalTo(100L));
+    }
+
+    @Test
+    public void testAsyncSingleWriteWithoutBisection() throws Exception {
+        format.bisectionSupported = false;
+        format.errorRows.add(13);
+        openAsyncFlush(10);
+        writeRows(20);
+        format.waitForInFlightBatches();
+
+        // 后台线程写入失败的批次同样整批逐条写入
+        MatcherAssert.assertThat(format.singleWrites.size(), Matchers.equalTo(10));
+        MatcherAssert.assertThat(format.written.size(), Matchers.equalTo(19));
+        MatcherAssert.assertThat(format.batchRecoveryRetryCounter.getLocalValue(), Matchers.equalTo(0L));
+    }
+
+    @Test
+    public void testAsyncFlushWritesInBackground() throws Exception {
+        openAsyncFlush(10);
+        writeRows(25);
+        format.waitForInFlightBatches();
+
+        MatcherAssert.assertThat(format.written.size(), Matchers.equalTo(20));
+        MatcherAssert.assertThat(format.numWriteCounter.getLocalValue(), Matchers.equalTo(20L));
+        MatcherAssert.assertThat(format.batchThreads, Matchers.everyItem(Matchers.startsWith("async-flush-")));
+        // 后台线程不能访问rows
+        MatcherAssert.assertThat(format.rows.size(), Matchers.equalTo(0));
+    }
+
+    @Test
+    public void testAsyncFailedBatchRecoveredInTaskThread() throws Exception {
+        format.errorRows.add(13);
+        openAsyncFlush(10);
+        writeRows(20);
+        format.waitForInFlightBatches();
+
+        MatcherAssert.assertThat(format.singleWrites, Matchers.contains(13));
+        MatcherAssert.assertThat(format.singleWriteThreads, Matchers.everyItem(Matchers.equalTo(Thread.currentThread().getName())));
+        MatcherAssert.assertThat(format.written.size(), Matchers.equalTo(19));
+        MatcherAssert.assertThat(format.numWriteCounter.getLocalValue(), Matchers.equalTo(20L));
+        MatcherAssert.assertThat(format.errCounter.getLocalValue(), Matchers.equalTo(1L));
+        MatcherAssert.assertThat(format.batchRecoveryCounter.getLocalValue(), Matchers.equalTo(1L));
+    }
+
+    @Test
+    public void testAsyncFlushErrorInRestoreMode() throws Exception {
+        Map<String, Object> restore = new HashMap<>();
+        restore.put("isRestore", true);
+        format.restoreConfig = new RestoreConfig(restore);
+        format.errorRows.add(3);
+        openAsyncFlush(10);
+        writeRows(10);
+
+        try {
+            format.waitForInFlightBatches();
+            MatcherAssert.assertThat("the error of the background thread must be thrown", false);
+        } catch (RuntimeException e) {
+            MatcherAssert.assertThat(e.getMessage(), Matchers.containsString("background thread"));
+        }
+        MatcherAssert.assertThat(format.singleWrites, Matchers.empty());
+    }
+
+    @Test
+    public void testAsyncFlushNotSupported() throws Exception {
+        format.asyncSupported = false;
+        openAsyncFlush(10);
+        writeRows(20);
+        format.waitForInFlightBatches();
+
+        MatcherAssert.assertThat(format.written.size(), Matchers.equalTo(20));
+        MatcherAssert.assertThat(format.batchThreads, Matchers.everyItem(Matchers.equalTo(Thread.currentThread().getName())));
+    }
+
+    @Test
+    public void testFlushByBatchBytes() throws Exception {
+        long rowSize = format.rowSizeCalculator.getRowSize(Row.of(0));
+        format.batchInterval = 100;
+        format.batchBytes = rowSize * 3;
+        format.openBatchTriggers();
+        writeRows(7);
+
+        MatcherAssert.assertThat(format.batchThreads.size(), Matchers.equalTo(2));
+        MatcherAssert.assertThat(format.written.size(), Matchers.equalTo(6));
+        MatcherAssert.assertThat(format.rows.size(), Matchers.equalTo(1));
+    }
+
+    @Test
+    public void testFlushByIntervalInTaskThread() throws Exception {
+        format.batchInterval = 100;
+        format.flushIntervalMs = 50;
+        format.openBatchTriggers();
+        writeRows(1);
+        MatcherAssert.assertThat(format.written.size(), Matchers.equalTo(0));
+
+        Thread.sleep(60);
+        // 超时后由下一条数据触发提交，写入发生在任务线程
+        writeRows(1);
+        MatcherAssert.assertThat(format.written.size(), Matchers.equalTo(2));
+        MatcherAssert.assertThat(format.batchThreads, Matchers.contains(Thread.currentThread().getName()));
+        MatcherAssert.assertThat(format.rows.size(), Matchers.equalTo(0));
+    }
+
+    @Test
+    public void testFlushByIntervalReturnsNextCheck() throws Exception {
+        format.batchInterval = 100;
+        format.flushIntervalMs = 10_000;
+        format.openBatchTriggers();
+        long now = System.currentTimeMillis();
+
+        // 没有缓存数据时一个周期后再检查
+        MatcherAssert.assertThat(format.flushByInterval(now), Matchers.equalTo(now + 10_000));
+
+        writeRows(2);
+        long nextCheck = format.flushByInterval(now + 1_000);
+        MatcherAssert.assertThat(nextCheck, Matchers.lessThanOrEqualTo(now + 20_000));
+        MatcherAssert.assertThat(format.written, Matchers.empty());
+
+        MatcherAssert.assertThat(format.flushByInterval(nextCheck), Matchers.equalTo(nextCheck + 10_000));
+        MatcherAssert.assertThat(format.written, Matchers.contains(0, 1));
+
+        // 逐条写入时不需要定时器
+        format.batchInterval = 1;
+        MatcherAssert.assertThat(format.flushByInterval(now), Matchers.equalTo(0L));
+    }
+
+    @Test
+    public void testSinkFlushesIdleBatchByTimer() throws Exception {
+        format.batchInterval = 100;
+        format.flushIntervalMs = 10_000;
+        TestProcessingTimeService timeService = new TestProcessingTimeService();
+        long start = System.currentTimeMillis();
+        timeService.setCurrentTime(start);
+
+        StreamingRuntimeContext context = Mockito.mock(StreamingRuntimeContext.class);
+        Mockito.when(context.getProcessingTimeService()).thenReturn(timeService);
+        DtOutputFormatSinkFunction<Row> sink = new DtOutputFormatSinkFunction<>(format);
+        sink.setRuntimeContext(context);
+        sink.open(new Configuration());
+
+        sink.invoke(new ChannelRow(Row.of(0), 0));
+        sink.invoke(new ChannelRow(Row.of(1), 0));
+        timeService.setCurrentTime(start + 5_000);
+        MatcherAssert.assertThat(format.written, Matchers.empty());
+
+        // 没有新数据时由定时器提交
+        timeService.setCurrentTime(start + 30_000);
+        MatcherAssert.assertThat(format.written, Matchers.contains(0, 1));
+        MatcherAssert.assertThat(format.batchThreads, Matchers.contains(Thread.currentThread().getName()));
+
+        // 创建检查点前提交缓存的数据
+        sink.invoke(new ChannelRow(Row.of(2), 0));
+        sink.snapshotState(Mockito.mock(FunctionSnapshotContext.class));
+        MatcherAssert.assertThat(format.written, Matchers.contains(0, 1, 2));
+
+        sink.close();
+        MatcherAssert.assertThat(timeService.getNumActiveTimers(), Matchers.equalTo(0));
+    }
+
+    private void openAsyncFlush(int batchInterval) {
+        format.batchInterval = batchInterval;
+        format.setAsyncFlush(true, 2);
+        format.openAsyncFlush();
+    }
+
+    private void writeRows(int size) throws Exception {
+        for (int i = 0; i < size; i++) {
+            format.writeRecord(new ChannelRow(Row.of(i), 0));
+        }
+    }
+
+    private void writeBatch(int size) {
+        for (int i = 0; i < size; i++) {
+            format.rows.add(Row.of(i));
+        }
+        format.writeRecordInternal();
+    }
+
+    private static class TestOutputFormat extends RichOutputFormat {
+
+        Set<Integer> errorRows = new HashSet<>();
+
+        boolean reportUpdateCounts;
+
+        boolean asyncSupported = true;
+
+        boolean bisectionSupported = true;
+
+        List<Integer> written = Collections.synchronizedList(new ArrayList<>());
+
+        List<Integer> singleWrites = new ArrayList<>();
+
+        List<String> singleWriteThreads = new ArrayList<>();
+
+        List<String> batchThreads = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void open(int taskNumber, int numTasks) {
+            openBatchTriggers();
+        }
+
+        @Override
+        protected void openInternal(int taskNumber, int numTasks) {
+        }
+
+        @Override
+        protected void writeSingleRecordInternal(Row row) throws WriteRecordException {
+            int id = (int) row.getField(0);
+            singleWrites.add(id);
+            singleWriteThreads.add(Thread.currentThread().getName());
+            if (errorRows.contains(id)) {
+                throw new WriteRecordException("error row:" + id, null);
+            }
+            written.add(id);
+        }
+
+        @Override
+        protected boolean supportsAsyncFlush() {
+            return asyncSupported;
+        }
+
+        @Override
+        protected boolean supportsBatchBisection() {
+            return bisectionSupported;
+        }
+
+        @Override
+        protected void writeMultipleRecordsInternal() throws Exception {
+            writeMultipleRecordsInternal(rows);
+        }
+
+        @Override
+        protected void writeMultipleRecordsInternal(List<Row> rows) throws Exception {
+            batchThreads.add(Thread.currentThread().getName());
+            int[] updateCounts = new int[rows.size()];
+            boolean failed = false;
+            for (int i = 0; i < rows.size(); i++) {
+                int id = (int) rows.get(i).getField(0);
+                if (errorRows.contains(id)) {
+                    updateCounts[i] = Statement.EXECUTE_FAILED;
+                    failed = true;
+                } else {
+                    updateCounts[i] = 1;
+                }
+            }
+
+            if (!failed) {
+                rows.forEach(row -> written.add((int) row.getField(0)));
+                return;
+            }
+
+            if (reportUpdateCounts) {
+                for (int i = 0; i < rows.size(); i++) {
+                    if (updateCounts[i] != Statement.EXECUTE_FAILED) {
+                        written.add((int) rows.get(i).getField(0));
+                    }
+                }
+                throw new RuntimeException(new BatchUpdateException(updateCounts));
+            }
+            throw new RuntimeException("batch error");
+        }
+    }
+}
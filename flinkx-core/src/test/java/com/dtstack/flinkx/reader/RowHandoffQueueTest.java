@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.flinkx.reader;
+
+import org.apache.flink.types.Row;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class RowHandoffQueueTest {
+
+    @Test
+    public void testTakeKeepsOrder() throws Exception {
+        RowHandoffQueue queue = new RowHandoffQueue(8, 3);
+        for (int i = 0; i < 8; i++) {
+            queue.put(Row.of(i));
+        }
+
+        for (int i = 0; i < 8; i++) {
+            MatcherAssert.assertThat(queue.take().getField(0), Matchers.equalTo(i));
+        }
+        MatcherAssert.assertThat(queue.size(), Matchers.equalTo(0));
+    }
+
+    @Test
+    public void testWatermarks() throws Exception {
+        RowHandoffQueue queue = new RowHandoffQueue(8, 1);
+        MatcherAssert.assertThat(queue.isBelowLowWatermark(), Matchers.equalTo(true));
+
+        for (int i = 0; i < 6; i++) {
+            queue.put(Row.of(i));
+        }
+        MatcherAssert.assertThat(queue.isAboveHighWatermark(), Matchers.equalTo(true));
+        MatcherAssert.assertThat(queue.isBelowLowWatermark(), Matchers.equalTo(false));
+    }
+
+    @Test(timeout = 10000)
+    public void testPutBlocksWhenFull() throws Exception {
+        RowHandoffQueue queue = new RowHandoffQueue(2, 2);
+        queue.put(Row.of(0));
+        queue.put(Row.of(1));
+
+        Thread producer = new Thread(() -> {
+            try {
+                queue.put(Row.of(2));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+        producer.join(200);
+        MatcherAssert.assertThat(producer.isAlive(), Matchers.equalTo(true));
+
+        MatcherAssert.assertThat(queue.take().getField(0), Matchers.equalTo(0));
+        producer.join();
+        MatcherAssert.assertThat(queue.take().getField(0), Matchers.equalTo(1));
+        MatcherAssert.assertThat(queue.take().getField(0), Matchers.equalTo(2));
+    }
+
+    @Test
+    public void testPollTimeout() throws Exception {
+        RowHandoffQueue queue = new RowHandoffQueue(4, 2);
+        MatcherAssert.assertThat(queue.poll(10, TimeUnit.MILLISECONDS), Matchers.nullValue());
+
+        queue.put(Row.of(0));
+        queue.put(Row.of(1));
+        MatcherAssert.assertThat(queue.poll(10, TimeUnit.MILLISECONDS).getField(0), Matchers.equalTo(0));
+        MatcherAssert.assertThat(queue.poll(0, TimeUnit.MILLISECONDS).getField(0), Matchers.equalTo(1));
+        MatcherAssert.assertThat(queue.poll(0, TimeUnit.MILLISECONDS), Matchers.nullValue());
+    }
+
+    @Test
+    public void testRowPositionReportedAfterEmit() throws Exception {
+        RowHandoffQueue queue = new RowHandoffQueue(8, 4);
+        List<Object> positions = new ArrayList<>();
+        queue.setPositionListener(positions::add);
+        for (int i = 0; i < 3; i++) {
+            queue.put(Row.of(i), "offset-" + i);
+        }
+
+        queue.take();
+        // 第一条数据还没有发送到下游
+        MatcherAssert.assertThat(positions, Matchers.empty());
+
+        queue.take();
+        MatcherAssert.assertThat(positions, Matchers.contains("offset-0"));
+
+        queue.take();
+        MatcherAssert.assertThat(queue.poll(0, TimeUnit.MILLISECONDS), Matchers.nullValue());
+        MatcherAssert.assertThat(positions, Matchers.contains("offset-0", "offset-1", "offset-2"));
+    }
+
+    @Test
+    public void testPositionAfterRows() throws Exception {
+        RowHandoffQueue queue = new RowHandoffQueue(8, 8);
+        List<Object> positions = new ArrayList<>();
+        queue.setPositionListener(positions::add);
+        queue.put(Row.of(0));
+        queue.put(Row.of(1));
+        queue.putPosition("binlog.000001:100");
+        queue.put(Row.of(2));
+
+        MatcherAssert.assertThat(queue.take().getField(0), Matchers.equalTo(0));
+        MatcherAssert.assertThat(queue.take().getField(0), Matchers.equalTo(1));
+        MatcherAssert.assertThat(positions, Matchers.empty());
+
+        // 位置在它之前的数据都发送之后才生效，并且不会作为数据返回
+        MatcherAssert.assertThat(queue.take().getField(0), Matchers.equalTo(2));
+        MatcherAssert.assertThat(positions, Matchers.contains("binlog.000001:100"));
+    }
+
+    @Test
+    public void testSkippedPositionKeepsOrder() throws Exception {
+        RowHandoffQueue queue = new RowHandoffQueue(8, 8);
+        List<Object> positions = new ArrayList<>();
+        queue.setPositionListener(positions::add);
+        queue.put(Row.of(0), "offset-0");
+        // 跳过的消息只放入位置，不能先于前面的数据提交
+        queue.putPosition("offset-1");
+        queue.put(Row.of(2), "offset-2");
+        queue.putPosition("offset-3");
+
+        MatcherAssert.assertThat(queue.take().getField(0), Matchers.equalTo(0));
+        MatcherAssert.assertThat(positions, Matchers.empty());
+
+        MatcherAssert.assertThat(queue.take().getField(0), Matchers.equalTo(2));
+        MatcherAssert.assertThat(positions, Matchers.contains("offset-0", "offset-1"));
+
+        // 最后跳过的消息在没有新数据时也会提交
+        MatcherAssert.assertThat(queue.poll(0, TimeUnit.MILLISECONDS), Matchers.nullValue());
+        MatcherAssert.assertThat(positions, Matchers.contains("offset-0", "offset-1", "offset-2", "offset-3"));
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.flinkx.restore;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+public class SplitStateTest {
+
+    @Test
+    public void testFinishedStateWins() {
+        SplitState finished = new SplitState(10, true, 0);
+        SplitState reading = new SplitState(20, false, 3);
+
+        MatcherAssert.assertThat(SplitState.merge(finished, reading), Matchers.sameInstance(finished));
+        MatcherAssert.assertThat(SplitState.merge(reading, finished), Matchers.sameInstance(finished));
+    }
+
+    @Test
+    public void testGreaterVersionWins() {
+        SplitState stale = new SplitState(10, false, 1);
+        SplitState latest = new SplitState(20, false, 2);
+
+        MatcherAssert.assertThat(SplitState.merge(stale, latest), Matchers.sameInstance(latest));
+        MatcherAssert.assertThat(SplitState.merge(latest, stale), Matchers.sameInstance(latest));
+        MatcherAssert.assertThat(SplitState.merge(null, stale), Matchers.sameInstance(stale));
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.flinkx.types;
+
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.common.typeutils.TypeSerializerSchemaCompatibility;
+import org.apache.flink.api.common.typeutils.TypeSerializerSnapshot;
+import org.apache.flink.api.java.typeutils.runtime.kryo.KryoSerializer;
+import org.apache.flink.core.memory.DataInputDeserializer;
+import org.apache.flink.core.memory.DataOutputSerializer;
+import org.apache.flink.types.Row;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.Collections;
+
+public class ChannelRowTest {
+
+    @Test
+    public void channelRowTest() {
+        Row data = Row.of("a", 1);
+        Row row = new ChannelRow(data, 3);
+
+        MatcherAssert.assertThat(row.getArity(), Matchers.equalTo(2));
+        MatcherAssert.assertThat(row.getField(0), Matchers.equalTo("a"));
+        MatcherAssert.assertThat(ChannelRow.getChannel(row), Matchers.equalTo(3));
+        MatcherAssert.assertThat(ChannelRow.getData(row), Matchers.sameInstance(data));
+    }
+
+    @Test
+    public void appendedChannelFieldTest() {
+        Row row = Row.of("a", 1, 3);
+
+        MatcherAssert.assertThat(ChannelRow.getChannel(row), Matchers.equalTo(3));
+        MatcherAssert.assertThat(ChannelRow.getData(row), Matchers.equalTo(Row.of("a", 1)));
+    }
+
+    @Test
+    public void serializeTest() throws Exception {
+        KryoSerializer<Row> serializer = new KryoSerializer<>(Row.class, new ExecutionConfig());
+        Row row = new ChannelRow(Row.of("a", 1L, null), 2);
+
+        DataOutputSerializer output = new DataOutputSerializer(64);
+        serializer.serialize(row, output);
+        Row result = serializer.deserialize(new DataInputDeserializer(output.getCopyOfBuffer()));
+
+        MatcherAssert.assertThat(result, Matchers.equalTo(row));
+        MatcherAssert.assertThat(serializer.copy(row), Matchers.equalTo(row));
+    }
+
+    @Test
+    public void channelRowSerializerTest() throws Exception {
+        TypeSerializer<Row> serializer = new ChannelRowTypeInfo().createSerializer(new ExecutionConfig());
+        Timestamp timestamp = new Timestamp(1000L);
+        timestamp.setNanos(123456789);
+        Row data = Row.of("a", 1, 2L, 3.0D, 4.0F, true, new BigDecimal("12.345"), timestamp,
+                Date.valueOf("2019-01-01"), new byte[]{1, 2}, null, Collections.singletonMap("k", "v"));
+
+        for (Row row : new Row[]{new ChannelRow(data, 2), data}) {
+            DataOutputSerializer output = new DataOutputSerializer(64);
+            serializer.serialize(row, output);
+            Row result = serializer.deserialize(new DataInputDeserializer(output.getCopyOfBuffer()));
+
+            MatcherAssert.assertThat(result.getClass(), Matchers.equalTo((Object) row.getClass()));
+            assertRowEquals(result, row);
+            if (row instanceof ChannelRow) {
+                MatcherAssert.assertThat(((ChannelRow) result).getChannel(), Matchers.equalTo(2));
+            }
+
+            // 在序列化数据之间直接拷贝
+            DataOutputSerializer copied = new DataOutputSerializer(64);
+            serializer.copy(new DataInputDeserializer(output.getCopyOfBuffer()), copied);
+            MatcherAssert.assertThat(copied.getCopyOfBuffer(), Matchers.equalTo(output.getCopyOfBuffer()));
+        }
+
+        // 拷贝可变的字段，修改拷贝不影响原数据
+        Row copy = serializer.copy(new ChannelRow(data, 2));
+        assertRowEquals(copy, data);
+        ((Timestamp) copy.getField(7)).setTime(0L);
+        ((byte[]) copy.getField(9))[0] = 9;
+        MatcherAssert.assertThat(data.getField(7), Matchers.equalTo((Object) timestamp));
+        MatcherAssert.assertThat(((byte[]) data.getField(9))[0], Matchers.equalTo((byte) 1));
+    }
+
+    @Test
+    public void channelRowSerializerSmallerThanKryoTest() throws Exception {
+        Row row = new ChannelRow(Row.of("a", 1L, new BigDecimal("1.5"), new Timestamp(1000L)), 2);
+
+        DataOutputSerializer kryoOutput = new DataOutputSerializer(64);
+        new KryoSerializer<>(Row.class, new ExecutionConfig()).serialize(row, kryoOutput);
+        DataOutputSerializer output = new DataOutputSerializer(64);
+        new ChannelRowTypeInfo().createSerializer(new ExecutionConfig()).serialize(row, output);
+
+        MatcherAssert.assertThat(output.length(), Matchers.lessThan(kryoOutput.length()));
+    }
+
+    @Test
+    public void channelRowSerializerSnapshotTest() {
+        TypeSerializer<Row> serializer = new ChannelRowTypeInfo().createSerializer(new ExecutionConfig());
+        TypeSerializerSnapshot<Row> snapshot = serializer.snapshotConfiguration();
+
+        TypeSerializerSchemaCompatibility<Row> compatibility = snapshot.resolveSchemaCompatibility(serializer);
+        MatcherAssert.assertThat(compatibility.isCompatibleAsIs(), Matchers.equalTo(true));
+        MatcherAssert.assertThat(snapshot.restoreSerializer(), Matchers.equalTo(serializer));
+        MatcherAssert.assertThat(serializer.duplicate(), Matchers.equalTo(serializer));
+    }
+
+    private void assertRowEquals(Row actual, Row expected) {
+        MatcherAssert.assertThat(actual.getArity(), Matchers.equalTo(expected.getArity()));
+        for (int i = 0; i < expected.getArity(); i++) {
+            if (expected.getField(i) instanceof byte[]) {
+                MatcherAssert.assertThat((byte[]) actual.getField(i), Matchers.equalTo((byte[]) expected.getField(i)));
+            } else {
+                MatcherAssert.assertThat(actual.getField(i), Matchers.equalTo(expected.getField(i)));
+            }
+        }
+    }
+}
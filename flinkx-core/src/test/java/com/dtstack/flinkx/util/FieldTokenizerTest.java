@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.flinkx.util;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Company: www.dtstack.com
+ */
+public class FieldTokenizerTest {
+
+    private static final String[] LINES = {
+            "", "a", "a,b,c", ",a,,b,", "a,b,,,", ",,,", ",", "中文,字段,,", "a\001b\001\001"
+    };
+
+    private static final String[] DELIMITERS = {",", "\001", ",,", "|", "\\001", "\t", "字段"};
+
+    @Test
+    public void tokenizeStringTest() {
+        for (String delimiter : DELIMITERS) {
+            FieldTokenizer tokenizer = new FieldTokenizer(delimiter);
+            for (String line : LINES) {
+                tokenizer.tokenize(line);
+                assertSameAsSplit(tokenizer, line, delimiter);
+            }
+        }
+    }
+
+    @Test
+    public void tokenizeBytesTest() {
+        Charset[] charsets = {StandardCharsets.UTF_8, Charset.forName("GBK")};
+        for (Charset charset : charsets) {
+            for (String delimiter : DELIMITERS) {
+                FieldTokenizer tokenizer = new FieldTokenizer(delimiter);
+                for (String line : LINES) {
+                    byte[] bytes = ("xx" + line).getBytes(charset);
+                    int offset = "xx".getBytes(charset).length;
+                    tokenizer.tokenize(bytes, offset, bytes.length - offset, charset);
+                    assertSameAsSplit(tokenizer, line, delimiter);
+                }
+            }
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void getFieldOutOfRangeTest() {
+        FieldTokenizer tokenizer = new FieldTokenizer(",");
+        tokenizer.tokenize("a,b,,");
+        tokenizer.getField(2);
+    }
+
+    private void assertSameAsSplit(FieldTokenizer tokenizer, String line, String delimiter) {
+        String[] expected = line.split(delimiter);
+        String message = "line [" + line + "] delimiter [" + delimiter + "]";
+        MatcherAssert.assertThat(message, tokenizer.getFieldCount(), Matchers.is(expected.length));
+        for (int i = expected.length - 1; i >= 0; i--) {
+            MatcherAssert.assertThat(message, tokenizer.getField(i), Matchers.is(expected[i]));
+        }
+    }
+}
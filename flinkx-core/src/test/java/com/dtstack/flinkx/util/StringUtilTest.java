@@ -19,6 +19,7 @@
 
 package com.dtstack.flinkx.util;
 
+import com.dtstack.flinkx.enums.ColumnType;
 import org.apache.flink.types.Row;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
@@ -77,4 +78,14 @@ public class StringUtilTest {
         String result = StringUtil.row2string(row, Arrays.asList("STRING", "STRING", "STRING","STRING"), ",", null);
         MatcherAssert.assertThat("", result, Matchers.equalTo("test,,,test"));
     }
+
+    @Test
+    public void string2colWithColumnTypeTest(){
+        MatcherAssert.assertThat(StringUtil.string2col(" 12 ", ColumnType.BIGINT, null), Matchers.equalTo((Object) 12L));
+        MatcherAssert.assertThat(StringUtil.string2col("12", ColumnType.VARCHAR, null), Matchers.equalTo((Object) "12"));
+        MatcherAssert.assertThat(StringUtil.string2col(null, ColumnType.INT, null), Matchers.nullValue());
+        MatcherAssert.assertThat(StringUtil.string2col("12", (ColumnType) null, null), Matchers.equalTo((Object) "12"));
+        MatcherAssert.assertThat(StringUtil.string2col("12", ColumnType.INT, null),
+                Matchers.equalTo(StringUtil.string2col("12", "int", null)));
+    }
 }
@@ -18,11 +18,6 @@
 package com.dtstack.flinkx.db2.format;
 
 import com.dtstack.flinkx.rdb.inputformat.JdbcInputFormat;
-import org.apache.flink.types.Row;
-
-import java.io.IOException;
-
-import static com.dtstack.flinkx.rdb.util.DBUtil.clobToString;
 
 /**
  * Date: 2019/09/20
@@ -31,24 +26,4 @@ import static com.dtstack.flinkx.rdb.util.DBUtil.clobToString;
  * @author tudou
  */
 public class Db2InputFormat extends JdbcInputFormat {
-    @Override
-    public Row nextRecordInternal(Row row) throws IOException {
-        if (!hasNext) {
-            return null;
-        }
-        row = new Row(columnCount);
-        try {
-            for (int pos = 0; pos < row.getArity(); pos++) {
-                Object obj = resultSet.getObject(pos + 1);
-                if(obj != null) {
-                    obj = clobToString(obj);
-                }
-
-                row.setField(pos, obj);
-            }
-            return super.nextRecordInternal(row);
-        }catch (Exception e) {
-            throw new IOException("Couldn't read data - " + e.getMessage(), e);
-        }
-    }
 }
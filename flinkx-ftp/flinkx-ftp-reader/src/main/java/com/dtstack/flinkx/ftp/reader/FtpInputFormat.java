@@ -24,6 +24,7 @@ import com.dtstack.flinkx.ftp.SFtpHandler;
 import com.dtstack.flinkx.ftp.FtpHandler;
 import com.dtstack.flinkx.inputformat.RichInputFormat;
 import com.dtstack.flinkx.reader.MetaColumn;
+import com.dtstack.flinkx.util.FieldTokenizer;
 import com.dtstack.flinkx.util.StringUtil;
 import org.apache.flink.api.common.io.DefaultInputSplitAssigner;
 import org.apache.flink.api.common.io.statistics.BaseStatistics;
@@ -73,6 +74,8 @@ public class FtpInputFormat extends RichInputFormat {
 
     private transient String line;
 
+    private transient FieldTokenizer tokenizer;
+
     @Override
     public void configure(Configuration parameters) {
         if("sftp".equalsIgnoreCase(protocol)) {
@@ -130,6 +133,7 @@ public class FtpInputFormat extends RichInputFormat {
             br.setFromLine(0);
         }
         br.setCharsetName(charsetName);
+        tokenizer = new FieldTokenizer(delimiter);
     }
 
     @Override
@@ -140,11 +144,12 @@ public class FtpInputFormat extends RichInputFormat {
 
     @Override
     public Row nextRecordInternal(Row row) throws IOException {
-        String[] fields = line.split(delimiter);
+        tokenizer.tokenize(line);
+        int fieldCount = tokenizer.getFieldCount();
         if (metaColumns.size() == 1 && "*".equals(metaColumns.get(0).getName())){
-            row = new Row(fields.length);
-            for (int i = 0; i < fields.length; i++) {
-                row.setField(i, fields[i]);
+            row = new Row(fieldCount);
+            for (int i = 0; i < fieldCount; i++) {
+                row.setField(i, tokenizer.getField(i));
             }
         } else {
             row = new Row(metaColumns.size());
@@ -152,8 +157,8 @@ public class FtpInputFormat extends RichInputFormat {
                 MetaColumn metaColumn = metaColumns.get(i);
 
                 Object value = null;
-                if(metaColumn.getIndex() != null && metaColumn.getIndex() < fields.length){
-                    value = fields[metaColumn.getIndex()];
+                if(metaColumn.getIndex() != null && metaColumn.getIndex() < fieldCount){
+                    value = tokenizer.getField(metaColumn.getIndex());
                     if(((String) value).length() == 0){
                         value = metaColumn.getValue();
                     }
@@ -19,19 +19,16 @@ package com.dtstack.flinkx.gbase.format;
 
 import com.dtstack.flinkx.rdb.inputformat.JdbcInputFormat;
 import com.dtstack.flinkx.rdb.util.DBUtil;
+import com.dtstack.flinkx.rdb.util.JdbcConnectionPool;
 import com.dtstack.flinkx.reader.MetaColumn;
 import com.dtstack.flinkx.util.ClassUtil;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.flink.core.io.InputSplit;
-import org.apache.flink.types.Row;
 
 import java.io.IOException;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.ArrayList;
 
-import static com.dtstack.flinkx.rdb.util.DBUtil.clobToString;
-
 /**
  * Date: 2019/09/20
  * Company: www.dtstack.com
@@ -59,11 +56,26 @@ public class GbaseInputFormat extends JdbcInputFormat {
                 return;
             }
 
-            dbConn = DBUtil.getConnection(dbURL, username, password);
+            if (pageSize > 0){
+                openKeysetPages(inputSplit);
+                return;
+            }
+
+            dbConn = JdbcConnectionPool.getConnection(dbURL, username, password);
+
+            // 流式读取时同一个连接上不能执行其它查询，先获取字段类型
+            if (StringUtils.isEmpty(customSql)){
+                descColumnTypeList = DBUtil.analyzeTable(dbConn, dbURL, username, databaseInterface, table, metaColumns);
+            } else {
+                descColumnTypeList = new ArrayList<>();
+                for (MetaColumn metaColumn : metaColumns) {
+                    descColumnTypeList.add(metaColumn.getName());
+                }
+            }
 
             // 部分驱动需要关闭事务自动提交，fetchSize参数才会起作用
             dbConn.setAutoCommit(false);
-            Statement statement = dbConn.createStatement(resultSetType, resultSetConcurrency);
+            statement = dbConn.createStatement(resultSetType, resultSetConcurrency);
             statement.setFetchSize(Integer.MIN_VALUE);
             statement.setFetchSize(fetchSize);
             statement.setQueryTimeout(queryTimeOut);
@@ -78,14 +90,7 @@ public class GbaseInputFormat extends JdbcInputFormat {
 
             hasNext = resultSet.next();
 
-            if (StringUtils.isEmpty(customSql)){
-                descColumnTypeList = DBUtil.analyzeTable(dbURL, username, password,databaseInterface,table,metaColumns);
-            } else {
-                descColumnTypeList = new ArrayList<>();
-                for (MetaColumn metaColumn : metaColumns) {
-                    descColumnTypeList.add(metaColumn.getName());
-                }
-            }
+            buildExtractionPlan(resultSet.getMetaData());
 
         } catch (SQLException se) {
             throw new IllegalArgumentException("open() failed." + se.getMessage(), se);
@@ -94,24 +99,4 @@ public class GbaseInputFormat extends JdbcInputFormat {
         LOG.info("JdbcInputFormat[{}]open: end", jobName);
     }
 
-    @Override
-    public Row nextRecordInternal(Row row) throws IOException {
-        if (!hasNext) {
-            return null;
-        }
-        row = new Row(columnCount);
-        try {
-            for (int pos = 0; pos < row.getArity(); pos++) {
-                Object obj = resultSet.getObject(pos + 1);
-                if(obj != null) {
-                    obj = clobToString(obj);
-                }
-
-                row.setField(pos, obj);
-            }
-            return super.nextRecordInternal(row);
-        }catch (Exception e) {
-            throw new IOException("Couldn't read data - " + e.getMessage(), e);
-        }
-    }
 }
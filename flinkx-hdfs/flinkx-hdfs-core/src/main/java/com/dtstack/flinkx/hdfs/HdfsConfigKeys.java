@@ -58,4 +58,10 @@ public class HdfsConfigKeys {
 
     public static final String KEY_FLUSH_INTERVAL = "flushInterval";
 
+    public static final String KEY_FILTER = "filter";
+
+    public static final String KEY_VECTORIZED_READ = "vectorizedRead";
+
+    public static final String KEY_COMPACT_TARGET_SIZE = "compactTargetSize";
+
 }
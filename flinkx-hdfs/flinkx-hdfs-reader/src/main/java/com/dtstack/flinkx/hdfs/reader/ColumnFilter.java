@@ -0,0 +1,439 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dtstack.flinkx.hdfs.reader;
+
+import com.dtstack.flinkx.enums.ColumnType;
+import com.dtstack.flinkx.util.DateUtil;
+import org.apache.commons.lang.StringUtils;
+import org.apache.hadoop.hive.ql.io.sarg.SearchArgument;
+import org.apache.hadoop.hive.ql.io.sarg.SearchArgumentFactory;
+import org.apache.parquet.filter2.predicate.FilterApi;
+import org.apache.parquet.filter2.predicate.FilterPredicate;
+import org.apache.parquet.filter2.predicate.Operators;
+import org.apache.parquet.io.api.Binary;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 读取hdfs文件时的简单过滤条件，格式为多个以and连接的条件，如：
+ * <pre>
+ *     id >= 100 and name = 'flinkx' and remark is not null
+ * </pre>
+ * 支持的比较符为 =、!=、<>、<、<=、>、>=、is null、is not null，字符串常量使用单引号。
+ * 条件既用于逐行过滤，也会尽量转换为ORC的SearchArgument或Parquet的FilterPredicate，
+ * 用于跳过不可能满足条件的stripe和row group
+ *
+ * Company: www.dtstack.com
+ */
+public class ColumnFilter implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Pattern COMPARE_PATTERN = Pattern.compile(
+            "\\s*([\\w.]+)\\s*(<=|>=|<>|!=|=|<|>)\\s*('(?:[^']|'')*'|[^\\s']+)\\s*");
+
+    private static final Pattern NULL_PATTERN = Pattern.compile("(?i)\\s*([\\w.]+)\\s+is\\s+(not\\s+)?null\\s*");
+
+    private static final Pattern AND_PATTERN = Pattern.compile("(?i)and\\s+");
+
+    private final String expression;
+
+    private final List<Predicate> predicates;
+
+    private ColumnFilter(String expression, List<Predicate> predicates) {
+        this.expression = expression;
+        this.predicates = predicates;
+    }
+
+    /**
+     * 解析过滤条件
+     * @param expression 过滤条件，为空时返回null
+     * @return 过滤条件
+     */
+    public static ColumnFilter parse(String expression) {
+        if (StringUtils.isBlank(expression)) {
+            return null;
+        }
+
+        List<Predicate> predicates = new ArrayList<>();
+        int pos = 0;
+        while (pos < expression.length()) {
+            Matcher compare = COMPARE_PATTERN.matcher(expression).region(pos, expression.length());
+            Matcher isNull = NULL_PATTERN.matcher(expression).region(pos, expression.length());
+            if (isNull.lookingAt()) {
+                Operator operator = isNull.group(2) == null ? Operator.IS_NULL : Operator.IS_NOT_NULL;
+                predicates.add(new Predicate(isNull.group(1), operator, null));
+                pos = isNull.end();
+            } else if (compare.lookingAt()) {
+                predicates.add(new Predicate(compare.group(1), Operator.fromSymbol(compare.group(2)), unquote(compare.group(3))));
+                pos = compare.end();
+            } else {
+                throw new IllegalArgumentException("Unsupported filter expression: " + expression);
+            }
+
+            if (pos < expression.length()) {
+                Matcher and = AND_PATTERN.matcher(expression).region(pos, expression.length());
+                if (!and.lookingAt()) {
+                    throw new IllegalArgumentException("Unsupported filter expression: " + expression);
+                }
+                pos = and.end();
+            }
+        }
+
+        return new ColumnFilter(expression, predicates);
+    }
+
+    private static String unquote(String literal) {
+        if (literal.length() >= 2 && literal.startsWith("'") && literal.endsWith("'")) {
+            return literal.substring(1, literal.length() - 1).replace("''", "'");
+        }
+        return literal;
+    }
+
+    /**
+     * 根据文件的字段名称和类型确定每个条件对应的字段下标，并预先转换常量
+     * @param columnNames 文件中的字段名称
+     * @param columnTypes 文件中的字段类型
+     */
+    public void bind(String[] columnNames, String[] columnTypes) {
+        for (Predicate predicate : predicates) {
+            int index = -1;
+            for (int i = 0; i < columnNames.length; i++) {
+                if (columnNames[i].equalsIgnoreCase(predicate.column)) {
+                    index = i;
+                    break;
+                }
+            }
+
+            if (index == -1) {
+                throw new IllegalArgumentException("Can not find filter column [" + predicate.column + "] in file schema");
+            }
+
+            predicate.index = index;
+            predicate.columnName = columnNames[index];
+            predicate.columnType = ColumnType.getType(columnTypes[index]);
+            predicate.value = predicate.literal == null ? null : toComparable(predicate.literal, predicate.columnType);
+        }
+    }
+
+    /**
+     * @return 过滤条件中用到的字段名称
+     */
+    public List<String> getColumnNames() {
+        List<String> names = new ArrayList<>(predicates.size());
+        for (Predicate predicate : predicates) {
+            names.add(predicate.column);
+        }
+        return names;
+    }
+
+    /**
+     * @return 过滤条件中用到的字段下标
+     */
+    public List<Integer> getColumnIndices() {
+        List<Integer> indices = new ArrayList<>(predicates.size());
+        for (Predicate predicate : predicates) {
+            indices.add(predicate.index);
+        }
+        return indices;
+    }
+
+    /**
+     * 判断一行数据是否满足过滤条件
+     * @param valueAt 根据字段下标返回字段值
+     * @return 是否满足
+     */
+    public boolean accept(IntFunction<Object> valueAt) {
+        for (Predicate predicate : predicates) {
+            if (!predicate.accept(valueAt.apply(predicate.index))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 将可以下推的条件转换为SearchArgument，日期、时间、布尔、char和decimal类型的条件只做逐行过滤，
+     * hive 1.1的kryo无法反序列化HiveDecimal常量，decimal条件下推后读取数据时会失败
+     * @return SearchArgument，没有可以下推的条件时返回null
+     */
+    public SearchArgument toSearchArgument() {
+        List<Predicate> pushed = new ArrayList<>();
+        for (Predicate predicate : predicates) {
+            if (predicate.getSearchLiteral() != null || predicate.literal == null) {
+                pushed.add(predicate);
+            }
+        }
+
+        if (pushed.isEmpty()) {
+            return null;
+        }
+
+        SearchArgument.Builder builder = SearchArgumentFactory.newBuilder().startAnd();
+        for (Predicate predicate : pushed) {
+            Object literal = predicate.getSearchLiteral();
+            switch (predicate.operator) {
+                case EQUALS:
+                    builder.equals(predicate.columnName, literal);
+                    break;
+                case NOT_EQUALS:
+                    builder.startNot().equals(predicate.columnName, literal).end();
+                    break;
+                case LESS_THAN:
+                    builder.lessThan(predicate.columnName, literal);
+                    break;
+                case LESS_THAN_EQUALS:
+                    builder.lessThanEquals(predicate.columnName, literal);
+                    break;
+                case GREATER_THAN:
+                    builder.startNot().lessThanEquals(predicate.columnName, literal).end();
+                    break;
+                case GREATER_THAN_EQUALS:
+                    builder.startNot().lessThan(predicate.columnName, literal).end();
+                    break;
+                case IS_NULL:
+                    builder.isNull(predicate.columnName);
+                    break;
+                case IS_NOT_NULL:
+                    builder.startNot().isNull(predicate.columnName).end();
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unsupported operator: " + predicate.operator);
+            }
+        }
+
+        return builder.end().build();
+    }
+
+    /**
+     * 将可以下推的条件转换为Parquet的FilterPredicate，只有int、bigint、float、double、string和boolean类型的条件会下推
+     * @return FilterPredicate，没有可以下推的条件时返回null
+     */
+    public FilterPredicate toFilterPredicate() {
+        FilterPredicate result = null;
+        for (Predicate predicate : predicates) {
+            FilterPredicate filterPredicate = predicate.toFilterPredicate();
+            if (filterPredicate != null) {
+                result = result == null ? filterPredicate : FilterApi.and(result, filterPredicate);
+            }
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Comparable<Object> toComparable(Object value, ColumnType columnType) {
+        if (ColumnType.isNumberType(columnType.name())) {
+            return (Comparable) new BigDecimal(value.toString().trim());
+        }
+
+        switch (columnType) {
+            case BOOLEAN:
+                return (Comparable) Boolean.valueOf(value.toString().trim());
+            case DATE:
+                return (Comparable) DateUtil.columnToDate(value, null);
+            case TIMESTAMP:
+            case DATETIME:
+                return (Comparable) DateUtil.columnToTimestamp(value, null);
+            default:
+                return (Comparable) value.toString();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    enum Operator {
+        EQUALS("="), NOT_EQUALS("!="), LESS_THAN("<"), LESS_THAN_EQUALS("<="),
+        GREATER_THAN(">"), GREATER_THAN_EQUALS(">="), IS_NULL(null), IS_NOT_NULL(null);
+
+        private final String symbol;
+
+        Operator(String symbol) {
+            this.symbol = symbol;
+        }
+
+        static Operator fromSymbol(String symbol) {
+            if ("<>".equals(symbol)) {
+                return NOT_EQUALS;
+            }
+
+            for (Operator operator : values()) {
+                if (symbol.equals(operator.symbol)) {
+                    return operator;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported operator: " + symbol);
+        }
+    }
+
+    static class Predicate implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String column;
+
+        private final Operator operator;
+
+        private final String literal;
+
+        private int index = -1;
+
+        private String columnName;
+
+        private ColumnType columnType;
+
+        private Comparable<Object> value;
+
+        Predicate(String column, Operator operator, String literal) {
+            this.column = column;
+            this.operator = operator;
+            this.literal = literal;
+        }
+
+        boolean accept(Object field) {
+            if (operator == Operator.IS_NULL) {
+                return field == null;
+            } else if (operator == Operator.IS_NOT_NULL) {
+                return field != null;
+            }
+
+            if (field == null) {
+                return false;
+            }
+
+            int result = toComparable(field, columnType).compareTo(value);
+            switch (operator) {
+                case EQUALS:
+                    return result == 0;
+                case NOT_EQUALS:
+                    return result != 0;
+                case LESS_THAN:
+                    return result < 0;
+                case LESS_THAN_EQUALS:
+                    return result <= 0;
+                case GREATER_THAN:
+                    return result > 0;
+                case GREATER_THAN_EQUALS:
+                    return result >= 0;
+                default:
+                    return false;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        FilterPredicate toFilterPredicate() {
+            switch (columnType) {
+                case INT:
+                case BIGINT:
+                    try {
+                        if (columnType == ColumnType.INT) {
+                            Integer intValue = literal == null ? null : ((BigDecimal) (Object) value).intValueExact();
+                            return toFilterPredicate(FilterApi.intColumn(columnName), intValue);
+                        }
+                        Long longValue = literal == null ? null : ((BigDecimal) (Object) value).longValueExact();
+                        return toFilterPredicate(FilterApi.longColumn(columnName), longValue);
+                    } catch (ArithmeticException e) {
+                        // 常量不是整数时不下推，只做逐行过滤
+                        return null;
+                    }
+                case FLOAT:
+                    Float floatValue = literal == null ? null : ((BigDecimal) (Object) value).floatValue();
+                    return toFilterPredicate(FilterApi.floatColumn(columnName), floatValue);
+                case DOUBLE:
+                    Double doubleValue = literal == null ? null : ((BigDecimal) (Object) value).doubleValue();
+                    return toFilterPredicate(FilterApi.doubleColumn(columnName), doubleValue);
+                case STRING:
+                    return toFilterPredicate(FilterApi.binaryColumn(columnName), literal == null ? null : Binary.fromString(literal));
+                case BOOLEAN:
+                    if (operator == Operator.EQUALS || operator == Operator.NOT_EQUALS) {
+                        Operators.BooleanColumn column = FilterApi.booleanColumn(columnName);
+                        Boolean booleanValue = (Boolean) (Object) value;
+                        return operator == Operator.EQUALS ? FilterApi.eq(column, booleanValue) : FilterApi.notEq(column, booleanValue);
+                    }
+                    return null;
+                default:
+                    return null;
+            }
+        }
+
+        private <T extends Comparable<T>, C extends Operators.Column<T> & Operators.SupportsLtGt> FilterPredicate toFilterPredicate(C column, T literalValue) {
+            if (literal == null && operator != Operator.IS_NULL && operator != Operator.IS_NOT_NULL) {
+                return null;
+            }
+
+            switch (operator) {
+                case EQUALS:
+                    return FilterApi.eq(column, literalValue);
+                case NOT_EQUALS:
+                    return FilterApi.notEq(column, literalValue);
+                case LESS_THAN:
+                    return FilterApi.lt(column, literalValue);
+                case LESS_THAN_EQUALS:
+                    return FilterApi.ltEq(column, literalValue);
+                case GREATER_THAN:
+                    return FilterApi.gt(column, literalValue);
+                case GREATER_THAN_EQUALS:
+                    return FilterApi.gtEq(column, literalValue);
+                case IS_NULL:
+                    return FilterApi.eq(column, null);
+                case IS_NOT_NULL:
+                    return FilterApi.notEq(column, null);
+                default:
+                    return null;
+            }
+        }
+
+        /**
+         * @return 下推到ORC时使用的常量，类型不支持下推时返回null
+         */
+        Object getSearchLiteral() {
+            if (literal == null) {
+                return null;
+            }
+
+            switch (columnType) {
+                case TINYINT:
+                case SMALLINT:
+                case INT:
+                case INTEGER:
+                case BIGINT:
+                    try {
+                        return ((BigDecimal) (Object) value).longValueExact();
+                    } catch (ArithmeticException e) {
+                        return null;
+                    }
+                case FLOAT:
+                case DOUBLE:
+                    return ((BigDecimal) (Object) value).doubleValue();
+                case STRING:
+                case VARCHAR:
+                    return literal;
+                default:
+                    return null;
+            }
+        }
+    }
+}
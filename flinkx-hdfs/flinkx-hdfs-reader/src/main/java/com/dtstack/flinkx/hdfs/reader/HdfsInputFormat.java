@@ -18,16 +18,23 @@
 
 package com.dtstack.flinkx.hdfs.reader;
 
+import com.dtstack.flinkx.constants.Metrics;
 import com.dtstack.flinkx.inputformat.RichInputFormat;
 import com.dtstack.flinkx.reader.MetaColumn;
 import com.dtstack.flinkx.util.FileSystemUtil;
+import org.apache.flink.api.common.accumulators.LongCounter;
 import org.apache.flink.configuration.Configuration;
 import org.apache.flink.core.io.InputSplit;
+import org.apache.flink.core.io.InputSplitAssigner;
+import org.apache.flink.core.io.LocatableInputSplit;
 import org.apache.hadoop.mapred.JobConf;
 import org.apache.hadoop.mapred.RecordReader;
 import java.io.IOException;
+import java.net.InetAddress;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * The Hdfs Implementation of InputFormat
@@ -61,6 +68,24 @@ public abstract class HdfsInputFormat extends RichInputFormat {
 
     protected boolean isFileEmpty = false;
 
+    /**
+     * 过滤条件，格式见{@link ColumnFilter}，只支持orc和parquet文件，text文件配置时会报错
+     */
+    protected String filter;
+
+    /**
+     * 是否按列批量读取，目前只对orc文件生效
+     */
+    protected boolean vectorizedRead;
+
+    private transient LongCounter localReadBytesCounter;
+
+    private transient LongCounter remoteReadBytesCounter;
+
+    private transient Set<String> localHostAliases;
+
+    private transient boolean currentSplitLocal;
+
     /**
      * configure anything else
      */
@@ -78,6 +103,71 @@ public abstract class HdfsInputFormat extends RichInputFormat {
         return new InputSplit[0];
     }
 
+    @Override
+    public InputSplitAssigner getInputSplitAssigner(InputSplit[] inputSplits) {
+        if (inputSplits == null || inputSplits.length == 0) {
+            return super.getInputSplitAssigner(inputSplits);
+        }
+
+        LocatableInputSplit[] locatableSplits = new LocatableInputSplit[inputSplits.length];
+        for (int i = 0; i < inputSplits.length; i++) {
+            if (!(inputSplits[i] instanceof LocatableInputSplit)) {
+                return super.getInputSplitAssigner(inputSplits);
+            }
+            locatableSplits[i] = (LocatableInputSplit) inputSplits[i];
+        }
+
+        return new LocalityAwareSplitAssigner(locatableSplits, conf);
+    }
+
+    /**
+     * 打开分片时确定分片的数据是否在当前节点上，之后读取的字节数都计入对应的指标
+     * @param split 分片
+     */
+    protected void openLocalityMetric(LocatableInputSplit split) {
+        if (localReadBytesCounter == null) {
+            localReadBytesCounter = getRuntimeContext().getLongCounter(Metrics.READ_BYTES_LOCAL);
+            remoteReadBytesCounter = getRuntimeContext().getLongCounter(Metrics.READ_BYTES_REMOTE);
+            if (inputMetric != null) {
+                inputMetric.addMetric(Metrics.READ_BYTES_LOCAL, localReadBytesCounter);
+                inputMetric.addMetric(Metrics.READ_BYTES_REMOTE, remoteReadBytesCounter);
+            }
+            localHostAliases = getLocalHostAliases();
+        }
+
+        currentSplitLocal = LocalityAwareSplitAssigner.isLocal(split, localHostAliases);
+    }
+
+    /**
+     * 统计当前分片实际读取的字节数
+     * @param readBytes 读取的字节数
+     */
+    protected void updateLocalityMetric(long readBytes) {
+        if (localReadBytesCounter == null || readBytes <= 0) {
+            return;
+        }
+
+        if (currentSplitLocal) {
+            localReadBytesCounter.add(readBytes);
+        } else {
+            remoteReadBytesCounter.add(readBytes);
+        }
+    }
+
+    private Set<String> getLocalHostAliases() {
+        Set<String> aliases = new HashSet<>();
+        try {
+            InetAddress address = InetAddress.getLocalHost();
+            aliases.addAll(LocalityAwareSplitAssigner.getHostAliases(address.getHostName()));
+            aliases.addAll(LocalityAwareSplitAssigner.getHostAliases(address.getCanonicalHostName()));
+            aliases.addAll(LocalityAwareSplitAssigner.getHostAliases(address.getHostAddress()));
+        } catch (Exception e) {
+            LOG.warn("Get local host name error", e);
+        }
+
+        return aliases;
+    }
+
     @Override
     public boolean reachedEnd() throws IOException {
         return isFileEmpty || !recordReader.next(key, value);
@@ -87,6 +177,7 @@ public abstract class HdfsInputFormat extends RichInputFormat {
     public void closeInternal() throws IOException {
         if(recordReader != null) {
             recordReader.close();
+            recordReader = null;
         }
     }
 
@@ -20,6 +20,7 @@ package com.dtstack.flinkx.hdfs.reader;
 
 import com.dtstack.flinkx.inputformat.RichInputFormatBuilder;
 import com.dtstack.flinkx.reader.MetaColumn;
+import org.apache.commons.lang.StringUtils;
 
 import java.util.List;
 import java.util.Map;
@@ -71,10 +72,25 @@ public class HdfsInputFormatBuilder extends RichInputFormatBuilder {
         format.defaultFS = defaultFs;
     }
 
+    public void setFilter(String filter) {
+        format.filter = filter;
+    }
+
+    public void setVectorizedRead(boolean vectorizedRead) {
+        format.vectorizedRead = vectorizedRead;
+    }
+
     @Override
     protected void checkFormat() {
         if (format.getRestoreConfig() != null && format.getRestoreConfig().isRestore()){
             throw new UnsupportedOperationException("This plugin not support restore from failed state");
         }
+
+        if (StringUtils.isNotBlank(format.filter)) {
+            if (format instanceof HdfsTextInputFormat) {
+                throw new IllegalArgumentException("filter is only supported for orc and parquet files");
+            }
+            ColumnFilter.parse(format.filter);
+        }
     }
 }
@@ -18,22 +18,49 @@
 
 package com.dtstack.flinkx.hdfs.reader;
 
+import com.dtstack.flinkx.enums.ColumnType;
 import com.dtstack.flinkx.hdfs.HdfsUtil;
 import com.dtstack.flinkx.reader.MetaColumn;
 import com.dtstack.flinkx.util.FileSystemUtil;
 import org.apache.commons.lang.StringUtils;
 import org.apache.flink.core.io.InputSplit;
+import org.apache.flink.core.io.LocatableInputSplit;
 import org.apache.flink.types.Row;
 import org.apache.hadoop.fs.*;
+import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.ColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.DecimalColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.DoubleColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.TimestampUtils;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
 import org.apache.hadoop.hive.ql.io.orc.*;
+import org.apache.hadoop.hive.ql.io.sarg.SearchArgument;
+import org.apache.hadoop.hive.serde2.ColumnProjectionUtils;
+import org.apache.hadoop.hive.serde2.io.ByteWritable;
+import org.apache.hadoop.hive.serde2.io.DateWritable;
+import org.apache.hadoop.hive.serde2.io.DoubleWritable;
+import org.apache.hadoop.hive.serde2.io.HiveCharWritable;
+import org.apache.hadoop.hive.serde2.io.HiveDecimalWritable;
+import org.apache.hadoop.hive.serde2.io.HiveVarcharWritable;
+import org.apache.hadoop.hive.serde2.io.ShortWritable;
+import org.apache.hadoop.hive.serde2.io.TimestampWritable;
 import org.apache.hadoop.hive.serde2.objectinspector.StructField;
 import org.apache.hadoop.hive.serde2.objectinspector.StructObjectInspector;
+import org.apache.hadoop.io.BooleanWritable;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.FloatWritable;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapred.Reporter;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
 import java.util.*;
 
 /**
@@ -56,6 +83,28 @@ public class HdfsOrcInputFormat extends HdfsInputFormat {
 
     private static final String COMPLEX_FIELD_TYPE_SYMBOL_REGEX = ".*(<|>|\\{|}|[|]).*";
 
+    /**org.apache.hadoop.hive.ql.io.orc.OrcInputFormat#SARG_PUSHDOWN*/
+    private static final String SARG_PUSHDOWN = "sarg.pushdown";
+
+    private transient ColumnType[] fullColumnTypes;
+
+    private transient int[] fullColumnLengths;
+
+    private transient ColumnFilter columnFilter;
+
+    private transient SearchArgument searchArgument;
+
+    /**需要读取的字段下标，为null时读取全部字段*/
+    private transient List<Integer> readColumnIds;
+
+    private transient org.apache.hadoop.hive.ql.io.orc.RecordReader batchReader;
+
+    private transient VectorizedRowBatch batch;
+
+    private transient int rowInBatch;
+
+    private transient long splitLength;
+
     @Override
     protected void configureAnythingElse() {
         orcSerde = new OrcSerde();
@@ -131,22 +180,83 @@ public class HdfsOrcInputFormat extends HdfsInputFormat {
 
             this.inspector = (StructObjectInspector) orcSerde.getObjectInspector();
 
+            fullColumnTypes = new ColumnType[fullColTypes.length];
+            fullColumnLengths = new int[fullColTypes.length];
+            for (int i = 0; i < fullColTypes.length; i++) {
+                fullColumnTypes[i] = ColumnType.getType(fullColTypes[i]);
+                fullColumnLengths[i] = getTypeLength(fullColTypes[i]);
+            }
+
+            configureProjectionAndFilter();
         } catch (Throwable e) {
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * 只读取metaColumns和过滤条件中用到的字段，并把过滤条件下推为SearchArgument，
+     * ORC会根据统计信息跳过不可能满足条件的stripe和row group
+     */
+    private void configureProjectionAndFilter() {
+        columnFilter = ColumnFilter.parse(filter);
+        Set<Integer> ids = new TreeSet<>();
+        if (columnFilter != null) {
+            columnFilter.bind(fullColNames, fullColTypes);
+            searchArgument = columnFilter.toSearchArgument();
+            ids.addAll(columnFilter.getColumnIndices());
+        }
+
+        boolean readAll = metaColumns.size() == 1 && "*".equals(metaColumns.get(0).getName());
+        if (readAll) {
+            if (searchArgument == null) {
+                return;
+            }
+
+            for (int i = 0; i < fullColNames.length; i++) {
+                ids.add(i);
+            }
+        } else {
+            for (MetaColumn metaColumn : metaColumns) {
+                if (metaColumn.getIndex() != null && metaColumn.getIndex() != -1) {
+                    ids.add(metaColumn.getIndex());
+                }
+            }
+        }
+
+        readColumnIds = new ArrayList<>(ids);
+        List<String> readColumnNames = new ArrayList<>(ids.size());
+        for (Integer id : readColumnIds) {
+            readColumnNames.add(fullColNames[id]);
+        }
+
+        conf.setBoolean(ColumnProjectionUtils.READ_ALL_COLUMNS, false);
+        conf.set(ColumnProjectionUtils.READ_COLUMN_IDS_CONF_STR, StringUtils.join(readColumnIds, ","));
+        conf.set(ColumnProjectionUtils.READ_COLUMN_NAMES_CONF_STR, StringUtils.join(readColumnNames, ","));
+        if (searchArgument != null) {
+            conf.set(SARG_PUSHDOWN, searchArgument.toKryo());
+            LOG.info("orc search argument:{}", searchArgument);
+        }
+    }
+
+    private static int getTypeLength(String type) {
+        int start = type.indexOf('(');
+        int end = type.indexOf(')');
+        if (start == -1 || end <= start || type.indexOf(',') != -1) {
+            return -1;
+        }
+        return Integer.parseInt(type.substring(start + 1, end).trim());
+    }
+
     private List<String> parseColumnAndType(String typeStruct){
         List<String> cols = new ArrayList<>();
         List<String> splits = Arrays.asList(typeStruct.split(","));
         Iterator<String> it = splits.iterator();
         while (it.hasNext()){
             String current = it.next();
-            if(current.contains("(")){
-                if(current.contains("(")){
-                    String next = it.next();
-                    cols.add(current + "," + next);
-                }
+            // decimal(p,s)被逗号拆开，需要和下一段合并，char(n)和varchar(n)不需要
+            if(current.contains("(") && !current.contains(")")){
+                String next = it.next();
+                cols.add(current + "," + next);
             } else {
                 cols.add(current);
             }
@@ -181,13 +291,168 @@ public class HdfsOrcInputFormat extends HdfsInputFormat {
 
         numReadCounter = getRuntimeContext().getLongCounter("numRead");
         HdfsOrcInputSplit hdfsOrcInputSplit = (HdfsOrcInputSplit) inputSplit;
+        openLocalityMetric(hdfsOrcInputSplit);
+        splitLength = hdfsOrcInputSplit.getLength();
         OrcSplit orcSplit = hdfsOrcInputSplit.getOrcSplit();
+        if (vectorizedRead) {
+            openBatchReader(orcSplit);
+            return;
+        }
+
         recordReader = inputFormat.getRecordReader(orcSplit, conf, Reporter.NULL);
         key = recordReader.createKey();
         value = recordReader.createValue();
         fields = inspector.getAllStructFieldRefs();
     }
 
+    private void openBatchReader(OrcSplit orcSplit) throws IOException {
+        org.apache.hadoop.hive.ql.io.orc.Reader reader = OrcFile.createReader(orcSplit.getPath(), OrcFile.readerOptions(conf));
+        int typeCount = reader.getTypes().size();
+
+        boolean[] include = new boolean[typeCount];
+        include[0] = true;
+        for (int i = 0; i < fullColNames.length; i++) {
+            include[i + 1] = readColumnIds == null;
+        }
+        if (readColumnIds != null) {
+            for (Integer id : readColumnIds) {
+                include[id + 1] = true;
+            }
+        }
+
+        org.apache.hadoop.hive.ql.io.orc.Reader.Options options = new org.apache.hadoop.hive.ql.io.orc.Reader.Options()
+                .range(orcSplit.getStart(), orcSplit.getLength())
+                .include(include);
+        if (searchArgument != null) {
+            String[] columnNames = new String[typeCount];
+            for (int i = 0; i < fullColNames.length; i++) {
+                columnNames[i + 1] = fullColNames[i];
+            }
+            options.searchArgument(searchArgument, columnNames);
+        }
+
+        batchReader = reader.rowsOptions(options);
+        batch = null;
+        rowInBatch = 0;
+    }
+
+    @Override
+    public boolean reachedEnd() throws IOException {
+        if (isFileEmpty) {
+            return true;
+        }
+
+        while (true) {
+            if (vectorizedRead) {
+                if (!nextRowInBatch()) {
+                    return true;
+                }
+            } else if (!recordReader.next(key, value)) {
+                return true;
+            }
+
+            if (columnFilter == null || columnFilter.accept(this::readFilterValue)) {
+                return false;
+            }
+        }
+    }
+
+    private boolean nextRowInBatch() throws IOException {
+        rowInBatch++;
+        while (batch == null || rowInBatch >= batch.size) {
+            if (!batchReader.hasNext()) {
+                return false;
+            }
+            batch = batchReader.nextBatch(batch);
+            rowInBatch = 0;
+        }
+        return true;
+    }
+
+    private Object readFilterValue(int index) {
+        Object val = readField(index);
+        return val == null ? null : HdfsUtil.getWritableValue(val);
+    }
+
+    /**
+     * 读取当前行的字段，返回值与按行读取时OrcStruct中的Writable类型一致
+     */
+    private Object readField(int index) {
+        if (!vectorizedRead) {
+            return inspector.getStructFieldData(value, fields.get(index));
+        }
+
+        ColumnVector vector = batch.cols[index];
+        int row = vector.isRepeating ? 0 : rowInBatch;
+        if (!vector.noNulls && vector.isNull[row]) {
+            return null;
+        }
+
+        switch (fullColumnTypes[index]) {
+            case BOOLEAN:
+                return new BooleanWritable(((LongColumnVector) vector).vector[row] != 0);
+            case TINYINT:
+                return new ByteWritable((byte) ((LongColumnVector) vector).vector[row]);
+            case SMALLINT:
+                return new ShortWritable((short) ((LongColumnVector) vector).vector[row]);
+            case INT:
+                return new IntWritable((int) ((LongColumnVector) vector).vector[row]);
+            case BIGINT:
+                return new LongWritable(((LongColumnVector) vector).vector[row]);
+            case FLOAT:
+                return new FloatWritable((float) ((DoubleColumnVector) vector).vector[row]);
+            case DOUBLE:
+                return new DoubleWritable(((DoubleColumnVector) vector).vector[row]);
+            case DECIMAL:
+                return new HiveDecimalWritable(((DecimalColumnVector) vector).vector[row]);
+            case DATE:
+                return new DateWritable((int) ((LongColumnVector) vector).vector[row]);
+            case TIMESTAMP:
+                Timestamp timestamp = new Timestamp(0);
+                TimestampUtils.assignTimeInNanoSec(((LongColumnVector) vector).vector[row], timestamp);
+                return new TimestampWritable(timestamp);
+            default:
+                break;
+        }
+
+        BytesColumnVector bytesVector = (BytesColumnVector) vector;
+        byte[] bytes = bytesVector.vector[row];
+        int start = bytesVector.start[row];
+        int length = bytesVector.length[row];
+        switch (fullColumnTypes[index]) {
+            case BINARY:
+                return new BytesWritable(Arrays.copyOfRange(bytes, start, start + length));
+            case CHAR:
+                HiveCharWritable charWritable = new HiveCharWritable();
+                charWritable.set(new String(bytes, start, length, StandardCharsets.UTF_8), fullColumnLengths[index]);
+                return charWritable;
+            case VARCHAR:
+                HiveVarcharWritable varcharWritable = new HiveVarcharWritable();
+                varcharWritable.set(new String(bytes, start, length, StandardCharsets.UTF_8), fullColumnLengths[index]);
+                return varcharWritable;
+            default:
+                Text text = new Text();
+                text.set(bytes, start, length);
+                return text;
+        }
+    }
+
+    @Override
+    public void closeInternal() throws IOException {
+        // orc的reader只提供读取进度，按进度估算实际读取的字节数
+        if (batchReader != null) {
+            updateLocalityMetric((long) (batchReader.getProgress() * splitLength));
+        } else if (recordReader != null) {
+            updateLocalityMetric((long) (recordReader.getProgress() * splitLength));
+        }
+
+        if (batchReader != null) {
+            batchReader.close();
+            batchReader = null;
+        }
+        super.closeInternal();
+    }
+
     private int name2index(String columnName) {
         int i = 0;
         for(; i < fullColNames.length; ++i) {
@@ -204,7 +469,7 @@ public class HdfsOrcInputFormat extends HdfsInputFormat {
         if(metaColumns.size() == 1 && "*".equals(metaColumns.get(0).getName())){
             row = new Row(fullColNames.length);
             for (int i = 0; i < fullColNames.length; i++) {
-                Object col = inspector.getStructFieldData(value, fields.get(i));
+                Object col = readField(i);
                 if (col != null) {
                     col = HdfsUtil.getWritableValue(col);
                 }
@@ -217,7 +482,7 @@ public class HdfsOrcInputFormat extends HdfsInputFormat {
                 Object val = null;
 
                 if(metaColumn.getIndex() != -1){
-                    val = inspector.getStructFieldData(value, fields.get(metaColumn.getIndex()));
+                    val = readField(metaColumn.getIndex());
                     if (val == null && metaColumn.getValue() != null){
                         val = metaColumn.getValue();
                     }
@@ -238,12 +503,13 @@ public class HdfsOrcInputFormat extends HdfsInputFormat {
         return row;
     }
 
-    static class HdfsOrcInputSplit implements InputSplit {
-        int splitNumber;
+    static class HdfsOrcInputSplit extends LocatableInputSplit {
         byte[] orcSplitData;
+        long length;
 
         public HdfsOrcInputSplit(OrcSplit orcSplit, int splitNumber) throws IOException {
-            this.splitNumber = splitNumber;
+            super(splitNumber, orcSplit.getLocations());
+            this.length = orcSplit.getLength();
             ByteArrayOutputStream baos = new ByteArrayOutputStream();
             DataOutputStream dos = new DataOutputStream(baos);
             orcSplit.write(dos);
@@ -263,9 +529,8 @@ public class HdfsOrcInputFormat extends HdfsInputFormat {
             return orcSplit;
         }
 
-        @Override
-        public int getSplitNumber() {
-            return splitNumber;
+        public long getLength() {
+            return length;
         }
     }
 
@@ -26,30 +26,61 @@ import com.google.common.collect.Lists;
 import com.google.common.primitives.Ints;
 import com.google.common.primitives.Longs;
 import org.apache.flink.core.io.InputSplit;
+import org.apache.flink.core.io.LocatableInputSplit;
 import org.apache.flink.types.Row;
+import org.apache.hadoop.fs.BlockLocation;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocatedFileStatus;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RemoteIterator;
+import org.apache.parquet.column.ColumnDescriptor;
+import org.apache.parquet.column.page.PageReadStore;
 import org.apache.parquet.example.data.Group;
-import org.apache.parquet.hadoop.ParquetReader;
-import org.apache.parquet.hadoop.example.GroupReadSupport;
+import org.apache.parquet.example.data.simple.convert.GroupRecordConverter;
+import org.apache.parquet.filter2.compat.FilterCompat;
+import org.apache.parquet.filter2.compat.RowGroupFilter;
+import org.apache.parquet.filter2.predicate.FilterPredicate;
+import org.apache.parquet.format.converter.ParquetMetadataConverter;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnPath;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+import org.apache.parquet.io.ColumnIOFactory;
+import org.apache.parquet.io.MessageColumnIO;
+import org.apache.parquet.io.RecordReader;
 import org.apache.parquet.io.api.Binary;
 import org.apache.parquet.schema.DecimalMetadata;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.OriginalType;
 import org.apache.parquet.schema.PrimitiveType;
 import org.apache.parquet.schema.Type;
 
 import java.io.IOException;
+import java.io.Serializable;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.sql.Timestamp;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 /**
  * The subclass of HdfsInputFormat which handles parquet files
  *
+ * 大文件按row group切分到不同的分片，读取时只解码用到的列，并在打开文件时为每一列生成类型转换器
+ *
  * Company: www.dtstack.com
  * @author jiangbo
  */
@@ -57,17 +88,42 @@ public class HdfsParquetInputFormat extends HdfsInputFormat {
 
     private transient Group currentLine;
 
-    private transient ParquetReader<Group> currentFileReader;
+    private transient ParquetFileReader currentFileReader;
+
+    private transient RecordReader<Group> currentRecordReader;
+
+    private transient long currentRowGroupRows;
 
-    private transient List<String> allFilePaths;
+    private transient long currentRowGroupReadRows;
+
+    private transient List<FileStatus> allFiles;
 
     private transient List<String> fullColNames;
 
     private transient List<String> fullColTypes;
 
-    private transient List<String> currentSplitFilePaths;
+    private transient MessageType requestedSchema;
+
+    private transient MessageColumnIO columnIO;
+
+    private transient FieldConverter[] fieldConverters;
+
+    private transient FieldConverter[] filterConverters;
+
+    private transient ColumnFilter columnFilter;
+
+    private transient FilterCompat.Filter recordFilter;
+
+    private transient List<ParquetBlock> currentSplitBlocks;
 
-    private transient int currentFileIndex = 0;
+    private transient int currentBlockIndex = 0;
+
+    private transient String currentFilePath;
+
+    /**
+     * 当前文件中待读取的每个row group需要读取的字节数
+     */
+    private transient Deque<Long> currentRowGroupBytes;
 
     private static final int JULIAN_EPOCH_OFFSET_DAYS = 2440588;
 
@@ -77,12 +133,22 @@ public class HdfsParquetInputFormat extends HdfsInputFormat {
 
     private static final String EXCLUDE_FILE = "_SUCCESS";
 
+    /**
+     * 超过这个大小的文件按row group切分
+     */
+    private static final long ROW_GROUP_SPLIT_THRESHOLD = 128 * 1024 * 1024L;
+
+    /**
+     * 每个分片最多记录的数据所在节点个数
+     */
+    private static final int MAX_PREFERRED_HOSTS = 3;
+
     @Override
     protected void configureAnythingElse() {
         FileSystem fs = null;
         try {
             fs = FileSystemUtil.getFileSystem(hadoopConfig, defaultFS, jobId, "reader");
-            allFilePaths = getAllPartitionPath(inputPath, fs);
+            allFiles = getAllPartitionFiles(inputPath, fs);
         } catch (Exception e){
             throw new RuntimeException(e);
         } finally {
@@ -98,59 +164,183 @@ public class HdfsParquetInputFormat extends HdfsInputFormat {
 
     @Override
     protected void openInternal(InputSplit inputSplit) throws IOException {
-        currentSplitFilePaths = ((HdfsParquetSplit)inputSplit).getPaths();
+        HdfsParquetSplit split = (HdfsParquetSplit) inputSplit;
+        openLocalityMetric(split);
+        currentSplitBlocks = split.getBlocks();
+        currentBlockIndex = 0;
+        columnFilter = ColumnFilter.parse(filter);
     }
 
     private boolean nextLine() throws IOException{
-        if (currentFileReader == null && currentFileIndex <= currentSplitFilePaths.size()-1){
-            nextFile();
+        while (true) {
+            if (currentRecordReader != null && currentRowGroupReadRows < currentRowGroupRows) {
+                Group group = currentRecordReader.read();
+                currentRowGroupReadRows++;
+                if (group == null || currentRecordReader.shouldSkipCurrentRecord()) {
+                    continue;
+                }
+
+                if (columnFilter != null && !columnFilter.accept(index -> readField(group, index, filterConverters[index]))) {
+                    continue;
+                }
+
+                currentLine = group;
+                return true;
+            }
+
+            currentRecordReader = null;
+            if (currentFileReader != null) {
+                PageReadStore pages = currentFileReader.readNextRowGroup();
+                if (pages != null) {
+                    updateLocalityMetric(currentRowGroupBytes.poll());
+                    currentRowGroupRows = pages.getRowCount();
+                    currentRowGroupReadRows = 0;
+                    currentRecordReader = columnIO.getRecordReader(pages, new GroupRecordConverter(requestedSchema), recordFilter);
+                    continue;
+                }
+
+                currentFileReader.close();
+                currentFileReader = null;
+            }
+
+            if (currentSplitBlocks == null || currentBlockIndex >= currentSplitBlocks.size()) {
+                currentLine = null;
+                return false;
+            }
+
+            openBlock(currentSplitBlocks.get(currentBlockIndex++));
         }
+    }
 
-        if (currentFileReader == null){
-            return false;
+    private void openBlock(ParquetBlock block) throws IOException {
+        currentFilePath = block.getPath();
+        Path path = new Path(block.getPath());
+        ParquetMetadataConverter.MetadataFilter metadataFilter = block.isWholeFile()
+                ? ParquetMetadataConverter.NO_FILTER
+                : ParquetMetadataConverter.range(block.getStart(), block.getStart() + block.getLength());
+
+        ParquetMetadata footer = ParquetFileReader.readFooter(conf, path, metadataFilter);
+        MessageType fileSchema = footer.getFileMetaData().getSchema();
+        FilterPredicate predicate = initSchema(fileSchema);
+
+        List<BlockMetaData> rowGroups = footer.getBlocks();
+        if (predicate != null) {
+            recordFilter = FilterCompat.get(predicate);
+            rowGroups = RowGroupFilter.filterRowGroups(recordFilter, rowGroups, fileSchema);
+        } else {
+            recordFilter = FilterCompat.NOOP;
         }
 
-        currentLine = currentFileReader.read();
-        if (fullColNames == null && currentLine != null){
-            fullColNames = new ArrayList<>();
-            fullColTypes = new ArrayList<>();
-            List<Type> types = currentLine.getType().getFields();
-            for (Type type : types) {
-                fullColNames.add(type.getName().toUpperCase());
-                fullColTypes.add(getTypeName(type.asPrimitiveType().getPrimitiveTypeName().getMethod));
+        Set<ColumnPath> requestedPaths = new HashSet<>();
+        for (ColumnDescriptor column : requestedSchema.getColumns()) {
+            requestedPaths.add(ColumnPath.get(column.getPath()));
+        }
+        currentRowGroupBytes = new ArrayDeque<>(rowGroups.size());
+        for (BlockMetaData rowGroup : rowGroups) {
+            long bytes = 0;
+            for (ColumnChunkMetaData chunk : rowGroup.getColumns()) {
+                if (requestedPaths.contains(chunk.getPath())) {
+                    bytes += chunk.getTotalSize();
+                }
             }
+            currentRowGroupBytes.add(bytes);
+        }
+
+        columnIO = new ColumnIOFactory().getColumnIO(requestedSchema, fileSchema);
+        currentFileReader = new ParquetFileReader(conf, footer.getFileMetaData(), path, rowGroups, requestedSchema.getColumns());
+    }
+
+    /**
+     * 根据文件的schema确定需要读取的列，并生成每一列的类型转换器
+     * @return 可以下推到parquet的过滤条件，没有时返回null
+     */
+    private FilterPredicate initSchema(MessageType fileSchema) {
+        fullColNames = new ArrayList<>();
+        fullColTypes = new ArrayList<>();
+        for (Type type : fileSchema.getFields()) {
+            fullColNames.add(type.getName().toUpperCase());
+            fullColTypes.add(getColumnTypeName(type));
+        }
 
+        if (isReadAllColumns()) {
+            requestedSchema = fileSchema;
+            fieldConverters = new FieldConverter[fullColNames.size()];
+            for (int i = 0; i < fullColNames.size(); i++) {
+                fieldConverters[i] = createFieldConverter(ColumnType.fromString(fullColTypes.get(i)), fileSchema.getType(i));
+            }
+        } else {
+            Set<String> requestedNames = new HashSet<>();
             for (MetaColumn metaColumn : metaColumns) {
-                if(fullColNames.contains(metaColumn.getName().toUpperCase())){
-                    metaColumn.setIndex(fullColNames.indexOf(metaColumn.getName().toUpperCase()));
-                } else {
-                    metaColumn.setIndex(-1);
+                if (metaColumn.getName() != null) {
+                    requestedNames.add(metaColumn.getName().toUpperCase());
+                }
+            }
+            if (columnFilter != null) {
+                for (String name : columnFilter.getColumnNames()) {
+                    requestedNames.add(name.toUpperCase());
+                }
+            }
+
+            List<Type> requestedFields = new ArrayList<>();
+            for (Type type : fileSchema.getFields()) {
+                if (requestedNames.contains(type.getName().toUpperCase())) {
+                    requestedFields.add(type);
+                }
+            }
+
+            // 没有用到文件中的任何列时仍需读取一列来确定行数
+            if (requestedFields.isEmpty() && fileSchema.getFieldCount() > 0) {
+                requestedFields.add(fileSchema.getType(0));
+            }
+            requestedSchema = new MessageType(fileSchema.getName(), requestedFields);
+
+            List<String> requestedColNames = new ArrayList<>();
+            for (Type type : requestedFields) {
+                requestedColNames.add(type.getName().toUpperCase());
+            }
+
+            fieldConverters = new FieldConverter[metaColumns.size()];
+            for (int i = 0; i < metaColumns.size(); i++) {
+                MetaColumn metaColumn = metaColumns.get(i);
+                int index = metaColumn.getName() == null ? -1 : requestedColNames.indexOf(metaColumn.getName().toUpperCase());
+                metaColumn.setIndex(index);
+                if (index != -1) {
+                    fieldConverters[i] = createFieldConverter(ColumnType.fromString(metaColumn.getType()), requestedSchema.getType(index));
                 }
             }
         }
 
-        if (currentLine == null){
-            currentFileReader = null;
-            nextLine();
+        if (columnFilter == null) {
+            return null;
         }
 
-        return currentLine != null;
-    }
+        int fieldCount = requestedSchema.getFieldCount();
+        String[] names = new String[fieldCount];
+        String[] types = new String[fieldCount];
+        for (int i = 0; i < fieldCount; i++) {
+            names[i] = requestedSchema.getType(i).getName();
+            types[i] = getColumnTypeName(requestedSchema.getType(i));
+        }
+        columnFilter.bind(names, types);
+
+        filterConverters = new FieldConverter[fieldCount];
+        for (Integer index : columnFilter.getColumnIndices()) {
+            filterConverters[index] = createFieldConverter(ColumnType.getType(types[index]), requestedSchema.getType(index));
+        }
 
-    private void nextFile() throws IOException{
-        String path = currentSplitFilePaths.get(currentFileIndex);
-        ParquetReader.Builder<Group> reader = ParquetReader.builder(new GroupReadSupport(), new Path(path)).withConf(conf);
-        currentFileReader = reader.build();
+        return columnFilter.toFilterPredicate();
+    }
 
-        currentFileIndex++;
+    private boolean isReadAllColumns() {
+        return metaColumns.size() == 1 && "*".equals(metaColumns.get(0).getName());
     }
 
     @Override
     protected Row nextRecordInternal(Row row) throws IOException {
-        if(metaColumns.size() == 1 && "*".equals(metaColumns.get(0).getName())){
+        if(isReadAllColumns()){
             row = new Row(fullColNames.size());
             for (int i = 0; i < fullColNames.size(); i++) {
-                Object val = getData(currentLine,fullColTypes.get(i),i);
+                Object val = readField(currentLine, i, fieldConverters[i]);
                 row.setField(i, val);
             }
         } else {
@@ -160,9 +350,7 @@ public class HdfsParquetInputFormat extends HdfsInputFormat {
                 Object val = null;
 
                 if(metaColumn.getIndex() != -1){
-                    if(currentLine.getFieldRepetitionCount(metaColumn.getName()) > 0){
-                        val = getData(currentLine,metaColumn.getType(),metaColumn.getIndex());
-                    }
+                    val = readField(currentLine, metaColumn.getIndex(), fieldConverters[i]);
 
                     if (val == null && metaColumn.getValue() != null){
                         val = metaColumn.getValue();
@@ -187,83 +375,210 @@ public class HdfsParquetInputFormat extends HdfsInputFormat {
         return !nextLine();
     }
 
-    private Object getData(Group currentLine,String type,int index){
-        Object data = null;
-        ColumnType columnType = ColumnType.fromString(type);
+    private Object readField(Group group, int index, FieldConverter converter) {
+        if (converter == null || group.getFieldRepetitionCount(index) == 0) {
+            return null;
+        }
 
-        try{
-            if (index == -1){
-                return null;
-            }
+        try {
+            return converter.convert(group, index);
+        } catch (Exception e){
+            // 与原来的逐行解析保持一致，读取失败的字段记录日志后返回null
+            LOG.error("Read column [{}] of file [{}] error", group.getType().getFieldName(index), currentFilePath, e);
+            return null;
+        }
+    }
 
-            Type colSchemaType = currentLine.getType().getType(index);
-            switch (columnType.name().toLowerCase()){
-                case "tinyint" :
-                case "smallint" :
-                case "int" : data = currentLine.getInteger(index,0);break;
-                case "bigint" : data = currentLine.getLong(index,0);break;
-                case "float" : data = currentLine.getFloat(index,0);break;
-                case "double" : data = currentLine.getDouble(index,0);break;
-                case "binary" :data = currentLine.getBinary(index,0);break;
-                case "char" :
-                case "varchar" :
-                case "string" : data = currentLine.getString(index,0);break;
-                case "boolean" : data = currentLine.getBoolean(index,0);break;
-                case "timestamp" :{
-                    long time = getTimestampMillis(currentLine.getInt96(index,0));
-                    data = new Timestamp(time);
-                    break;
+    private FieldConverter createFieldConverter(ColumnType columnType, Type schemaType) {
+        switch (columnType) {
+            case TINYINT:
+            case SMALLINT:
+            case INT: return (group, index) -> group.getInteger(index, 0);
+            case BIGINT: return (group, index) -> group.getLong(index, 0);
+            case FLOAT: return (group, index) -> group.getFloat(index, 0);
+            case DOUBLE: return (group, index) -> group.getDouble(index, 0);
+            case BINARY: return (group, index) -> group.getBinary(index, 0);
+            case CHAR:
+            case VARCHAR:
+            case STRING: {
+                // 非binary类型的字段配置为字符串时按原始值转换
+                if (schemaType.isPrimitive() && schemaType.asPrimitiveType().getPrimitiveTypeName() != PrimitiveType.PrimitiveTypeName.BINARY) {
+                    return (group, index) -> group.getValueToString(index, 0);
                 }
-                case "decimal" : {
-                    DecimalMetadata dm = ((PrimitiveType) colSchemaType).getDecimalMetadata();
-                    String primitiveTypeName = currentLine.getType().getType(index).asPrimitiveType().getPrimitiveTypeName().name();
-                    if ("INT32".equals(primitiveTypeName)){
-                        int intVal = currentLine.getInteger(index,0);
-                        data = longToDecimalStr((long)intVal,dm.getScale());
-                    } else if("INT64".equals(primitiveTypeName)){
-                        long longVal = currentLine.getLong(index,0);
-                        data = longToDecimalStr(longVal,dm.getScale());
-                    } else {
-                        Binary binary = currentLine.getBinary(index,0);
-                        data = binaryToDecimalStr(binary,dm.getScale());
-                    }
-                    break;
+                return (group, index) -> group.getString(index, 0);
+            }
+            case BOOLEAN: return (group, index) -> group.getBoolean(index, 0);
+            case TIMESTAMP: return (group, index) -> new Timestamp(getTimestampMillis(group.getInt96(index, 0)));
+            case DECIMAL: {
+                if (!schemaType.isPrimitive()) {
+                    return (group, index) -> null;
                 }
-                case "date" : {
-                    String val = currentLine.getValueToString(index,0);
-                    data = new Timestamp(Integer.parseInt(val) * 60 * 60 * 24 * 1000L).toString().substring(0,10);
-                    break;
+
+                DecimalMetadata decimalMetadata = schemaType.asPrimitiveType().getDecimalMetadata();
+                if (decimalMetadata == null) {
+                    // 文件中的字段没有decimal注解时按原始值读取
+                    return (group, index) -> group.getValueToString(index, 0);
+                }
+
+                int scale = decimalMetadata.getScale();
+                switch (schemaType.asPrimitiveType().getPrimitiveTypeName()) {
+                    case INT32: return (group, index) -> longToDecimalStr((long) group.getInteger(index, 0), scale);
+                    case INT64: return (group, index) -> longToDecimalStr(group.getLong(index, 0), scale);
+                    default: return (group, index) -> binaryToDecimalStr(group.getBinary(index, 0), scale);
                 }
-                default: data = currentLine.getValueToString(index,0);break;
             }
-        } catch (Exception e){
-            LOG.error("{}",e);
+            case DATE: return (group, index) -> {
+                String val = group.getValueToString(index, 0);
+                return new Timestamp(Integer.parseInt(val) * 60 * 60 * 24 * 1000L).toString().substring(0,10);
+            };
+            default: return (group, index) -> group.getValueToString(index, 0);
         }
+    }
 
-        return data;
+    /**
+     * 根据parquet的物理类型和逻辑类型确定字段类型，读取全部字段和过滤条件时使用
+     */
+    private String getColumnTypeName(Type type) {
+        if (!type.isPrimitive()) {
+            return "string";
+        }
+
+        PrimitiveType primitiveType = type.asPrimitiveType();
+        OriginalType originalType = primitiveType.getOriginalType();
+        if (originalType == OriginalType.DECIMAL) {
+            return "decimal";
+        } else if (originalType == OriginalType.DATE) {
+            return "date";
+        }
+
+        switch (primitiveType.getPrimitiveTypeName()) {
+            case INT32: return "int";
+            case INT64: return "bigint";
+            case FLOAT: return "float";
+            case DOUBLE: return "double";
+            case BOOLEAN: return "boolean";
+            case INT96: return "timestamp";
+            case BINARY: return originalType == OriginalType.UTF8 ? "string" : "binary";
+            default: return "binary";
+        }
     }
 
+    /**
+     * 将文件和row group按大小均衡地分配到各个分片中，大文件的每个row group都可以单独分配
+     */
     @Override
     public HdfsParquetSplit[] createInputSplits(int minNumSplits) throws IOException {
-        if(allFilePaths != null && allFilePaths.size() > 0){
-            HdfsParquetSplit[] splits = new HdfsParquetSplit[minNumSplits];
-            for (int i = 0; i < minNumSplits; i++) {
-                splits[i] = new HdfsParquetSplit(i, new ArrayList<>());
+        if(allFiles == null || allFiles.isEmpty()){
+            return new HdfsParquetSplit[0];
+        }
+
+        List<ParquetBlock> blocks = new ArrayList<>();
+        for (FileStatus file : allFiles) {
+            String path = file.getPath().toString();
+            BlockLocation[] locations = file instanceof LocatedFileStatus
+                    ? ((LocatedFileStatus) file).getBlockLocations()
+                    : file.getPath().getFileSystem(conf).getFileBlockLocations(file, 0, file.getLen());
+            if (file.getLen() <= ROW_GROUP_SPLIT_THRESHOLD) {
+                blocks.add(new ParquetBlock(path, 0, ParquetBlock.WHOLE_FILE, file.getLen(), getHosts(locations, 0, file.getLen())));
+                continue;
             }
 
-            Iterator<String> it = allFilePaths.iterator();
-            while (it.hasNext()) {
-                for (HdfsParquetSplit split : splits) {
-                    if (it.hasNext()){
-                        split.getPaths().add(it.next());
-                    }
-                }
+            ParquetMetadata footer = ParquetFileReader.readFooter(conf, file, ParquetMetadataConverter.NO_FILTER);
+            for (BlockMetaData rowGroup : footer.getBlocks()) {
+                String[] hosts = getHosts(locations, rowGroup.getStartingPos(), rowGroup.getCompressedSize());
+                blocks.add(new ParquetBlock(path, rowGroup.getStartingPos(), rowGroup.getCompressedSize(), rowGroup.getCompressedSize(), hosts));
+            }
+        }
+
+        return assignBlocks(blocks, minNumSplits);
+    }
+
+    /**
+     * 按数据量从大到小依次把数据块分配给当前数据量最少的分片，再合并分片中相邻的row group
+     */
+    HdfsParquetSplit[] assignBlocks(List<ParquetBlock> blocks, int minNumSplits) {
+        List<List<ParquetBlock>> assignedBlocks = new ArrayList<>(minNumSplits);
+        long[] assignedSizes = new long[minNumSplits];
+        PriorityQueue<Integer> queue = new PriorityQueue<>(minNumSplits,
+                Comparator.<Integer>comparingLong(index -> assignedSizes[index]).thenComparingInt(index -> index));
+        for (int i = 0; i < minNumSplits; i++) {
+            assignedBlocks.add(new ArrayList<>());
+            queue.add(i);
+        }
+
+        blocks.sort(Comparator.comparingLong(ParquetBlock::getSize).reversed());
+        for (ParquetBlock block : blocks) {
+            int index = queue.poll();
+            assignedBlocks.get(index).add(block);
+            assignedSizes[index] += block.getSize();
+            queue.add(index);
+        }
+
+        HdfsParquetSplit[] splits = new HdfsParquetSplit[minNumSplits];
+        for (int i = 0; i < minNumSplits; i++) {
+            List<ParquetBlock> splitBlocks = mergeAdjacentBlocks(assignedBlocks.get(i));
+            splits[i] = new HdfsParquetSplit(i, splitBlocks, getPreferredHosts(splitBlocks));
+            LOG.info("split {} contains {} blocks, {} bytes", i, splitBlocks.size(), splits[i].getSize());
+        }
+
+        return splits;
+    }
+
+    /**
+     * @return 和[start, start + length)重叠最多的hdfs块所在的节点
+     */
+    private static String[] getHosts(BlockLocation[] locations, long start, long length) throws IOException {
+        BlockLocation best = null;
+        long bestOverlap = 0;
+        for (BlockLocation location : locations) {
+            long overlap = Math.min(start + length, location.getOffset() + location.getLength()) - Math.max(start, location.getOffset());
+            if (overlap > bestOverlap) {
+                best = location;
+                bestOverlap = overlap;
             }
+        }
+
+        return best == null ? new String[0] : best.getHosts();
+    }
 
-            return splits;
+    /**
+     * 按数据量选出分片中数据最多的几个节点
+     */
+    private static String[] getPreferredHosts(List<ParquetBlock> blocks) {
+        Map<String, Long> bytesByHost = new HashMap<>();
+        for (ParquetBlock block : blocks) {
+            for (String host : block.getHosts()) {
+                bytesByHost.merge(host, block.getSize(), Long::sum);
+            }
         }
 
-        return new HdfsParquetSplit[0];
+        return bytesByHost.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(MAX_PREFERRED_HOSTS)
+                .map(Map.Entry::getKey)
+                .toArray(String[]::new);
+    }
+
+    /**
+     * 合并同一文件中相邻的row group，减少重复读取footer
+     */
+    static List<ParquetBlock> mergeAdjacentBlocks(List<ParquetBlock> blocks) {
+        blocks.sort(Comparator.comparing(ParquetBlock::getPath).thenComparingLong(ParquetBlock::getStart));
+        List<ParquetBlock> merged = new ArrayList<>(blocks.size());
+        for (ParquetBlock block : blocks) {
+            ParquetBlock last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && !last.isWholeFile() && !block.isWholeFile()
+                    && last.getPath().equals(block.getPath())
+                    && last.getStart() + last.getLength() == block.getStart()) {
+                Set<String> hosts = new LinkedHashSet<>(Arrays.asList(last.getHosts()));
+                hosts.addAll(Arrays.asList(block.getHosts()));
+                merged.set(merged.size() - 1, new ParquetBlock(last.getPath(), last.getStart(),
+                        last.getLength() + block.getLength(), last.getSize() + block.getSize(), hosts.toArray(new String[0])));
+            } else {
+                merged.add(block);
+            }
+        }
+        return merged;
     }
 
     @Override
@@ -273,8 +588,9 @@ public class HdfsParquetInputFormat extends HdfsInputFormat {
             currentFileReader = null;
         }
 
+        currentRecordReader = null;
         currentLine = null;
-        currentFileIndex = 0;
+        currentBlockIndex = 0;
     }
 
     private String longToDecimalStr(long value,int scale){
@@ -291,41 +607,35 @@ public class HdfsParquetInputFormat extends HdfsInputFormat {
         return bg.toString();
     }
 
-    private static List<String> getAllPartitionPath(String tableLocation, FileSystem fs) throws IOException {
-        List<String> pathList = Lists.newArrayList();
+    /**
+     * 使用listLocatedStatus在列出文件的同时获取块位置，创建分片时不需要再为每个文件请求一次namenode
+     */
+    private static List<FileStatus> getAllPartitionFiles(String tableLocation, FileSystem fs) throws IOException {
+        List<FileStatus> fileList = Lists.newArrayList();
         Path inputPath = new Path(tableLocation);
 
-        if(fs.isFile(inputPath) && !inputPath.getName().equals(EXCLUDE_FILE)){
-            pathList.add(tableLocation);
-            return pathList;
+        if(fs.isFile(inputPath)){
+            if (!inputPath.getName().equals(EXCLUDE_FILE)) {
+                fileList.add(fs.listLocatedStatus(inputPath).next());
+            }
+            return fileList;
         } else {
-            FileStatus[] fsStatus = fs.listStatus(inputPath, path -> !path.getName().startsWith("."));
-            for (FileStatus status : fsStatus) {
+            RemoteIterator<LocatedFileStatus> iterator = fs.listLocatedStatus(inputPath);
+            while (iterator.hasNext()) {
+                LocatedFileStatus status = iterator.next();
+                if (status.getPath().getName().startsWith(".")) {
+                    continue;
+                }
+
                 if(status.isDirectory()){
-                    pathList.addAll(getAllPartitionPath(status.getPath().toString(), fs));
+                    fileList.addAll(getAllPartitionFiles(status.getPath().toString(), fs));
                 } else if(!status.getPath().getName().equals(EXCLUDE_FILE)){
-                    pathList.add(status.getPath().toString());
+                    fileList.add(status);
                 }
             }
         }
 
-        return pathList;
-    }
-
-    private String getTypeName(String method){
-        String typeName;
-        switch (method){
-            case "getInteger" : typeName = "int";break;
-            case "getInt96" : typeName = "bigint";break;
-            case "getFloat" : typeName = "float";break;
-            case "getDouble" : typeName = "double";break;
-            case "getBinary" : typeName = "binary";break;
-            case "getString" : typeName = "string";break;
-            case "getBoolean" : typeName = "int";break;
-            default:typeName = "string";
-        }
-
-        return typeName;
+        return fileList;
     }
 
     /**
@@ -350,24 +660,83 @@ public class HdfsParquetInputFormat extends HdfsInputFormat {
         return (julianDay - JULIAN_EPOCH_OFFSET_DAYS) * MILLIS_IN_DAY;
     }
 
-    static class HdfsParquetSplit implements InputSplit{
+    @FunctionalInterface
+    private interface FieldConverter {
+        Object convert(Group group, int index);
+    }
+
+    /**
+     * 分片中的一段数据，可以是整个文件，也可以是文件中连续的若干个row group
+     */
+    static class ParquetBlock implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        static final long WHOLE_FILE = -1;
+
+        private String path;
+
+        private long start;
+
+        private long length;
 
-        private int splitNumber;
+        private long size;
 
-        private List<String> paths;
+        private String[] hosts;
 
-        public HdfsParquetSplit(int splitNumber, List<String> paths) {
-            this.splitNumber = splitNumber;
-            this.paths = paths;
+        ParquetBlock(String path, long start, long length, long size, String[] hosts) {
+            this.path = path;
+            this.start = start;
+            this.length = length;
+            this.size = size;
+            this.hosts = hosts;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public long getStart() {
+            return start;
+        }
+
+        public long getLength() {
+            return length;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public String[] getHosts() {
+            return hosts;
+        }
+
+        public boolean isWholeFile() {
+            return length == WHOLE_FILE;
+        }
+    }
+
+    static class HdfsParquetSplit extends LocatableInputSplit {
+
+        private List<ParquetBlock> blocks;
+
+        private long size;
+
+        public HdfsParquetSplit(int splitNumber, List<ParquetBlock> blocks, String[] hosts) {
+            super(splitNumber, hosts);
+            this.blocks = blocks;
+            for (ParquetBlock block : blocks) {
+                size += block.getSize();
+            }
         }
 
-        @Override
-        public int getSplitNumber() {
-            return splitNumber;
+        public List<ParquetBlock> getBlocks() {
+            return blocks;
         }
 
-        public List<String> getPaths() {
-            return paths;
+        public long getSize() {
+            return size;
         }
     }
 }
@@ -45,6 +45,8 @@ public class HdfsReader extends DataReader {
     protected String fieldDelimiter;
     private List<MetaColumn> metaColumns;
     protected Map<String, Object> hadoopConfig;
+    protected String filter;
+    protected boolean vectorizedRead;
 
     public HdfsReader(DataTransferConfig config, StreamExecutionEnvironment env) {
         super(config, env);
@@ -63,6 +65,8 @@ public class HdfsReader extends DataReader {
         }
 
         metaColumns = MetaColumn.getMetaColumns(readerConfig.getParameter().getColumn());
+        filter = readerConfig.getParameter().getStringVal(HdfsConfigKeys.KEY_FILTER);
+        vectorizedRead = readerConfig.getParameter().getBooleanVal(HdfsConfigKeys.KEY_VECTORIZED_READ, false);
     }
 
     @Override
@@ -73,6 +77,8 @@ public class HdfsReader extends DataReader {
         builder.setHadoopConfig(hadoopConfig);
         builder.setDefaultFs(defaultFS);
         builder.setDelimiter(fieldDelimiter);
+        builder.setFilter(filter);
+        builder.setVectorizedRead(vectorizedRead);
         builder.setBytes(bytes);
         builder.setMonitorUrls(monitorUrls);
         builder.setRestoreConfig(restoreConfig);
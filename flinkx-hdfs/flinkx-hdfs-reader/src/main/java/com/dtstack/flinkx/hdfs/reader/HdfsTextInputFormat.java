@@ -20,9 +20,11 @@ package com.dtstack.flinkx.hdfs.reader;
 
 import com.dtstack.flinkx.hdfs.HdfsUtil;
 import com.dtstack.flinkx.reader.MetaColumn;
+import com.dtstack.flinkx.util.FieldTokenizer;
 import jodd.util.StringUtil;
 import org.apache.commons.io.output.ByteArrayOutputStream;
 import org.apache.flink.core.io.InputSplit;
+import org.apache.flink.core.io.LocatableInputSplit;
 import org.apache.flink.types.Row;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.LongWritable;
@@ -47,6 +49,12 @@ import java.util.Map;
  */
 public class HdfsTextInputFormat extends HdfsInputFormat {
 
+    private transient FieldTokenizer tokenizer;
+
+    private transient Charset charset;
+
+    private transient long splitStart;
+
     @Override
     protected void configureAnythingElse() {
         this.inputFormat = new TextInputFormat();
@@ -74,21 +82,26 @@ public class HdfsTextInputFormat extends HdfsInputFormat {
     @Override
     public void openInternal(InputSplit inputSplit) throws IOException {
         HdfsTextInputSplit hdfsTextInputSplit = (HdfsTextInputSplit) inputSplit;
+        openLocalityMetric(hdfsTextInputSplit);
         org.apache.hadoop.mapred.InputSplit fileSplit = hdfsTextInputSplit.getTextSplit();
+        splitStart = ((FileSplit) fileSplit).getStart();
         recordReader = inputFormat.getRecordReader(fileSplit, conf, Reporter.NULL);
         key = new LongWritable();
         value = new Text();
+        tokenizer = new FieldTokenizer(delimiter);
+        charset = Charset.forName(charsetName);
     }
 
     @Override
     public Row nextRecordInternal(Row row) throws IOException {
-        String line = new String(((Text)value).getBytes(), 0, ((Text)value).getLength(), charsetName);
-        String[] fields = line.split(delimiter);
+        Text text = (Text) value;
+        tokenizer.tokenize(text.getBytes(), 0, text.getLength(), charset);
+        int fieldCount = tokenizer.getFieldCount();
 
         if (metaColumns.size() == 1 && "*".equals(metaColumns.get(0).getName())){
-            row = new Row(fields.length);
-            for (int i = 0; i < fields.length; i++) {
-                row.setField(i, fields[i]);
+            row = new Row(fieldCount);
+            for (int i = 0; i < fieldCount; i++) {
+                row.setField(i, tokenizer.getField(i));
             }
         } else {
             row = new Row(metaColumns.size());
@@ -98,8 +111,8 @@ public class HdfsTextInputFormat extends HdfsInputFormat {
                 Object value = null;
                 if(metaColumn.getValue() != null){
                     value = metaColumn.getValue();
-                } else if(metaColumn.getIndex() != null && metaColumn.getIndex() < fields.length){
-                    String strVal = fields[metaColumn.getIndex()];
+                } else if(metaColumn.getIndex() != null && metaColumn.getIndex() < fieldCount){
+                    String strVal = tokenizer.getField(metaColumn.getIndex());
                     if (!HdfsUtil.NULL_VALUE.equals(strVal)){
                         value = strVal;
                     }
@@ -181,16 +194,25 @@ public class HdfsTextInputFormat extends HdfsInputFormat {
         }
     }
 
+    @Override
+    public void closeInternal() throws IOException {
+        if (recordReader != null) {
+            updateLocalityMetric(recordReader.getPos() - splitStart);
+        }
+        super.closeInternal();
+    }
+
     public static HdfsTextInputFormatBuilder buildHdfsTextInputFormat() {
         return new HdfsTextInputFormatBuilder();
     }
 
-    static class HdfsTextInputSplit implements InputSplit {
-        int splitNumber;
+    static class HdfsTextInputSplit extends LocatableInputSplit {
         byte[] textSplitData;
+        long length;
 
         public HdfsTextInputSplit(org.apache.hadoop.mapred.InputSplit split, int splitNumber) throws IOException {
-            this.splitNumber = splitNumber;
+            super(splitNumber, split.getLocations());
+            this.length = split.getLength();
             ByteArrayOutputStream baos = new ByteArrayOutputStream();
             DataOutputStream dos = new DataOutputStream(baos);
             split.write(dos);
@@ -209,9 +231,8 @@ public class HdfsTextInputFormat extends HdfsInputFormat {
             return split;
         }
 
-        @Override
-        public int getSplitNumber() {
-            return splitNumber;
+        public long getLength() {
+            return length;
         }
     }
 
@@ -0,0 +1,224 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.flinkx.hdfs.reader;
+
+import org.apache.flink.core.io.InputSplit;
+import org.apache.flink.core.io.InputSplitAssigner;
+import org.apache.flink.core.io.LocatableInputSplit;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.CommonConfigurationKeysPublic;
+import org.apache.hadoop.net.DNSToSwitchMapping;
+import org.apache.hadoop.net.ScriptBasedMapping;
+import org.apache.hadoop.util.ReflectionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 按数据本地性分配hdfs分片：优先分配数据在请求节点上的分片，其次是同一机架上的分片，最后是任意分片
+ *
+ * 机架信息通过hadoop配置中的net.topology.node.switch.mapping.impl获取，没有配置拓扑脚本时所有节点都在同一个机架上
+ *
+ * Company: www.dtstack.com
+ */
+public class LocalityAwareSplitAssigner implements InputSplitAssigner {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LocalityAwareSplitAssigner.class);
+
+    private final Set<LocatableInputSplit> unassignedSplits = new LinkedHashSet<>();
+
+    private final Map<String, Deque<LocatableInputSplit>> splitsByHost = new HashMap<>();
+
+    private final Map<String, Deque<LocatableInputSplit>> splitsByRack = new HashMap<>();
+
+    private final Map<String, String> rackByHost = new HashMap<>();
+
+    private final DNSToSwitchMapping switchMapping;
+
+    private int localAssignments;
+
+    private int rackAssignments;
+
+    private int remoteAssignments;
+
+    public LocalityAwareSplitAssigner(LocatableInputSplit[] splits, Configuration conf) {
+        switchMapping = createSwitchMapping(conf);
+
+        for (LocatableInputSplit split : splits) {
+            unassignedSplits.add(split);
+
+            Set<String> racks = new LinkedHashSet<>();
+            for (String host : getHosts(split)) {
+                for (String alias : getHostAliases(host)) {
+                    splitsByHost.computeIfAbsent(alias, key -> new ArrayDeque<>()).add(split);
+                }
+
+                String rack = resolveRack(host);
+                if (rack != null) {
+                    racks.add(rack);
+                }
+            }
+
+            for (String rack : racks) {
+                splitsByRack.computeIfAbsent(rack, key -> new ArrayDeque<>()).add(split);
+            }
+        }
+    }
+
+    @Override
+    public synchronized InputSplit getNextInputSplit(String host, int taskId) {
+        if (unassignedSplits.isEmpty()) {
+            LOG.info("All splits assigned, local:{}, rack local:{}, remote:{}", localAssignments, rackAssignments, remoteAssignments);
+            return null;
+        }
+
+        if (host != null) {
+            for (String alias : getHostAliases(host)) {
+                LocatableInputSplit split = pollUnassigned(splitsByHost.get(alias));
+                if (split != null) {
+                    localAssignments++;
+                    LOG.debug("Assign split {} to host {} (local)", split.getSplitNumber(), host);
+                    return split;
+                }
+            }
+
+            String rack = resolveRack(host);
+            if (rack != null) {
+                LocatableInputSplit split = pollUnassigned(splitsByRack.get(rack));
+                if (split != null) {
+                    rackAssignments++;
+                    LOG.debug("Assign split {} to host {} (rack local)", split.getSplitNumber(), host);
+                    return split;
+                }
+            }
+        }
+
+        LocatableInputSplit split = unassignedSplits.iterator().next();
+        unassignedSplits.remove(split);
+        remoteAssignments++;
+        LOG.debug("Assign split {} to host {} (remote)", split.getSplitNumber(), host);
+        return split;
+    }
+
+    private LocatableInputSplit pollUnassigned(Deque<LocatableInputSplit> splits) {
+        if (splits == null) {
+            return null;
+        }
+
+        LocatableInputSplit split;
+        while ((split = splits.poll()) != null) {
+            if (unassignedSplits.remove(split)) {
+                return split;
+            }
+        }
+
+        return null;
+    }
+
+    private String resolveRack(String host) {
+        if (switchMapping == null) {
+            return null;
+        }
+
+        String normalizedHost = host.toLowerCase(Locale.US);
+        if (rackByHost.containsKey(normalizedHost)) {
+            return rackByHost.get(normalizedHost);
+        }
+
+        String rack = null;
+        try {
+            List<String> racks = switchMapping.resolve(Collections.singletonList(host));
+            if (racks != null && !racks.isEmpty()) {
+                rack = racks.get(0);
+            }
+        } catch (Exception e) {
+            LOG.warn("Resolve rack of host {} error", host, e);
+        }
+
+        rackByHost.put(normalizedHost, rack);
+        return rack;
+    }
+
+    private static DNSToSwitchMapping createSwitchMapping(Configuration conf) {
+        if (conf == null) {
+            return null;
+        }
+
+        try {
+            Class<? extends DNSToSwitchMapping> mappingClass = conf.getClass(
+                    CommonConfigurationKeysPublic.NET_TOPOLOGY_NODE_SWITCH_MAPPING_IMPL_KEY,
+                    ScriptBasedMapping.class,
+                    DNSToSwitchMapping.class);
+            return ReflectionUtils.newInstance(mappingClass, conf);
+        } catch (Exception e) {
+            LOG.warn("Create network topology mapping error, rack locality is disabled", e);
+            return null;
+        }
+    }
+
+    private static String[] getHosts(LocatableInputSplit split) {
+        String[] hosts = split.getHostnames();
+        return hosts == null ? new String[0] : hosts;
+    }
+
+    /**
+     * 同一个节点在hdfs和flink中可能分别使用全名和短名，两种名称都参与匹配
+     */
+    static List<String> getHostAliases(String host) {
+        List<String> aliases = new ArrayList<>(2);
+        if (host == null || host.isEmpty()) {
+            return aliases;
+        }
+
+        String normalizedHost = host.toLowerCase(Locale.US);
+        aliases.add(normalizedHost);
+
+        int dot = normalizedHost.indexOf('.');
+        if (dot > 0 && !Character.isDigit(normalizedHost.charAt(0))) {
+            aliases.add(normalizedHost.substring(0, dot));
+        }
+
+        return aliases;
+    }
+
+    /**
+     * 判断分片的数据是否在给定的节点上
+     */
+    static boolean isLocal(LocatableInputSplit split, Set<String> localHostAliases) {
+        for (String host : getHosts(split)) {
+            for (String alias : getHostAliases(host)) {
+                if (localHostAliases.contains(alias)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+}
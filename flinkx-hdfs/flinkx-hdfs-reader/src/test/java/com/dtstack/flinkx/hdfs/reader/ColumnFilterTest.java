@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dtstack.flinkx.hdfs.reader;
+
+import org.apache.hadoop.hive.ql.io.sarg.PredicateLeaf;
+import org.apache.hadoop.hive.ql.io.sarg.SearchArgument;
+import org.apache.hadoop.hive.ql.io.sarg.SearchArgumentFactory;
+import org.apache.parquet.filter2.predicate.FilterPredicate;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public class ColumnFilterTest {
+
+    private static final String[] NAMES = {"id", "name", "price", "flag", "remark"};
+
+    private static final String[] TYPES = {"bigint", "string", "decimal(10,2)", "boolean", "string"};
+
+    @Test
+    public void testParse() {
+        MatcherAssert.assertThat(ColumnFilter.parse(null), Matchers.nullValue());
+        MatcherAssert.assertThat(ColumnFilter.parse("  "), Matchers.nullValue());
+
+        ColumnFilter filter = ColumnFilter.parse("ID>=100 AND name = 'it''s' and remark is not null and flag IS NULL and price<>1.5");
+        MatcherAssert.assertThat(filter.getColumnNames(), Matchers.contains("ID", "name", "remark", "flag", "price"));
+
+        filter.bind(NAMES, TYPES);
+        MatcherAssert.assertThat(filter.getColumnIndices(), Matchers.contains(0, 1, 4, 3, 2));
+    }
+
+    @Test
+    public void testParseInvalid() {
+        String[] invalid = {"id", "id >", "id = 1 or id = 2", "id = 1 and", "id = 'abc", "id between 1 and 2", "id = 1 name = 'a'"};
+        for (String expression : invalid) {
+            try {
+                ColumnFilter.parse(expression);
+                MatcherAssert.assertThat("expression should be rejected: " + expression, false);
+            } catch (IllegalArgumentException e) {
+                MatcherAssert.assertThat(e.getMessage(), Matchers.containsString(expression));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBindUnknownColumn() {
+        ColumnFilter.parse("age > 1").bind(NAMES, TYPES);
+    }
+
+    @Test
+    public void testAcceptNumber() {
+        ColumnFilter filter = bind("id > 9 and id <= 20 and id != 15");
+        // 整数字段读出来可能是Integer或Long，按数值比较
+        MatcherAssert.assertThat(accept(filter, 10L), Matchers.equalTo(true));
+        MatcherAssert.assertThat(accept(filter, 10), Matchers.equalTo(true));
+        MatcherAssert.assertThat(accept(filter, 20L), Matchers.equalTo(true));
+        MatcherAssert.assertThat(accept(filter, 9L), Matchers.equalTo(false));
+        MatcherAssert.assertThat(accept(filter, 15L), Matchers.equalTo(false));
+        MatcherAssert.assertThat(accept(filter, 21L), Matchers.equalTo(false));
+        MatcherAssert.assertThat(accept(filter, (Object) null), Matchers.equalTo(false));
+
+        filter = bind("price >= 1.5 and price < 2");
+        MatcherAssert.assertThat(accept(filter, null, null, new BigDecimal("1.50")), Matchers.equalTo(true));
+        MatcherAssert.assertThat(accept(filter, null, null, new BigDecimal("1.49")), Matchers.equalTo(false));
+        MatcherAssert.assertThat(accept(filter, null, null, "2.00"), Matchers.equalTo(false));
+    }
+
+    @Test
+    public void testAcceptStringAndNull() {
+        ColumnFilter filter = bind("name = 'it''s' and remark is null");
+        MatcherAssert.assertThat(accept(filter, null, "it's"), Matchers.equalTo(true));
+        MatcherAssert.assertThat(accept(filter, null, "its"), Matchers.equalTo(false));
+        MatcherAssert.assertThat(accept(filter, null, "it's", null, null, "x"), Matchers.equalTo(false));
+
+        filter = bind("name > 'b' and remark is not null and flag = true");
+        MatcherAssert.assertThat(accept(filter, null, "c", null, true, ""), Matchers.equalTo(true));
+        MatcherAssert.assertThat(accept(filter, null, "a", null, true, ""), Matchers.equalTo(false));
+        MatcherAssert.assertThat(accept(filter, null, "c", null, false, ""), Matchers.equalTo(false));
+    }
+
+    @Test
+    public void testToSearchArgument() {
+        SearchArgument searchArgument = bind("id > 100 and name = 'a' and flag = true and remark is null and price < 1.5")
+                .toSearchArgument();
+        List<PredicateLeaf> leaves = searchArgument.getLeaves();
+
+        // 布尔和decimal类型的条件不下推
+        MatcherAssert.assertThat(leaves.size(), Matchers.equalTo(3));
+        MatcherAssert.assertThat(leaves.get(0).getOperator(), Matchers.equalTo(PredicateLeaf.Operator.LESS_THAN_EQUALS));
+        MatcherAssert.assertThat(leaves.get(0).getLiteral(PredicateLeaf.FileFormat.ORC), Matchers.<Object>equalTo(100L));
+        MatcherAssert.assertThat(leaves.get(1).getOperator(), Matchers.equalTo(PredicateLeaf.Operator.EQUALS));
+        MatcherAssert.assertThat(leaves.get(1).getLiteral(PredicateLeaf.FileFormat.ORC), Matchers.<Object>equalTo("a"));
+        MatcherAssert.assertThat(leaves.get(2).getOperator(), Matchers.equalTo(PredicateLeaf.Operator.IS_NULL));
+
+        // 读取时通过kryo反序列化下推的条件
+        MatcherAssert.assertThat(SearchArgumentFactory.create(searchArgument.toKryo()).getLeaves(), Matchers.equalTo(leaves));
+
+        MatcherAssert.assertThat(bind("flag = true").toSearchArgument(), Matchers.nullValue());
+        // 小数常量不能下推到整数字段
+        MatcherAssert.assertThat(bind("id > 1.5").toSearchArgument(), Matchers.nullValue());
+    }
+
+    @Test
+    public void testToFilterPredicate() {
+        FilterPredicate predicate = bind("id >= 100 and name = 'a' and flag != true and price > 1 and remark is not null")
+                .toFilterPredicate();
+        // decimal类型的条件不下推
+        MatcherAssert.assertThat(predicate.toString(), Matchers.equalTo(
+                "and(and(and(gteq(id, 100), eq(name, Binary{\"a\"})), noteq(flag, true)), noteq(remark, null))"));
+
+        MatcherAssert.assertThat(bind("price > 1").toFilterPredicate(), Matchers.nullValue());
+        MatcherAssert.assertThat(bind("id > 1.5").toFilterPredicate(), Matchers.nullValue());
+    }
+
+    private ColumnFilter bind(String expression) {
+        ColumnFilter filter = ColumnFilter.parse(expression);
+        filter.bind(NAMES, TYPES);
+        return filter;
+    }
+
+    private boolean accept(ColumnFilter filter, Object... values) {
+        return filter.accept(index -> index < values.length ? values[index] : null);
+    }
+}
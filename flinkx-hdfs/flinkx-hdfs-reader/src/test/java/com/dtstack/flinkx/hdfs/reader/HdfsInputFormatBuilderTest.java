@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dtstack.flinkx.hdfs.reader;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+public class HdfsInputFormatBuilderTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectFilterOnText() {
+        HdfsInputFormatBuilder builder = new HdfsInputFormatBuilder("text");
+        builder.setFilter("id > 1");
+        builder.finish();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectInvalidFilter() {
+        HdfsInputFormatBuilder builder = new HdfsInputFormatBuilder("orc");
+        builder.setFilter("id > 1 or id < 0");
+        builder.finish();
+    }
+
+    @Test
+    public void testAcceptFilter() {
+        for (String type : new String[]{"orc", "parquet"}) {
+            HdfsInputFormatBuilder builder = new HdfsInputFormatBuilder(type);
+            builder.setFilter("id > 1");
+            MatcherAssert.assertThat(builder.finish(), Matchers.notNullValue());
+        }
+
+        MatcherAssert.assertThat(new HdfsInputFormatBuilder("text").finish(), Matchers.notNullValue());
+    }
+}
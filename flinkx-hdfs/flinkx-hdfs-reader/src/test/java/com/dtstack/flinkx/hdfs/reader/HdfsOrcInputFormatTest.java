@@ -0,0 +1,252 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.flinkx.hdfs.reader;
+
+import com.dtstack.flinkx.reader.MetaColumn;
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.TaskInfo;
+import org.apache.flink.api.common.functions.util.RuntimeUDFContext;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.core.io.InputSplit;
+import org.apache.flink.core.io.LocatableInputSplit;
+import org.apache.flink.metrics.groups.UnregisteredMetricsGroup;
+import org.apache.flink.types.Row;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.common.type.HiveChar;
+import org.apache.hadoop.hive.common.type.HiveDecimal;
+import org.apache.hadoop.hive.common.type.HiveVarchar;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.hadoop.hive.ql.io.orc.OrcFile;
+import org.apache.hadoop.hive.ql.io.orc.Reader;
+import org.apache.hadoop.hive.ql.io.orc.RecordReader;
+import org.apache.hadoop.hive.ql.io.orc.Writer;
+import org.apache.hadoop.hive.serde2.io.DateWritable;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.typeinfo.PrimitiveTypeInfo;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoUtils;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+public class HdfsOrcInputFormatTest {
+
+    private static final List<String> NAMES = Arrays.asList("id", "flag", "tiny", "small", "big", "f", "d", "dec",
+            "day", "ts", "name", "c", "vc", "bin", "constant", "empty");
+
+    private static final List<String> TYPES = Arrays.asList("int", "boolean", "tinyint", "smallint", "bigint", "float", "double", "decimal(10,2)",
+            "date", "timestamp", "string", "char(5)", "varchar(10)", "binary", "string", "int");
+
+    /** 多于一个batch，并且能按row group跳过数据 */
+    private static final int NUM_ROWS = 2500;
+
+    private static final int ROW_INDEX_STRIDE = 1000;
+
+    private static final int EPOCH_DAY = 18078;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File file;
+
+    @Before
+    public void setUp() throws Exception {
+        file = new File(folder.getRoot(), "data.orc");
+        writeFile(file);
+    }
+
+    @Test
+    public void testWrittenVectorsRepeat() throws Exception {
+        Reader reader = OrcFile.createReader(new Path(file.getAbsolutePath()), OrcFile.readerOptions(new org.apache.hadoop.conf.Configuration()));
+        RecordReader rows = reader.rows();
+        VectorizedRowBatch batch = rows.nextBatch(null);
+        rows.close();
+
+        // 确认测试数据中有重复值和全为null的向量，向量化读取需要处理isRepeating
+        MatcherAssert.assertThat(batch.cols[NAMES.indexOf("constant")].isRepeating, Matchers.equalTo(true));
+        MatcherAssert.assertThat(batch.cols[NAMES.indexOf("empty")].isRepeating, Matchers.equalTo(true));
+        MatcherAssert.assertThat(batch.cols[NAMES.indexOf("empty")].isNull[0], Matchers.equalTo(true));
+        MatcherAssert.assertThat(batch.cols[NAMES.indexOf("name")].noNulls, Matchers.equalTo(false));
+    }
+
+    @Test
+    public void testReadAllColumns() throws Exception {
+        List<Row> rows = newFormat(false, null, "*:string").readAll();
+        List<Row> vectorizedRows = newFormat(true, null, "*:string").readAll();
+
+        MatcherAssert.assertThat(rows.size(), Matchers.equalTo(NUM_ROWS));
+        MatcherAssert.assertThat(vectorizedRows, Matchers.equalTo(rows));
+
+        Row row = vectorizedRows.get(1);
+        MatcherAssert.assertThat(row.getField(0), Matchers.equalTo((Object) 1));
+        MatcherAssert.assertThat(row.getField(NAMES.indexOf("name")), Matchers.equalTo((Object) "name1"));
+        MatcherAssert.assertThat(row.getField(NAMES.indexOf("constant")), Matchers.equalTo((Object) "k"));
+        MatcherAssert.assertThat(row.getField(NAMES.indexOf("empty")), Matchers.nullValue());
+        MatcherAssert.assertThat(vectorizedRows.get(10).getField(NAMES.indexOf("name")), Matchers.nullValue());
+    }
+
+    @Test
+    public void testReadConvertedColumns() throws Exception {
+        String[] columns = {"id:int", "flag:boolean", "tiny:tinyint", "small:smallint", "big:bigint", "f:float", "d:double",
+                "dec:decimal", "day:date", "ts:timestamp", "name:string", "c:string", "vc:string", "bin:string",
+                "constant:string", "empty:int", "missing:string"};
+        TestOrcInputFormat format = newFormat(false, null, columns);
+        format.metaColumns.get(columns.length - 1).setValue("x");
+        List<Row> rows = format.readAll();
+
+        format = newFormat(true, null, columns);
+        format.metaColumns.get(columns.length - 1).setValue("x");
+        List<Row> vectorizedRows = format.readAll();
+
+        MatcherAssert.assertThat(vectorizedRows, Matchers.equalTo(rows));
+
+        Row row = vectorizedRows.get(3);
+        MatcherAssert.assertThat(row.getField(NAMES.indexOf("ts")), Matchers.equalTo((Object) timestamp(3).toString()));
+        MatcherAssert.assertThat(row.getField(NAMES.indexOf("day")), Matchers.equalTo((Object) date(3)));
+        // char按定义的长度补齐空格，varchar不补齐
+        MatcherAssert.assertThat(String.valueOf(row.getField(NAMES.indexOf("c"))).trim(), Matchers.equalTo("c3"));
+        MatcherAssert.assertThat(row.getField(NAMES.indexOf("vc")), Matchers.equalTo((Object) "v3"));
+        MatcherAssert.assertThat(row.getField(columns.length - 1), Matchers.equalTo((Object) "x"));
+    }
+
+    @Test
+    public void testProjectionAndFilter() throws Exception {
+        String filter = "id >= 2100 and name is not null";
+        List<Row> rows = newFormat(false, filter, "vc:string", "id:int", "ts:timestamp").readAll();
+        List<Row> vectorizedRows = newFormat(true, filter, "vc:string", "id:int", "ts:timestamp").readAll();
+
+        // 2100到2499中name不为null的行
+        MatcherAssert.assertThat(vectorizedRows.size(), Matchers.equalTo(360));
+        MatcherAssert.assertThat(vectorizedRows, Matchers.equalTo(rows));
+        MatcherAssert.assertThat(vectorizedRows.get(0).getField(0), Matchers.equalTo((Object) "v2101"));
+        MatcherAssert.assertThat(vectorizedRows.get(0).getField(1), Matchers.equalTo((Object) 2101));
+    }
+
+    @Test
+    public void testFilterOnColumnNotRead() throws Exception {
+        // 过滤条件中的字段不在metaColumns中时也需要读取
+        String filter = "flag = true and dec < 1.00";
+        List<Row> rows = newFormat(false, filter, "id:int").readAll();
+        List<Row> vectorizedRows = newFormat(true, filter, "id:int").readAll();
+
+        MatcherAssert.assertThat(vectorizedRows, Matchers.equalTo(rows));
+        MatcherAssert.assertThat(vectorizedRows.size(), Matchers.equalTo(50));
+    }
+
+    private static Timestamp timestamp(int i) {
+        Timestamp timestamp = new Timestamp(1561939200000L + i * 1000L);
+        timestamp.setNanos(i % 1000 * 1000);
+        return timestamp;
+    }
+
+    private static Date date(int i) {
+        return new Date(DateWritable.daysToMillis(EPOCH_DAY + i % 365));
+    }
+
+    private void writeFile(File file) throws Exception {
+        List<ObjectInspector> inspectors = new ArrayList<>();
+        for (String type : TYPES) {
+            PrimitiveTypeInfo typeInfo = (PrimitiveTypeInfo) TypeInfoUtils.getTypeInfoFromTypeString(type);
+            inspectors.add(PrimitiveObjectInspectorFactory.getPrimitiveJavaObjectInspector(typeInfo));
+        }
+        ObjectInspector inspector = ObjectInspectorFactory.getStandardStructObjectInspector(NAMES, inspectors);
+
+        Writer writer = OrcFile.createWriter(new Path(file.getAbsolutePath()), OrcFile.writerOptions(new org.apache.hadoop.conf.Configuration())
+                .inspector(inspector)
+                .rowIndexStride(ROW_INDEX_STRIDE));
+        for (int i = 0; i < NUM_ROWS; i++) {
+            writer.addRow(Arrays.asList(
+                    i,
+                    i % 2 == 0,
+                    (byte) (i % 100),
+                    (short) i,
+                    i * 1000000000L,
+                    i + 0.5f,
+                    i / 4.0d,
+                    HiveDecimal.create(BigDecimal.valueOf(i, 2)),
+                    date(i),
+                    timestamp(i),
+                    i % 10 == 0 ? null : "name" + i,
+                    new HiveChar("c" + i, 5),
+                    new HiveVarchar("v" + i, 10),
+                    String.valueOf(i).getBytes(StandardCharsets.UTF_8),
+                    "k",
+                    null));
+        }
+        writer.close();
+    }
+
+    private TestOrcInputFormat newFormat(boolean vectorizedRead, String filter, String... columns) {
+        TestOrcInputFormat format = new TestOrcInputFormat();
+        format.inputPath = file.getAbsolutePath();
+        format.defaultFS = "file:///";
+        format.vectorizedRead = vectorizedRead;
+        format.filter = filter;
+        format.metaColumns = new ArrayList<>();
+        for (String column : columns) {
+            String[] nameAndType = column.split(":");
+            MetaColumn metaColumn = new MetaColumn();
+            metaColumn.setName(nameAndType[0]);
+            metaColumn.setType(nameAndType[1]);
+            format.metaColumns.add(metaColumn);
+        }
+        format.setRuntimeContext(new RuntimeUDFContext(new TaskInfo("test", 1, 0, 1, 0), getClass().getClassLoader(),
+                new ExecutionConfig(), new HashMap<>(), new HashMap<>(), new UnregisteredMetricsGroup()));
+        return format;
+    }
+
+    private static class TestOrcInputFormat extends HdfsOrcInputFormat {
+
+        List<Row> readAll() throws Exception {
+            configure(new Configuration());
+            List<Row> rows = new ArrayList<>();
+            for (InputSplit split : createInputSplits(1)) {
+                openInternal(split);
+                while (!reachedEnd()) {
+                    rows.add(nextRecordInternal(null));
+                }
+                closeInternal();
+            }
+            return rows;
+        }
+
+        @Override
+        protected void openLocalityMetric(LocatableInputSplit split) {
+            // 测试时不统计本地读取的数据量
+        }
+
+        @Override
+        protected void updateLocalityMetric(long readBytes) {
+        }
+    }
+}
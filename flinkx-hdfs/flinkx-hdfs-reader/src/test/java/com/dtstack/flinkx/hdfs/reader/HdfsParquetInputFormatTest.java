@@ -0,0 +1,279 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dtstack.flinkx.hdfs.reader;
+
+import com.dtstack.flinkx.hdfs.reader.HdfsParquetInputFormat.HdfsParquetSplit;
+import com.dtstack.flinkx.hdfs.reader.HdfsParquetInputFormat.ParquetBlock;
+import com.dtstack.flinkx.reader.MetaColumn;
+import com.dtstack.flinkx.util.DateUtil;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.core.io.LocatableInputSplit;
+import org.apache.flink.types.Row;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.example.data.simple.NanoTime;
+import org.apache.parquet.example.data.simple.SimpleGroupFactory;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.example.GroupWriteSupport;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.MessageTypeParser;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class HdfsParquetInputFormatTest {
+
+    private static final MessageType SCHEMA = MessageTypeParser.parseMessageType("message test {"
+            + " required int32 id;"
+            + " required int64 big;"
+            + " optional binary name (UTF8);"
+            + " optional boolean flag;"
+            + " optional int32 price (DECIMAL(9,2));"
+            + " optional int64 raw_price;"
+            + " optional binary amount (DECIMAL(20,3));"
+            + " optional int32 day (DATE);"
+            + " optional int96 ts;"
+            + "}");
+
+    private static final int EPOCH_DAY = 18078;
+
+    private static final int JULIAN_EPOCH_OFFSET_DAYS = 2440588;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testAssignBlocksBalanced() {
+        List<ParquetBlock> blocks = new ArrayList<>();
+        blocks.add(new ParquetBlock("/a", 0, ParquetBlock.WHOLE_FILE, 100, new String[]{"h1"}));
+        blocks.add(new ParquetBlock("/b", 0, ParquetBlock.WHOLE_FILE, 60, new String[]{"h2"}));
+        blocks.add(new ParquetBlock("/c", 0, ParquetBlock.WHOLE_FILE, 50, new String[]{"h2"}));
+        blocks.add(new ParquetBlock("/d", 0, ParquetBlock.WHOLE_FILE, 40, new String[]{"h3"}));
+        blocks.add(new ParquetBlock("/e", 0, ParquetBlock.WHOLE_FILE, 10, new String[]{"h3"}));
+
+        HdfsParquetSplit[] splits = new HdfsParquetInputFormat().assignBlocks(blocks, 3);
+        MatcherAssert.assertThat(splits.length, Matchers.equalTo(3));
+
+        // 最大的块单独一个分片，其余的按数据量最少优先依次分配
+        MatcherAssert.assertThat(sizes(splits), Matchers.contains(100L, 70L, 90L));
+        MatcherAssert.assertThat(paths(splits[1]), Matchers.contains("/b", "/e"));
+        MatcherAssert.assertThat(paths(splits[2]), Matchers.contains("/c", "/d"));
+        MatcherAssert.assertThat(splits[2].getHostnames(), Matchers.arrayContaining("h2", "h3"));
+    }
+
+    @Test
+    public void testAssignBlocksMoreSplitsThanBlocks() {
+        List<ParquetBlock> blocks = new ArrayList<>();
+        blocks.add(new ParquetBlock("/a", 0, ParquetBlock.WHOLE_FILE, 100, new String[]{"h1"}));
+
+        HdfsParquetSplit[] splits = new HdfsParquetInputFormat().assignBlocks(blocks, 3);
+        MatcherAssert.assertThat(sizes(splits), Matchers.contains(100L, 0L, 0L));
+        MatcherAssert.assertThat(splits[1].getBlocks(), Matchers.empty());
+        MatcherAssert.assertThat(splits[1].getHostnames(), Matchers.emptyArray());
+    }
+
+    @Test
+    public void testMergeAdjacentBlocks() {
+        List<ParquetBlock> blocks = new ArrayList<>();
+        blocks.add(new ParquetBlock("/a", 300, 100, 100, new String[]{"h2"}));
+        blocks.add(new ParquetBlock("/a", 4, 96, 96, new String[]{"h1"}));
+        blocks.add(new ParquetBlock("/a", 100, 200, 200, new String[]{"h1"}));
+        blocks.add(new ParquetBlock("/a", 500, 100, 100, new String[]{"h1"}));
+        blocks.add(new ParquetBlock("/b", 600, 100, 100, new String[]{"h1"}));
+        blocks.add(new ParquetBlock("/c", 0, ParquetBlock.WHOLE_FILE, 10, new String[]{"h1"}));
+
+        List<ParquetBlock> merged = HdfsParquetInputFormat.mergeAdjacentBlocks(blocks);
+        MatcherAssert.assertThat(merged.size(), Matchers.equalTo(4));
+
+        // 同一文件中首尾相接的row group合并，不相接或不同文件的保持不变
+        ParquetBlock first = merged.get(0);
+        MatcherAssert.assertThat(first.getPath(), Matchers.equalTo("/a"));
+        MatcherAssert.assertThat(first.getStart(), Matchers.equalTo(4L));
+        MatcherAssert.assertThat(first.getLength(), Matchers.equalTo(396L));
+        MatcherAssert.assertThat(first.getSize(), Matchers.equalTo(396L));
+        MatcherAssert.assertThat(first.getHosts(), Matchers.arrayContaining("h1", "h2"));
+
+        MatcherAssert.assertThat(merged.get(1).getStart(), Matchers.equalTo(500L));
+        MatcherAssert.assertThat(merged.get(2).getPath(), Matchers.equalTo("/b"));
+        MatcherAssert.assertThat(merged.get(3).isWholeFile(), Matchers.equalTo(true));
+    }
+
+    @Test
+    public void testReadConvertedColumns() throws Exception {
+        writeFile(1, 2);
+        TestParquetInputFormat format = newFormat(
+                "id:int", "big:bigint", "name:string", "flag:boolean", "price:decimal",
+                "raw_price:decimal", "amount:decimal", "day:date", "ts:timestamp", "missing:string", "id:string");
+        format.metaColumns.get(9).setValue("x");
+
+        List<Row> rows = format.readAll();
+        MatcherAssert.assertThat(rows.size(), Matchers.equalTo(2));
+
+        Timestamp ts = new Timestamp(TimeUnit.DAYS.toMillis(EPOCH_DAY) + 1000L);
+        MatcherAssert.assertThat(fields(rows.get(0)), Matchers.contains(
+                1, 1L, "name1", true, 123.45d, 789d, -1234.567d, DateUtil.columnToDate("2019-07-01", null), ts, "x", "1"));
+
+        // 值为空的可选字段读出来为null，缺失的字段使用配置的常量
+        MatcherAssert.assertThat(fields(rows.get(1)), Matchers.contains(
+                2, 2L, null, null, null, null, null, null, null, "x", "2"));
+    }
+
+    @Test
+    public void testReadAllColumns() throws Exception {
+        writeFile(1, 2);
+        List<Row> rows = newFormat("*:string").readAll();
+        MatcherAssert.assertThat(rows.size(), Matchers.equalTo(2));
+
+        // 读取全部字段时按文件中的物理类型和逻辑类型转换
+        Timestamp ts = new Timestamp(TimeUnit.DAYS.toMillis(EPOCH_DAY) + 1000L);
+        MatcherAssert.assertThat(fields(rows.get(0)), Matchers.contains(
+                1, 1L, "name1", true, "123.45", 789L, "-1234.567", "2019-07-01", ts));
+        MatcherAssert.assertThat(fields(rows.get(1)), Matchers.contains(
+                2, 2L, null, null, null, null, null, null, null));
+    }
+
+    @Test
+    public void testReadInvalidColumnAsNull() throws Exception {
+        writeFile(1, 2);
+        List<Row> rows = newFormat("id:int", "big:int").readAll();
+
+        // 按int读取int64字段失败时记录日志，字段值为null，不影响其它字段
+        MatcherAssert.assertThat(rows.size(), Matchers.equalTo(2));
+        MatcherAssert.assertThat(fields(rows.get(0)), Matchers.contains(1, null));
+        MatcherAssert.assertThat(fields(rows.get(1)), Matchers.contains(2, null));
+    }
+
+    private void writeFile(int... ids) throws Exception {
+        org.apache.hadoop.conf.Configuration conf = new org.apache.hadoop.conf.Configuration();
+        GroupWriteSupport.setSchema(SCHEMA, conf);
+        Path path = new Path(new File(folder.getRoot(), "data.parquet").getAbsolutePath());
+
+        SimpleGroupFactory factory = new SimpleGroupFactory(SCHEMA);
+        try (ParquetWriter<Group> writer = new ParquetWriter<>(path, conf, new GroupWriteSupport())) {
+            for (int id : ids) {
+                Group group = factory.newGroup().append("id", id).append("big", (long) id);
+                if (id == 1) {
+                    group.append("name", "name1")
+                            .append("flag", true)
+                            .append("price", 12345)
+                            .append("raw_price", 789L)
+                            .append("amount", Binary.fromByteArray(new BigInteger("-1234567").toByteArray()))
+                            .append("day", EPOCH_DAY)
+                            .append("ts", new NanoTime(EPOCH_DAY + JULIAN_EPOCH_OFFSET_DAYS, TimeUnit.SECONDS.toNanos(1)));
+                }
+                writer.write(group);
+            }
+        }
+    }
+
+    private TestParquetInputFormat newFormat(String... columns) {
+        TestParquetInputFormat format = new TestParquetInputFormat();
+        format.inputPath = folder.getRoot().getAbsolutePath();
+        format.defaultFS = "file:///";
+        format.metaColumns = new ArrayList<>();
+        for (String column : columns) {
+            String[] nameAndType = column.split(":");
+            MetaColumn metaColumn = new MetaColumn();
+            metaColumn.setName(nameAndType[0]);
+            metaColumn.setType(nameAndType[1]);
+            format.metaColumns.add(metaColumn);
+        }
+        return format;
+    }
+
+    private static List<Long> sizes(HdfsParquetSplit[] splits) {
+        List<Long> sizes = new ArrayList<>();
+        for (HdfsParquetSplit split : splits) {
+            sizes.add(split.getSize());
+        }
+        return sizes;
+    }
+
+    private static List<String> paths(HdfsParquetSplit split) {
+        List<String> paths = new ArrayList<>();
+        for (ParquetBlock block : split.getBlocks()) {
+            paths.add(block.getPath());
+        }
+        return paths;
+    }
+
+    private static List<Object> fields(Row row) {
+        Object[] fields = new Object[row.getArity()];
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = row.getField(i);
+        }
+        return Arrays.asList(fields);
+    }
+
+    @Test
+    public void testReadBytesOfRequestedColumns() throws Exception {
+        writeFile(1, 2);
+        TestParquetInputFormat allColumns = newFormat("id:int", "big:bigint", "name:string", "flag:boolean", "price:decimal",
+                "raw_price:decimal", "amount:decimal", "day:date", "ts:timestamp");
+        allColumns.readAll();
+        TestParquetInputFormat oneColumn = newFormat("id:int");
+        oneColumn.readAll();
+
+        // 只统计实际读取的列的数据量
+        MatcherAssert.assertThat(oneColumn.readBytes, Matchers.greaterThan(0L));
+        MatcherAssert.assertThat(oneColumn.readBytes, Matchers.lessThan(allColumns.readBytes));
+        long fileLength = new File(folder.getRoot(), "data.parquet").length();
+        MatcherAssert.assertThat(allColumns.readBytes, Matchers.lessThan(fileLength));
+    }
+
+    private static class TestParquetInputFormat extends HdfsParquetInputFormat {
+
+        List<Row> readAll() throws Exception {
+            configure(new Configuration());
+            List<Row> rows = new ArrayList<>();
+            for (HdfsParquetSplit split : createInputSplits(1)) {
+                openInternal(split);
+                while (!reachedEnd()) {
+                    rows.add(nextRecordInternal(null));
+                }
+                closeInternal();
+            }
+            return rows;
+        }
+
+        long readBytes;
+
+        @Override
+        protected void openLocalityMetric(LocatableInputSplit split) {
+            // 测试时没有运行时上下文，不注册指标
+        }
+
+        @Override
+        protected void updateLocalityMetric(long readBytes) {
+            this.readBytes += readBytes;
+        }
+    }
+}
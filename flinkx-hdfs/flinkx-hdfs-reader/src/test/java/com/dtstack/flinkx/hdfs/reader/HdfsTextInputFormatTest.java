@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dtstack.flinkx.hdfs.reader;
+
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.core.io.InputSplit;
+import org.apache.flink.core.io.LocatableInputSplit;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+public class HdfsTextInputFormatTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testReadBytesOfSplit() throws Exception {
+        File file = folder.newFile("data.txt");
+        Files.write(file.toPath(), "1,a\n2,b\n3,c\n".getBytes(StandardCharsets.UTF_8));
+
+        TestTextInputFormat format = new TestTextInputFormat();
+        format.inputPath = file.getAbsolutePath();
+        format.defaultFS = "file:///";
+        format.delimiter = ",";
+        format.configure(new Configuration());
+
+        int rows = 0;
+        for (InputSplit split : format.createInputSplits(1)) {
+            format.openInternal(split);
+            while (!format.reachedEnd()) {
+                rows++;
+            }
+            format.closeInternal();
+            // 关闭后重复调用不会重复统计
+            format.closeInternal();
+        }
+
+        MatcherAssert.assertThat(rows, Matchers.equalTo(3));
+        MatcherAssert.assertThat(format.readBytes, Matchers.equalTo(file.length()));
+    }
+
+    private static class TestTextInputFormat extends HdfsTextInputFormat {
+
+        long readBytes;
+
+        @Override
+        protected void openLocalityMetric(LocatableInputSplit split) {
+            // 测试时没有运行时上下文，不注册指标
+        }
+
+        @Override
+        protected void updateLocalityMetric(long readBytes) {
+            this.readBytes += readBytes;
+        }
+    }
+}
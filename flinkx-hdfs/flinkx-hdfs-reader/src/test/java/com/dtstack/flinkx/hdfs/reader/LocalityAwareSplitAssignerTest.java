@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dtstack.flinkx.hdfs.reader;
+
+import org.apache.flink.core.io.InputSplit;
+import org.apache.flink.core.io.LocatableInputSplit;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.CommonConfigurationKeysPublic;
+import org.apache.hadoop.net.DNSToSwitchMapping;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+public class LocalityAwareSplitAssignerTest {
+
+    @Test
+    public void testAssignLocalSplitFirst() {
+        LocalityAwareSplitAssigner assigner = new LocalityAwareSplitAssigner(new LocatableInputSplit[]{
+                split(0, "h1"), split(1, "h2.example.com"), split(2, "h3", "h2")}, rackConf());
+
+        // 全名和短名都可以匹配
+        MatcherAssert.assertThat(splitNumber(assigner.getNextInputSplit("h2", 0)), Matchers.equalTo(1));
+        MatcherAssert.assertThat(splitNumber(assigner.getNextInputSplit("H2.example.com", 0)), Matchers.equalTo(2));
+        MatcherAssert.assertThat(splitNumber(assigner.getNextInputSplit("h1.example.com", 0)), Matchers.equalTo(0));
+        MatcherAssert.assertThat(assigner.getNextInputSplit("h1", 0), Matchers.nullValue());
+    }
+
+    @Test
+    public void testAssignRackLocalSplit() {
+        LocalityAwareSplitAssigner assigner = new LocalityAwareSplitAssigner(new LocatableInputSplit[]{
+                split(0, "h1"), split(1, "h3"), split(2, "h5")}, rackConf());
+
+        // h4和h3在同一个机架上，h5不在任何机架上
+        MatcherAssert.assertThat(splitNumber(assigner.getNextInputSplit("h4", 0)), Matchers.equalTo(1));
+        MatcherAssert.assertThat(splitNumber(assigner.getNextInputSplit("h4", 0)), Matchers.equalTo(0));
+        MatcherAssert.assertThat(splitNumber(assigner.getNextInputSplit("h2", 0)), Matchers.equalTo(2));
+    }
+
+    @Test
+    public void testAssignEverySplitOnce() {
+        LocatableInputSplit[] splits = new LocatableInputSplit[]{
+                split(0, "h1", "h3"), split(1, "h1", "h3"), split(2), split(3, "h2")};
+        LocalityAwareSplitAssigner assigner = new LocalityAwareSplitAssigner(splits, null);
+
+        List<Integer> assigned = new ArrayList<>();
+        String[] hosts = {"h3", null, "h1", "h9", "h1"};
+        for (String host : hosts) {
+            InputSplit split = assigner.getNextInputSplit(host, 0);
+            if (split != null) {
+                assigned.add(split.getSplitNumber());
+            }
+        }
+
+        // 没有本地分片或不知道请求节点时按顺序分配剩余的分片
+        MatcherAssert.assertThat(assigned, Matchers.contains(0, 1, 2, 3));
+        MatcherAssert.assertThat(assigner.getNextInputSplit("h2", 0), Matchers.nullValue());
+    }
+
+    @Test
+    public void testHostAliases() {
+        MatcherAssert.assertThat(LocalityAwareSplitAssigner.getHostAliases("Node1.Example.com"), Matchers.contains("node1.example.com", "node1"));
+        MatcherAssert.assertThat(LocalityAwareSplitAssigner.getHostAliases("192.168.0.1"), Matchers.contains("192.168.0.1"));
+        MatcherAssert.assertThat(LocalityAwareSplitAssigner.getHostAliases(""), Matchers.empty());
+        MatcherAssert.assertThat(LocalityAwareSplitAssigner.getHostAliases(null), Matchers.empty());
+    }
+
+    @Test
+    public void testIsLocal() {
+        HashSet<String> localHost = new HashSet<>(LocalityAwareSplitAssigner.getHostAliases("h1.example.com"));
+        MatcherAssert.assertThat(LocalityAwareSplitAssigner.isLocal(split(0, "h2", "H1"), localHost), Matchers.equalTo(true));
+        MatcherAssert.assertThat(LocalityAwareSplitAssigner.isLocal(split(0, "h2"), localHost), Matchers.equalTo(false));
+        MatcherAssert.assertThat(LocalityAwareSplitAssigner.isLocal(new LocatableInputSplit(0, (String[]) null), localHost), Matchers.equalTo(false));
+    }
+
+    private static Configuration rackConf() {
+        Configuration conf = new Configuration(false);
+        conf.setClass(CommonConfigurationKeysPublic.NET_TOPOLOGY_NODE_SWITCH_MAPPING_IMPL_KEY, TestRackMapping.class, DNSToSwitchMapping.class);
+        return conf;
+    }
+
+    private static LocatableInputSplit split(int splitNumber, String... hosts) {
+        return new LocatableInputSplit(splitNumber, hosts);
+    }
+
+    private static int splitNumber(InputSplit split) {
+        return split.getSplitNumber();
+    }
+
+    public static class TestRackMapping implements DNSToSwitchMapping {
+
+        private static final Map<String, String> RACKS = new HashMap<>();
+
+        static {
+            RACKS.put("h1", "/r1");
+            RACKS.put("h2", "/r1");
+            RACKS.put("h3", "/r2");
+            RACKS.put("h4", "/r2");
+        }
+
+        @Override
+        public List<String> resolve(List<String> names) {
+            List<String> racks = new ArrayList<>(names.size());
+            for (String name : names) {
+                racks.add(RACKS.get(LocalityAwareSplitAssigner.getHostAliases(name).get(0)));
+            }
+            return racks;
+        }
+
+        @Override
+        public void reloadCachedMappings() {
+        }
+
+        @Override
+        public void reloadCachedMappings(List<String> names) {
+        }
+    }
+}
@@ -0,0 +1,264 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.flinkx.hdfs.writer;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 把数据目录下已经提交的小block文件合并成接近目标大小的文件
+ *
+ * 合并过程：
+ * 1. 在.compact目录下生成合并后的文件
+ * 2. 写入记录源文件列表的临时清单文件，写完后重命名为清单文件，重命名后合并视为已提交
+ * 3. 把合并后的文件移动到数据目录
+ * 4. 删除源文件和清单文件
+ *
+ * 任务在任意一步失败后，下次合并前会根据清单把已提交的合并继续完成，没有清单的中间文件直接删除，
+ * 因此数据目录中不会同时出现合并后的文件和它的源文件，也不会丢失数据。
+ * 合并后的文件名形如[通道号].[jobId].compact.[通道号_序号]，不会被恢复时的脏数据清理删除，也不会被再次合并
+ *
+ * Company: www.dtstack.com
+ */
+public class DataFileCompactor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DataFileCompactor.class);
+
+    private static final String COMPACT_SUBDIR = ".compact";
+
+    private static final String COMPACT_INFIX = ".compact.";
+
+    private static final String MANIFEST_SUFFIX = ".sources";
+
+    private static final String TMP_SUFFIX = ".tmp";
+
+    /**
+     * 合并若干个文件的具体实现，由各文件格式提供
+     */
+    public interface FileMerger {
+
+        /**
+         * @return 文件无法直接拼接时返回false
+         */
+        boolean merge(List<Path> sources, Path target) throws IOException;
+    }
+
+    private final FileSystem fs;
+
+    private final Path dir;
+
+    private final Path compactDir;
+
+    private final long targetSize;
+
+    private final FileMerger merger;
+
+    public DataFileCompactor(FileSystem fs, String dir, long targetSize, FileMerger merger) {
+        this.fs = fs;
+        this.dir = new Path(dir);
+        this.compactDir = new Path(dir, COMPACT_SUBDIR);
+        this.targetSize = targetSize;
+        this.merger = merger;
+    }
+
+    /**
+     * 合并block文件
+     * @param owner 执行合并的通道号，合并后的文件以它开头
+     * @param jobId 只合并该任务写入的文件
+     * @param extension 文件后缀
+     * @param taskFilter 要合并的通道号
+     * @param maxBlockIndex 只合并序号不大于该值的block文件
+     * @param recoverFilter 由当前通道负责恢复的合并，参数为合并后文件的通道号
+     */
+    public void compact(int owner, String jobId, String extension, Predicate<Integer> taskFilter,
+                        int maxBlockIndex, Predicate<Integer> recoverFilter) throws IOException {
+        recover(recoverFilter);
+
+        Pattern blockPattern = Pattern.compile("^(\\d+)\\." + Pattern.quote(jobId) + "\\.(\\d+)" + Pattern.quote(extension) + "$");
+        List<BlockFile> blocks = new ArrayList<>();
+        for (FileStatus status : fs.listStatus(dir)) {
+            if (!status.isFile() || status.getLen() >= targetSize) {
+                continue;
+            }
+
+            Matcher matcher = blockPattern.matcher(status.getPath().getName());
+            if (!matcher.matches()) {
+                continue;
+            }
+
+            int taskNumber = Integer.parseInt(matcher.group(1));
+            int blockIndex = Integer.parseInt(matcher.group(2));
+            if (taskFilter.test(taskNumber) && blockIndex <= maxBlockIndex) {
+                blocks.add(new BlockFile(status, taskNumber, blockIndex));
+            }
+        }
+        blocks.sort(Comparator.comparingInt((BlockFile block) -> block.taskNumber).thenComparingInt(block -> block.blockIndex));
+
+        List<BlockFile> group = new ArrayList<>();
+        long groupSize = 0;
+        for (BlockFile block : blocks) {
+            if (!group.isEmpty() && groupSize + block.status.getLen() > targetSize) {
+                mergeGroup(owner, jobId, extension, group);
+                group.clear();
+                groupSize = 0;
+            }
+            group.add(block);
+            groupSize += block.status.getLen();
+        }
+        mergeGroup(owner, jobId, extension, group);
+    }
+
+    private void mergeGroup(int owner, String jobId, String extension, List<BlockFile> group) throws IOException {
+        if (group.size() < 2) {
+            return;
+        }
+
+        BlockFile first = group.get(0);
+        String targetName = owner + "." + jobId + COMPACT_INFIX + first.taskNumber + "_" + first.blockIndex + extension;
+        Path tmpFile = new Path(compactDir, targetName);
+        List<Path> sources = new ArrayList<>(group.size());
+        for (BlockFile block : group) {
+            sources.add(block.status.getPath());
+        }
+
+        if (!merger.merge(sources, tmpFile)) {
+            fs.delete(tmpFile, false);
+            LOG.warn("Files can not be merged without rewriting, skip:{}", sources);
+            return;
+        }
+
+        StringBuilder manifest = new StringBuilder();
+        for (Path source : sources) {
+            manifest.append(source.getName()).append('\n');
+        }
+        // 清单写到一半时中断不能被当作已提交的合并，先写临时文件再重命名
+        Path manifestFile = new Path(compactDir, targetName + MANIFEST_SUFFIX);
+        Path tmpManifestFile = new Path(compactDir, targetName + MANIFEST_SUFFIX + TMP_SUFFIX);
+        try (FSDataOutputStream out = fs.create(tmpManifestFile, true)) {
+            out.write(manifest.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        if (!fs.rename(tmpManifestFile, manifestFile)) {
+            throw new IOException("Rename " + tmpManifestFile + " to " + manifestFile + " failed");
+        }
+
+        commit(targetName, sources);
+        LOG.info("Merge {} files into {}", sources.size(), new Path(dir, targetName));
+    }
+
+    /**
+     * 把合并后的文件移动到数据目录并删除源文件，每一步都可以重复执行
+     */
+    private void commit(String targetName, List<Path> sources) throws IOException {
+        Path tmpFile = new Path(compactDir, targetName);
+        Path targetFile = new Path(dir, targetName);
+        if (fs.exists(tmpFile) && !fs.exists(targetFile) && !fs.rename(tmpFile, targetFile)) {
+            throw new IOException("Rename " + tmpFile + " to " + targetFile + " failed");
+        }
+
+        if (fs.exists(targetFile)) {
+            for (Path source : sources) {
+                fs.delete(source, false);
+            }
+        }
+        fs.delete(new Path(compactDir, targetName + MANIFEST_SUFFIX), false);
+    }
+
+    /**
+     * 完成上次中断的合并，清理没有写完清单的中间文件和临时清单文件
+     */
+    private void recover(Predicate<Integer> recoverFilter) throws IOException {
+        if (!fs.exists(compactDir)) {
+            return;
+        }
+
+        List<String> manifests = new ArrayList<>();
+        List<Path> tmpFiles = new ArrayList<>();
+        for (FileStatus status : fs.listStatus(compactDir)) {
+            String name = status.getPath().getName();
+            if (!recoverFilter.test(getOwner(name))) {
+                continue;
+            }
+
+            if (name.endsWith(MANIFEST_SUFFIX)) {
+                manifests.add(name.substring(0, name.length() - MANIFEST_SUFFIX.length()));
+            } else {
+                tmpFiles.add(status.getPath());
+            }
+        }
+
+        for (String targetName : manifests) {
+            List<Path> sources = new ArrayList<>();
+            try (InputStream in = fs.open(new Path(compactDir, targetName + MANIFEST_SUFFIX))) {
+                for (String line : IOUtils.toString(in, StandardCharsets.UTF_8).split("\n")) {
+                    if (!line.isEmpty()) {
+                        sources.add(new Path(dir, line));
+                    }
+                }
+            }
+            commit(targetName, sources);
+            LOG.info("Recover interrupted compaction of {}", targetName);
+        }
+
+        for (Path tmpFile : tmpFiles) {
+            if (!manifests.contains(tmpFile.getName())) {
+                fs.delete(tmpFile, false);
+                LOG.info("Delete uncommitted compaction file:{}", tmpFile);
+            }
+        }
+    }
+
+    private static int getOwner(String name) {
+        int end = name.indexOf('.');
+        try {
+            return end > 0 ? Integer.parseInt(name.substring(0, end)) : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static class BlockFile {
+
+        private final FileStatus status;
+
+        private final int taskNumber;
+
+        private final int blockIndex;
+
+        private BlockFile(FileStatus status, int taskNumber, int blockIndex) {
+            this.status = status;
+            this.taskNumber = taskNumber;
+            this.blockIndex = blockIndex;
+        }
+    }
+}
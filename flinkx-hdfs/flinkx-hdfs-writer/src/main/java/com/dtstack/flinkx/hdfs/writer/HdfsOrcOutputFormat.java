@@ -27,7 +27,9 @@ import com.dtstack.flinkx.util.ColumnTypeUtil;
 import com.dtstack.flinkx.util.DateUtil;
 import org.apache.flink.types.Row;
 import org.apache.hadoop.hive.common.type.HiveDecimal;
+import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hive.ql.io.orc.OrcSerde;
+import org.apache.hadoop.hive.ql.io.orc.OrcStripeMerger;
 import org.apache.hadoop.hive.serde2.io.HiveDecimalWritable;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
@@ -61,6 +63,17 @@ public class HdfsOrcOutputFormat extends HdfsOutputFormat {
     private FileOutputFormat outputFormat;
     private JobConf jobConf;
 
+    /**按fullColumnNames下标预先解析好的写入类型，无法解析时为null*/
+    private transient ColumnType[] writeColumnTypes;
+
+    /**按fullColumnNames下标预先取出的decimal精度信息*/
+    private transient ColumnTypeUtil.DecimalInfo[] decimalInfos;
+
+    /**复用的记录对象，写入ORC时会立即拷贝到列缓存中，因此可以在行之间复用*/
+    private transient List<Object> record;
+
+    private static final BigInteger LONG_MAX_VALUE = BigInteger.valueOf(Long.MAX_VALUE);
+
     private static ColumnTypeUtil.DecimalInfo ORC_DEFAULT_DECIMAL_INFO = new ColumnTypeUtil.DecimalInfo(HiveDecimal.SYSTEM_DEFAULT_PRECISION, HiveDecimal.SYSTEM_DEFAULT_SCALE);
 
     @Override
@@ -90,6 +103,34 @@ public class HdfsOrcOutputFormat extends HdfsOutputFormat {
 
         this.inspector = ObjectInspectorFactory
                 .getStandardStructObjectInspector(fullColumnNames, fullColTypeList);
+
+        buildWritePlan();
+    }
+
+    /**
+     * 预先解析每一列的写入类型和decimal精度，写入时不再按行解析字段类型
+     */
+    private void buildWritePlan() {
+        int size = fullColumnNames.size();
+        writeColumnTypes = new ColumnType[size];
+        decimalInfos = new ColumnTypeUtil.DecimalInfo[size];
+        record = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            record.add(null);
+            decimalInfos[i] = decimalColInfo.get(fullColumnNames.get(i));
+
+            int j = colIndices[i];
+            if (j == -1) {
+                continue;
+            }
+
+            try {
+                writeColumnTypes[i] = ColumnType.fromString(columnTypes.get(j));
+            } catch (IllegalArgumentException e) {
+                // 与逐行解析时的行为保持一致，由写入时抛出异常并记录为脏数据
+                writeColumnTypes[i] = null;
+            }
+        }
     }
 
     private Class getCompressType(){
@@ -107,6 +148,11 @@ public class HdfsOrcOutputFormat extends HdfsOutputFormat {
         }
     }
 
+    @Override
+    protected boolean mergeDataFiles(List<Path> sources, Path target) throws IOException {
+        return OrcStripeMerger.merge(fs, conf, sources, target);
+    }
+
     @Override
     protected String getExtension() {
         ECompressType compressType = ECompressType.getByTypeAndFileType(compress, "orc");
@@ -148,12 +194,11 @@ public class HdfsOrcOutputFormat extends HdfsOutputFormat {
 
         int i = 0;
         try {
-            List<Object> recordList = new ArrayList<>();
             for (; i < fullColumnNames.size(); ++i) {
-                getData(recordList, i, row);
+                record.set(i, getData(i, row));
             }
 
-            this.recordWriter.write(NullWritable.get(), this.orcSerde.serialize(recordList, this.inspector));
+            this.recordWriter.write(NullWritable.get(), this.orcSerde.serialize(record, this.inspector));
             rowsOfCurrentBlock++;
 
             if(restoreConfig.isRestore()){
@@ -178,57 +223,52 @@ public class HdfsOrcOutputFormat extends HdfsOutputFormat {
         }
     }
 
-    private void getData(List<Object> recordList, int index, Row row) throws WriteRecordException{
+    Object getData(int index, Row row) throws WriteRecordException{
         int j = colIndices[index];
         if(j == -1) {
-            recordList.add(null);
-            return;
+            return null;
         }
 
         Object column = row.getField(j);
         if (column == null) {
-            recordList.add(null);
-            return;
+            return null;
+        }
+
+        ColumnType columnType = writeColumnTypes[index];
+        if (columnType == null) {
+            columnType = ColumnType.fromString(columnTypes.get(j));
         }
 
-        ColumnType columnType = ColumnType.fromString(columnTypes.get(j));
         String rowData = column.toString();
         if(rowData == null || rowData.length() == 0){
-            recordList.add(null);
-            return;
+            return null;
         }
 
         switch (columnType) {
             case TINYINT:
-                recordList.add(Byte.valueOf(rowData));
-                break;
+                return Byte.valueOf(rowData);
             case SMALLINT:
-                recordList.add(Short.valueOf(rowData));
-                break;
+                return Short.valueOf(rowData);
             case INT:
-                recordList.add(Integer.valueOf(rowData));
-                break;
+                return Integer.valueOf(rowData);
             case BIGINT:
                 if (column instanceof Timestamp){
-                    column=((Timestamp) column).getTime();
-                    recordList.add(column);
-                    break;
+                    return ((Timestamp) column).getTime();
+                }
+                if (column instanceof Long || column instanceof Integer){
+                    return ((Number) column).longValue();
                 }
                 BigInteger data = new BigInteger(rowData);
-                if (data.compareTo(new BigInteger(String.valueOf(Long.MAX_VALUE))) > 0){
-                    recordList.add(data);
-                } else {
-                    recordList.add(Long.valueOf(rowData));
+                if (data.compareTo(LONG_MAX_VALUE) > 0){
+                    return data;
                 }
-                break;
+                return Long.valueOf(rowData);
             case FLOAT:
-                recordList.add(Float.valueOf(rowData));
-                break;
+                return Float.valueOf(rowData);
             case DOUBLE:
-                recordList.add(Double.valueOf(rowData));
-                break;
+                return Double.valueOf(rowData);
             case DECIMAL:
-                ColumnTypeUtil.DecimalInfo decimalInfo = decimalColInfo.get(fullColumnNames.get(index));
+                ColumnTypeUtil.DecimalInfo decimalInfo = decimalInfos[index];
                 HiveDecimal hiveDecimal = HiveDecimal.create(new BigDecimal(rowData));
                 hiveDecimal = HiveDecimal.enforcePrecisionScale(hiveDecimal, decimalInfo.getPrecision(), decimalInfo.getScale());
                 if(hiveDecimal == null){
@@ -236,31 +276,23 @@ public class HdfsOrcOutputFormat extends HdfsOutputFormat {
                             decimalInfo.getPrecision(), decimalInfo.getScale()), new IllegalArgumentException(), index, row);
                 }
 
-                HiveDecimalWritable hiveDecimalWritable = new HiveDecimalWritable(hiveDecimal);
-                recordList.add(hiveDecimalWritable);
-                break;
+                return new HiveDecimalWritable(hiveDecimal);
             case STRING:
             case VARCHAR:
             case CHAR:
                 if (column instanceof Timestamp){
                     SimpleDateFormat fm = DateUtil.getDateTimeFormatter();
-                    recordList.add(fm.format(column));
-                }else {
-                    recordList.add(rowData);
+                    return fm.format(column);
                 }
-                break;
+                return rowData;
             case BOOLEAN:
-                recordList.add(Boolean.valueOf(rowData));
-                break;
+                return Boolean.valueOf(rowData);
             case DATE:
-                recordList.add(DateUtil.columnToDate(column,null));
-                break;
+                return DateUtil.columnToDate(column,null);
             case TIMESTAMP:
-                recordList.add(DateUtil.columnToTimestamp(column,null));
-                break;
+                return DateUtil.columnToTimestamp(column,null);
             case BINARY:
-                recordList.add(new BytesWritable(rowData.getBytes()));
-                break;
+                return new BytesWritable(rowData.getBytes());
             default:
                 throw new IllegalArgumentException();
         }
@@ -33,6 +33,10 @@ import org.apache.hadoop.fs.PathFilter;
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 
 /**
@@ -68,6 +72,19 @@ public abstract class HdfsOutputFormat extends FileOutputFormat {
 
     protected transient Map<String, ColumnTypeUtil.DecimalInfo> decimalColInfo;
 
+    private static final int COMPACT_TIMEOUT_MINUTES = 30;
+
+    private transient ThreadPoolExecutor compactExecutor;
+
+    private transient Future<?> compactFuture;
+
+    /**
+     * 流式写入时writer关闭后，还有检查点未完成的block文件时暂时保留文件系统，检查点完成并合并后再释放
+     */
+    private transient boolean closed;
+
+    private transient boolean released;
+
     @Override
     protected void openInternal(int taskNumber, int numTasks) throws IOException {
         initColIndices();
@@ -230,8 +247,113 @@ public abstract class HdfsOutputFormat extends FileOutputFormat {
         LOG.info("Delete .data dir:{}", tmpDir);
     }
 
+    @Override
+    protected void compactDataFiles(int maxBlockIndex, boolean allTasks) {
+        // writer关闭后不会再有下一次合并，不能跳过
+        if (!closed && compactFuture != null && !compactFuture.isDone()) {
+            LOG.info("Last compaction is still running, skip this one");
+            return;
+        }
+
+        if (compactExecutor == null) {
+            compactExecutor = new ThreadPoolExecutor(0, 1, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+                Thread thread = new Thread(r, "compact-" + jobName + "-" + taskNumber);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        DataFileCompactor compactor = new DataFileCompactor(fs, outputFilePath, compactTargetSize, this::mergeDataFiles);
+        int owner = taskNumber;
+        int tasks = numTasks;
+        compactFuture = compactExecutor.submit(() -> {
+            try {
+                // 合并所有通道的文件时由0号通道执行，否则每个通道只处理自己的文件，并行度变小后由0号通道处理多出的通道留下的合并
+                compactor.compact(owner, jobId, getExtension(),
+                        task -> allTasks || task == owner,
+                        maxBlockIndex,
+                        task -> allTasks || task == owner || (owner == 0 && task >= tasks));
+            } catch (Exception e) {
+                LOG.error("Compact data files under [{}] error", outputFilePath, e);
+            }
+        });
+    }
+
+    /**
+     * 把多个block文件直接拼接为一个文件，不重新编码数据
+     * @return 文件无法直接拼接时返回false
+     */
+    protected abstract boolean mergeDataFiles(List<Path> sources, Path target) throws IOException;
+
+    @Override
+    public void notifyCheckpointComplete(long checkpointId) {
+        super.notifyCheckpointComplete(checkpointId);
+        if (closed && !hasUncompletedCommits()) {
+            releaseSource();
+        }
+    }
+
+    /**
+     * 流式写入关闭后是否还在等待检查点完成以合并文件
+     */
+    public boolean isCompactionPending() {
+        return closed && !released;
+    }
+
+    /**
+     * 释放writer关闭后保留的文件系统，正在进行的合并结束后再关闭，没有完成的合并由下次合并继续
+     */
+    public void releaseSource() {
+        if (released) {
+            return;
+        }
+        released = true;
+
+        if (compactExecutor == null) {
+            closeFileSystem();
+            return;
+        }
+
+        compactExecutor.submit(this::closeFileSystem);
+        compactExecutor.shutdown();
+        compactExecutor = null;
+    }
+
+    private void closeFileSystem() {
+        try {
+            if (fs != null) {
+                fs.close();
+            }
+        } catch (IOException e) {
+            LOG.warn("Close file system error", e);
+        }
+    }
+
     @Override
     protected void closeSource() throws IOException {
+        // 流式写入时writer可能在任务运行中被关闭，不等待合并结束
+        if (restoreConfig.isStream()) {
+            closed = true;
+            if (!hasUncompletedCommits()) {
+                releaseSource();
+            }
+            return;
+        }
+
+        if (compactExecutor != null) {
+            compactExecutor.shutdown();
+            try {
+                if (!compactExecutor.awaitTermination(COMPACT_TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
+                    LOG.warn("Wait for compaction timeout, it will be continued by the next compaction");
+                    compactExecutor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                compactExecutor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+            compactExecutor = null;
+        }
+
         if(fs != null){
             fs.close();
         }
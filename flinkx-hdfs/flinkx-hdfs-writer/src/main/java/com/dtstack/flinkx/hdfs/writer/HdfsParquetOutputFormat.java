@@ -30,13 +30,12 @@ import org.apache.hadoop.hive.common.type.HiveDecimal;
 import org.apache.hadoop.hive.ql.io.parquet.serde.ParquetHiveSerDe;
 import org.apache.hadoop.hive.serde2.io.DateWritable;
 import org.apache.parquet.column.ParquetProperties;
-import org.apache.parquet.example.data.Group;
-import org.apache.parquet.example.data.simple.SimpleGroupFactory;
+import org.apache.parquet.format.converter.ParquetMetadataConverter;
+import org.apache.parquet.hadoop.ParquetFileReader;
 import org.apache.parquet.hadoop.ParquetFileWriter;
 import org.apache.parquet.hadoop.ParquetWriter;
-import org.apache.parquet.hadoop.example.ExampleParquetWriter;
-import org.apache.parquet.hadoop.example.GroupWriteSupport;
 import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
 import org.apache.parquet.io.api.Binary;
 import org.apache.parquet.schema.*;
 
@@ -53,12 +52,25 @@ import java.util.*;
  */
 public class HdfsParquetOutputFormat extends HdfsOutputFormat {
 
-    private SimpleGroupFactory groupFactory;
-
-    private ParquetWriter<Group> writer;
+    private ParquetWriter<Row> writer;
 
     private MessageType schema;
 
+    /**
+     * 每一列的转换器，在openSource时根据字段类型生成，类型无法解析时为null，写数据时作为脏数据处理
+     */
+    private transient ValueConverter[] valueConverters;
+
+    /**
+     * 每一列转换后的值的类型，和schema中的物理类型对应
+     */
+    private transient Class<?>[] valueClasses;
+
+    /**
+     * 转换后的数据，每一行复用
+     */
+    private transient Row record;
+
     private static Calendar cal = Calendar.getInstance();
 
     private static final long NANO_SECONDS_PER_DAY = 86400_000_000_000L;
@@ -80,8 +92,114 @@ public class HdfsParquetOutputFormat extends HdfsOutputFormat {
         super.openSource();
 
         schema = buildSchema();
-        GroupWriteSupport.setSchema(schema,conf);
-        groupFactory = new SimpleGroupFactory(schema);
+        buildValueConverters();
+    }
+
+    private void buildValueConverters(){
+        int size = fullColumnNames.size();
+        valueConverters = new ValueConverter[size];
+        valueClasses = new Class<?>[size];
+        record = new Row(size);
+
+        for (int i = 0; i < size; i++) {
+            valueClasses[i] = RowWriteSupport.getValueClass(schema.getType(i).asPrimitiveType().getPrimitiveTypeName());
+
+            ColumnType columnType;
+            try {
+                columnType = ColumnType.fromString(fullColumnTypes.get(i));
+            } catch (Exception e){
+                continue;
+            }
+
+            valueConverters[i] = createValueConverter(columnType, fullColumnNames.get(i), i);
+        }
+    }
+
+    private ValueConverter createValueConverter(ColumnType columnType, String colName, int index){
+        switch (columnType){
+            case TINYINT:
+            case SMALLINT:
+            case INT:
+                return (valObj, row) -> {
+                    if (valObj instanceof Date){
+                        return (int)((Date) valObj).getTime();
+                    } else if (valObj instanceof Integer || valObj instanceof Short || valObj instanceof Byte){
+                        return ((Number) valObj).intValue();
+                    }
+                    return Integer.parseInt(valObj.toString());
+                };
+            case BIGINT:
+                return (valObj, row) -> {
+                    if (valObj instanceof Date){
+                        return ((Date) valObj).getTime();
+                    } else if (valObj instanceof Long || valObj instanceof Integer
+                            || valObj instanceof Short || valObj instanceof Byte){
+                        return ((Number) valObj).longValue();
+                    }
+                    return Long.parseLong(valObj.toString());
+                };
+            case FLOAT:
+                return (valObj, row) -> {
+                    if (valObj instanceof Float || valObj instanceof Integer || valObj instanceof Long
+                            || valObj instanceof Short || valObj instanceof Byte){
+                        return ((Number) valObj).floatValue();
+                    }
+                    return Float.parseFloat(valObj.toString());
+                };
+            case DOUBLE:
+                return (valObj, row) -> {
+                    if (valObj instanceof Double || valObj instanceof Integer || valObj instanceof Long
+                            || valObj instanceof Short || valObj instanceof Byte){
+                        return ((Number) valObj).doubleValue();
+                    }
+                    return Double.parseDouble(valObj.toString());
+                };
+            case BINARY: return (valObj, row) -> Binary.fromString(valObj.toString());
+            case CHAR:
+            case VARCHAR:
+            case STRING:
+                return (valObj, row) -> {
+                    if (valObj instanceof Timestamp){
+                        return Binary.fromString(DateUtil.getDateTimeFormatter().format(valObj));
+                    }
+                    return Binary.fromString(valObj.toString());
+                };
+            case BOOLEAN:
+                return (valObj, row) -> valObj instanceof Boolean ? valObj : Boolean.parseBoolean(valObj.toString());
+            case TIMESTAMP:
+                return (valObj, row) -> {
+                    Timestamp ts = DateUtil.columnToTimestamp(valObj,null);
+                    return Binary.fromConstantByteArray(longToByteArray(ts.getTime()));
+                };
+            case DECIMAL:
+                ColumnTypeUtil.DecimalInfo decimalInfo = decimalColInfo.get(colName);
+                return (valObj, row) -> {
+                    BigDecimal bigDecimal;
+                    if (valObj instanceof BigDecimal){
+                        bigDecimal = (BigDecimal) valObj;
+                    } else if (valObj instanceof Long || valObj instanceof Integer
+                            || valObj instanceof Short || valObj instanceof Byte){
+                        bigDecimal = BigDecimal.valueOf(((Number) valObj).longValue());
+                    } else {
+                        bigDecimal = new BigDecimal(valObj.toString());
+                    }
+
+                    HiveDecimal hiveDecimal = HiveDecimal.create(bigDecimal);
+                    hiveDecimal = HiveDecimal.enforcePrecisionScale(hiveDecimal, decimalInfo.getPrecision(), decimalInfo.getScale());
+                    if(hiveDecimal == null){
+                        throw new WriteRecordException(String.format("decimal数据的precision和scale和元数据不匹配:decimal(%s, %s)",
+                                decimalInfo.getPrecision(), decimalInfo.getScale()), new IllegalArgumentException(), index, row);
+                    }
+
+                    return decimalToBinary(hiveDecimal, decimalInfo.getPrecision(), decimalInfo.getScale());
+                };
+            case DATE:
+                return (valObj, row) -> {
+                    Date date = DateUtil.columnToDate(valObj,null);
+                    return DateWritable.dateToDays(new java.sql.Date(date.getTime()));
+                };
+            default: return (valObj, row) -> Binary.fromString(valObj.toString());
+        }
     }
 
     @Override
@@ -95,12 +213,11 @@ public class HdfsParquetOutputFormat extends HdfsOutputFormat {
         try {
             String currentBlockTmpPath = tmpPath + SP + currentBlockFileName;
             Path writePath = new Path(currentBlockTmpPath);
-            ExampleParquetWriter.Builder builder = ExampleParquetWriter.builder(writePath)
+            RowWriteSupport.Builder builder = RowWriteSupport.builder(writePath, schema)
                     .withWriteMode(ParquetFileWriter.Mode.CREATE)
                     .withWriterVersion(ParquetProperties.WriterVersion.PARQUET_1_0)
                     .withCompressionCodec(getCompressType())
                     .withConf(conf)
-                    .withType(schema)
                     .withRowGroupSize(rowGroupSize);
             writer = builder.build();
 
@@ -128,6 +245,29 @@ public class HdfsParquetOutputFormat extends HdfsOutputFormat {
         }
     }
 
+    /**
+     * 按row group拼接parquet文件，列数据直接拷贝，不重新编码
+     */
+    @Override
+    protected boolean mergeDataFiles(List<Path> sources, Path target) throws IOException {
+        ParquetMetadata footer = ParquetFileReader.readFooter(conf, sources.get(0), ParquetMetadataConverter.NO_FILTER);
+        MessageType fileSchema = footer.getFileMetaData().getSchema();
+        for (int i = 1; i < sources.size(); i++) {
+            ParquetMetadata metadata = ParquetFileReader.readFooter(conf, sources.get(i), ParquetMetadataConverter.SKIP_ROW_GROUPS);
+            if (!fileSchema.equals(metadata.getFileMetaData().getSchema())) {
+                return false;
+            }
+        }
+
+        ParquetFileWriter fileWriter = new ParquetFileWriter(conf, fileSchema, target, ParquetFileWriter.Mode.CREATE);
+        fileWriter.start();
+        for (Path source : sources) {
+            fileWriter.appendFile(conf, source);
+        }
+        fileWriter.end(footer.getFileMetaData().getKeyValueMetaData());
+        return true;
+    }
+
     @Override
     protected String getExtension() {
         ECompressType compressType = ECompressType.getByTypeAndFileType(compress, "parquet");
@@ -157,84 +297,30 @@ public class HdfsParquetOutputFormat extends HdfsOutputFormat {
             nextBlock();
         }
 
-        Group group = groupFactory.newGroup();
         int i = 0;
         try {
             for (; i < fullColumnNames.size(); i++) {
-                String colName = fullColumnNames.get(i);
-                String colType = fullColumnTypes.get(i);
-                colType = ColumnType.fromString(colType).name().toLowerCase();
+                ValueConverter converter = valueConverters[i];
+                if (converter == null){
+                    throw new IllegalArgumentException(String.format("Unsupported type [%s] of column [%s]",
+                            fullColumnTypes.get(i), fullColumnNames.get(i)));
+                }
 
                 Object valObj = row.getField(colIndices[i]);
-
                 if(valObj == null){
+                    record.setField(i, null);
                     continue;
                 }
 
-                String val = valObj.toString();
-
-                switch (colType){
-                    case "tinyint" :
-                    case "smallint" :
-                    case "int" :
-                        if (valObj instanceof Timestamp){
-                            ((Timestamp) valObj).getTime();
-                            group.add(colName,(int)((Timestamp) valObj).getTime());
-                        } else if(valObj instanceof Date){
-                            group.add(colName,(int)((Date) valObj).getTime());
-                        } else {
-                            group.add(colName,Integer.parseInt(val));
-                        }
-                        break;
-                    case "bigint" :
-                        if (valObj instanceof Timestamp){
-                            group.add(colName,((Timestamp) valObj).getTime());
-                        } else if(valObj instanceof Date){
-                            group.add(colName,((Date) valObj).getTime());
-                        } else {
-                            group.add(colName,Long.parseLong(val));
-                        }
-                        break;
-                    case "float" : group.add(colName,Float.parseFloat(val));break;
-                    case "double" : group.add(colName,Double.parseDouble(val));break;
-                    case "binary" :group.add(colName,Binary.fromString(val));break;
-                    case "char" :
-                    case "varchar" :
-                    case "string" :
-                        if (valObj instanceof Timestamp){
-                            val=DateUtil.getDateTimeFormatter().format(valObj);
-                            group.add(colName,val);
-                        }else {
-                            group.add(colName,val);
-                        }
-                        break;
-                    case "boolean" : group.add(colName,Boolean.parseBoolean(val));break;
-                    case "timestamp" :
-                        Timestamp ts = DateUtil.columnToTimestamp(valObj,null);
-                        byte[] dst = longToByteArray(ts.getTime());
-                        group.add(colName, Binary.fromConstantByteArray(dst));
-                        break;
-                    case "decimal" :
-                        ColumnTypeUtil.DecimalInfo decimalInfo = decimalColInfo.get(colName);
-
-                        HiveDecimal hiveDecimal = HiveDecimal.create(new BigDecimal(val));
-                        hiveDecimal = HiveDecimal.enforcePrecisionScale(hiveDecimal, decimalInfo.getPrecision(), decimalInfo.getScale());
-                        if(hiveDecimal == null){
-                            throw new WriteRecordException(String.format("decimal数据的precision和scale和元数据不匹配:decimal(%s, %s)",
-                                    decimalInfo.getPrecision(), decimalInfo.getScale()), new IllegalArgumentException(), i, row);
-                        }
-
-                        group.add(colName,decimalToBinary(hiveDecimal, decimalInfo.getPrecision(), decimalInfo.getScale()));
-                        break;
-                    case "date" :
-                        Date date = DateUtil.columnToDate(valObj,null);
-                        group.add(colName, DateWritable.dateToDays(new java.sql.Date(date.getTime())));
-                        break;
-                    default: group.add(colName,val);break;
+                Object value = converter.convert(valObj, row);
+                if (!valueClasses[i].isInstance(value)){
+                    throw new IllegalArgumentException(String.format("column type [%s] does not match parquet type [%s]",
+                            fullColumnTypes.get(i), schema.getType(i).asPrimitiveType().getPrimitiveTypeName()));
                 }
+                record.setField(i, value);
             }
 
-            writer.write(group);
+            writer.write(record);
             rowsOfCurrentBlock++;
 
             if(restoreConfig.isRestore()){
@@ -249,6 +335,11 @@ public class HdfsParquetOutputFormat extends HdfsOutputFormat {
         }
     }
 
+    @FunctionalInterface
+    private interface ValueConverter {
+        Object convert(Object valObj, Row row) throws Exception;
+    }
+
     private Binary decimalToBinary(final HiveDecimal hiveDecimal, int prec,int scale) {
         byte[] decimalBytes = hiveDecimal.setScale(scale).unscaledValue().toByteArray();
 
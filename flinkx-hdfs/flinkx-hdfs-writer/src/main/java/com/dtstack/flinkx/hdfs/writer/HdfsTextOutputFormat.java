@@ -26,6 +26,8 @@ import com.dtstack.flinkx.util.DateUtil;
 import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
 import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
 import org.apache.flink.types.Row;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hive.common.type.HiveDecimal;
 import java.io.IOException;
@@ -35,6 +37,7 @@ import java.math.BigInteger;
 import java.sql.Timestamp;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.List;
 
 /**
  * The builder class of HdfsOutputFormat writing text files
@@ -66,6 +69,21 @@ public class HdfsTextOutputFormat extends HdfsOutputFormat {
         return compressType.getDeviation();
     }
 
+    /**
+     * 每行都以换行符结尾，gzip和bzip2的压缩流也可以直接首尾相接，所以按字节拼接即可
+     */
+    @Override
+    protected boolean mergeDataFiles(List<Path> sources, Path target) throws IOException {
+        try (FSDataOutputStream out = fs.create(target, true)) {
+            for (Path source : sources) {
+                try (FSDataInputStream in = fs.open(source)) {
+                    org.apache.hadoop.io.IOUtils.copyBytes(in, out, conf, false);
+                }
+            }
+        }
+        return true;
+    }
+
     @Override
     public String getExtension() {
         ECompressType compressType = ECompressType.getByTypeAndFileType(compress, "text");
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.flinkx.hdfs.writer;
+
+import org.apache.flink.types.Row;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.api.WriteSupport;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.io.api.RecordConsumer;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType;
+
+import java.util.HashMap;
+
+/**
+ * 按字段下标直接向RecordConsumer写入Row的WriteSupport
+ *
+ * Row中第i个字段对应schema中的第i列，值必须已经是该列物理类型对应的java类型，
+ * 见{@link #getValueClass(PrimitiveType.PrimitiveTypeName)}，为null的字段不写入
+ *
+ * Company: www.dtstack.com
+ */
+public class RowWriteSupport extends WriteSupport<Row> {
+
+    private final MessageType schema;
+
+    private final String[] fieldNames;
+
+    private final PrimitiveType.PrimitiveTypeName[] typeNames;
+
+    private RecordConsumer recordConsumer;
+
+    public RowWriteSupport(MessageType schema) {
+        this.schema = schema;
+
+        int fieldCount = schema.getFieldCount();
+        fieldNames = new String[fieldCount];
+        typeNames = new PrimitiveType.PrimitiveTypeName[fieldCount];
+        for (int i = 0; i < fieldCount; i++) {
+            fieldNames[i] = schema.getFieldName(i);
+            typeNames[i] = schema.getType(i).asPrimitiveType().getPrimitiveTypeName();
+        }
+    }
+
+    @Override
+    public WriteContext init(Configuration configuration) {
+        return new WriteContext(schema, new HashMap<>());
+    }
+
+    @Override
+    public void prepareForWrite(RecordConsumer recordConsumer) {
+        this.recordConsumer = recordConsumer;
+    }
+
+    @Override
+    public void write(Row record) {
+        recordConsumer.startMessage();
+        for (int i = 0; i < fieldNames.length; i++) {
+            Object value = record.getField(i);
+            if (value == null) {
+                continue;
+            }
+
+            recordConsumer.startField(fieldNames[i], i);
+            switch (typeNames[i]) {
+                case INT32: recordConsumer.addInteger((Integer) value);break;
+                case INT64: recordConsumer.addLong((Long) value);break;
+                case FLOAT: recordConsumer.addFloat((Float) value);break;
+                case DOUBLE: recordConsumer.addDouble((Double) value);break;
+                case BOOLEAN: recordConsumer.addBoolean((Boolean) value);break;
+                default: recordConsumer.addBinary((Binary) value);break;
+            }
+            recordConsumer.endField(fieldNames[i], i);
+        }
+        recordConsumer.endMessage();
+    }
+
+    /**
+     * @return 写入该物理类型的列时Row中字段值的类型
+     */
+    public static Class<?> getValueClass(PrimitiveType.PrimitiveTypeName typeName) {
+        switch (typeName) {
+            case INT32: return Integer.class;
+            case INT64: return Long.class;
+            case FLOAT: return Float.class;
+            case DOUBLE: return Double.class;
+            case BOOLEAN: return Boolean.class;
+            default: return Binary.class;
+        }
+    }
+
+    public static Builder builder(Path path, MessageType schema) {
+        return new Builder(path, schema);
+    }
+
+    public static class Builder extends ParquetWriter.Builder<Row, Builder> {
+
+        private final MessageType schema;
+
+        private Builder(Path path, MessageType schema) {
+            super(path);
+            this.schema = schema;
+        }
+
+        @Override
+        protected Builder self() {
+            return this;
+        }
+
+        @Override
+        protected WriteSupport<Row> getWriteSupport(Configuration conf) {
+            return new RowWriteSupport(schema);
+        }
+    }
+}
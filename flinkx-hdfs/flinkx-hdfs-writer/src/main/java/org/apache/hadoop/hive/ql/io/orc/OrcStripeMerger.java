@@ -0,0 +1,100 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hive.ql.io.orc;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 按stripe合并多个orc文件，stripe的数据直接拷贝到新文件中，不需要重新编码。
+ *
+ * 合并需要读取stripe的统计信息，{@link ReaderImpl}中对应的方法只在包内可见，所以放在hive的包下
+ *
+ * Company: www.dtstack.com
+ */
+public class OrcStripeMerger {
+
+    private OrcStripeMerger() {
+    }
+
+    /**
+     * 合并orc文件
+     * @param fs 文件系统
+     * @param conf hadoop配置
+     * @param sources 要合并的文件
+     * @param target 合并后的文件
+     * @return 文件的压缩方式、schema等不一致无法直接拼接时返回false，此时不会创建目标文件
+     */
+    public static boolean merge(FileSystem fs, Configuration conf, List<Path> sources, Path target) throws IOException {
+        List<ReaderImpl> readers = new ArrayList<>(sources.size());
+        for (Path source : sources) {
+            ReaderImpl reader = (ReaderImpl) OrcFile.createReader(source, OrcFile.readerOptions(conf).filesystem(fs));
+            if (!readers.isEmpty() && !isCompatible(readers.get(0), reader)) {
+                return false;
+            }
+            readers.add(reader);
+        }
+
+        ReaderImpl first = readers.get(0);
+        OrcFile.WriterOptions options = OrcFile.writerOptions(conf)
+                .fileSystem(fs)
+                .compress(first.getCompression())
+                .bufferSize(first.getCompressionSize())
+                .rowIndexStride(first.getRowIndexStride())
+                .version(first.getFileVersion())
+                .inspector(first.getObjectInspector());
+
+        Writer writer = OrcFile.createWriter(target, options);
+        try {
+            for (int i = 0; i < readers.size(); i++) {
+                ReaderImpl reader = readers.get(i);
+                List<StripeInformation> stripes = reader.getStripes();
+                List<OrcProto.StripeStatistics> stripeStatistics = reader.getOrcProtoStripeStatistics();
+                try (FSDataInputStream in = fs.open(sources.get(i))) {
+                    for (int j = 0; j < stripes.size(); j++) {
+                        StripeInformation stripe = stripes.get(j);
+                        byte[] buffer = new byte[(int) stripe.getLength()];
+                        in.readFully(stripe.getOffset(), buffer, 0, buffer.length);
+                        writer.appendStripe(buffer, 0, buffer.length, stripe, stripeStatistics.get(j));
+                    }
+                }
+                writer.appendUserMetadata(reader.getOrcProtoUserMetadata());
+            }
+        } finally {
+            writer.close();
+        }
+
+        return true;
+    }
+
+    private static boolean isCompatible(ReaderImpl first, ReaderImpl reader) {
+        return first.getCompression() == reader.getCompression()
+                && first.getCompressionSize() == reader.getCompressionSize()
+                && first.getRowIndexStride() == reader.getRowIndexStride()
+                && first.getFileVersion() == reader.getFileVersion()
+                && first.getWriterVersion() == reader.getWriterVersion()
+                && first.getTypes().equals(reader.getTypes());
+    }
+}
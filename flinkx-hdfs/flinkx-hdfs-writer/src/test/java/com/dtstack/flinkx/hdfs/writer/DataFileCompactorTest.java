@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dtstack.flinkx.hdfs.writer;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+public class DataFileCompactorTest {
+
+    private static final String JOB_ID = "job";
+
+    private static final String EXTENSION = ".txt";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private FileSystem fs;
+
+    private File dir;
+
+    private File compactDir;
+
+    private final List<List<String>> merged = new ArrayList<>();
+
+    @Before
+    public void setUp() throws IOException {
+        fs = FileSystem.getLocal(new Configuration());
+        dir = folder.newFolder("data");
+        compactDir = new File(dir, ".compact");
+    }
+
+    @Test
+    public void testCompactPlan() throws IOException {
+        writeBlock(0, 0, 40);
+        writeBlock(0, 1, 40);
+        writeBlock(0, 2, 40);
+        writeBlock(0, 3, 40);
+        // 已经达到目标大小的文件不合并
+        writeBlock(0, 4, 100);
+        // 序号超过maxBlockIndex
+        writeBlock(0, 6, 10);
+        // 其它通道和其它任务的文件
+        writeBlock(1, 0, 10);
+        write(dir, "0.other.0" + EXTENSION, "x");
+
+        compact(0, 5, task -> task == 0, task -> task == 0);
+
+        MatcherAssert.assertThat(merged, Matchers.contains(
+                Arrays.asList("0.job.0.txt", "0.job.1.txt"),
+                Arrays.asList("0.job.2.txt", "0.job.3.txt")));
+        MatcherAssert.assertThat(listData(), Matchers.containsInAnyOrder(
+                "0.job.compact.0_0.txt", "0.job.compact.0_2.txt", "0.job.4.txt", "0.job.6.txt", "1.job.0.txt", "0.other.0.txt"));
+        MatcherAssert.assertThat(read("0.job.compact.0_0.txt"), Matchers.equalTo(content(0, 0, 40) + content(0, 1, 40)));
+        MatcherAssert.assertThat(compactDir.list(), Matchers.emptyArray());
+
+        // 合并后的文件不会被再次合并
+        merged.clear();
+        compact(0, Integer.MAX_VALUE, task -> true, task -> task == 0);
+        MatcherAssert.assertThat(merged, Matchers.contains(Arrays.asList("0.job.6.txt", "1.job.0.txt")));
+    }
+
+    @Test
+    public void testSkipUnmergeableFiles() throws IOException {
+        writeBlock(0, 0, 10);
+        writeBlock(0, 1, 10);
+
+        DataFileCompactor compactor = new DataFileCompactor(fs, dir.getPath(), 100, (sources, target) -> {
+            write(compactDir, target.getName(), "partial");
+            return false;
+        });
+        compactor.compact(0, JOB_ID, EXTENSION, task -> true, Integer.MAX_VALUE, task -> true);
+
+        MatcherAssert.assertThat(listData(), Matchers.containsInAnyOrder("0.job.0.txt", "0.job.1.txt"));
+        MatcherAssert.assertThat(compactDir.list(), Matchers.emptyArray());
+    }
+
+    @Test
+    public void testRecoverAfterManifestCommitted() throws IOException {
+        // 清单已写完，合并后的文件还没有移动到数据目录
+        writeBlock(0, 0, 10);
+        writeBlock(0, 1, 10);
+        write(compactDir, "0.job.compact.0_0.txt", content(0, 0, 10) + content(0, 1, 10));
+        write(compactDir, "0.job.compact.0_0.txt.sources", "0.job.0.txt\n0.job.1.txt\n");
+
+        compact(0, Integer.MAX_VALUE, task -> true, task -> task == 0);
+
+        MatcherAssert.assertThat(merged, Matchers.empty());
+        MatcherAssert.assertThat(listData(), Matchers.contains("0.job.compact.0_0.txt"));
+        MatcherAssert.assertThat(read("0.job.compact.0_0.txt"), Matchers.equalTo(content(0, 0, 10) + content(0, 1, 10)));
+        MatcherAssert.assertThat(compactDir.list(), Matchers.emptyArray());
+    }
+
+    @Test
+    public void testRecoverAfterRename() throws IOException {
+        // 合并后的文件已经移动到数据目录，源文件还没有删除完
+        writeBlock(0, 1, 10);
+        write(dir, "0.job.compact.0_0.txt", content(0, 0, 10) + content(0, 1, 10));
+        write(compactDir, "0.job.compact.0_0.txt.sources", "0.job.0.txt\n0.job.1.txt\n");
+
+        compact(0, Integer.MAX_VALUE, task -> true, task -> task == 0);
+
+        MatcherAssert.assertThat(merged, Matchers.empty());
+        MatcherAssert.assertThat(listData(), Matchers.contains("0.job.compact.0_0.txt"));
+        MatcherAssert.assertThat(compactDir.list(), Matchers.emptyArray());
+    }
+
+    @Test
+    public void testDropUncommittedCompaction() throws IOException {
+        // 合并后的文件已生成，清单还没有重命名
+        writeBlock(0, 0, 10);
+        writeBlock(0, 1, 10);
+        write(compactDir, "0.job.compact.0_0.txt", "partial");
+        write(compactDir, "0.job.compact.0_0.txt.sources.tmp", "0.job.0.txt\n");
+
+        compact(0, Integer.MAX_VALUE, task -> true, task -> task == 0);
+
+        // 中间文件被删除，源文件重新合并
+        MatcherAssert.assertThat(merged, Matchers.contains(Arrays.asList("0.job.0.txt", "0.job.1.txt")));
+        MatcherAssert.assertThat(listData(), Matchers.contains("0.job.compact.0_0.txt"));
+        MatcherAssert.assertThat(read("0.job.compact.0_0.txt"), Matchers.equalTo(content(0, 0, 10) + content(0, 1, 10)));
+        MatcherAssert.assertThat(compactDir.list(), Matchers.emptyArray());
+    }
+
+    @Test
+    public void testRecoverOnlyOwnCompaction() throws IOException {
+        writeBlock(1, 0, 10);
+        writeBlock(1, 1, 10);
+        write(compactDir, "1.job.compact.1_0.txt", "partial");
+
+        compact(0, Integer.MAX_VALUE, task -> task == 0, task -> task == 0);
+        MatcherAssert.assertThat(compactDir.list(), Matchers.arrayContaining("1.job.compact.1_0.txt"));
+
+        // 并行度变小后由0号通道恢复
+        compact(0, Integer.MAX_VALUE, task -> task == 0, task -> task == 0 || task >= 1);
+        MatcherAssert.assertThat(compactDir.list(), Matchers.emptyArray());
+        MatcherAssert.assertThat(listData(), Matchers.containsInAnyOrder("1.job.0.txt", "1.job.1.txt"));
+    }
+
+    private void compact(int owner, int maxBlockIndex, Predicate<Integer> taskFilter,
+                         Predicate<Integer> recoverFilter) throws IOException {
+        DataFileCompactor compactor = new DataFileCompactor(fs, dir.getPath(), 100, (sources, target) -> {
+            List<String> names = new ArrayList<>();
+            try (FSDataOutputStream out = fs.create(target, true)) {
+                for (Path source : sources) {
+                    names.add(source.getName());
+                    try (FSDataInputStream in = fs.open(source)) {
+                        IOUtils.copy(in, out);
+                    }
+                }
+            }
+            merged.add(names);
+            return true;
+        });
+        compactor.compact(owner, JOB_ID, EXTENSION, taskFilter, maxBlockIndex, recoverFilter);
+    }
+
+    private void writeBlock(int taskNumber, int blockIndex, int size) throws IOException {
+        write(dir, taskNumber + "." + JOB_ID + "." + blockIndex + EXTENSION, content(taskNumber, blockIndex, size));
+    }
+
+    private static String content(int taskNumber, int blockIndex, int size) {
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < size) {
+            sb.append(taskNumber).append('_').append(blockIndex).append(';');
+        }
+        return sb.substring(0, size);
+    }
+
+    private void write(File parent, String name, String content) throws IOException {
+        FileUtils.writeStringToFile(new File(parent, name), content, StandardCharsets.UTF_8);
+    }
+
+    private String read(String name) throws IOException {
+        return FileUtils.readFileToString(new File(dir, name), StandardCharsets.UTF_8);
+    }
+
+    private List<String> listData() {
+        List<String> names = new ArrayList<>();
+        for (File file : dir.listFiles()) {
+            if (file.isFile() && !file.getName().startsWith(".")) {
+                names.add(file.getName());
+            }
+        }
+        return names;
+    }
+}
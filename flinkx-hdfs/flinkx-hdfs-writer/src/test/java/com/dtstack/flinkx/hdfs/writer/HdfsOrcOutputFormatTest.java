@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dtstack.flinkx.hdfs.writer;
+
+import com.dtstack.flinkx.config.RestoreConfig;
+import com.dtstack.flinkx.exception.WriteRecordException;
+import com.dtstack.flinkx.util.DateUtil;
+import org.apache.flink.api.common.accumulators.LongCounter;
+import org.apache.flink.types.Row;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.common.type.HiveDecimal;
+import org.apache.hadoop.hive.ql.io.orc.OrcFile;
+import org.apache.hadoop.hive.ql.io.orc.Reader;
+import org.apache.hadoop.hive.ql.io.orc.RecordReader;
+import org.apache.hadoop.hive.serde2.io.DateWritable;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorUtils;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class HdfsOrcOutputFormatTest {
+
+    private static final List<String> FULL_COLUMN_NAMES = Arrays.asList("c_tinyint", "c_smallint", "c_int", "c_bigint",
+            "c_float", "c_double", "c_decimal", "c_missing", "c_string", "c_varchar", "c_boolean", "c_date", "c_timestamp", "c_binary");
+
+    private static final List<String> FULL_COLUMN_TYPES = Arrays.asList("tinyint", "smallint", "int", "bigint",
+            "float", "double", "decimal(10,2)", "string", "string", "varchar(10)", "boolean", "date", "timestamp", "binary");
+
+    private static final int DECIMAL_INDEX = 6;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private TestOrcOutputFormat format;
+
+    @Before
+    public void setUp() throws Exception {
+        format = new TestOrcOutputFormat(folder.newFolder().getAbsolutePath());
+        format.open();
+    }
+
+    @Test
+    public void testWriteEveryType() throws Exception {
+        Timestamp timestamp = Timestamp.valueOf("2019-07-01 12:00:00");
+        format.writeSingleRecordToFile(row("1", 2, "3", new Timestamp(1000L), "1.5", 2.25d, "12.345",
+                timestamp, "v", "true", "2019-07-01", "2019-07-01 12:00:00", "ab"));
+        format.writeSingleRecordToFile(row("4", "5", 6, "9223372036854775807", 1.5f, "-2.5", 1,
+                "s", "", false, null, timestamp, null));
+        // 复用的记录对象不能把上一行的数据带到下一行
+        format.writeSingleRecordToFile(row(null, null, null, null, null, null, null, null, null, null, null, null, null));
+
+        List<List<Object>> rows = format.closeAndRead();
+        MatcherAssert.assertThat(rows.size(), Matchers.equalTo(3));
+
+        MatcherAssert.assertThat(rows.get(0), Matchers.contains(
+                (byte) 1, (short) 2, 3, 1000L, 1.5f, 2.25d, HiveDecimal.create("12.35"), null,
+                DateUtil.getDateTimeFormatter().format(timestamp), "v", true, orcDate("2019-07-01"), DateUtil.columnToTimestamp("2019-07-01 12:00:00", null), "ab".getBytes()));
+
+        MatcherAssert.assertThat(rows.get(1), Matchers.contains(
+                (byte) 4, (short) 5, 6, Long.MAX_VALUE, 1.5f, -2.5d, HiveDecimal.create(1), null,
+                "s", null, false, null, timestamp, null));
+
+        MatcherAssert.assertThat(rows.get(2), Matchers.everyItem(Matchers.nullValue()));
+    }
+
+    @Test
+    public void testInvalidValueReportsColumn() throws Exception {
+        try {
+            format.writeSingleRecordToFile(row("1", 2, "x", 1L, 1f, 1d, "1", "s", "v", true, null, null, null));
+            MatcherAssert.assertThat("invalid int should be rejected", false);
+        } catch (WriteRecordException e) {
+            MatcherAssert.assertThat(e.getColIndex(), Matchers.equalTo(2));
+        }
+
+        try {
+            format.writeSingleRecordToFile(row("1", 2, 3, 1L, 1f, 1d, "123456789012.5", "s", "v", true, null, null, null));
+            MatcherAssert.assertThat("decimal out of precision should be rejected", false);
+        } catch (WriteRecordException e) {
+            MatcherAssert.assertThat(e.getColIndex(), Matchers.equalTo(DECIMAL_INDEX));
+        }
+
+        format.writeSingleRecordToFile(row("1", 2, 3, 1L, 1f, 1d, "1", "s", "v", true, null, null, null));
+        MatcherAssert.assertThat(format.closeAndRead().size(), Matchers.equalTo(1));
+    }
+
+    /**
+     * ORC按天存储日期，按写入时相同的方式换算出读回的值
+     */
+    private Date orcDate(String value) {
+        return new DateWritable(new Date(DateUtil.columnToDate(value, null).getTime())).get();
+    }
+
+    private Row row(Object... values) {
+        return Row.of(values);
+    }
+
+    static class TestOrcOutputFormat extends HdfsOrcOutputFormat {
+
+        TestOrcOutputFormat(String dir) {
+            defaultFS = "file:///";
+            tmpPath = dir;
+            currentBlockFileNamePrefix = "orc_test";
+            restoreConfig = RestoreConfig.defaultConfig();
+            bytesWriteCounter = new LongCounter();
+
+            fullColumnNames = FULL_COLUMN_NAMES;
+            fullColumnTypes = FULL_COLUMN_TYPES;
+            columnNames = new ArrayList<>(FULL_COLUMN_NAMES);
+            columnNames.remove("c_missing");
+            columnTypes = new ArrayList<>(FULL_COLUMN_TYPES);
+            columnTypes.remove(FULL_COLUMN_NAMES.indexOf("c_missing"));
+
+            colIndices = new int[fullColumnNames.size()];
+            for (int i = 0; i < colIndices.length; i++) {
+                colIndices[i] = columnNames.indexOf(fullColumnNames.get(i));
+            }
+        }
+
+        void open() throws Exception {
+            openSource();
+        }
+
+        List<List<Object>> closeAndRead() throws Exception {
+            String fileName = currentBlockFileName;
+            closeSource();
+            if (fileName == null) {
+                return Collections.emptyList();
+            }
+
+            Reader reader = OrcFile.createReader(new Path(new File(tmpPath, fileName).getAbsolutePath()), OrcFile.readerOptions(conf));
+            RecordReader rows = reader.rows();
+            List<List<Object>> result = new ArrayList<>();
+            Object row = null;
+            while (rows.hasNext()) {
+                row = rows.next(row);
+                result.add((List<Object>) ObjectInspectorUtils.copyToStandardJavaObject(row, reader.getObjectInspector()));
+            }
+            rows.close();
+            return result;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.flinkx.hdfs.writer;
+
+import com.dtstack.flinkx.enums.ColumnType;
+import org.apache.commons.io.FileUtils;
+import org.apache.flink.types.Row;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 比较按预先生成的写入计划转换一行数据，与每行重新解析字段类型、新建记录的开销，
+ * 需要先执行 mvn test-compile -Pbenchmark 生成JMH代码
+ *
+ * Company: www.dtstack.com
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HdfsOrcWritePlanBenchmark {
+
+    private File dir;
+
+    private HdfsOrcOutputFormatTest.TestOrcOutputFormat format;
+
+    private Row row;
+
+    private List<Object> record;
+
+    @Setup
+    public void setup() throws Exception {
+        dir = Files.createTempDirectory("orc_benchmark").toFile();
+        format = new HdfsOrcOutputFormatTest.TestOrcOutputFormat(dir.getAbsolutePath());
+        format.open();
+
+        row = Row.of("1", 2, "3", 4L, "1.5", 2.25d, "12.345", "s", "v", "true", "2019-07-01", new Timestamp(1000L), "ab");
+        record = new ArrayList<>(format.fullColumnNames.size());
+        for (int i = 0; i < format.fullColumnNames.size(); i++) {
+            record.add(null);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        format.closeAndRead();
+        FileUtils.deleteQuietly(dir);
+    }
+
+    @Benchmark
+    public void convertByWritePlan(Blackhole blackhole) throws Exception {
+        for (int i = 0; i < record.size(); i++) {
+            record.set(i, format.getData(i, row));
+        }
+        blackhole.consume(record);
+    }
+
+    @Benchmark
+    public void convertByTypeName(Blackhole blackhole) throws Exception {
+        int size = format.fullColumnNames.size();
+        List<Object> data = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int j = format.colIndices[i];
+            if (j != -1) {
+                blackhole.consume(ColumnType.fromString(format.columnTypes.get(j)));
+            }
+            data.add(format.getData(i, row));
+        }
+        blackhole.consume(data);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(HdfsOrcWritePlanBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dtstack.flinkx.hdfs.writer;
+
+import com.dtstack.flinkx.config.RestoreConfig;
+import com.dtstack.flinkx.exception.WriteRecordException;
+import org.apache.flink.api.common.accumulators.LongCounter;
+import org.apache.flink.types.Row;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.example.GroupReadSupport;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class HdfsParquetOutputFormatTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private TestParquetOutputFormat format;
+
+    @Before
+    public void setUp() throws Exception {
+        format = new TestParquetOutputFormat(folder.newFolder().getAbsolutePath(),
+                Arrays.asList("c_int", "c_decimal", "c_string"),
+                Arrays.asList("int", "decimal(5,2)", "string"));
+        format.open();
+    }
+
+    @Test
+    public void testWriteRows() throws Exception {
+        format.writeSingleRecordToFile(Row.of("1", new BigDecimal("123.4"), "a"));
+        format.writeSingleRecordToFile(Row.of(2, -1, null));
+
+        List<Group> groups = format.closeAndRead();
+        MatcherAssert.assertThat(groups.size(), Matchers.equalTo(2));
+        MatcherAssert.assertThat(groups.get(0).getInteger("c_int", 0), Matchers.equalTo(1));
+        MatcherAssert.assertThat(decimal(groups.get(0)), Matchers.equalTo(new BigDecimal("123.40")));
+        MatcherAssert.assertThat(groups.get(0).getString("c_string", 0), Matchers.equalTo("a"));
+
+        // 复用的记录对象不能把上一行的数据带到下一行
+        MatcherAssert.assertThat(decimal(groups.get(1)), Matchers.equalTo(new BigDecimal("-1.00")));
+        MatcherAssert.assertThat(groups.get(1).getFieldRepetitionCount("c_string"), Matchers.equalTo(0));
+    }
+
+    @Test
+    public void testDecimalOutOfPrecision() throws Exception {
+        try {
+            format.writeSingleRecordToFile(Row.of(1, "12345.6", "a"));
+            MatcherAssert.assertThat("decimal out of precision should be rejected", false);
+        } catch (WriteRecordException e) {
+            MatcherAssert.assertThat(e.getColIndex(), Matchers.equalTo(1));
+            MatcherAssert.assertThat(e.getMessage(), Matchers.containsString("decimal(5, 2)"));
+        }
+    }
+
+    @Test
+    public void testUnsupportedType() throws Exception {
+        format = new TestParquetOutputFormat(folder.newFolder().getAbsolutePath(),
+                Arrays.asList("c_int", "c_map"), Arrays.asList("int", "map<string,string>"));
+        format.open();
+
+        try {
+            format.writeSingleRecordToFile(Row.of(1, "{}"));
+            MatcherAssert.assertThat("unsupported type should be rejected", false);
+        } catch (WriteRecordException e) {
+            MatcherAssert.assertThat(e.getColIndex(), Matchers.equalTo(1));
+            MatcherAssert.assertThat(e.getCause(), Matchers.instanceOf(IllegalArgumentException.class));
+            MatcherAssert.assertThat(e.getCause().getMessage(), Matchers.containsString("[c_map]"));
+        }
+    }
+
+    private static BigDecimal decimal(Group group) {
+        return new BigDecimal(new BigInteger(group.getBinary("c_decimal", 0).getBytes()), 2);
+    }
+
+    private static class TestParquetOutputFormat extends HdfsParquetOutputFormat {
+
+        TestParquetOutputFormat(String dir, List<String> names, List<String> types) {
+            defaultFS = "file:///";
+            tmpPath = dir;
+            currentBlockFileNamePrefix = "parquet_test";
+            compress = "NONE";
+            rowGroupSize = ParquetWriter.DEFAULT_BLOCK_SIZE;
+            restoreConfig = RestoreConfig.defaultConfig();
+            bytesWriteCounter = new LongCounter();
+
+            fullColumnNames = names;
+            fullColumnTypes = types;
+            columnNames = names;
+            columnTypes = types;
+            colIndices = new int[names.size()];
+            for (int i = 0; i < colIndices.length; i++) {
+                colIndices[i] = i;
+            }
+        }
+
+        void open() throws Exception {
+            openSource();
+        }
+
+        List<Group> closeAndRead() throws Exception {
+            String fileName = currentBlockFileName;
+            closeSource();
+
+            List<Group> groups = new ArrayList<>();
+            Path path = new Path(new File(tmpPath, fileName).getAbsolutePath());
+            try (ParquetReader<Group> reader = ParquetReader.builder(new GroupReadSupport(), path).build()) {
+                Group group;
+                while ((group = reader.read()) != null) {
+                    groups.add(group);
+                }
+            }
+            return groups;
+        }
+    }
+}
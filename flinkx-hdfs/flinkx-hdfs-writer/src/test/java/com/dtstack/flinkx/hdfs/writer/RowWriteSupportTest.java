@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dtstack.flinkx.hdfs.writer;
+
+import org.apache.flink.types.Row;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.example.GroupReadSupport;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.MessageTypeParser;
+import org.apache.parquet.schema.PrimitiveType;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+public class RowWriteSupportTest {
+
+    private static final MessageType SCHEMA = MessageTypeParser.parseMessageType("message Pair {"
+            + " optional int32 c_int;"
+            + " optional int64 c_bigint;"
+            + " optional float c_float;"
+            + " optional double c_double;"
+            + " optional boolean c_boolean;"
+            + " optional binary c_string (UTF8);"
+            + " optional fixed_len_byte_array(2) c_decimal (DECIMAL(4,2));"
+            + " optional int96 c_timestamp;"
+            + "}");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testGetValueClass() {
+        MatcherAssert.assertThat(RowWriteSupport.getValueClass(PrimitiveType.PrimitiveTypeName.INT32), Matchers.<Class<?>>equalTo(Integer.class));
+        MatcherAssert.assertThat(RowWriteSupport.getValueClass(PrimitiveType.PrimitiveTypeName.INT64), Matchers.<Class<?>>equalTo(Long.class));
+        MatcherAssert.assertThat(RowWriteSupport.getValueClass(PrimitiveType.PrimitiveTypeName.FLOAT), Matchers.<Class<?>>equalTo(Float.class));
+        MatcherAssert.assertThat(RowWriteSupport.getValueClass(PrimitiveType.PrimitiveTypeName.DOUBLE), Matchers.<Class<?>>equalTo(Double.class));
+        MatcherAssert.assertThat(RowWriteSupport.getValueClass(PrimitiveType.PrimitiveTypeName.BOOLEAN), Matchers.<Class<?>>equalTo(Boolean.class));
+        MatcherAssert.assertThat(RowWriteSupport.getValueClass(PrimitiveType.PrimitiveTypeName.BINARY), Matchers.<Class<?>>equalTo(Binary.class));
+        MatcherAssert.assertThat(RowWriteSupport.getValueClass(PrimitiveType.PrimitiveTypeName.FIXED_LEN_BYTE_ARRAY), Matchers.<Class<?>>equalTo(Binary.class));
+        MatcherAssert.assertThat(RowWriteSupport.getValueClass(PrimitiveType.PrimitiveTypeName.INT96), Matchers.<Class<?>>equalTo(Binary.class));
+    }
+
+    @Test
+    public void testWriteRows() throws Exception {
+        Binary decimal = Binary.fromConstantByteArray(new byte[]{0x04, (byte) 0xD2});
+        Binary timestamp = Binary.fromConstantByteArray(new byte[12]);
+
+        Path path = new Path(new File(folder.getRoot(), "rows.parquet").getAbsolutePath());
+        try (ParquetWriter<Row> writer = RowWriteSupport.builder(path, SCHEMA).build()) {
+            writer.write(Row.of(1, 2L, 3.5f, 4.25d, true, Binary.fromString("a"), decimal, timestamp));
+            // 为null的字段不写入
+            writer.write(Row.of(null, null, null, null, null, null, null, null));
+            writer.write(Row.of(-1, null, null, null, false, Binary.fromString(""), null, null));
+        }
+
+        List<Group> groups = new ArrayList<>();
+        try (ParquetReader<Group> reader = ParquetReader.builder(new GroupReadSupport(), path).build()) {
+            Group group;
+            while ((group = reader.read()) != null) {
+                groups.add(group);
+            }
+        }
+
+        MatcherAssert.assertThat(groups.size(), Matchers.equalTo(3));
+
+        Group first = groups.get(0);
+        MatcherAssert.assertThat(first.getInteger("c_int", 0), Matchers.equalTo(1));
+        MatcherAssert.assertThat(first.getLong("c_bigint", 0), Matchers.equalTo(2L));
+        MatcherAssert.assertThat(first.getFloat("c_float", 0), Matchers.equalTo(3.5f));
+        MatcherAssert.assertThat(first.getDouble("c_double", 0), Matchers.equalTo(4.25d));
+        MatcherAssert.assertThat(first.getBoolean("c_boolean", 0), Matchers.equalTo(true));
+        MatcherAssert.assertThat(first.getString("c_string", 0), Matchers.equalTo("a"));
+        MatcherAssert.assertThat(first.getBinary("c_decimal", 0), Matchers.equalTo(decimal));
+        MatcherAssert.assertThat(first.getInt96("c_timestamp", 0), Matchers.equalTo(timestamp));
+
+        for (int i = 0; i < SCHEMA.getFieldCount(); i++) {
+            MatcherAssert.assertThat(groups.get(1).getFieldRepetitionCount(i), Matchers.equalTo(0));
+        }
+
+        Group third = groups.get(2);
+        MatcherAssert.assertThat(third.getInteger("c_int", 0), Matchers.equalTo(-1));
+        MatcherAssert.assertThat(third.getBoolean("c_boolean", 0), Matchers.equalTo(false));
+        MatcherAssert.assertThat(third.getString("c_string", 0), Matchers.equalTo(""));
+        MatcherAssert.assertThat(third.getFieldRepetitionCount("c_bigint"), Matchers.equalTo(0));
+    }
+}
@@ -74,4 +74,18 @@ public class HiveConfigKeys {
 
     public static final String KEY_MAX_FILE_SIZE = "maxFileSize";
 
+    public static final String KEY_MAX_OPEN_WRITERS = "maxOpenWriters";
+
+    public static final String KEY_MAX_WRITER_BUFFER_SIZE = "maxWriterBufferSize";
+
+    public static final String KEY_EVENT_TIME_FIELD = "eventTimeField";
+
+    public static final String KEY_ALLOWED_LATENESS = "allowedLateness";
+
+    public static final String KEY_MAX_ACTIVE_PARTITIONS = "maxActivePartitions";
+
+    public static final String KEY_LATE_PARTITION = "latePartition";
+
+    public static final String KEY_COMPACT_TARGET_SIZE = "compactTargetSize";
+
 }
@@ -21,6 +21,8 @@ package com.dtstack.flinkx.hive;
 
 import com.dtstack.flinkx.hive.util.DateUtil;
 
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
 import java.util.Date;
 
 /**
@@ -37,6 +39,16 @@ public class TimePartitionFormat {
 
     private static TimePartitionFormat timePartitionFormat = new TimePartitionFormat();
 
+    /**
+     * 当前时间所在分区的缓存，过了分区的结束时间才重新计算
+     */
+    private volatile TimePartition currentPartition;
+
+    /**
+     * 最近一次按事件时间计算的分区，事件时间大体有序时可以直接复用
+     */
+    private volatile TimePartition eventPartition;
+
     public static TimePartitionFormat getInstance(PartitionEnum pe) {
         partitionEnum = pe;
         return timePartitionFormat;
@@ -59,21 +71,95 @@ public class TimePartitionFormat {
     }
 
     public String currentTime() {
-        if (PartitionEnum.DAY == partitionEnum) {
-            return DateUtil.getDayFormatter().format(new Date());
-        } else if (PartitionEnum.HOUR == partitionEnum) {
-            return DateUtil.getHourFormatter().format(new Date());
-        } else if (PartitionEnum.MINUTE == partitionEnum) {
-            return DateUtil.getMinuteFormatter().format(new Date());
+        TimePartition partition = partitionOf(System.currentTimeMillis(), currentPartition);
+        currentPartition = partition;
+        return partition.getValue();
+    }
+
+    /**
+     * 计算指定时间所在的分区
+     * @param time 毫秒时间戳
+     */
+    public TimePartition partitionOf(long time) {
+        TimePartition partition = partitionOf(time, eventPartition);
+        eventPartition = partition;
+        return partition;
+    }
+
+    private TimePartition partitionOf(long time, TimePartition cached) {
+        PartitionEnum pe = partitionEnum;
+        if (cached != null && cached.partitionEnum == pe && time >= cached.startTime && time < cached.endTime) {
+            return cached;
         }
 
-        throw new UnsupportedOperationException("partitionEnum=" + partitionEnum + " is undefined!");
+        SimpleDateFormat formatter;
+        int truncateField;
+        if (PartitionEnum.DAY == pe) {
+            formatter = DateUtil.getDayFormatter();
+            truncateField = Calendar.DAY_OF_MONTH;
+        } else if (PartitionEnum.HOUR == pe) {
+            formatter = DateUtil.getHourFormatter();
+            truncateField = Calendar.HOUR_OF_DAY;
+        } else if (PartitionEnum.MINUTE == pe) {
+            formatter = DateUtil.getMinuteFormatter();
+            truncateField = Calendar.MINUTE;
+        } else {
+            throw new UnsupportedOperationException("partitionEnum=" + pe + " is undefined!");
+        }
+
+        Calendar calendar = Calendar.getInstance(formatter.getTimeZone());
+        calendar.setTimeInMillis(time);
+        calendar.set(Calendar.MILLISECOND, 0);
+        calendar.set(Calendar.SECOND, 0);
+        if (truncateField != Calendar.MINUTE) {
+            calendar.set(Calendar.MINUTE, 0);
+        }
+        if (truncateField == Calendar.DAY_OF_MONTH) {
+            calendar.set(Calendar.HOUR_OF_DAY, 0);
+        }
+        long startTime = calendar.getTimeInMillis();
+        calendar.add(truncateField, 1);
+
+        return new TimePartition(pe, formatter.format(new Date(time)), startTime, calendar.getTimeInMillis());
     }
 
     public static PartitionEnum getPartitionEnum() {
         return partitionEnum;
     }
 
+    /**
+     * 时间分区的值及其覆盖的时间范围[startTime, endTime)
+     */
+    public static class TimePartition {
+
+        private final PartitionEnum partitionEnum;
+
+        private final String value;
+
+        private final long startTime;
+
+        private final long endTime;
+
+        private TimePartition(PartitionEnum partitionEnum, String value, long startTime, long endTime) {
+            this.partitionEnum = partitionEnum;
+            this.value = value;
+            this.startTime = startTime;
+            this.endTime = endTime;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public long getStartTime() {
+            return startTime;
+        }
+
+        public long getEndTime() {
+            return endTime;
+        }
+    }
+
     public enum PartitionEnum {
         DAY, HOUR, MINUTE
     }
@@ -61,6 +61,11 @@ public class HiveUtil {
     public final static String TABLE_COLUMN_TYPE = "type";
     public final static String PARTITION_TEMPLATE = "%s=%s";
 
+    /**
+     * 分区值加引号的分区描述，只用于分区值可能不是数字的按事件时间分区
+     */
+    public final static String PARTITION_SPEC_TEMPLATE = "%s='%s'";
+
     private String writeMode;
     private DBUtil.ConnectionInfo connectionInfo;
 
@@ -0,0 +1,146 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.flinkx.hive.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 预先解析的表路径规则，如 ${schema}_${table}，结果和{@link PathConverterUtil#regaxByRules}一致
+ *
+ * 按规则中变量的取值缓存解析结果，只有一个变量时直接用变量值查找缓存
+ */
+public class TablePathTemplate {
+
+    private static final Pattern VARIABLE_PATTERN = Pattern.compile("\\$\\{.*?\\}");
+
+    private static final String KEY_TABLE = "table";
+
+    private static final int MAX_CACHE_SIZE = 10000;
+
+    private final String template;
+
+    private final Map<String, String> distributeTableMapping;
+
+    /**
+     * 按出现顺序去重后的变量名
+     */
+    private final String[] keys;
+
+    /**
+     * 规则按变量拆分后的常量部分，比变量多一个
+     */
+    private final String[] literals;
+
+    /**
+     * 每个变量位置对应的变量下标
+     */
+    private final int[] keyIndices;
+
+    private final Map<Object, String> cache = new HashMap<>();
+
+    public TablePathTemplate(String template, Map<String, String> distributeTableMapping) {
+        this.template = template;
+        this.distributeTableMapping = distributeTableMapping;
+
+        List<String> keyList = new ArrayList<>();
+        List<String> literalList = new ArrayList<>();
+        List<Integer> indexList = new ArrayList<>();
+        Matcher matcher = VARIABLE_PATTERN.matcher(template);
+        int last = 0;
+        while (matcher.find()) {
+            String key = template.substring(matcher.start() + 2, matcher.end() - 1);
+            if (!keyList.contains(key)) {
+                keyList.add(key);
+            }
+            literalList.add(template.substring(last, matcher.start()));
+            indexList.add(keyList.indexOf(key));
+            last = matcher.end();
+        }
+        literalList.add(template.substring(last));
+
+        keys = keyList.toArray(new String[0]);
+        literals = literalList.toArray(new String[0]);
+        keyIndices = indexList.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    public String render(Map event) {
+        if (keys.length == 0) {
+            return template;
+        }
+
+        if (keys.length == 1) {
+            String value = getValue(event, 0);
+            String path = cache.get(value);
+            if (path == null) {
+                path = build(new String[]{value});
+                putCache(value, path);
+            }
+            return path;
+        }
+
+        String[] values = new String[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            values[i] = getValue(event, i);
+        }
+
+        List<String> cacheKey = Arrays.asList(values);
+        String path = cache.get(cacheKey);
+        if (path == null) {
+            path = build(values);
+            putCache(cacheKey, path);
+        }
+        return path;
+    }
+
+    private String getValue(Map event, int index) {
+        Object value = event.get(keys[index]);
+        return value == null ? "" : value.toString();
+    }
+
+    private String build(String[] values) {
+        StringBuilder sb = new StringBuilder(template.length() + 16);
+        for (int i = 0; i < keyIndices.length; i++) {
+            sb.append(literals[i]);
+
+            int keyIndex = keyIndices[i];
+            String value = values[keyIndex];
+            if (KEY_TABLE.equals(keys[keyIndex])) {
+                value = distributeTableMapping.getOrDefault(value, value);
+            }
+            sb.append(value);
+        }
+        sb.append(literals[literals.length - 1]);
+
+        //.在sql中会视为db.table的分隔符，需要单独过滤特殊字符 '.'
+        return sb.toString().replace(".", "_");
+    }
+
+    private void putCache(Object key, String path) {
+        if (cache.size() >= MAX_CACHE_SIZE) {
+            cache.clear();
+        }
+        cache.put(key, path);
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dtstack.flinkx.hive.util;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class TablePathTemplateTest {
+
+    private static final List<String> TEMPLATES = Arrays.asList(
+            "",
+            "fixed_table",
+            "${table}",
+            "${schema}_${table}",
+            "db.${schema}.${table}",
+            "${table}_${table}",
+            "ods_${schema}_${table}/pt=${pt}",
+            "${pt}.${schema}_${table}_${unknown}"
+    );
+
+    @Test
+    public void testSameAsRegaxByRules() {
+        Map<String, String> distributeTableMapping = new HashMap<>();
+        distributeTableMapping.put("order_01", "order");
+        distributeTableMapping.put("order_02", "order");
+        distributeTableMapping.put("user.info", "user_all");
+
+        List<Map<String, Object>> events = Arrays.asList(
+                event("db1", "order_01", "20200101"),
+                event("db1", "order_02", "20200101"),
+                event("db.2", "user.info", "2020.01.02"),
+                event("db3", "item", 20200103),
+                event(null, "item", null),
+                event("db4", null, "20200104"),
+                Collections.emptyMap()
+        );
+
+        for (String template : TEMPLATES) {
+            TablePathTemplate tablePathTemplate = new TablePathTemplate(template, distributeTableMapping);
+            // 重复渲染，同时验证缓存的结果
+            for (int i = 0; i < 2; i++) {
+                for (Map<String, Object> event : events) {
+                    String expected = PathConverterUtil.regaxByRules(event, template, distributeTableMapping);
+                    MatcherAssert.assertThat(template + " " + event, tablePathTemplate.render(event), Matchers.equalTo(expected));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testRender() {
+        Map<String, String> distributeTableMapping = Collections.singletonMap("order_01", "order");
+        TablePathTemplate tablePathTemplate = new TablePathTemplate("ods_${schema}_${table}/pt=${pt}", distributeTableMapping);
+
+        MatcherAssert.assertThat(tablePathTemplate.render(event("db1", "order_01", "2020.01.01")),
+                Matchers.equalTo("ods_db1_order/pt=2020_01_01"));
+        MatcherAssert.assertThat(tablePathTemplate.render(event("db1", "order_02", "20200101")),
+                Matchers.equalTo("ods_db1_order_02/pt=20200101"));
+    }
+
+    private static Map<String, Object> event(String schema, String table, Object pt) {
+        Map<String, Object> event = new HashMap<>();
+        if (schema != null) {
+            event.put("schema", schema);
+        }
+        if (table != null) {
+            event.put("table", table);
+        }
+        if (pt != null) {
+            event.put("pt", pt);
+        }
+        return event;
+    }
+}
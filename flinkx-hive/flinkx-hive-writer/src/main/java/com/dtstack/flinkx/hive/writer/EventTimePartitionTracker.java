@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dtstack.flinkx.hive.writer;
+
+import com.dtstack.flinkx.constants.Metrics;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.Gauge;
+import org.apache.flink.metrics.MetricGroup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * 按事件时间分区时，跟踪正在写入的分区并根据watermark决定分区何时关闭
+ *
+ * watermark为已经收到的最大事件时间减去允许的延迟时间，结束时间不晚于watermark的分区会被关闭，
+ * 之后再属于这些分区的数据视为迟到数据。同时写入的时间分区个数超过上限时，最早的分区会被提前关闭。
+ * 事件时间超过当前系统时间{@link #MAX_FUTURE_TIME}以上的数据按该上限处理，避免个别错误的时间把所有分区推成迟到分区。
+ */
+public class EventTimePartitionTracker {
+
+    /**
+     * 事件时间允许超前系统时间的最大值
+     */
+    public static final long MAX_FUTURE_TIME = TimeUnit.MINUTES.toMillis(10);
+
+    private final long allowedLateness;
+
+    private final int maxActivePartitions;
+
+    private long maxEventTime = Long.MIN_VALUE;
+
+    /**
+     * 结束时间不晚于该值的分区都已关闭
+     */
+    private long watermark = Long.MIN_VALUE;
+
+    /**
+     * 分区结束时间到该时间分区下所有分区路径的映射
+     */
+    private final TreeMap<Long, Set<String>> activePartitions = new TreeMap<>();
+
+    private final Map<String, Long> partitionEndTimes = new HashMap<>();
+
+    private final LongSupplier clock;
+
+    private Counter lateEventCounter;
+
+    private Counter futureEventCounter;
+
+    public EventTimePartitionTracker(long allowedLateness, int maxActivePartitions) {
+        this(allowedLateness, maxActivePartitions, System::currentTimeMillis);
+    }
+
+    EventTimePartitionTracker(long allowedLateness, int maxActivePartitions, LongSupplier clock) {
+        this.allowedLateness = allowedLateness;
+        this.maxActivePartitions = Math.max(1, maxActivePartitions);
+        this.clock = clock;
+    }
+
+    public void registerMetrics(MetricGroup metricGroup) {
+        MetricGroup group = metricGroup.addGroup(Metrics.METRIC_GROUP_KEY_FLINKX, Metrics.METRIC_GROUP_VALUE_OUTPUT);
+        group.gauge(Metrics.ACTIVE_TIME_PARTITIONS, (Gauge<Integer>) activePartitions::size);
+        group.gauge(Metrics.EVENT_TIME_WATERMARK, (Gauge<Long>) () -> watermark);
+        lateEventCounter = group.counter(Metrics.LATE_EVENTS);
+        futureEventCounter = group.counter(Metrics.FUTURE_EVENTS);
+    }
+
+    /**
+     * 把超前系统时间太多的事件时间限制到上限
+     */
+    public long clamp(long eventTime) {
+        long maxTime = clock.getAsLong() + MAX_FUTURE_TIME;
+        if (eventTime <= maxTime) {
+            return eventTime;
+        }
+
+        if (futureEventCounter != null) {
+            futureEventCounter.inc();
+        }
+        return maxTime;
+    }
+
+    /**
+     * 用新数据的事件时间推进watermark
+     * @return 是否有分区需要关闭
+     */
+    public boolean advance(long eventTime) {
+        if (eventTime > maxEventTime) {
+            maxEventTime = eventTime;
+            watermark = Math.max(watermark, eventTime - allowedLateness);
+        }
+        return !activePartitions.isEmpty() && activePartitions.firstKey() <= watermark;
+    }
+
+    /**
+     * 判断结束时间为partitionEndTime的分区是否已经不能再写入
+     */
+    public boolean isLate(long partitionEndTime) {
+        if (partitionEndTime <= watermark) {
+            return true;
+        }
+
+        // 分区个数已达上限时，比所有活跃分区都早的新分区不再打开，避免挤掉更新的分区
+        return activePartitions.size() >= maxActivePartitions
+                && !activePartitions.containsKey(partitionEndTime)
+                && partitionEndTime < activePartitions.firstKey();
+    }
+
+    /**
+     * 记录一个开始写入的分区
+     * @param key 分区路径
+     * @param partitionEndTime 分区的结束时间
+     */
+    public void register(String key, long partitionEndTime) {
+        if (partitionEndTimes.putIfAbsent(key, partitionEndTime) == null) {
+            activePartitions.computeIfAbsent(partitionEndTime, k -> new HashSet<>()).add(key);
+        }
+    }
+
+    /**
+     * 取出需要关闭的分区，包括watermark已经越过的分区和超过个数上限的最早的分区
+     */
+    public List<String> pollClosedPartitions() {
+        if (activePartitions.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<String> closedPartitions = new ArrayList<>();
+        while (activePartitions.size() > maxActivePartitions) {
+            Map.Entry<Long, Set<String>> eldest = activePartitions.pollFirstEntry();
+            watermark = Math.max(watermark, eldest.getKey());
+            closedPartitions.addAll(eldest.getValue());
+        }
+
+        while (!activePartitions.isEmpty() && activePartitions.firstKey() <= watermark) {
+            closedPartitions.addAll(activePartitions.pollFirstEntry().getValue());
+        }
+
+        for (String key : closedPartitions) {
+            partitionEndTimes.remove(key);
+        }
+        return closedPartitions;
+    }
+
+    /**
+     * 分区writer因其它原因被关闭后移除
+     */
+    public void remove(String key) {
+        Long partitionEndTime = partitionEndTimes.remove(key);
+        if (partitionEndTime == null) {
+            return;
+        }
+
+        Set<String> keys = activePartitions.get(partitionEndTime);
+        keys.remove(key);
+        if (keys.isEmpty()) {
+            activePartitions.remove(partitionEndTime);
+        }
+    }
+
+    /**
+     * 记录一条写入迟到分区的数据
+     */
+    public void onLateEvent() {
+        if (lateEventCounter != null) {
+            lateEventCounter.inc();
+        }
+    }
+
+    public long getWatermark() {
+        return watermark;
+    }
+
+    /**
+     * 从检查点恢复watermark，恢复前已经关闭的分区在恢复后仍视为迟到分区
+     */
+    public void restoreWatermark(long watermark) {
+        this.watermark = Math.max(this.watermark, watermark);
+    }
+}
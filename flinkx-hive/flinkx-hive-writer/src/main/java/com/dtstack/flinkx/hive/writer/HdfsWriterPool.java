@@ -0,0 +1,199 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.flinkx.hive.writer;
+
+import com.dtstack.flinkx.constants.Metrics;
+import com.dtstack.flinkx.hdfs.writer.HdfsOutputFormat;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.Gauge;
+import org.apache.flink.metrics.MeterView;
+import org.apache.flink.metrics.MetricGroup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 限制同时打开的分区writer个数和缓存的数据量，超过限制时按LRU顺序flush最久没有写入的writer
+ *
+ * flush只会关闭HdfsOutputFormat当前的文件writer并释放其缓存，HdfsOutputFormat对象本身保留，
+ * 下一条数据写入时会自动打开新的文件，文件序号和检查点相关的计数都不受影响。
+ * 长时间没有写入的被flush的writer由调用方通过{@link #getEvictedWriters()}找到并关闭
+ *
+ * writer自己按文件大小滚动或者在检查点时flush后，之前估算的缓存字节数会根据{@link HdfsOutputFormat#getFlushCount()}清零
+ */
+public class HdfsWriterPool {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HdfsWriterPool.class);
+
+    private final int maxOpenWriters;
+
+    private final long maxBufferSize;
+
+    /**
+     * 当前打开了文件writer的分区及其估算的缓存字节数，按访问顺序排列
+     */
+    private final LinkedHashMap<String, BufferState> openWriters = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final Set<String> evictedWriters = new HashSet<>();
+
+    private long bufferedBytes;
+
+    private Counter evictionCounter;
+
+    private Counter reopenCounter;
+
+    public HdfsWriterPool(int maxOpenWriters, long maxBufferSize) {
+        this.maxOpenWriters = maxOpenWriters;
+        this.maxBufferSize = maxBufferSize;
+    }
+
+    public void registerMetrics(MetricGroup metricGroup) {
+        MetricGroup group = metricGroup.addGroup(Metrics.METRIC_GROUP_KEY_FLINKX, Metrics.METRIC_GROUP_VALUE_OUTPUT);
+        group.gauge(Metrics.OPEN_WRITERS, (Gauge<Integer>) openWriters::size);
+        evictionCounter = group.counter(Metrics.WRITER_EVICTIONS);
+        reopenCounter = group.counter(Metrics.WRITER_REOPENS);
+        group.meter(Metrics.WRITER_REOPENS + Metrics.SUFFIX_RATE, new MeterView(reopenCounter, 60));
+    }
+
+    /**
+     * 记录一次写入，必要时flush最久没有写入的writer
+     * @param key 分区路径
+     * @param rowSize 写入数据的字节数
+     * @param outputFormats 所有的分区writer
+     * @return 是否有writer被flush
+     */
+    public boolean onWrite(String key, long rowSize, Map<String, HdfsOutputFormat> outputFormats) {
+        long flushCount = getFlushCount(outputFormats.get(key));
+        BufferState state = openWriters.get(key);
+        if (state == null) {
+            state = new BufferState(flushCount);
+            openWriters.put(key, state);
+            if (evictedWriters.remove(key) && reopenCounter != null) {
+                reopenCounter.inc();
+            }
+        } else if (state.flushCount != flushCount) {
+            // writer按文件大小滚动过，之前的数据已经写出
+            release(state, flushCount);
+        }
+
+        state.bytes += rowSize;
+        bufferedBytes += rowSize;
+
+        boolean evicted = false;
+        Iterator<Map.Entry<String, BufferState>> iterator = openWriters.entrySet().iterator();
+        while ((openWriters.size() > maxOpenWriters || bufferedBytes > maxBufferSize) && iterator.hasNext()) {
+            Map.Entry<String, BufferState> eldest = iterator.next();
+            if (eldest.getKey().equals(key)) {
+                break;
+            }
+
+            iterator.remove();
+            bufferedBytes -= eldest.getValue().bytes;
+            evict(eldest.getKey(), outputFormats.get(eldest.getKey()));
+            evicted = true;
+        }
+
+        return evicted;
+    }
+
+    /**
+     * writer在检查点时flush后调用，flush后文件writer已经关闭，不再占用打开的writer个数和缓存
+     */
+    public void onFlush(String key, HdfsOutputFormat outputFormat) {
+        BufferState state = openWriters.get(key);
+        if (state != null && state.flushCount != getFlushCount(outputFormat)) {
+            openWriters.remove(key);
+            bufferedBytes -= state.bytes;
+        }
+    }
+
+    private void release(BufferState state, long flushCount) {
+        bufferedBytes -= state.bytes;
+        state.bytes = 0;
+        state.flushCount = flushCount;
+    }
+
+    private static long getFlushCount(HdfsOutputFormat outputFormat) {
+        return outputFormat == null ? 0 : outputFormat.getFlushCount();
+    }
+
+    /**
+     * @return 被flush后还没有再写入的writer
+     */
+    public Set<String> getEvictedWriters() {
+        return Collections.unmodifiableSet(evictedWriters);
+    }
+
+    public int getOpenWriters() {
+        return openWriters.size();
+    }
+
+    public long getBufferedBytes() {
+        return bufferedBytes;
+    }
+
+    private void evict(String key, HdfsOutputFormat outputFormat) {
+        if (outputFormat == null) {
+            return;
+        }
+
+        try {
+            outputFormat.flushData();
+            evictedWriters.add(key);
+            if (evictionCounter != null) {
+                evictionCounter.inc();
+            }
+            LOG.info("Flush writer of [{}], open writers:{}, buffered bytes:{}", key, openWriters.size(), bufferedBytes);
+        } catch (IOException e) {
+            throw new RuntimeException("Flush writer of [" + key + "] error", e);
+        }
+    }
+
+    /**
+     * 分区writer被关闭后从池中移除
+     */
+    public void remove(String key) {
+        BufferState state = openWriters.remove(key);
+        if (state != null) {
+            bufferedBytes -= state.bytes;
+        }
+        evictedWriters.remove(key);
+    }
+
+    /**
+     * 分区writer估算的缓存字节数，以及估算开始时writer的flush次数
+     */
+    private static class BufferState {
+
+        private long bytes;
+
+        private long flushCount;
+
+        private BufferState(long flushCount) {
+            this.flushCount = flushCount;
+        }
+    }
+}
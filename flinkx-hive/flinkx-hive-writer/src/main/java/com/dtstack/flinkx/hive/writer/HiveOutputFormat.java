@@ -24,23 +24,32 @@ import com.dtstack.flinkx.hdfs.writer.HdfsOutputFormatBuilder;
 import com.dtstack.flinkx.hive.TableInfo;
 import com.dtstack.flinkx.hive.TimePartitionFormat;
 import com.dtstack.flinkx.hive.util.DBUtil;
+import com.dtstack.flinkx.hive.util.DateUtil;
 import com.dtstack.flinkx.hive.util.HiveUtil;
-import com.dtstack.flinkx.hive.util.PathConverterUtil;
+import com.dtstack.flinkx.hive.util.TablePathTemplate;
 import com.dtstack.flinkx.outputformat.RichOutputFormat;
 import com.dtstack.flinkx.restore.FormatState;
+import com.dtstack.flinkx.types.ChannelRow;
 import com.dtstack.flinkx.util.ExceptionUtil;
 import org.apache.commons.collections.MapUtils;
-import org.apache.commons.math3.util.Pair;
+import org.apache.commons.lang.StringUtils;
 import org.apache.flink.types.Row;
 import org.apache.hadoop.conf.Configuration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * @author toutian
@@ -80,6 +89,8 @@ public class HiveOutputFormat extends RichOutputFormat {
 
     protected long maxFileSize;
 
+    protected long compactTargetSize;
+
     /* ----------以上hdfs插件参数----------- */
 
     protected Map<String, TableInfo> tableInfos;
@@ -87,6 +98,15 @@ public class HiveOutputFormat extends RichOutputFormat {
     protected String partition;
     protected String partitionType;
     protected long bufferSize;
+    protected int maxOpenWriters;
+    protected long maxWriterBufferSize;
+    /**
+     * 按该字段的事件时间计算分区，为空时按写入时的系统时间分区
+     */
+    protected String eventTimeField;
+    protected long allowedLateness;
+    protected int maxActivePartitions;
+    protected String latePartition;
     protected String jdbcUrl;
     protected String username;
     protected String password;
@@ -102,6 +122,30 @@ public class HiveOutputFormat extends RichOutputFormat {
 
     private Map<String, TableInfo> tableCache;
     private Map<String, HdfsOutputFormat> outputFormats;
+    private transient HdfsWriterPool writerPool;
+
+    private transient TablePathTemplate tablePathTemplate;
+    /**
+     * 表路径到当前分区writer的缓存，分区值变化或有writer被关闭后失效
+     */
+    private transient Map<String, Route> routes;
+    private transient int formatsGeneration;
+
+    private transient EventTimePartitionTracker partitionTracker;
+    /**
+     * 不带字段名的数据中事件时间字段的下标
+     */
+    private transient Integer eventTimeIndex;
+
+    /**
+     * 流式写入时在后台关闭不再写入的分区writer，避免关闭时写出和合并文件阻塞数据写入
+     */
+    private transient ExecutorService closeExecutor;
+    private transient Map<HdfsOutputFormat, Future<?>> pendingCloses;
+    /**
+     * 已经关闭但还有检查点未完成的block文件等待合并的writer，只接收检查点完成的通知
+     */
+    private transient List<HdfsOutputFormat> retiredFormats;
 
     @Override
     public void configure(org.apache.flink.configuration.Configuration parameters) {
@@ -110,6 +154,12 @@ public class HiveOutputFormat extends RichOutputFormat {
         partitionFormat = TimePartitionFormat.getInstance(partitionType);
         tableCache = new HashMap<String, TableInfo>();
         outputFormats = new HashMap<String, HdfsOutputFormat>();
+        writerPool = new HdfsWriterPool(maxOpenWriters, maxWriterBufferSize);
+        tablePathTemplate = new TablePathTemplate(tableBasePath, distributeTableMapping);
+        routes = new HashMap<>();
+        if (StringUtils.isNotBlank(eventTimeField)) {
+            partitionTracker = new EventTimePartitionTracker(allowedLateness, maxActivePartitions);
+        }
     }
 
     @Override
@@ -126,6 +176,24 @@ public class HiveOutputFormat extends RichOutputFormat {
         connectionInfo.setPlugin("writer");
 
         hiveUtil = new HiveUtil(connectionInfo, writeMode);
+        writerPool.registerMetrics(getRuntimeContext().getMetricGroup());
+        if (partitionTracker != null) {
+            partitionTracker.registerMetrics(getRuntimeContext().getMetricGroup());
+            if (initState instanceof Long) {
+                partitionTracker.restoreWatermark((Long) initState);
+                logger.info("Restore watermark:{}", initState);
+            }
+        }
+
+        pendingCloses = new LinkedHashMap<>();
+        retiredFormats = new ArrayList<>();
+        if (restoreConfig.isStream()) {
+            closeExecutor = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "partition-close-" + jobName + "-" + taskNumber);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
     }
 
     @Override
@@ -140,9 +208,13 @@ public class HiveOutputFormat extends RichOutputFormat {
             return null;
         }
 
+        waitForPendingCloses();
         flushOutputFormat();
 
         super.getFormatState();
+        if (partitionTracker != null) {
+            formatState.setState(partitionTracker.getWatermark());
+        }
         return formatState;
     }
 
@@ -151,18 +223,151 @@ public class HiveOutputFormat extends RichOutputFormat {
         while (entryIterator.hasNext()) {
             Map.Entry<String, HdfsOutputFormat> entry = entryIterator.next();
             entry.getValue().getFormatState();
+            writerPool.onFlush(entry.getKey(), entry.getValue());
             if (partitionFormat.isTimeout(entry.getValue().getLastWriteTime())) {
                 try {
                     entry.getValue().close();
+                    if (entry.getValue().isCompactionPending()) {
+                        retiredFormats.add(entry.getValue());
+                    }
                 } catch (Exception e) {
                     logger.error(ExceptionUtil.getErrorMessage(e));
                 } finally {
                     entryIterator.remove();
+                    removePartition(entry.getKey());
+                }
+            }
+        }
+    }
+
+    /**
+     * 流式写入时关闭被flush后超过分区超时时间没有再写入的writer，避免HdfsOutputFormat对象一直保留在内存中，
+     * 非流式写入时关闭writer会等待所有通道结束，这些writer在任务结束时关闭
+     */
+    private void closeIdleEvictedWriters() {
+        if (!restoreConfig.isStream()) {
+            return;
+        }
+
+        for (String hiveTablePath : new ArrayList<>(writerPool.getEvictedWriters())) {
+            HdfsOutputFormat outputFormat = outputFormats.get(hiveTablePath);
+            if (outputFormat == null || !partitionFormat.isTimeout(outputFormat.getLastWriteTime())) {
+                continue;
+            }
+
+            outputFormats.remove(hiveTablePath);
+            removePartition(hiveTablePath);
+            logger.info("Close idle writer of [{}]", hiveTablePath);
+            closeAsync(hiveTablePath, outputFormat);
+        }
+    }
+
+    private void removePartition(String hiveTablePath) {
+        writerPool.remove(hiveTablePath);
+        if (partitionTracker != null) {
+            partitionTracker.remove(hiveTablePath);
+        }
+        formatsGeneration++;
+    }
+
+    /**
+     * 关闭watermark已经越过的分区，之后属于这些分区的数据写入迟到分区。
+     * 非流式写入时关闭writer会等待所有通道结束，此时只写出缓存的数据，writer在任务结束时关闭
+     */
+    private void closeExpiredPartitions() {
+        for (String hiveTablePath : partitionTracker.pollClosedPartitions()) {
+            writerPool.remove(hiveTablePath);
+            formatsGeneration++;
+            HdfsOutputFormat outputFormat = outputFormats.get(hiveTablePath);
+            if (outputFormat == null) {
+                continue;
+            }
+
+            logger.info("Close partition [{}], watermark:{}", hiveTablePath, partitionTracker.getWatermark());
+            if (restoreConfig.isStream()) {
+                outputFormats.remove(hiveTablePath);
+                closeAsync(hiveTablePath, outputFormat);
+            } else {
+                try {
+                    outputFormat.flushData();
+                } catch (Exception e) {
+                    logger.error(ExceptionUtil.getErrorMessage(e));
                 }
             }
         }
     }
 
+    private void closeAsync(String hiveTablePath, HdfsOutputFormat outputFormat) {
+        collectClosedWriters();
+        pendingCloses.put(outputFormat, closeExecutor.submit(() -> {
+            try {
+                outputFormat.close();
+            } catch (Exception e) {
+                logger.error("Close writer of [{}] error:{}", hiveTablePath, ExceptionUtil.getErrorMessage(e));
+            }
+        }));
+    }
+
+    /**
+     * 等待后台关闭的writer写出数据，检查点和任务结束前调用
+     */
+    private void waitForPendingCloses() {
+        if (pendingCloses == null) {
+            return;
+        }
+
+        for (Future<?> future : pendingCloses.values()) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.warn("Interrupted while waiting for writers to close");
+                return;
+            } catch (ExecutionException e) {
+                logger.error(ExceptionUtil.getErrorMessage(e));
+            }
+        }
+        collectClosedWriters();
+    }
+
+    /**
+     * 移除已经关闭完成的writer，还需要合并文件的writer保留到检查点完成
+     */
+    private void collectClosedWriters() {
+        Iterator<Map.Entry<HdfsOutputFormat, Future<?>>> iterator = pendingCloses.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<HdfsOutputFormat, Future<?>> entry = iterator.next();
+            if (!entry.getValue().isDone()) {
+                continue;
+            }
+
+            iterator.remove();
+            if (entry.getKey().isCompactionPending()) {
+                retiredFormats.add(entry.getKey());
+            }
+        }
+    }
+
+    @Override
+    public void prepareSnapshot(long checkpointId) {
+        for (HdfsOutputFormat outputFormat : outputFormats.values()) {
+            outputFormat.prepareSnapshot(checkpointId);
+        }
+    }
+
+    @Override
+    public void notifyCheckpointComplete(long checkpointId) {
+        for (HdfsOutputFormat outputFormat : outputFormats.values()) {
+            outputFormat.notifyCheckpointComplete(checkpointId);
+        }
+
+        collectClosedWriters();
+        for (HdfsOutputFormat outputFormat : retiredFormats) {
+            outputFormat.notifyCheckpointComplete(checkpointId);
+        }
+        retiredFormats.removeIf(outputFormat -> !outputFormat.isCompactionPending());
+    }
+
     @Override
     protected void writeMultipleRecordsInternal() throws Exception {
     }
@@ -170,8 +375,9 @@ public class HiveOutputFormat extends RichOutputFormat {
     @Override
     public void writeRecord(Row row) throws IOException {
         try {
-            if (row.getArity() == 2) {
-                Object obj = row.getField(0);
+            Row data = ChannelRow.getData(row);
+            if (data.getArity() == 1) {
+                Object obj = data.getField(0);
                 if (obj != null && obj instanceof Map) {
                     emitWithMap((Map<String, Object>) obj, row);
                 }
@@ -185,43 +391,134 @@ public class HiveOutputFormat extends RichOutputFormat {
 
     @Override
     public void closeInternal() throws IOException {
+        waitForPendingCloses();
+        if (closeExecutor != null) {
+            closeExecutor.shutdown();
+        }
         closeOutputFormats();
+
+        // 任务结束后不会再有检查点完成，释放关闭后保留的文件系统
+        if (retiredFormats != null) {
+            retiredFormats.forEach(HdfsOutputFormat::releaseSource);
+            retiredFormats.clear();
+        }
     }
 
     private void emitWithMap(Map<String, Object> event, Row row) throws Exception {
-        String tablePath = PathConverterUtil.regaxByRules(event, tableBasePath, distributeTableMapping);
-        Pair<HdfsOutputFormat, TableInfo> formatPair = getHdfsOutputFormat(tablePath, event);
-        Row rowData = setChannelInformation(event, row.getField(1), formatPair.getSecond().getColumns());
-        formatPair.getFirst().writeRecord(rowData);
+        String tablePath = tablePathTemplate.render(event);
+        Route route = getRoute(tablePath, event, partitionTracker == null ? null : event.get(eventTimeField));
+        Row rowData = setChannelInformation(event, ChannelRow.getChannel(row), route.tableInfo.getColumns());
+        route.outputFormat.writeRecord(rowData);
+        long rowDataSize = route.outputFormat.getLastRowSize();
+        if (writerPool.onWrite(route.hiveTablePath, rowDataSize, outputFormats)) {
+            closeIdleEvictedWriters();
+        }
         //row包含map嵌套的数据内容和channel， 而rowData是非常简单的纯数据，此处补上数据差额
         if(bytesWriteCounter != null){
-            bytesWriteCounter.add(row.toString().length() - rowData.toString().length());
+            bytesWriteCounter.add(Math.max(0, rowSizeCalculator.getRowSize(row) - rowDataSize));
         }
     }
 
-    private Row setChannelInformation(Map<String, Object> event, Object channel, List<String> columns) {
-        Row rowData = new Row(columns.size() + 1);
+    private Row setChannelInformation(Map<String, Object> event, int channel, List<String> columns) {
+        Row rowData = new Row(columns.size());
         for (int i = 0; i < columns.size(); i++) {
             rowData.setField(i, event.get(columns.get(i)));
         }
-        rowData.setField(rowData.getArity() - 1, channel);
-        return rowData;
+        return new ChannelRow(rowData, channel);
     }
 
     private void emitWithRow(Row rowData) throws Exception {
-        Pair<HdfsOutputFormat, TableInfo> formatPair = getHdfsOutputFormat(tableBasePath, null);
-        formatPair.getFirst().writeRecord(rowData);
+        Route route = getRoute(tableBasePath, null, getEventTime(rowData));
+        route.outputFormat.writeRecord(rowData);
+        if (writerPool.onWrite(route.hiveTablePath, route.outputFormat.getLastRowSize(), outputFormats)) {
+            closeIdleEvictedWriters();
+        }
+    }
+
+    private Object getEventTime(Row row) {
+        if (partitionTracker == null) {
+            return null;
+        }
+
+        if (eventTimeIndex == null) {
+            TableInfo tableInfo = tableInfos.get(tableBasePath);
+            eventTimeIndex = tableInfo == null ? -1 : tableInfo.getColumns().indexOf(eventTimeField);
+        }
+
+        Row data = ChannelRow.getData(row);
+        return eventTimeIndex >= 0 && eventTimeIndex < data.getArity() ? data.getField(eventTimeIndex) : null;
+    }
+
+    private Route getRoute(String tablePath, Map event, Object eventTimeValue) throws Exception {
+        String partitionValue;
+        long partitionEndTime = Long.MIN_VALUE;
+        if (partitionTracker == null) {
+            partitionValue = partitionFormat.currentTime();
+        } else {
+            partitionValue = latePartition;
+            Long eventTime = toEventTime(eventTimeValue);
+            if (eventTime != null) {
+                eventTime = partitionTracker.clamp(eventTime);
+                if (partitionTracker.advance(eventTime)) {
+                    closeExpiredPartitions();
+                }
+
+                TimePartitionFormat.TimePartition timePartition = partitionFormat.partitionOf(eventTime);
+                if (!partitionTracker.isLate(timePartition.getEndTime())) {
+                    partitionValue = timePartition.getValue();
+                    partitionEndTime = timePartition.getEndTime();
+                }
+            }
+
+            if (partitionEndTime == Long.MIN_VALUE) {
+                partitionTracker.onLateEvent();
+            }
+        }
+
+        Route route = routes.get(tablePath);
+        if (route != null && route.generation == formatsGeneration && partitionValue.equals(route.partitionValue)) {
+            return route;
+        }
+
+        route = getHdfsOutputFormat(tablePath, partitionValue, event);
+        if (partitionEndTime != Long.MIN_VALUE) {
+            partitionTracker.register(route.hiveTablePath, partitionEndTime);
+            closeExpiredPartitions();
+            route = new Route(route.hiveTablePath, partitionValue, formatsGeneration, route.outputFormat, route.tableInfo);
+        }
+        routes.put(tablePath, route);
+        return route;
     }
 
-    private Pair<HdfsOutputFormat, TableInfo> getHdfsOutputFormat(String tablePath, Map event) throws Exception {
-        String partitionValue = partitionFormat.currentTime();
+    /**
+     * 把事件时间字段的值转换为毫秒时间戳，无法转换时返回null，数据写入迟到分区
+     */
+    private Long toEventTime(Object value) {
+        try {
+            if (value instanceof Number) {
+                return DateUtil.getMillSecond(String.valueOf(((Number) value).longValue()));
+            } else if (value instanceof String && StringUtils.isNumeric((String) value) && !((String) value).isEmpty()) {
+                return DateUtil.getMillSecond((String) value);
+            }
+
+            Timestamp timestamp = DateUtil.columnToTimestamp(value, null);
+            return timestamp == null ? null : timestamp.getTime();
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private Route getHdfsOutputFormat(String tablePath, String partitionValue, Map event) throws Exception {
         String partitionPath = String.format(HiveUtil.PARTITION_TEMPLATE, partition, partitionValue);
         String hiveTablePath = tablePath + SP + partitionPath;
 
         HdfsOutputFormat outputFormat = outputFormats.get(hiveTablePath);
         TableInfo tableInfo = checkCreateTable(tablePath, event);
         if (outputFormat == null) {
-            hiveUtil.createPartition(tableInfo, partitionPath);
+            // 按事件时间分区时迟到分区的值可能不是数字，需要加引号
+            String partitionSpec = partitionTracker == null ? partitionPath
+                    : String.format(HiveUtil.PARTITION_SPEC_TEMPLATE, partition, partitionValue);
+            hiveUtil.createPartition(tableInfo, partitionSpec);
             String path = tableInfo.getPath() + SP + partitionPath;
 
             HdfsOutputFormatBuilder hdfsOutputFormatBuilder = this.getHdfsOutputFormatBuilder();
@@ -232,12 +529,13 @@ public class HiveOutputFormat extends RichOutputFormat {
             outputFormat = (HdfsOutputFormat) hdfsOutputFormatBuilder.finish();
             outputFormat.setDirtyDataManager(dirtyDataManager);
             outputFormat.setErrorLimiter(errorLimiter);
+            outputFormat.setRowSizeSampleInterval(rowSizeSampleInterval);
             outputFormat.setRuntimeContext(getRuntimeContext());
             outputFormat.configure(parameters);
             outputFormat.open(taskNumber, numTasks);
             outputFormats.put(hiveTablePath, outputFormat);
         }
-        return new Pair<HdfsOutputFormat, TableInfo>(outputFormat, tableInfo);
+        return new Route(hiveTablePath, partitionValue, formatsGeneration, outputFormat, tableInfo);
     }
 
     private TableInfo checkCreateTable(String tablePath, Map event) throws Exception {
@@ -288,10 +586,30 @@ public class HiveOutputFormat extends RichOutputFormat {
         builder.setDelimiter(delimiter);
         builder.setRowGroupSize(rowGroupSize);
         builder.setMaxFileSize(maxFileSize);
+        builder.setCompactTargetSize(compactTargetSize);
         builder.setRestoreConfig(restoreConfig);
         builder.setInitAccumulatorAndDirty(false);
 
         return builder;
     }
 
+    /**
+     * 表路径在当前分区下对应的writer
+     */
+    private static class Route {
+        private final String hiveTablePath;
+        private final String partitionValue;
+        private final int generation;
+        private final HdfsOutputFormat outputFormat;
+        private final TableInfo tableInfo;
+
+        private Route(String hiveTablePath, String partitionValue, int generation, HdfsOutputFormat outputFormat, TableInfo tableInfo) {
+            this.hiveTablePath = hiveTablePath;
+            this.partitionValue = partitionValue;
+            this.generation = generation;
+            this.outputFormat = outputFormat;
+            this.tableInfo = tableInfo;
+        }
+    }
+
 }
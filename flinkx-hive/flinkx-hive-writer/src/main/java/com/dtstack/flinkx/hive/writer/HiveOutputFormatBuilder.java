@@ -58,6 +58,55 @@ public class HiveOutputFormatBuilder extends RichOutputFormatBuilder {
         this.format.bufferSize = bufferSize;
     }
 
+    /**
+     * 同时打开的分区writer个数上限
+     */
+    public void setMaxOpenWriters(int maxOpenWriters) {
+        this.format.maxOpenWriters = maxOpenWriters;
+    }
+
+    /**
+     * 所有打开的分区writer缓存的数据量上限
+     */
+    public void setMaxWriterBufferSize(long maxWriterBufferSize) {
+        this.format.maxWriterBufferSize = maxWriterBufferSize;
+    }
+
+    /**
+     * 按该字段的事件时间计算分区，不设置时按写入时的系统时间分区
+     */
+    public void setEventTimeField(String eventTimeField) {
+        this.format.eventTimeField = eventTimeField;
+    }
+
+    /**
+     * 事件时间允许的延迟，单位毫秒
+     */
+    public void setAllowedLateness(long allowedLateness) {
+        this.format.allowedLateness = allowedLateness;
+    }
+
+    /**
+     * 按事件时间分区时同时写入的时间分区个数上限
+     */
+    public void setMaxActivePartitions(int maxActivePartitions) {
+        this.format.maxActivePartitions = maxActivePartitions;
+    }
+
+    /**
+     * 迟到数据写入的分区值
+     */
+    public void setLatePartition(String latePartition) {
+        this.format.latePartition = latePartition;
+    }
+
+    /**
+     * 小文件合并后的目标文件大小，小于等于0时不合并
+     */
+    public void setCompactTargetSize(long compactTargetSize) {
+        this.format.compactTargetSize = compactTargetSize;
+    }
+
     public void setJdbcUrl(String jdbcUrl) {
         this.format.jdbcUrl = jdbcUrl;
     }
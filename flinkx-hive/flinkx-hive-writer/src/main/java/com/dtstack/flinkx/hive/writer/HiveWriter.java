@@ -70,6 +70,20 @@ public class HiveWriter extends DataWriter {
 
     private int rowGroupSize;
 
+    private int maxOpenWriters;
+
+    private long maxWriterBufferSize;
+
+    private String eventTimeField;
+
+    private long allowedLateness;
+
+    private int maxActivePartitions;
+
+    private String latePartition;
+
+    private long compactTargetSize;
+
     private String jdbcUrl;
 
     private String username;
@@ -99,6 +113,13 @@ public class HiveWriter extends DataWriter {
         compress = writerConfig.getParameter().getStringVal(KEY_COMPRESS);
         bufferSize = writerConfig.getParameter().getLongVal(KEY_BUFFER_SIZE, 128 * 1024 * 1024);
         rowGroupSize = writerConfig.getParameter().getIntVal(KEY_ROW_GROUP_SIZE, ParquetWriter.DEFAULT_BLOCK_SIZE);
+        maxOpenWriters = writerConfig.getParameter().getIntVal(KEY_MAX_OPEN_WRITERS, 64);
+        maxWriterBufferSize = writerConfig.getParameter().getLongVal(KEY_MAX_WRITER_BUFFER_SIZE, 512 * 1024 * 1024);
+        eventTimeField = writerConfig.getParameter().getStringVal(KEY_EVENT_TIME_FIELD);
+        allowedLateness = writerConfig.getParameter().getLongVal(KEY_ALLOWED_LATENESS, 60 * 1000);
+        maxActivePartitions = writerConfig.getParameter().getIntVal(KEY_MAX_ACTIVE_PARTITIONS, 3);
+        latePartition = writerConfig.getParameter().getStringVal(KEY_LATE_PARTITION, "late");
+        compactTargetSize = writerConfig.getParameter().getLongVal(KEY_COMPACT_TARGET_SIZE, 0);
 
         mode = writerConfig.getParameter().getStringVal(KEY_WRITE_MODE, EWriteModeType.APPEND.name());
         jdbcUrl = writerConfig.getParameter().getStringVal(KEY_JDBC_URL);
@@ -178,6 +199,13 @@ public class HiveWriter extends DataWriter {
         builder.setPartition(partition);
         builder.setPartitionType(partitionType);
         builder.setBufferSize(bufferSize);
+        builder.setMaxOpenWriters(maxOpenWriters);
+        builder.setMaxWriterBufferSize(maxWriterBufferSize);
+        builder.setEventTimeField(eventTimeField);
+        builder.setAllowedLateness(allowedLateness);
+        builder.setMaxActivePartitions(maxActivePartitions);
+        builder.setLatePartition(latePartition);
+        builder.setCompactTargetSize(compactTargetSize);
         builder.setJdbcUrl(jdbcUrl);
         builder.setUsername(username);
         builder.setPassword(password);
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dtstack.flinkx.hive.writer;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+public class EventTimePartitionTrackerTest {
+
+    private static final long HOUR = 3600_000L;
+
+    private static final long NOW = 100 * HOUR;
+
+    @Test
+    public void testCloseByWatermark() {
+        EventTimePartitionTracker tracker = new EventTimePartitionTracker(60_000, 3, () -> NOW);
+
+        MatcherAssert.assertThat(tracker.advance(HOUR + 10), Matchers.equalTo(false));
+        tracker.register("t/pt=1", 2 * HOUR);
+        tracker.register("t2/pt=1", 2 * HOUR);
+        MatcherAssert.assertThat(tracker.pollClosedPartitions(), Matchers.empty());
+
+        // 允许延迟内不关闭
+        MatcherAssert.assertThat(tracker.advance(2 * HOUR + 59_000), Matchers.equalTo(false));
+        MatcherAssert.assertThat(tracker.isLate(2 * HOUR), Matchers.equalTo(false));
+        tracker.register("t/pt=2", 3 * HOUR);
+
+        MatcherAssert.assertThat(tracker.advance(2 * HOUR + 60_000), Matchers.equalTo(true));
+        MatcherAssert.assertThat(tracker.getWatermark(), Matchers.equalTo(2 * HOUR));
+        MatcherAssert.assertThat(tracker.pollClosedPartitions(), Matchers.containsInAnyOrder("t/pt=1", "t2/pt=1"));
+        MatcherAssert.assertThat(tracker.isLate(2 * HOUR), Matchers.equalTo(true));
+        MatcherAssert.assertThat(tracker.isLate(3 * HOUR), Matchers.equalTo(false));
+
+        // 更早的事件时间不会让watermark回退
+        MatcherAssert.assertThat(tracker.advance(HOUR), Matchers.equalTo(false));
+        MatcherAssert.assertThat(tracker.getWatermark(), Matchers.equalTo(2 * HOUR));
+    }
+
+    @Test
+    public void testCloseByMaxActivePartitions() {
+        EventTimePartitionTracker tracker = new EventTimePartitionTracker(10 * HOUR, 2, () -> NOW);
+
+        tracker.advance(HOUR);
+        tracker.register("t/pt=1", 2 * HOUR);
+        tracker.advance(2 * HOUR);
+        tracker.register("t/pt=2", 3 * HOUR);
+        MatcherAssert.assertThat(tracker.pollClosedPartitions(), Matchers.empty());
+
+        // 个数已达上限时比所有活跃分区都早的分区视为迟到
+        MatcherAssert.assertThat(tracker.isLate(HOUR), Matchers.equalTo(true));
+
+        tracker.advance(3 * HOUR);
+        tracker.register("t/pt=3", 4 * HOUR);
+        MatcherAssert.assertThat(tracker.pollClosedPartitions(), Matchers.contains("t/pt=1"));
+        MatcherAssert.assertThat(tracker.getWatermark(), Matchers.equalTo(2 * HOUR));
+        MatcherAssert.assertThat(tracker.isLate(3 * HOUR), Matchers.equalTo(false));
+    }
+
+    @Test
+    public void testRemove() {
+        EventTimePartitionTracker tracker = new EventTimePartitionTracker(0, 3, () -> NOW);
+
+        tracker.advance(HOUR);
+        tracker.register("t/pt=1", 2 * HOUR);
+        tracker.register("t2/pt=1", 2 * HOUR);
+        tracker.remove("t/pt=1");
+        tracker.remove("unknown");
+
+        tracker.advance(2 * HOUR);
+        MatcherAssert.assertThat(tracker.pollClosedPartitions(), Matchers.contains("t2/pt=1"));
+        MatcherAssert.assertThat(tracker.advance(3 * HOUR), Matchers.equalTo(false));
+    }
+
+    @Test
+    public void testClampFutureEventTime() {
+        EventTimePartitionTracker tracker = new EventTimePartitionTracker(60_000, 3, () -> NOW);
+
+        MatcherAssert.assertThat(tracker.clamp(NOW), Matchers.equalTo(NOW));
+        MatcherAssert.assertThat(tracker.clamp(NOW + EventTimePartitionTracker.MAX_FUTURE_TIME),
+                Matchers.equalTo(NOW + EventTimePartitionTracker.MAX_FUTURE_TIME));
+
+        // 错误的未来时间不会让当前的分区变成迟到分区
+        tracker.advance(NOW);
+        tracker.register("t/pt=100", NOW + HOUR);
+        long eventTime = tracker.clamp(NOW + 1000 * HOUR);
+        MatcherAssert.assertThat(eventTime, Matchers.equalTo(NOW + EventTimePartitionTracker.MAX_FUTURE_TIME));
+        tracker.advance(eventTime);
+        MatcherAssert.assertThat(tracker.pollClosedPartitions(), Matchers.empty());
+        MatcherAssert.assertThat(tracker.isLate(NOW + HOUR), Matchers.equalTo(false));
+    }
+
+    @Test
+    public void testRestoreWatermark() {
+        EventTimePartitionTracker tracker = new EventTimePartitionTracker(60_000, 3, () -> NOW);
+        tracker.restoreWatermark(2 * HOUR);
+
+        MatcherAssert.assertThat(tracker.getWatermark(), Matchers.equalTo(2 * HOUR));
+        MatcherAssert.assertThat(tracker.isLate(2 * HOUR), Matchers.equalTo(true));
+        MatcherAssert.assertThat(tracker.isLate(3 * HOUR), Matchers.equalTo(false));
+
+        // 恢复后收到更早的数据不会让watermark回退
+        tracker.advance(HOUR);
+        MatcherAssert.assertThat(tracker.getWatermark(), Matchers.equalTo(2 * HOUR));
+    }
+}
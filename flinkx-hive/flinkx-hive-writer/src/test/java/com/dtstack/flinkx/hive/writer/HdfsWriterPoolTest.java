@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dtstack.flinkx.hive.writer;
+
+import com.dtstack.flinkx.hdfs.writer.HdfsOutputFormat;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class HdfsWriterPoolTest {
+
+    private final Map<String, HdfsOutputFormat> outputFormats = new HashMap<>();
+
+    @Test
+    public void testEvictLeastRecentlyWritten() throws Exception {
+        HdfsWriterPool pool = new HdfsWriterPool(2, Long.MAX_VALUE);
+        HdfsOutputFormat p1 = format("p1");
+        HdfsOutputFormat p2 = format("p2");
+        format("p3");
+
+        MatcherAssert.assertThat(pool.onWrite("p1", 10, outputFormats), Matchers.equalTo(false));
+        MatcherAssert.assertThat(pool.onWrite("p2", 10, outputFormats), Matchers.equalTo(false));
+        MatcherAssert.assertThat(pool.onWrite("p1", 10, outputFormats), Matchers.equalTo(false));
+
+        // p2最久没有写入，被flush
+        MatcherAssert.assertThat(pool.onWrite("p3", 10, outputFormats), Matchers.equalTo(true));
+        Mockito.verify(p2).flushData();
+        Mockito.verify(p1, Mockito.never()).flushData();
+        MatcherAssert.assertThat(pool.getEvictedWriters(), Matchers.contains("p2"));
+        MatcherAssert.assertThat(pool.getOpenWriters(), Matchers.equalTo(2));
+        MatcherAssert.assertThat(pool.getBufferedBytes(), Matchers.equalTo(30L));
+
+        // 再次写入后不再是被flush的writer
+        pool.onWrite("p2", 10, outputFormats);
+        MatcherAssert.assertThat(pool.getEvictedWriters(), Matchers.not(Matchers.contains("p2")));
+        Mockito.verify(p1).flushData();
+    }
+
+    @Test
+    public void testEvictByBufferSize() throws Exception {
+        HdfsWriterPool pool = new HdfsWriterPool(10, 100);
+        HdfsOutputFormat p1 = format("p1");
+        HdfsOutputFormat p2 = format("p2");
+
+        pool.onWrite("p1", 60, outputFormats);
+        pool.onWrite("p2", 30, outputFormats);
+        MatcherAssert.assertThat(pool.onWrite("p2", 30, outputFormats), Matchers.equalTo(true));
+        Mockito.verify(p1).flushData();
+        MatcherAssert.assertThat(pool.getBufferedBytes(), Matchers.equalTo(60L));
+
+        // 当前写入的writer自己超过限制时不会被flush
+        MatcherAssert.assertThat(pool.onWrite("p2", 100, outputFormats), Matchers.equalTo(false));
+        Mockito.verify(p2, Mockito.never()).flushData();
+    }
+
+    @Test
+    public void testResetEstimateAfterRoll() {
+        HdfsWriterPool pool = new HdfsWriterPool(10, 100);
+        HdfsOutputFormat p1 = format("p1");
+        HdfsOutputFormat p2 = format("p2");
+
+        pool.onWrite("p1", 60, outputFormats);
+        pool.onWrite("p2", 30, outputFormats);
+
+        // p1按文件大小滚动后，之前的数据已经写出，当前数据写入新文件
+        Mockito.when(p1.getFlushCount()).thenReturn(1L);
+        MatcherAssert.assertThat(pool.onWrite("p1", 20, outputFormats), Matchers.equalTo(false));
+        MatcherAssert.assertThat(pool.getBufferedBytes(), Matchers.equalTo(50L));
+        MatcherAssert.assertThat(pool.onWrite("p1", 20, outputFormats), Matchers.equalTo(false));
+        MatcherAssert.assertThat(pool.getBufferedBytes(), Matchers.equalTo(70L));
+    }
+
+    @Test
+    public void testReleaseAfterCheckpointFlush() throws Exception {
+        HdfsWriterPool pool = new HdfsWriterPool(2, 100);
+        HdfsOutputFormat p1 = format("p1");
+        HdfsOutputFormat p2 = format("p2");
+        HdfsOutputFormat p3 = format("p3");
+
+        pool.onWrite("p1", 60, outputFormats);
+        pool.onWrite("p2", 30, outputFormats);
+
+        // 没有flush过的writer不受影响
+        pool.onFlush("p2", p2);
+        MatcherAssert.assertThat(pool.getOpenWriters(), Matchers.equalTo(2));
+
+        Mockito.when(p1.getFlushCount()).thenReturn(1L);
+        pool.onFlush("p1", p1);
+        MatcherAssert.assertThat(pool.getOpenWriters(), Matchers.equalTo(1));
+        MatcherAssert.assertThat(pool.getBufferedBytes(), Matchers.equalTo(30L));
+
+        // 检查点释放的writer不占用名额，写入新分区时不需要flush其它writer
+        MatcherAssert.assertThat(pool.onWrite("p3", 60, outputFormats), Matchers.equalTo(false));
+        Mockito.verify(p2, Mockito.never()).flushData();
+        Mockito.verify(p3, Mockito.never()).flushData();
+        MatcherAssert.assertThat(pool.getEvictedWriters(), Matchers.empty());
+    }
+
+    @Test
+    public void testRemove() {
+        HdfsWriterPool pool = new HdfsWriterPool(1, 100);
+        format("p1");
+        format("p2");
+
+        pool.onWrite("p1", 10, outputFormats);
+        pool.onWrite("p2", 20, outputFormats);
+        pool.remove("p1");
+        pool.remove("p2");
+
+        MatcherAssert.assertThat(pool.getOpenWriters(), Matchers.equalTo(0));
+        MatcherAssert.assertThat(pool.getBufferedBytes(), Matchers.equalTo(0L));
+        MatcherAssert.assertThat(pool.getEvictedWriters(), Matchers.empty());
+    }
+
+    private HdfsOutputFormat format(String key) {
+        HdfsOutputFormat outputFormat = Mockito.mock(HdfsOutputFormat.class);
+        outputFormats.put(key, outputFormat);
+        return outputFormat;
+    }
+}
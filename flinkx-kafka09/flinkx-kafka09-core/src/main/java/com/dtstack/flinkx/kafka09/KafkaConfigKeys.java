@@ -36,6 +36,10 @@ public class KafkaConfigKeys {
 
     public static final String KEY_CONSUMER_SETTINGS = "consumerSettings";
 
+    public static final String KEY_QUEUE_SIZE = "queueSize";
+
+    public static final String KEY_DRAIN_BATCH_SIZE = "drainBatchSize";
+
     public static final String KEY_BROKER_LIST = "brokerList";
 
     public static final String KEY_PRODUCER_SETTINGS = "producerSettings";
@@ -20,7 +20,10 @@ package com.dtstack.flinkx.kafka09.reader;
 
 import com.dtstack.flinkx.config.RestoreConfig;
 import com.dtstack.flinkx.inputformat.RichInputFormat;
+import com.dtstack.flinkx.reader.RowHandoffQueue;
 import kafka.consumer.ConsumerConfig;
+import kafka.common.OffsetAndMetadata;
+import kafka.common.TopicAndPartition;
 import kafka.consumer.KafkaStream;
 import kafka.javaapi.consumer.ConsumerConnector;
 import org.apache.flink.api.common.io.DefaultInputSplitAssigner;
@@ -38,10 +41,11 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
-import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * company: www.dtstack.com
@@ -52,6 +56,8 @@ public class Kafka09InputFormat extends RichInputFormat {
 
     private static final Logger LOG = LoggerFactory.getLogger(Kafka09InputFormat.class);
 
+    private static final String DEFAULT_COMMIT_INTERVAL_MS = "60000";
+
     private String encoding;
 
     private String codec;
@@ -62,14 +68,27 @@ public class Kafka09InputFormat extends RichInputFormat {
 
     private volatile boolean running = false;
 
-    private transient BlockingQueue<Row> queue;
+    private int queueSize = RowHandoffQueue.DEFAULT_CAPACITY;
+
+    private int drainBatchSize = RowHandoffQueue.DEFAULT_DRAIN_BATCH_SIZE;
+
+    private transient RowHandoffQueue queue;
 
     private transient ExecutorService executor;
 
     private transient ConsumerConnector consumerConnector;
 
+    private transient long commitIntervalMs;
+
+    private transient ScheduledExecutorService commitExecutor;
+
+    /** the next offset to consume of each partition, only contains the rows emitted by the task thread */
+    private transient Map<TopicAndPartition, Long> emittedOffsets;
+
     @Override
     protected void openInternal(InputSplit inputSplit) throws IOException {
+        queue.registerMetrics(getRuntimeContext().getMetricGroup());
+
         Map<String, Integer> topicCountMap = new HashMap<String, Integer>();
         topicCountMap.put(topic, 1);
         Map<String, List<KafkaStream<byte[], byte[]>>> consumerMap = consumerConnector.createMessageStreams(topicCountMap);
@@ -78,6 +97,13 @@ public class Kafka09InputFormat extends RichInputFormat {
         for (final KafkaStream<byte[], byte[]> stream : streams) {
             executor.submit(new KafkaConsumer(stream, this));
         }
+
+        commitExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "kafka-offset-commit-" + indexOfSubtask);
+            thread.setDaemon(true);
+            return thread;
+        });
+        commitExecutor.scheduleWithFixedDelay(this::commitEmittedOffsets, commitIntervalMs, commitIntervalMs, TimeUnit.MILLISECONDS);
         running = true;
     }
 
@@ -94,7 +120,8 @@ public class Kafka09InputFormat extends RichInputFormat {
     @Override
     protected void closeInternal() throws IOException {
         if (running) {
-            consumerConnector.commitOffsets(true);
+            commitExecutor.shutdownNow();
+            commitEmittedOffsets();
             consumerConnector.shutdown();
             executor.shutdownNow();
             running = false;
@@ -105,10 +132,38 @@ public class Kafka09InputFormat extends RichInputFormat {
     @Override
     public void configure(Configuration parameters) {
         Properties props = geneConsumerProp();
+        // the offsets are committed only after the task thread has emitted the rows,
+        // the auto commit would also commit the rows still buffered in the handoff queue
+        commitIntervalMs = Long.parseLong(props.getProperty("auto.commit.interval.ms", DEFAULT_COMMIT_INTERVAL_MS));
+        props.put("auto.commit.enable", "false");
         consumerConnector = kafka.consumer.Consumer.createJavaConsumerConnector(new ConsumerConfig(props));
 
         executor = Executors.newFixedThreadPool(1);
-        queue = new SynchronousQueue<Row>(false);
+        queue = new RowHandoffQueue(queueSize, drainBatchSize);
+        emittedOffsets = new ConcurrentHashMap<>();
+        queue.setPositionListener(position -> {
+            MessagePosition messagePosition = (MessagePosition) position;
+            emittedOffsets.put(messagePosition.partition, messagePosition.offset + 1);
+        });
+    }
+
+    private void commitEmittedOffsets() {
+        Map<TopicAndPartition, OffsetAndMetadata> offsets = new HashMap<>(emittedOffsets.size());
+        for (Map.Entry<TopicAndPartition, Long> entry : emittedOffsets.entrySet()) {
+            if (emittedOffsets.remove(entry.getKey(), entry.getValue())) {
+                offsets.put(entry.getKey(), OffsetAndMetadata.apply(entry.getValue()));
+            }
+        }
+
+        if (offsets.isEmpty()) {
+            return;
+        }
+
+        try {
+            consumerConnector.commitOffsets(offsets, true);
+        } catch (Exception e) {
+            LOG.warn("commit kafka offsets:{} error", offsets, e);
+        }
     }
 
     private Properties geneConsumerProp() {
@@ -142,14 +197,26 @@ public class Kafka09InputFormat extends RichInputFormat {
         return false;
     }
 
-    public void processEvent(Map<String, Object> event) {
+    public void processEvent(Map<String, Object> event, String topic, int partition, long offset) {
         try {
-            queue.put(Row.of(event));
+            queue.put(Row.of(event), new MessagePosition(new TopicAndPartition(topic, partition), offset));
         } catch (InterruptedException e) {
             LOG.error("takeEvent interrupted event:{} error:{}", event, e);
         }
     }
 
+    /**
+     * Called by the consumer thread for the message that is not emitted, such as an empty message or
+     * a message failed to decode, its offset is reported after the rows put before it are emitted
+     */
+    public void markSkipped(String topic, int partition, long offset) {
+        try {
+            queue.putPosition(new MessagePosition(new TopicAndPartition(topic, partition), offset));
+        } catch (InterruptedException e) {
+            LOG.error("mark skipped message interrupted, partition:{}, offset:{}", partition, offset, e);
+        }
+    }
+
     public void setEncoding(String encoding) {
         this.encoding = encoding;
     }
@@ -170,6 +237,14 @@ public class Kafka09InputFormat extends RichInputFormat {
         this.topic = topic;
     }
 
+    public void setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    public void setDrainBatchSize(int drainBatchSize) {
+        this.drainBatchSize = drainBatchSize;
+    }
+
     public void setConsumerSettings(Map<String, String> consumerSettings) {
         this.consumerSettings = consumerSettings;
     }
@@ -177,4 +252,16 @@ public class Kafka09InputFormat extends RichInputFormat {
     public void setRestoreConfig(RestoreConfig restoreConfig) {
         this.restoreConfig = restoreConfig;
     }
+
+    private static class MessagePosition {
+
+        private final TopicAndPartition partition;
+
+        private final long offset;
+
+        MessagePosition(TopicAndPartition partition, long offset) {
+            this.partition = partition;
+            this.offset = offset;
+        }
+    }
 }
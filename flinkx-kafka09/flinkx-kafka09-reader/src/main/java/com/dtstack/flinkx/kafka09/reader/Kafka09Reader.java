@@ -20,6 +20,7 @@ package com.dtstack.flinkx.kafka09.reader;
 import com.dtstack.flinkx.config.DataTransferConfig;
 import com.dtstack.flinkx.config.ReaderConfig;
 import com.dtstack.flinkx.reader.DataReader;
+import com.dtstack.flinkx.reader.RowHandoffQueue;
 import org.apache.flink.streaming.api.datastream.DataStream;
 import org.apache.flink.streaming.api.environment.StreamExecutionEnvironment;
 import org.apache.flink.types.Row;
@@ -43,12 +44,18 @@ public class Kafka09Reader extends DataReader {
 
     private Map<String, String> consumerSettings;
 
+    private int queueSize;
+
+    private int drainBatchSize;
+
     public Kafka09Reader(DataTransferConfig config, StreamExecutionEnvironment env) {
         super(config, env);
         ReaderConfig readerConfig = config.getJob().getContent().get(0).getReader();
         topic = readerConfig.getParameter().getStringVal(KEY_TOPIC);
         codec = readerConfig.getParameter().getStringVal(KEY_CODEC, "plain");
         consumerSettings = (Map<String, String>) readerConfig.getParameter().getVal(KEY_CONSUMER_SETTINGS);
+        queueSize = readerConfig.getParameter().getIntVal(KEY_QUEUE_SIZE, RowHandoffQueue.DEFAULT_CAPACITY);
+        drainBatchSize = readerConfig.getParameter().getIntVal(KEY_DRAIN_BATCH_SIZE, RowHandoffQueue.DEFAULT_DRAIN_BATCH_SIZE);
         encoding = readerConfig.getParameter().getStringVal(KEY_ENCODING, "utf-8");
     }
 
@@ -58,6 +65,8 @@ public class Kafka09Reader extends DataReader {
         format.setTopic(topic);
         format.setCodec(codec);
         format.setConsumerSettings(consumerSettings);
+        format.setQueueSize(queueSize);
+        format.setDrainBatchSize(drainBatchSize);
         format.setEncoding(encoding);
         format.setRestoreConfig(restoreConfig);
 
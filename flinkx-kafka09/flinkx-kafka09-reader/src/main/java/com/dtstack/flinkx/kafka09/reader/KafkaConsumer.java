@@ -23,6 +23,7 @@ import com.dtstack.flinkx.kafka09.decoder.JsonDecoder;
 import com.dtstack.flinkx.kafka09.decoder.PlainDecoder;
 import kafka.consumer.ConsumerIterator;
 import kafka.consumer.KafkaStream;
+import kafka.message.MessageAndMetadata;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -53,16 +54,24 @@ public class KafkaConsumer implements Runnable {
             while (true) {
                 ConsumerIterator<byte[], byte[]> it = m_stream.iterator();
                 while (it.hasNext()) {
+                    MessageAndMetadata<byte[], byte[]> messageAndMetadata = it.next();
                     String m = null;
+                    boolean processed = false;
                     try {
-                        m = new String(it.next().message(), format.getEncoding());
+                        m = new String(messageAndMetadata.message(), format.getEncoding());
                         Map<String, Object> event = this.decoder.decode(m);
                         if (event != null && event.size() > 0) {
-                            this.format.processEvent(event);
+                            this.format.processEvent(event, messageAndMetadata.topic(), messageAndMetadata.partition(), messageAndMetadata.offset());
+                            processed = true;
                         }
                     } catch (Exception e) {
                         LOG.error("process event:{} failed:{}", m, e.getCause());
                     }
+
+                    // the offset of the skipped message is committed too, otherwise the committed offset stalls on it
+                    if (!processed) {
+                        this.format.markSkipped(messageAndMetadata.topic(), messageAndMetadata.partition(), messageAndMetadata.offset());
+                    }
                 }
             }
         } catch (Exception t) {
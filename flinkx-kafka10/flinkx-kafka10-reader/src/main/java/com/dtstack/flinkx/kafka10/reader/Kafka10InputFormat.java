@@ -21,21 +21,24 @@ package com.dtstack.flinkx.kafka10.reader;
 
 import com.dtstack.flinkx.config.RestoreConfig;
 import com.dtstack.flinkx.inputformat.RichInputFormat;
+import com.dtstack.flinkx.reader.RowHandoffQueue;
 import org.apache.flink.api.common.io.DefaultInputSplitAssigner;
 import org.apache.flink.configuration.Configuration;
 import org.apache.flink.core.io.GenericInputSplit;
 import org.apache.flink.core.io.InputSplit;
 import org.apache.flink.core.io.InputSplitAssigner;
 import org.apache.flink.types.Row;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Properties;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * company: www.dtstack.com
@@ -58,24 +61,65 @@ public class Kafka10InputFormat extends RichInputFormat {
 
     private volatile boolean running = false;
 
-    private transient BlockingQueue<Row> queue;
+    private int queueSize = RowHandoffQueue.DEFAULT_CAPACITY;
+
+    private int drainBatchSize = RowHandoffQueue.DEFAULT_DRAIN_BATCH_SIZE;
+
+    private transient RowHandoffQueue queue;
+
+    /** the next offset to consume of each partition, only contains the rows emitted by the task thread */
+    private transient Map<TopicPartition, Long> emittedOffsets;
 
     private transient KafkaConsumer consumer;
 
     @Override
     protected void openInternal(InputSplit inputSplit) throws IOException {
+        queue.registerMetrics(getRuntimeContext().getMetricGroup());
         consumer.createClient(topic, groupId, this).execute();
         running = true;
     }
 
-    public void processEvent(Map<String, Object> event) {
+    public void processEvent(Map<String, Object> event, TopicPartition partition, long offset) {
         try {
-            queue.put(Row.of(event));
+            queue.put(Row.of(event), new RecordPosition(partition, offset));
         } catch (InterruptedException e) {
             LOG.error("takeEvent interrupted event:{} error:{}", event, e);
         }
     }
 
+    /**
+     * Called by the consumer thread for the record that is not emitted, such as a blank record or
+     * a record failed to decode, its offset is reported after the rows put before it are emitted
+     */
+    public void markSkipped(TopicPartition partition, long offset) {
+        try {
+            queue.putPosition(new RecordPosition(partition, offset));
+        } catch (InterruptedException e) {
+            LOG.error("mark skipped record interrupted, partition:{}, offset:{}", partition, offset, e);
+        }
+    }
+
+    /**
+     * Called by the consumer thread, returns the offsets emitted since the last call
+     */
+    public Map<TopicPartition, OffsetAndMetadata> drainEmittedOffsets() {
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>(emittedOffsets.size());
+        for (Map.Entry<TopicPartition, Long> entry : emittedOffsets.entrySet()) {
+            if (emittedOffsets.remove(entry.getKey(), entry.getValue())) {
+                offsets.put(entry.getKey(), new OffsetAndMetadata(entry.getValue()));
+            }
+        }
+        return offsets;
+    }
+
+    public boolean isQueueAboveHighWatermark() {
+        return queue.isAboveHighWatermark();
+    }
+
+    public boolean isQueueBelowLowWatermark() {
+        return queue.isBelowLowWatermark();
+    }
+
     @Override
     protected Row nextRecordInternal(Row row) throws IOException {
         try {
@@ -100,7 +144,12 @@ public class Kafka10InputFormat extends RichInputFormat {
         Properties props = geneConsumerProp();
 
         consumer = new KafkaConsumer(props);
-        queue = new SynchronousQueue<Row>(false);
+        queue = new RowHandoffQueue(queueSize, drainBatchSize);
+        emittedOffsets = new ConcurrentHashMap<>();
+        queue.setPositionListener(position -> {
+            RecordPosition recordPosition = (RecordPosition) position;
+            emittedOffsets.put(recordPosition.partition, recordPosition.offset + 1);
+        });
     }
 
     private Properties geneConsumerProp() {
@@ -163,6 +212,14 @@ public class Kafka10InputFormat extends RichInputFormat {
         return codec;
     }
 
+    public void setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    public void setDrainBatchSize(int drainBatchSize) {
+        this.drainBatchSize = drainBatchSize;
+    }
+
     public void setConsumerSettings(Map<String, String> consumerSettings) {
         this.consumerSettings = consumerSettings;
     }
@@ -170,4 +227,16 @@ public class Kafka10InputFormat extends RichInputFormat {
     public void setRestoreConfig(RestoreConfig restoreConfig) {
         this.restoreConfig = restoreConfig;
     }
+
+    private static class RecordPosition {
+
+        private final TopicPartition partition;
+
+        private final long offset;
+
+        RecordPosition(TopicPartition partition, long offset) {
+            this.partition = partition;
+            this.offset = offset;
+        }
+    }
 }
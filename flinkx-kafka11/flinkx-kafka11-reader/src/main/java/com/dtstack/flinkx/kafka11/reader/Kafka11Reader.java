@@ -20,6 +20,7 @@ package com.dtstack.flinkx.kafka11.reader;
 import com.dtstack.flinkx.config.DataTransferConfig;
 import com.dtstack.flinkx.config.ReaderConfig;
 import com.dtstack.flinkx.reader.DataReader;
+import com.dtstack.flinkx.reader.RowHandoffQueue;
 import org.apache.flink.streaming.api.datastream.DataStream;
 import org.apache.flink.streaming.api.environment.StreamExecutionEnvironment;
 import org.apache.flink.types.Row;
@@ -50,6 +51,10 @@ public class Kafka11Reader extends DataReader {
 
     private Map<String, String> consumerSettings;
 
+    private int queueSize;
+
+    private int drainBatchSize;
+
     public Kafka11Reader(DataTransferConfig config, StreamExecutionEnvironment env) {
         super(config, env);
         ReaderConfig readerConfig = config.getJob().getContent().get(0).getReader();
@@ -58,6 +63,8 @@ public class Kafka11Reader extends DataReader {
         codec = readerConfig.getParameter().getStringVal(KEY_CODEC, "plain");
         blankIgnore = readerConfig.getParameter().getBooleanVal(KEY_BLANK_IGNORE, false);
         consumerSettings = (Map<String, String>) readerConfig.getParameter().getVal(KEY_CONSUMER_SETTINGS);
+        queueSize = readerConfig.getParameter().getIntVal(KEY_QUEUE_SIZE, RowHandoffQueue.DEFAULT_CAPACITY);
+        drainBatchSize = readerConfig.getParameter().getIntVal(KEY_DRAIN_BATCH_SIZE, RowHandoffQueue.DEFAULT_DRAIN_BATCH_SIZE);
 
         if (!consumerSettings.containsKey(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG)){
             throw new IllegalArgumentException(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG + " must set in consumerSettings");
@@ -72,6 +79,8 @@ public class Kafka11Reader extends DataReader {
         format.setCodec(codec);
         format.setBlankIgnore(blankIgnore);
         format.setConsumerSettings(consumerSettings);
+        format.setQueueSize(queueSize);
+        format.setDrainBatchSize(drainBatchSize);
         format.setRestoreConfig(restoreConfig);
 
         return createInput(format, "kafka11reader");
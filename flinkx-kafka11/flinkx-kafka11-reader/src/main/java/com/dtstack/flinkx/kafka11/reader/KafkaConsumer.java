@@ -20,13 +20,17 @@ import com.dtstack.flinkx.kafka11.decoder.IDecode;
 import com.dtstack.flinkx.kafka11.decoder.JsonDecoder;
 import com.dtstack.flinkx.kafka11.decoder.PlainDecoder;
 import org.apache.commons.lang.StringUtils;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.errors.WakeupException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
@@ -42,8 +46,15 @@ public class KafkaConsumer {
 
     private static Logger LOG = LoggerFactory.getLogger(KafkaConsumer.class);
 
+    /** poll timeout while the partitions are paused, the consumer keeps polling to send heartbeats */
+    private static final long PAUSED_POLL_TIMEOUT = 100L;
+
+    private static final String DEFAULT_COMMIT_INTERVAL_MS = "5000";
+
     private Properties props;
 
+    private long commitIntervalMs;
+
     private Client client;
 
     private ExecutorService executor = Executors.newSingleThreadExecutor();
@@ -58,6 +69,11 @@ public class KafkaConsumer {
             props.putAll(properties);
         }
 
+        // the offsets are committed only after the task thread has emitted the rows,
+        // the auto commit would also commit the rows still buffered in the handoff queue
+        commitIntervalMs = Long.parseLong(props.getProperty("auto.commit.interval.ms", DEFAULT_COMMIT_INTERVAL_MS));
+        props.put("enable.auto.commit", "false");
+
         this.props = props;
     }
 
@@ -77,6 +93,8 @@ public class KafkaConsumer {
     public class Client implements Runnable {
 
         private volatile boolean running = true;
+        private boolean paused = false;
+        private long lastCommitTime = System.currentTimeMillis();
         private long pollTimeout;
         private boolean blankIgnore;
         private IDecode decode;
@@ -89,40 +107,110 @@ public class KafkaConsumer {
             this.format = format;
             this.decode = createDecoder();
             consumer = new org.apache.kafka.clients.consumer.KafkaConsumer<>(clientProps);
-            consumer.subscribe(topics);
+            consumer.subscribe(topics, new ConsumerRebalanceListener() {
+                @Override
+                public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+                }
+
+                @Override
+                public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+                    // the partitions assigned by a rebalance are not paused, pause them while the queue is still full
+                    if (paused) {
+                        consumer.pause(partitions);
+                    }
+                }
+            });
         }
 
         @Override
         public void run() {
             try {
                 while (running) {
+                    checkBackPressure();
 
-                    ConsumerRecords<String, String> records = consumer.poll(pollTimeout);
+                    ConsumerRecords<String, String> records = consumer.poll(paused ? PAUSED_POLL_TIMEOUT : Math.min(pollTimeout, commitIntervalMs));
                     for (ConsumerRecord<String, String> r : records) {
-                        if (r.value() == null || blankIgnore && StringUtils.isBlank(r.value())) {
-                            continue;
+                        boolean processed = false;
+                        if (r.value() != null && !(blankIgnore && StringUtils.isBlank(r.value()))) {
+                            try {
+                                processed = processMessage(r);
+                            } catch (Throwable e) {
+                                catchException(r.value(), e);
+                            }
                         }
-                        try {
-                            processMessage(r.value());
-                        } catch (Throwable e) {
-                            catchException(r.value(), e);
+
+                        // the offset of the skipped record is committed too, otherwise the committed offset stalls on it
+                        if (!processed) {
+                            format.markSkipped(new TopicPartition(r.topic(), r.partition()), r.offset());
                         }
                     }
+
+                    if (System.currentTimeMillis() - lastCommitTime >= commitIntervalMs) {
+                        commitEmittedOffsets(false);
+                    }
                 }
             } catch (WakeupException e) {
                 LOG.warn("WakeupException to close kafka consumer");
             } catch (Throwable e) {
                 catchException("", e);
             } finally {
+                try {
+                    commitEmittedOffsets(true);
+                } catch (Throwable e) {
+                    LOG.error("commit kafka offsets error", e);
+                }
                 consumer.close();
             }
         }
 
-        public void processMessage(String message) {
-            Map<String, Object> event = decode.decode(message);
+        /**
+         * Commit the offsets of the rows emitted by the task thread, the kafka consumer is not thread safe
+         * so the offsets are committed by the consumer thread
+         */
+        private void commitEmittedOffsets(boolean sync) {
+            lastCommitTime = System.currentTimeMillis();
+            Map<TopicPartition, OffsetAndMetadata> offsets = format.drainEmittedOffsets();
+            if (offsets.isEmpty()) {
+                return;
+            }
+
+            if (sync) {
+                consumer.commitSync(offsets);
+            } else {
+                consumer.commitAsync(offsets, (committedOffsets, e) -> {
+                    if (e != null) {
+                        LOG.warn("commit kafka offsets:{} error", committedOffsets, e);
+                    }
+                });
+            }
+        }
+
+        /**
+         * Pause the assigned partitions when the handoff queue of the input format is almost full,
+         * and resume them when the task thread has drained the queue
+         */
+        private void checkBackPressure() {
+            if (!paused && format.isQueueAboveHighWatermark()) {
+                consumer.pause(consumer.assignment());
+                paused = true;
+                LOG.debug("pause kafka partitions because the queue is full");
+            } else if (paused && format.isQueueBelowLowWatermark()) {
+                consumer.resume(consumer.paused());
+                paused = false;
+                LOG.debug("resume kafka partitions");
+            }
+        }
+
+        /**
+         * Returns false if the record is decoded to an empty event and not handed to the input format
+         */
+        public boolean processMessage(ConsumerRecord<String, String> record) {
+            Map<String, Object> event = decode.decode(record.value());
             if (event != null && event.size() > 0) {
-                format.processEvent(event);
+                format.processEvent(event, new TopicPartition(record.topic(), record.partition()), record.offset());
+                return true;
             }
+            return false;
         }
 
         public void catchException(String message, Throwable e) {
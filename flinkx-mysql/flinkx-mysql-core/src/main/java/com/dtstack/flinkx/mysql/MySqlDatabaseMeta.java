@@ -93,6 +93,11 @@ public class MySqlDatabaseMeta extends BaseDatabaseMeta {
         return StringUtils.join(updateList, ",");
     }
 
+    @Override
+    public String getLimitClause(int limit) {
+        return " LIMIT " + limit;
+    }
+
     @Override
     public String getSplitFilter(String columnName) {
         return String.format("%s mod ${N} = ${M}", getStartQuote() + columnName + getEndQuote());
@@ -17,18 +17,14 @@
  */
 package com.dtstack.flinkx.mysqld.format;
 
-import com.dtstack.flinkx.rdb.DataSource;
-import com.dtstack.flinkx.rdb.datareader.QuerySqlBuilder;
 import com.dtstack.flinkx.rdb.inputformat.DistributedJdbcInputFormat;
-import com.dtstack.flinkx.rdb.util.DBUtil;
 import com.dtstack.flinkx.util.DateUtil;
-import com.dtstack.flinkx.util.StringUtil;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.flink.types.Row;
 
-import java.io.IOException;
+import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.Arrays;
+import java.sql.Statement;
 
 import static com.dtstack.flinkx.rdb.util.DBUtil.clobToString;
 
@@ -41,95 +37,36 @@ import static com.dtstack.flinkx.rdb.util.DBUtil.clobToString;
 public class MysqldInputFormat extends DistributedJdbcInputFormat {
 
     @Override
-    protected void openNextSource() throws SQLException {
-        DataSource currentSource = sourceList.get(sourceIndex);
-        currentConn = DBUtil.getConnection(currentSource.getJdbcUrl(), currentSource.getUserName(), currentSource.getPassword());
-        currentConn.setAutoCommit(false);
-        String queryTemplate = new QuerySqlBuilder(databaseInterface, currentSource.getTable(),metaColumns,splitKey,
-                where, currentSource.isSplitByKey(), false, false).buildSql();
-        currentStatement = currentConn.createStatement(resultSetType, resultSetConcurrency);
-
-        if (currentSource.isSplitByKey()){
-            String n = currentSource.getParameterValues()[0].toString();
-            String m = currentSource.getParameterValues()[1].toString();
-            queryTemplate = queryTemplate.replace("${N}",n).replace("${M}",m);
-
-            if (LOG.isDebugEnabled()) {
-                LOG.debug(String.format("Executing '%s' with parameters %s", queryTemplate,
-                        Arrays.deepToString(currentSource.getParameterValues())));
-            }
-        }
-
-        currentStatement.setFetchSize(Integer.MIN_VALUE);
-        currentStatement.setQueryTimeout(queryTimeOut);
-        currentResultSet = currentStatement.executeQuery(queryTemplate);
-        columnCount = currentResultSet.getMetaData().getColumnCount();
-
-        if(descColumnTypeList == null) {
-            descColumnTypeList = DBUtil.analyzeTable(currentSource.getJdbcUrl(), currentSource.getUserName(),
-                    currentSource.getPassword(),databaseInterface, currentSource.getTable(),metaColumns);
-        }
-
-        LOG.info("open source: {} ,table: {}", currentSource.getJdbcUrl(), currentSource.getTable());
+    protected void setStatementOptions(Statement statement) throws SQLException {
+        statement.setFetchSize(Integer.MIN_VALUE);
+        statement.setQueryTimeout(queryTimeOut);
     }
 
     @Override
-    protected boolean readNextRecord() throws IOException {
-        try{
-            if(currentConn == null){
-                openNextSource();
-            }
-
-            hasNext = currentResultSet.next();
-            if (hasNext){
-                currentRecord = new Row(columnCount);
-
-                for (int pos = 0; pos < currentRecord.getArity(); pos++) {
-                    Object obj = currentResultSet.getObject(pos + 1);
-                    if(obj != null) {
-                        if(CollectionUtils.isNotEmpty(descColumnTypeList)) {
-                            String columnType = descColumnTypeList.get(pos);
-                            if("year".equalsIgnoreCase(columnType)) {
-                                java.util.Date date = (java.util.Date) obj;
-                                obj = DateUtil.dateToYearString(date);
-                            } else if("tinyint".equalsIgnoreCase(columnType)
-                                    || "bit".equalsIgnoreCase(columnType)) {
-                                if(obj instanceof Boolean) {
-                                    obj = ((Boolean) obj ? 1 : 0);
-                                }
-                            }
-                        }
-                        obj = clobToString(obj);
-                    }
-                    currentRecord.setField(pos, obj);
-                }
-
-                if(!"*".equals(metaColumns.get(0).getName())){
-                    for (int i = 0; i < columnCount; i++) {
-                        Object val = currentRecord.getField(i);
-                        if(val == null && metaColumns.get(i).getValue() != null){
-                            val = metaColumns.get(i).getValue();
-                        }
-
-                        if (val instanceof String){
-                            val = StringUtil.string2col(String.valueOf(val),metaColumns.get(i).getType(),metaColumns.get(i).getTimeFormat());
-                            currentRecord.setField(i,val);
+    protected Row buildRecord(ResultSet resultSet, int columnCount) throws Exception {
+        Row record = new Row(columnCount);
+
+        for (int pos = 0; pos < record.getArity(); pos++) {
+            Object obj = resultSet.getObject(pos + 1);
+            if(obj != null) {
+                if(CollectionUtils.isNotEmpty(descColumnTypeList)) {
+                    String columnType = descColumnTypeList.get(pos);
+                    if("year".equalsIgnoreCase(columnType)) {
+                        java.util.Date date = (java.util.Date) obj;
+                        obj = DateUtil.dateToYearString(date);
+                    } else if("tinyint".equalsIgnoreCase(columnType)
+                            || "bit".equalsIgnoreCase(columnType)) {
+                        if(obj instanceof Boolean) {
+                            obj = ((Boolean) obj ? 1 : 0);
                         }
                     }
                 }
-            } else {
-                if(sourceIndex + 1 < sourceList.size()){
-                    closeCurrentSource();
-                    sourceIndex++;
-                    return readNextRecord();
-                }
+                obj = clobToString(obj);
             }
-
-            return !hasNext;
-        }catch (SQLException se) {
-            throw new IOException("Couldn't read data - " + se.getMessage(), se);
-        } catch (Exception npe) {
-            throw new IOException("Couldn't access resultSet", npe);
+            record.setField(pos, obj);
         }
+
+        fillMetaColumnValues(record, columnCount);
+        return record;
     }
 }
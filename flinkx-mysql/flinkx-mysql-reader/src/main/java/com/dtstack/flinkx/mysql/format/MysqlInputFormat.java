@@ -17,23 +17,20 @@
  */
 package com.dtstack.flinkx.mysql.format;
 
+import com.dtstack.flinkx.rdb.inputformat.ColumnExtractor;
 import com.dtstack.flinkx.rdb.inputformat.JdbcInputFormat;
 import com.dtstack.flinkx.rdb.util.DBUtil;
+import com.dtstack.flinkx.rdb.util.JdbcConnectionPool;
 import com.dtstack.flinkx.reader.MetaColumn;
 import com.dtstack.flinkx.util.ClassUtil;
 import com.dtstack.flinkx.util.DateUtil;
-import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.flink.core.io.InputSplit;
-import org.apache.flink.types.Row;
 
 import java.io.IOException;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.ArrayList;
 
-import static com.dtstack.flinkx.rdb.util.DBUtil.clobToString;
-
 /**
  * Date: 2019/09/19
  * Company: www.dtstack.com
@@ -62,12 +59,27 @@ public class MysqlInputFormat extends JdbcInputFormat {
                 return;
             }
 
-            dbConn = DBUtil.getConnection(dbURL, username, password);
+            if (pageSize > 0){
+                openKeysetPages(inputSplit);
+                return;
+            }
+
+            dbConn = JdbcConnectionPool.getConnection(dbURL, username, password);
+
+            // 流式读取时同一个连接上不能执行其它查询，先获取字段类型
+            if (StringUtils.isEmpty(customSql)){
+                descColumnTypeList = DBUtil.analyzeTable(dbConn, dbURL, username, databaseInterface, table, metaColumns);
+            } else {
+                descColumnTypeList = new ArrayList<>();
+                for (MetaColumn metaColumn : metaColumns) {
+                    descColumnTypeList.add(metaColumn.getName());
+                }
+            }
 
             // 部分驱动需要关闭事务自动提交，fetchSize参数才会起作用
             dbConn.setAutoCommit(false);
 
-            Statement statement = dbConn.createStatement(resultSetType, resultSetConcurrency);
+            statement = dbConn.createStatement(resultSetType, resultSetConcurrency);
 
             statement.setFetchSize(Integer.MIN_VALUE);
 
@@ -83,14 +95,7 @@ public class MysqlInputFormat extends JdbcInputFormat {
 
             hasNext = resultSet.next();
 
-            if (StringUtils.isEmpty(customSql)){
-                descColumnTypeList = DBUtil.analyzeTable(dbURL, username, password,databaseInterface,table,metaColumns);
-            } else {
-                descColumnTypeList = new ArrayList<>();
-                for (MetaColumn metaColumn : metaColumns) {
-                    descColumnTypeList.add(metaColumn.getName());
-                }
-            }
+            buildExtractionPlan(resultSet.getMetaData());
 
         } catch (SQLException se) {
             throw new IllegalArgumentException("open() failed. " + se.getMessage(), se);
@@ -100,37 +105,15 @@ public class MysqlInputFormat extends JdbcInputFormat {
     }
 
     @Override
-    public Row nextRecordInternal(Row row) throws IOException {
-        if (!hasNext) {
-            return null;
+    protected ColumnExtractor createColumnExtractor(int columnIndex, int sqlType, boolean signed, String typeName) {
+        ColumnExtractor extractor = super.createColumnExtractor(columnIndex, sqlType, signed, typeName);
+        if("year".equalsIgnoreCase(typeName)) {
+            return extractor.andThen(obj -> DateUtil.dateToYearString((java.util.Date) obj));
+        } else if("tinyint".equalsIgnoreCase(typeName) || "bit".equalsIgnoreCase(typeName)) {
+            return extractor.andThen(obj -> obj instanceof Boolean ? ((Boolean) obj ? 1 : 0) : obj);
         }
-        row = new Row(columnCount);
-
-        try {
-            for (int pos = 0; pos < row.getArity(); pos++) {
-                Object obj = resultSet.getObject(pos + 1);
-                if(obj != null) {
-                    if(CollectionUtils.isNotEmpty(descColumnTypeList)) {
-                        String columnType = descColumnTypeList.get(pos);
-                        if("year".equalsIgnoreCase(columnType)) {
-                            java.util.Date date = (java.util.Date) obj;
-                            obj = DateUtil.dateToYearString(date);
-                        } else if("tinyint".equalsIgnoreCase(columnType)
-                                    || "bit".equalsIgnoreCase(columnType)) {
-                            if(obj instanceof Boolean) {
-                                obj = ((Boolean) obj ? 1 : 0);
-                            }
-                        }
-                    }
-                    obj = clobToString(obj);
-                }
 
-                row.setField(pos, obj);
-            }
-            return super.nextRecordInternal(row);
-        }catch (Exception e) {
-            throw new IOException("Couldn't read data - " + e.getMessage(), e);
-        }
+        return extractor;
     }
 
 }
@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.flinkx.mysql.format;
+
+import com.dtstack.flinkx.rdb.inputformat.ColumnExtractor;
+import com.dtstack.flinkx.reader.MetaColumn;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.lang.reflect.Proxy;
+import java.sql.Clob;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Collections;
+import java.util.List;
+
+public class MysqlInputFormatTest {
+
+    @Test
+    public void testExtractNull() throws Exception {
+        MysqlInputFormat format = new MysqlInputFormat();
+        MatcherAssert.assertThat(format.createColumnExtractor(1, Types.DATE, true, "year").extract(resultSet((Object) null)), Matchers.nullValue());
+        MatcherAssert.assertThat(format.createColumnExtractor(1, Types.BIT, true, "tinyint").extract(resultSet((Object) null)), Matchers.nullValue());
+        MatcherAssert.assertThat(format.createColumnExtractor(1, Types.INTEGER, true, "int").extract(resultSet((Object) null)), Matchers.nullValue());
+    }
+
+    @Test
+    public void testExtractYearAndBit() throws Exception {
+        MysqlInputFormat format = new MysqlInputFormat();
+        MatcherAssert.assertThat(format.createColumnExtractor(1, Types.DATE, true, "YEAR").extract(resultSet(Date.valueOf("2020-05-06"))), Matchers.equalTo((Object) "2020"));
+        MatcherAssert.assertThat(format.createColumnExtractor(1, Types.BIT, true, "tinyint").extract(resultSet(true)), Matchers.equalTo((Object) 1));
+        MatcherAssert.assertThat(format.createColumnExtractor(1, Types.BIT, true, "bit").extract(resultSet(false)), Matchers.equalTo((Object) 0));
+
+        // tinyint(4)等驱动返回整数的情况保持原值
+        MatcherAssert.assertThat(format.createColumnExtractor(1, Types.TINYINT, true, "tinyint").extract(resultSet(5)), Matchers.equalTo((Object) 5));
+    }
+
+    @Test
+    public void testExtractClobAndTimestamp() throws Exception {
+        MysqlInputFormat format = new MysqlInputFormat();
+        MatcherAssert.assertThat(format.createColumnExtractor(1, Types.LONGVARCHAR, true, "longtext").extract(resultSet(clob("text"))), Matchers.equalTo((Object) "text"));
+
+        Timestamp timestamp = Timestamp.valueOf("2020-01-02 03:04:05.123");
+        MatcherAssert.assertThat(format.createColumnExtractor(1, Types.TIMESTAMP, true, "datetime").extract(resultSet(timestamp)), Matchers.equalTo((Object) timestamp));
+    }
+
+    @Test
+    public void testMetaColumnConstant() throws Exception {
+        PlanFormat format = new PlanFormat();
+        ColumnExtractor[] extractors = format.plan(Collections.singletonList("datetime"), metaColumn("timestamp", "2020-01-02 03:04:05"), Types.TIMESTAMP);
+
+        Object first = extractors[0].extract(resultSet((Object) null));
+        Object second = extractors[0].extract(resultSet((Object) null));
+        MatcherAssert.assertThat(first, Matchers.instanceOf(Timestamp.class));
+        MatcherAssert.assertThat(second, Matchers.allOf(Matchers.equalTo(first), Matchers.not(Matchers.sameInstance(first))));
+
+        // 字段有值时不使用常量
+        Timestamp timestamp = Timestamp.valueOf("2021-01-02 03:04:05");
+        MatcherAssert.assertThat(extractors[0].extract(resultSet(timestamp)), Matchers.equalTo((Object) timestamp));
+    }
+
+    /**
+     * 通过子类调用buildExtractionPlan，检查mysql的读取器和常量列组合后的结果
+     */
+    private static class PlanFormat extends MysqlInputFormat {
+
+        ColumnExtractor[] plan(List<String> typeNames, MetaColumn metaColumn, int sqlType) throws SQLException {
+            descColumnTypeList = typeNames;
+            metaColumns = Collections.singletonList(metaColumn);
+            columnCount = 1;
+            buildExtractionPlan(metaData(sqlType));
+            return columnExtractors;
+        }
+    }
+
+    private MetaColumn metaColumn(String type, String value) {
+        MetaColumn metaColumn = new MetaColumn();
+        metaColumn.setName("c");
+        metaColumn.setType(type);
+        metaColumn.setValue(value);
+        return metaColumn;
+    }
+
+    private static ResultSetMetaData metaData(int sqlType) {
+        return (ResultSetMetaData) Proxy.newProxyInstance(MysqlInputFormatTest.class.getClassLoader(), new Class[]{ResultSetMetaData.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getColumnType":
+                            return sqlType;
+                        case "isSigned":
+                            return true;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private Clob clob(String text) {
+        return (Clob) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{Clob.class},
+                (proxy, method, args) -> {
+                    if ("getCharacterStream".equals(method.getName())) {
+                        return new StringReader(text);
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private ResultSet resultSet(Object... values) {
+        Object[] lastValue = new Object[1];
+        return (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "wasNull":
+                            return lastValue[0] == null;
+                        case "getObject":
+                            lastValue[0] = values[(Integer) args[0] - 1];
+                            return lastValue[0];
+                        case "getInt":
+                            lastValue[0] = values[(Integer) args[0] - 1];
+                            return lastValue[0] == null ? 0 : ((Number) lastValue[0]).intValue();
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dtstack.flinkx.mysql.format;
+
+import com.dtstack.flinkx.rdb.outputformat.FieldConverter;
+import org.apache.flink.types.Row;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 把一批Row按LOAD DATA的默认文本格式编码为输入流，驱动读取时才逐行编码，
+ * 不需要先在内存中拼出整批数据。字段以\t分隔，行以\n结束，null写为\N，
+ * 反斜杠、\t、\n、\r和\0使用反斜杠转义
+ *
+ * Company: www.dtstack.com
+ */
+public class LoadDataInputStream extends InputStream {
+
+    private static final byte FIELD_DELIMITER = '\t';
+
+    private static final byte LINE_DELIMITER = '\n';
+
+    private static final byte ESCAPE = '\\';
+
+    private final FieldConverter[] fieldConverters;
+
+    private List<Row> rows;
+
+    private int rowIndex;
+
+    private byte[] buf = new byte[8192];
+
+    private int pos;
+
+    private int count;
+
+    /**编码时出现的异常，驱动只会把IOException包装为通用的错误信息，这里保留原始异常*/
+    private Exception error;
+
+    public LoadDataInputStream(FieldConverter[] fieldConverters) {
+        this.fieldConverters = fieldConverters;
+    }
+
+    public void reset(List<Row> rows) {
+        this.rows = rows;
+        rowIndex = 0;
+        pos = 0;
+        count = 0;
+        error = null;
+    }
+
+    public Exception getError() {
+        return error;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return buf[pos++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+
+        int read = 0;
+        while (read < len && fill()) {
+            int n = Math.min(len - read, count - pos);
+            System.arraycopy(buf, pos, b, off + read, n);
+            pos += n;
+            read += n;
+        }
+
+        return read == 0 ? -1 : read;
+    }
+
+    @Override
+    public int available() {
+        return count - pos;
+    }
+
+    private boolean fill() throws IOException {
+        while (pos >= count) {
+            if (rows == null || rowIndex >= rows.size()) {
+                return false;
+            }
+
+            pos = 0;
+            count = 0;
+            Row row = rows.get(rowIndex++);
+            try {
+                encodeRow(row);
+            } catch (Exception e) {
+                error = e;
+                throw new IOException("Encode row error, row:" + row, e);
+            }
+        }
+
+        return true;
+    }
+
+    private void encodeRow(Row row) {
+        for (int i = 0; i < row.getArity(); i++) {
+            if (i > 0) {
+                writeByte(FIELD_DELIMITER);
+            }
+
+            Object value = fieldConverters[i].convert(row.getField(i));
+            if (value == null) {
+                writeByte(ESCAPE);
+                writeByte('N');
+            } else if (value instanceof byte[]) {
+                writeEscaped((byte[]) value);
+            } else if (value instanceof Boolean) {
+                writeByte((Boolean) value ? '1' : '0');
+            } else {
+                writeEscaped(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        writeByte(LINE_DELIMITER);
+    }
+
+    /**
+     * UTF-8的多字节字符中不会出现ASCII字节，可以直接对编码后的字节转义
+     */
+    private void writeEscaped(byte[] bytes) {
+        ensureCapacity(count + bytes.length * 2);
+        for (byte b : bytes) {
+            switch (b) {
+                case '\\':
+                    buf[count++] = ESCAPE;
+                    buf[count++] = '\\';
+                    break;
+                case '\t':
+                    buf[count++] = ESCAPE;
+                    buf[count++] = 't';
+                    break;
+                case '\n':
+                    buf[count++] = ESCAPE;
+                    buf[count++] = 'n';
+                    break;
+                case '\r':
+                    buf[count++] = ESCAPE;
+                    buf[count++] = 'r';
+                    break;
+                case 0:
+                    buf[count++] = ESCAPE;
+                    buf[count++] = '0';
+                    break;
+                default:
+                    buf[count++] = b;
+            }
+        }
+    }
+
+    private void writeByte(int b) {
+        ensureCapacity(count + 1);
+        buf[count++] = (byte) b;
+    }
+
+    private void ensureCapacity(int minCapacity) {
+        if (minCapacity > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length << 1, minCapacity));
+        }
+    }
+}
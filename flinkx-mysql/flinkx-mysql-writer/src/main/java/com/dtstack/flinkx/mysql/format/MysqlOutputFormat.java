@@ -17,13 +17,152 @@
  */
 package com.dtstack.flinkx.mysql.format;
 
+import com.dtstack.flinkx.enums.EWriteMode;
 import com.dtstack.flinkx.rdb.outputformat.JdbcOutputFormat;
+import com.dtstack.flinkx.rdb.util.DBUtil;
+import com.google.common.base.Strings;
+import org.apache.flink.types.Row;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.Statement;
+import java.util.List;
 
 /**
+ * insertSqlMode为loadData时，每批数据通过一条LOAD DATA LOCAL INFILE语句以流的方式写入，
+ * 批量写入失败时仍回退到逐条insert，用于定位脏数据。
+ * LOCAL方式隐含IGNORE，主键冲突和数据转换错误只会产生警告，所以每批数据在事务中写入，
+ * 写入行数不足或有警告时回滚，按写入失败处理
+ *
  * Date: 2019/09/19
  * Company: www.dtstack.com
  *
  * @author tudou
  */
 public class MysqlOutputFormat extends JdbcOutputFormat {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MysqlOutputFormat.class);
+
+    public static final String INSERT_SQL_MODE_LOAD_DATA = "loadData";
+
+    /**使用setLocalInfileInputStream后驱动不会读取文件，文件名只是占位*/
+    private static final String LOAD_DATA_SQL_TEMPL = "LOAD DATA LOCAL INFILE 'flinkx_stream' %s INTO TABLE %s " +
+            "CHARACTER SET utf8mb4 FIELDS TERMINATED BY '\\t' ESCAPED BY '\\\\' LINES TERMINATED BY '\\n' (%s)";
+
+    private String loadDataSql;
+
+    private transient Statement loadDataStatement;
+
+    private transient LoadDataInputStream loadDataInputStream;
+
+    @Override
+    protected PreparedStatement prepareTemplates() throws SQLException {
+        // 逐条写入时仍然使用insert/replace语句
+        PreparedStatement statement = super.prepareTemplates();
+
+        if (isLoadDataMode(insertSqlMode)) {
+            String replace = EWriteMode.REPLACE.name().equalsIgnoreCase(mode) ? "REPLACE" : "";
+            loadDataSql = String.format(LOAD_DATA_SQL_TEMPL, replace, databaseInterface.quoteTable(table),
+                    databaseInterface.quoteColumns(column));
+            loadDataStatement = dbConn.createStatement();
+            loadDataInputStream = new LoadDataInputStream(fieldConverters);
+        }
+
+        return statement;
+    }
+
+    @Override
+    protected void writeMultipleRecordsInternal(List<Row> batch) throws Exception {
+        if (!isLoadDataMode(insertSqlMode)) {
+            super.writeMultipleRecordsInternal(batch);
+            return;
+        }
+
+        com.mysql.jdbc.Statement mysqlStatement = loadDataStatement.unwrap(com.mysql.jdbc.Statement.class);
+        // 非断点续传时连接是自动提交的，这批数据需要单独开启事务才能在出现警告时回滚
+        boolean autoCommit = dbConn.getAutoCommit();
+        try {
+            if (autoCommit) {
+                dbConn.setAutoCommit(false);
+            }
+
+            loadDataInputStream.reset(batch);
+            mysqlStatement.setLocalInfileInputStream(loadDataInputStream);
+            int loaded = loadDataStatement.executeUpdate(loadDataSql);
+            checkLoaded(loaded, batch.size(), loadDataStatement.getWarnings());
+
+            if (autoCommit) {
+                dbConn.commit();
+            }
+
+            for (Row row : batch) {
+                trackLastRow(row);
+            }
+
+            if (restoreConfig.isRestore()) {
+                rowsOfCurrentTransaction += batch.size();
+            }
+        } catch (Exception e) {
+            if (autoCommit || restoreConfig.isRestore()) {
+                LOG.warn("writeMultipleRecordsInternal:Start rollback");
+                dbConn.rollback();
+                LOG.warn("writeMultipleRecordsInternal:Rollback success");
+            }
+
+            if (loadDataInputStream.getError() != null) {
+                throw loadDataInputStream.getError();
+            }
+
+            throw e;
+        } finally {
+            mysqlStatement.setLocalInfileInputStream(null);
+            loadDataInputStream.reset(null);
+            if (autoCommit) {
+                dbConn.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * 被忽略的数据（主键冲突）会使写入行数少于批次大小，被截断或转换的数据会产生警告，
+     * 这两种情况都要回滚后逐条写入，由insert语句报出具体的错误
+     * @param loaded LOAD DATA返回的影响行数，replace模式下被替换的行计为2
+     */
+    static void checkLoaded(int loaded, int rows, SQLWarning warning) throws SQLException {
+        if (loaded >= rows && warning == null) {
+            return;
+        }
+
+        String message = String.format("load data affected %d of %d rows", loaded, rows);
+        if (warning != null) {
+            message += ", warning:" + warning.getMessage();
+        }
+        throw new SQLException(message);
+    }
+
+    @Override
+    public void closeInternal() {
+        DBUtil.closeDBResources(null, loadDataStatement, null, false);
+        loadDataStatement = null;
+
+        super.closeInternal();
+    }
+
+    /**
+     * MySQL的batch写入已经通过rewriteBatchedStatements改写为多行insert，loadData为额外的写入方式
+     */
+    public static boolean isLoadDataMode(String insertSqlMode) {
+        if (Strings.isNullOrEmpty(insertSqlMode)) {
+            return false;
+        }
+
+        if (!INSERT_SQL_MODE_LOAD_DATA.equalsIgnoreCase(insertSqlMode)) {
+            throw new RuntimeException("not support insertSqlMode:" + insertSqlMode);
+        }
+
+        return true;
+    }
 }
@@ -19,11 +19,14 @@
 package com.dtstack.flinkx.mysql.writer;
 
 import com.dtstack.flinkx.config.DataTransferConfig;
+import com.dtstack.flinkx.enums.EWriteMode;
 import com.dtstack.flinkx.mysql.MySqlDatabaseMeta;
+import com.dtstack.flinkx.mysql.format.MysqlOutputFormat;
 import com.dtstack.flinkx.rdb.datawriter.JdbcDataWriter;
 import com.dtstack.flinkx.rdb.util.DBUtil;
 
-import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * MySQL writer plugin
@@ -36,8 +39,16 @@ public class MysqlWriter extends JdbcDataWriter {
     public MysqlWriter(DataTransferConfig config) {
         super(config);
         setDatabaseInterface(new MySqlDatabaseMeta());
-        dbUrl = DBUtil.formatJdbcUrl(dbUrl, Collections.singletonMap("zeroDateTimeBehavior", "convertToNull"));
 
+        Map<String,String> extParamMap = new HashMap<>(2);
+        extParamMap.put("zeroDateTimeBehavior", "convertToNull");
+        if (MysqlOutputFormat.isLoadDataMode(insertSqlMode)) {
+            if (EWriteMode.UPDATE.name().equalsIgnoreCase(mode)) {
+                throw new IllegalArgumentException("insertSqlMode loadData does not support writeMode update");
+            }
+            extParamMap.put("allowLoadLocalInfile", "true");
+        }
+        dbUrl = DBUtil.formatJdbcUrl(dbUrl, extParamMap);
     }
 
 }
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dtstack.flinkx.mysql.format;
+
+import com.dtstack.flinkx.rdb.outputformat.FieldConverter;
+import org.apache.flink.types.Row;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class LoadDataInputStreamTest {
+
+    @Test
+    public void testEscape() throws IOException {
+        LoadDataInputStream in = new LoadDataInputStream(identity(3));
+        in.reset(Arrays.asList(
+                Row.of("a\\b\tc\nd\re\0f", null, "null"),
+                Row.of(true, false, new byte[]{'x', '\t', (byte) 0xFF}),
+                Row.of("中文", 12.5, "")));
+
+        byte[] expected = concat(
+                "a\\\\b\\tc\\nd\\re\\0f\t\\N\tnull\n".getBytes(StandardCharsets.UTF_8),
+                "1\t0\tx\\t".getBytes(StandardCharsets.UTF_8),
+                new byte[]{(byte) 0xFF},
+                "\n中文\t12.5\t\n".getBytes(StandardCharsets.UTF_8));
+        MatcherAssert.assertThat(readAll(in, 8192), Matchers.equalTo(expected));
+        MatcherAssert.assertThat(in.read(), Matchers.equalTo(-1));
+    }
+
+    @Test
+    public void testReadInSmallChunks() throws IOException {
+        LoadDataInputStream in = new LoadDataInputStream(identity(1));
+        StringBuilder expected = new StringBuilder();
+        Row[] rows = new Row[1000];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = Row.of("row_" + i);
+            expected.append("row_").append(i).append('\n');
+        }
+        in.reset(Arrays.asList(rows));
+
+        MatcherAssert.assertThat(new String(readAll(in, 3), StandardCharsets.UTF_8), Matchers.equalTo(expected.toString()));
+
+        // 复用时从新的批次开始
+        in.reset(Collections.singletonList(Row.of("next")));
+        MatcherAssert.assertThat(new String(readAll(in, 3), StandardCharsets.UTF_8), Matchers.equalTo("next\n"));
+    }
+
+    @Test
+    public void testConvertError() {
+        IllegalArgumentException error = new IllegalArgumentException("bad value");
+        LoadDataInputStream in = new LoadDataInputStream(new FieldConverter[]{field -> {
+            if ("bad".equals(field)) {
+                throw error;
+            }
+            return field;
+        }});
+        in.reset(Arrays.asList(Row.of("good"), Row.of("bad")));
+
+        try {
+            readAll(in, 8192);
+            MatcherAssert.assertThat("should fail", false);
+        } catch (IOException e) {
+            MatcherAssert.assertThat(e.getCause(), Matchers.sameInstance((Throwable) error));
+        }
+        MatcherAssert.assertThat(in.getError(), Matchers.sameInstance((Exception) error));
+
+        in.reset(null);
+        MatcherAssert.assertThat(in.getError(), Matchers.nullValue());
+    }
+
+    private static FieldConverter[] identity(int size) {
+        FieldConverter[] converters = new FieldConverter[size];
+        Arrays.fill(converters, FieldConverter.IDENTITY);
+        return converters;
+    }
+
+    private static byte[] readAll(LoadDataInputStream in, int chunkSize) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[chunkSize];
+        int n;
+        while ((n = in.read(buf, 0, buf.length)) != -1) {
+            out.write(buf, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] concat(byte[]... arrays) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] array : arrays) {
+            out.write(array, 0, array.length);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dtstack.flinkx.mysql.format;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+
+public class MysqlOutputFormatTest {
+
+    @Test
+    public void testCheckLoaded() throws SQLException {
+        MysqlOutputFormat.checkLoaded(10, 10, null);
+        // replace模式下被替换的行计为2
+        MysqlOutputFormat.checkLoaded(12, 10, null);
+    }
+
+    @Test
+    public void testRejectSkippedRows() {
+        try {
+            MysqlOutputFormat.checkLoaded(9, 10, null);
+            MatcherAssert.assertThat("should fail", false);
+        } catch (SQLException e) {
+            MatcherAssert.assertThat(e.getMessage(), Matchers.equalTo("load data affected 9 of 10 rows"));
+        }
+    }
+
+    @Test
+    public void testRejectWarnings() {
+        try {
+            MysqlOutputFormat.checkLoaded(10, 10, new SQLWarning("Data truncated for column 'id' at row 1"));
+            MatcherAssert.assertThat("should fail", false);
+        } catch (SQLException e) {
+            MatcherAssert.assertThat(e.getMessage(), Matchers.containsString("Data truncated for column 'id'"));
+        }
+    }
+}
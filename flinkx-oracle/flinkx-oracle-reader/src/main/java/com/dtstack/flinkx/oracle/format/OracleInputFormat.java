@@ -18,14 +18,12 @@
 package com.dtstack.flinkx.oracle.format;
 
 import com.dtstack.flinkx.enums.ColumnType;
+import com.dtstack.flinkx.rdb.inputformat.ColumnExtractor;
 import com.dtstack.flinkx.rdb.inputformat.JdbcInputFormat;
 import com.dtstack.flinkx.rdb.util.DBUtil;
-import org.apache.flink.types.Row;
 
-import java.io.IOException;
 import java.sql.Timestamp;
-
-import static com.dtstack.flinkx.rdb.util.DBUtil.clobToString;
+import java.sql.Types;
 
 /**
  * Date: 2019/09/19
@@ -35,29 +33,24 @@ import static com.dtstack.flinkx.rdb.util.DBUtil.clobToString;
  */
 public class OracleInputFormat extends JdbcInputFormat {
 
-    @Override
-    public Row nextRecordInternal(Row row) throws IOException {
-        if (!hasNext) {
-            return null;
-        }
-        row = new Row(columnCount);
+    /**oracle.jdbc.OracleTypes.TIMESTAMPTZ*/
+    private static final int ORACLE_TIMESTAMP_TZ = -101;
 
-        try {
-            for (int pos = 0; pos < row.getArity(); pos++) {
-                Object obj = resultSet.getObject(pos + 1);
-                if(obj != null) {
-                    if((obj instanceof java.util.Date
-                            || obj.getClass().getSimpleName().toUpperCase().contains("TIMESTAMP")) ) {
-                        obj = resultSet.getTimestamp(pos + 1);
-                    }
-                    obj = clobToString(obj);
-                }
+    /**oracle.jdbc.OracleTypes.TIMESTAMPLTZ*/
+    private static final int ORACLE_TIMESTAMP_LTZ = -102;
 
-                row.setField(pos, obj);
-            }
-            return super.nextRecordInternal(row);
-        }catch (Exception e) {
-            throw new IOException("Couldn't read data - " + e.getMessage(), e);
+    @Override
+    protected ColumnExtractor createColumnExtractor(int columnIndex, int sqlType, boolean signed, String typeName) {
+        switch (sqlType) {
+            case Types.DATE:
+            case Types.TIME:
+            case Types.TIMESTAMP:
+            case Types.TIMESTAMP_WITH_TIMEZONE:
+            case ORACLE_TIMESTAMP_TZ:
+            case ORACLE_TIMESTAMP_LTZ:
+                return resultSet -> resultSet.getTimestamp(columnIndex);
+            default:
+                return super.createColumnExtractor(columnIndex, sqlType, signed, typeName);
         }
     }
 
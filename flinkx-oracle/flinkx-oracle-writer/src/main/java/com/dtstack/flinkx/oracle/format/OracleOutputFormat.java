@@ -18,9 +18,9 @@
 package com.dtstack.flinkx.oracle.format;
 
 import com.dtstack.flinkx.enums.ColumnType;
+import com.dtstack.flinkx.rdb.outputformat.FieldConverter;
 import com.dtstack.flinkx.rdb.outputformat.JdbcOutputFormat;
 import com.dtstack.flinkx.util.DateUtil;
-import org.apache.flink.types.Row;
 
 import java.sql.*;
 import java.text.SimpleDateFormat;
@@ -38,24 +38,25 @@ import java.util.Map;
 public class OracleOutputFormat extends JdbcOutputFormat {
 
     @Override
-    protected Object getField(Row row, int index) {
-        Object field = super.getField(row, index);
-        String type = columnType.get(index);
+    protected FieldConverter createFieldConverter(String type) {
+        FieldConverter converter = super.createFieldConverter(type);
 
         //oracle timestamp to oracle varchar or varchar2 or long field format
-        if (!(field instanceof Timestamp)){
-            return field;
-        }
-
         if (type.equalsIgnoreCase(ColumnType.VARCHAR.name()) || type.equalsIgnoreCase(ColumnType.VARCHAR2.name())){
-            SimpleDateFormat format = DateUtil.getDateTimeFormatter();
-            field= format.format(field);
+            return converter.andThen(field -> {
+                if (field instanceof Timestamp){
+                    SimpleDateFormat format = DateUtil.getDateTimeFormatter();
+                    return format.format(field);
+                }
+                return field;
+            });
         }
 
-        if (type.equalsIgnoreCase(ColumnType.LONG.name()) ){
-            field = ((Timestamp) field).getTime();
+        if (type.equalsIgnoreCase(ColumnType.LONG.name())){
+            return converter.andThen(field -> field instanceof Timestamp ? ((Timestamp) field).getTime() : field);
         }
-        return field;
+
+        return converter;
     }
 
     @Override
@@ -82,6 +82,11 @@ public class PostgresqlDatabaseMeta extends BaseDatabaseMeta {
         throw new UnsupportedOperationException("PostgreSQL not support update mode");
     }
 
+    @Override
+    public String getLimitClause(int limit) {
+        return " LIMIT " + limit;
+    }
+
     @Override
     public String getSplitFilter(String columnName) {
         return String.format(" mod(%s,${N}) = ${M}", getStartQuote() + columnName + getEndQuote());
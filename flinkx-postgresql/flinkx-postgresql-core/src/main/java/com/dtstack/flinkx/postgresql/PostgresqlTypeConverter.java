@@ -22,6 +22,7 @@ import com.dtstack.flinkx.rdb.type.TypeConverterInterface;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Function;
 
 /**
  * The type converter for PostgreSQL database
@@ -41,26 +42,35 @@ public class PostgresqlTypeConverter implements TypeConverterInterface {
 
     private List<String> intTypes = Arrays.asList("int","int2","int4","int8");
 
+    private static final Function<Object, Object> TO_DOUBLE = data -> data == null ? null : Double.parseDouble(String.valueOf(data));
+
+    private static final Function<Object, Object> TO_STRING = data -> data == null ? null : String.valueOf(data);
+
+    private static final Function<Object, Object> TO_BYTE = data -> data == null ? null : Byte.valueOf(String.valueOf(data));
+
+    private static final Function<Object, Object> TO_INT = data -> data instanceof String ? Integer.parseInt(data.toString()) : data;
+
+    private static final Function<Object, Object> IDENTITY = data -> data;
+
     @Override
     public Object convert(Object data,String typeName) {
-        if (data == null){
-            return null;
-        }
+        return getConverter(typeName).apply(data);
+    }
 
+    @Override
+    public Function<Object, Object> getConverter(String typeName) {
         if(doubleTypes.contains(typeName)){
-            data = Double.parseDouble(String.valueOf(data));
+            return TO_DOUBLE;
         } else if(bitTypes.contains(typeName)){
-            //
+            return IDENTITY;
         } else if(stringTypes.contains(typeName)){
-            data = String.valueOf(data);
+            return TO_STRING;
         } else if(byteTypes.contains(typeName)){
-            data = Byte.valueOf(String.valueOf(data));
+            return TO_BYTE;
         } else if(intTypes.contains(typeName)){
-            if(data instanceof String){
-                data = Integer.parseInt(data.toString());
-            }
+            return TO_INT;
         }
 
-        return data;
+        return IDENTITY;
     }
 }
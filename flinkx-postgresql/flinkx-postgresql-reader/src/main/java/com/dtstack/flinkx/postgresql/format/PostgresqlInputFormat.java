@@ -18,22 +18,19 @@
 
 package com.dtstack.flinkx.postgresql.format;
 
+import com.dtstack.flinkx.rdb.inputformat.ColumnExtractor;
 import com.dtstack.flinkx.rdb.inputformat.JdbcInputFormat;
 import com.dtstack.flinkx.rdb.util.DBUtil;
+import com.dtstack.flinkx.rdb.util.JdbcConnectionPool;
 import com.dtstack.flinkx.reader.MetaColumn;
 import com.dtstack.flinkx.util.ClassUtil;
-import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.flink.core.io.InputSplit;
-import org.apache.flink.types.Row;
 
 import java.io.IOException;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.ArrayList;
 
-import static com.dtstack.flinkx.rdb.util.DBUtil.clobToString;
-
 /**
  * Date: 2019/09/20
  * Company: www.dtstack.com
@@ -62,14 +59,29 @@ public class PostgresqlInputFormat extends JdbcInputFormat {
                 return;
             }
 
-            dbConn = DBUtil.getConnection(dbURL, username, password);
+            if (pageSize > 0){
+                openKeysetPages(inputSplit);
+                return;
+            }
+
+            dbConn = JdbcConnectionPool.getConnection(dbURL, username, password);
+
+            // 流式读取时同一个连接上不能执行其它查询，先获取字段类型
+            if (StringUtils.isEmpty(customSql)){
+                descColumnTypeList = DBUtil.analyzeTable(dbConn, dbURL, username, databaseInterface, table, metaColumns);
+            } else {
+                descColumnTypeList = new ArrayList<>();
+                for (MetaColumn metaColumn : metaColumns) {
+                    descColumnTypeList.add(metaColumn.getName());
+                }
+            }
 
             // 部分驱动需要关闭事务自动提交，fetchSize参数才会起作用
             dbConn.setAutoCommit(false);
 
             // 读取前先提交事务，确保程序异常退出时，下次再读取PG时的顺序不变
             dbConn.commit();
-            Statement statement = dbConn.createStatement(resultSetType, resultSetConcurrency);
+            statement = dbConn.createStatement(resultSetType, resultSetConcurrency);
             statement.setFetchSize(fetchSize);
             statement.setQueryTimeout(queryTimeOut);
             String querySql = buildQuerySql(inputSplit);
@@ -83,14 +95,7 @@ public class PostgresqlInputFormat extends JdbcInputFormat {
 
             hasNext = resultSet.next();
 
-            if (StringUtils.isEmpty(customSql)){
-                descColumnTypeList = DBUtil.analyzeTable(dbURL, username, password,databaseInterface,table,metaColumns);
-            } else {
-                descColumnTypeList = new ArrayList<>();
-                for (MetaColumn metaColumn : metaColumns) {
-                    descColumnTypeList.add(metaColumn.getName());
-                }
-            }
+            buildExtractionPlan(resultSet.getMetaData());
 
         } catch (SQLException se) {
             throw new IllegalArgumentException("open() failed." + se.getMessage(), se);
@@ -100,27 +105,13 @@ public class PostgresqlInputFormat extends JdbcInputFormat {
     }
 
     @Override
-    public Row nextRecordInternal(Row row) throws IOException {
-        if (!hasNext) {
-            return null;
+    protected ColumnExtractor createColumnExtractor(int columnIndex, int sqlType, boolean signed, String typeName) {
+        ColumnExtractor extractor = super.createColumnExtractor(columnIndex, sqlType, signed, typeName);
+        if(typeName == null) {
+            return extractor;
         }
-        row = new Row(columnCount);
 
-        try {
-            for (int pos = 0; pos < row.getArity(); pos++) {
-                Object obj = resultSet.getObject(pos + 1);
-                if(obj != null) {
-                    if(CollectionUtils.isNotEmpty(descColumnTypeList)) {
-                        obj = typeConverter.convert(obj,descColumnTypeList.get(pos));
-                    }
-                    obj = clobToString(obj);
-                }
-
-                row.setField(pos, obj);
-            }
-            return super.nextRecordInternal(row);
-        }catch (Exception e) {
-            throw new IOException("Couldn't read data - " + e.getMessage(), e);
-        }
+        return extractor.andThen(typeConverter.getConverter(typeName));
     }
+
 }
@@ -39,6 +39,7 @@ public class PostgresqlQuerySqlBuilder extends QuerySqlBuilder {
     protected String buildQuerySql(){
         List<String> selectColumns = buildSelectColumns(databaseInterface, metaColumns);
         boolean splitWithRowNum = addRowNumColumn(databaseInterface, selectColumns, isSplitByKey, splitKey);
+        addKeysetColumn(selectColumns);
 
         StringBuilder sb = new StringBuilder();
         sb.append("SELECT ").append(StringUtils.join(selectColumns,",")).append(" FROM ");
@@ -48,7 +49,7 @@ public class PostgresqlQuerySqlBuilder extends QuerySqlBuilder {
         StringBuilder filter = new StringBuilder();
 
         if(isSplitByKey && !splitWithRowNum) {
-            filter.append(" AND ").append(databaseInterface.getSplitFilter(splitKey));
+            filter.append(" AND ").append(buildSplitFilter());
         }
 
         if (customFilter != null){
@@ -64,6 +64,8 @@ public class PostgresqlReader extends JdbcDataReader {
         builder.setSplitKey(splitKey);
         builder.setNumPartitions(numPartitions);
         builder.setCustomSql(customSql);
+        builder.setPageSize(pageSize);
+        builder.setPrefetchPage(prefetchPage);
         builder.setRestoreConfig(restoreConfig);
         builder.setHadoopConfig(hadoopConfig);
 
@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.flinkx.postgresql.format;
+
+import com.dtstack.flinkx.rdb.inputformat.ColumnExtractor;
+import com.dtstack.flinkx.reader.MetaColumn;
+import com.dtstack.flinkx.postgresql.PostgresqlTypeConverter;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Clob;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+public class PostgresqlInputFormatTest {
+
+    @Test
+    public void testExtractNull() throws Exception {
+        PlanFormat format = new PlanFormat();
+        MatcherAssert.assertThat(format.createColumnExtractor(1, Types.DOUBLE, true, "money").extract(resultSet((Object) null)), Matchers.nullValue());
+        MatcherAssert.assertThat(format.createColumnExtractor(1, Types.OTHER, true, "uuid").extract(resultSet((Object) null)), Matchers.nullValue());
+        MatcherAssert.assertThat(format.createColumnExtractor(1, Types.INTEGER, true, "int4").extract(resultSet((Object) null)), Matchers.nullValue());
+        MatcherAssert.assertThat(format.createColumnExtractor(1, Types.BIGINT, true, null).extract(resultSet((Object) null)), Matchers.nullValue());
+    }
+
+    @Test
+    public void testExtractByTypeName() throws Exception {
+        PlanFormat format = new PlanFormat();
+        MatcherAssert.assertThat(format.createColumnExtractor(1, Types.OTHER, true, "money").extract(resultSet("12.5")), Matchers.equalTo((Object) 12.5D));
+        MatcherAssert.assertThat(format.createColumnExtractor(1, Types.NUMERIC, true, "money").extract(resultSet(new BigDecimal("12.5"))), Matchers.equalTo((Object) 12.5D));
+
+        UUID uuid = UUID.randomUUID();
+        MatcherAssert.assertThat(format.createColumnExtractor(1, Types.OTHER, true, "uuid").extract(resultSet(uuid)), Matchers.equalTo((Object) uuid.toString()));
+        MatcherAssert.assertThat(format.createColumnExtractor(1, Types.INTEGER, true, "int4").extract(resultSet(3)), Matchers.equalTo((Object) 3));
+    }
+
+    @Test
+    public void testExtractClobAndTimestamp() throws Exception {
+        PlanFormat format = new PlanFormat();
+        MatcherAssert.assertThat(format.createColumnExtractor(1, Types.CLOB, true, "text").extract(resultSet(clob("text"))), Matchers.equalTo((Object) "text"));
+        MatcherAssert.assertThat(format.createColumnExtractor(1, Types.VARCHAR, true, "text").extract(resultSet(clob("text"))), Matchers.equalTo((Object) "text"));
+
+        Timestamp timestamp = Timestamp.valueOf("2020-01-02 03:04:05.123456");
+        MatcherAssert.assertThat(format.createColumnExtractor(1, Types.TIMESTAMP, true, "timestamp").extract(resultSet(timestamp)), Matchers.equalTo((Object) timestamp));
+    }
+
+    @Test
+    public void testMetaColumnConstant() throws Exception {
+        PlanFormat format = new PlanFormat();
+        ColumnExtractor[] extractors = format.plan(Collections.singletonList("timestamp"), metaColumn("timestamp", "2020-01-02 03:04:05"), Types.TIMESTAMP);
+
+        Object first = extractors[0].extract(resultSet((Object) null));
+        Object second = extractors[0].extract(resultSet((Object) null));
+        MatcherAssert.assertThat(first, Matchers.instanceOf(Timestamp.class));
+        MatcherAssert.assertThat(second, Matchers.allOf(Matchers.equalTo(first), Matchers.not(Matchers.sameInstance(first))));
+
+        // 字段有值时不使用常量
+        Timestamp timestamp = Timestamp.valueOf("2021-01-02 03:04:05");
+        MatcherAssert.assertThat(extractors[0].extract(resultSet(timestamp)), Matchers.equalTo((Object) timestamp));
+    }
+
+    /**
+     * 通过子类设置类型转换器并调用buildExtractionPlan
+     */
+    private static class PlanFormat extends PostgresqlInputFormat {
+
+        PlanFormat() {
+            typeConverter = new PostgresqlTypeConverter();
+        }
+
+        ColumnExtractor[] plan(List<String> typeNames, MetaColumn metaColumn, int sqlType) throws SQLException {
+            descColumnTypeList = typeNames;
+            metaColumns = Collections.singletonList(metaColumn);
+            columnCount = 1;
+            buildExtractionPlan(metaData(sqlType));
+            return columnExtractors;
+        }
+    }
+
+    private static MetaColumn metaColumn(String type, String value) {
+        MetaColumn metaColumn = new MetaColumn();
+        metaColumn.setName("c");
+        metaColumn.setType(type);
+        metaColumn.setValue(value);
+        return metaColumn;
+    }
+
+    private static ResultSetMetaData metaData(int sqlType) {
+        return (ResultSetMetaData) Proxy.newProxyInstance(PostgresqlInputFormatTest.class.getClassLoader(), new Class[]{ResultSetMetaData.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getColumnType":
+                            return sqlType;
+                        case "isSigned":
+                            return true;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private Clob clob(String text) {
+        return (Clob) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{Clob.class},
+                (proxy, method, args) -> {
+                    if ("getCharacterStream".equals(method.getName())) {
+                        return new StringReader(text);
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private ResultSet resultSet(Object... values) {
+        Object[] lastValue = new Object[1];
+        return (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "wasNull":
+                            return lastValue[0] == null;
+                        case "getObject":
+                            lastValue[0] = values[(Integer) args[0] - 1];
+                            return lastValue[0];
+                        case "getInt":
+                            lastValue[0] = values[(Integer) args[0] - 1];
+                            return lastValue[0] == null ? 0 : ((Number) lastValue[0]).intValue();
+                        case "getLong":
+                            lastValue[0] = values[(Integer) args[0] - 1];
+                            return lastValue[0] == null ? 0L : ((Number) lastValue[0]).longValue();
+                        case "getDouble":
+                            lastValue[0] = values[(Integer) args[0] - 1];
+                            return lastValue[0] == null ? 0D : ((Number) lastValue[0]).doubleValue();
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}
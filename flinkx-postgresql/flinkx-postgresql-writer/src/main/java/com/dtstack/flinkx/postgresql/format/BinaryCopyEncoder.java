@@ -0,0 +1,367 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dtstack.flinkx.postgresql.format;
+
+import com.dtstack.flinkx.util.DateUtil;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * binary格式的COPY编码，省去服务端解析文本的开销。
+ * 每个字段的编码方式在构造时根据字段类型确定，不支持的类型直接报错，需改用text格式
+ *
+ * Company: www.dtstack.com
+ */
+public class BinaryCopyEncoder implements CopyEncoder {
+
+    private static final byte[] SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0};
+
+    /** 2000-01-01 00:00:00 UTC，PostgreSQL日期时间的起点 */
+    private static final long PG_EPOCH_SECONDS = 946684800L;
+
+    private static final long PG_EPOCH_DAYS = 10957L;
+
+    private static final int NUMERIC_POS = 0x0000;
+
+    private static final int NUMERIC_NEG = 0x4000;
+
+    private static final int JSONB_VERSION = 1;
+
+    private final FieldWriter[] fieldWriters;
+
+    public BinaryCopyEncoder(List<String> columnTypes) {
+        fieldWriters = new FieldWriter[columnTypes.size()];
+        for (int i = 0; i < columnTypes.size(); i++) {
+            fieldWriters[i] = createFieldWriter(columnTypes.get(i));
+        }
+    }
+
+    @Override
+    public String copyOptions() {
+        return "WITH BINARY";
+    }
+
+    @Override
+    public void writeHeader(CopyBuffer buffer) {
+        buffer.writeBytes(SIGNATURE);
+        // flags
+        buffer.writeInt(0);
+        // header extension length
+        buffer.writeInt(0);
+    }
+
+    @Override
+    public void writeTrailer(CopyBuffer buffer) {
+        buffer.writeShort(-1);
+    }
+
+    @Override
+    public void startRow(CopyBuffer buffer, int arity) {
+        buffer.writeShort(arity);
+    }
+
+    @Override
+    public void writeField(CopyBuffer buffer, int index, Object value) {
+        if (value == null) {
+            buffer.writeInt(-1);
+        } else {
+            fieldWriters[index].write(buffer, value);
+        }
+    }
+
+    @Override
+    public void endRow(CopyBuffer buffer) {
+        // binary格式没有行结束符
+    }
+
+    private FieldWriter createFieldWriter(String type) {
+        switch (type.toLowerCase(Locale.ENGLISH)) {
+            case "bool":
+            case "boolean":
+                return (buffer, value) -> {
+                    buffer.writeInt(1);
+                    buffer.writeByte(toBoolean(value) ? 1 : 0);
+                };
+            case "int2":
+            case "smallint":
+            case "smallserial":
+                return (buffer, value) -> {
+                    buffer.writeInt(2);
+                    buffer.writeShort((int) toLong(value));
+                };
+            case "int":
+            case "int4":
+            case "integer":
+            case "serial":
+                return (buffer, value) -> {
+                    buffer.writeInt(4);
+                    buffer.writeInt((int) toLong(value));
+                };
+            case "int8":
+            case "bigint":
+            case "bigserial":
+                return (buffer, value) -> {
+                    buffer.writeInt(8);
+                    buffer.writeLong(toLong(value));
+                };
+            case "float4":
+            case "real":
+                return (buffer, value) -> {
+                    buffer.writeInt(4);
+                    buffer.writeInt(Float.floatToIntBits((float) toDouble(value)));
+                };
+            case "float8":
+            case "double precision":
+                return (buffer, value) -> {
+                    buffer.writeInt(8);
+                    buffer.writeLong(Double.doubleToLongBits(toDouble(value)));
+                };
+            case "numeric":
+            case "decimal":
+                return (buffer, value) -> writeNumeric(buffer, toBigDecimal(value));
+            case "varchar":
+            case "text":
+            case "bpchar":
+            case "char":
+            case "name":
+            case "json":
+            case "xml":
+                return (buffer, value) -> writeText(buffer, String.valueOf(value), false);
+            case "jsonb":
+                return (buffer, value) -> writeText(buffer, String.valueOf(value), true);
+            case "bytea":
+                return (buffer, value) -> {
+                    byte[] bytes = toBytes(value);
+                    buffer.writeInt(bytes.length);
+                    buffer.writeBytes(bytes);
+                };
+            case "uuid":
+                return (buffer, value) -> {
+                    UUID uuid = value instanceof UUID ? (UUID) value : UUID.fromString(String.valueOf(value).trim());
+                    buffer.writeInt(16);
+                    buffer.writeLong(uuid.getMostSignificantBits());
+                    buffer.writeLong(uuid.getLeastSignificantBits());
+                };
+            case "date":
+                return (buffer, value) -> {
+                    buffer.writeInt(4);
+                    buffer.writeInt((int) (toLocalDate(value).toEpochDay() - PG_EPOCH_DAYS));
+                };
+            case "time":
+                return (buffer, value) -> {
+                    buffer.writeInt(8);
+                    buffer.writeLong(toLocalTime(value).toNanoOfDay() / 1000);
+                };
+            case "timestamp":
+                return (buffer, value) -> {
+                    LocalDateTime dateTime = toTimestamp(value).toLocalDateTime();
+                    buffer.writeInt(8);
+                    buffer.writeLong((dateTime.toEpochSecond(ZoneOffset.UTC) - PG_EPOCH_SECONDS) * 1000000L
+                            + dateTime.getNano() / 1000);
+                };
+            case "timestamptz":
+                return (buffer, value) -> {
+                    Timestamp timestamp = toTimestamp(value);
+                    buffer.writeInt(8);
+                    buffer.writeLong((Math.floorDiv(timestamp.getTime(), 1000L) - PG_EPOCH_SECONDS) * 1000000L
+                            + timestamp.getNanos() / 1000);
+                };
+            default:
+                throw new IllegalArgumentException("Binary copy does not support column type:" + type
+                        + ", please use copyFormat text");
+        }
+    }
+
+    private static void writeText(CopyBuffer buffer, String str, boolean jsonb) {
+        byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+        if (jsonb) {
+            buffer.writeInt(bytes.length + 1);
+            buffer.writeByte(JSONB_VERSION);
+        } else {
+            buffer.writeInt(bytes.length);
+        }
+        buffer.writeBytes(bytes);
+    }
+
+    /**
+     * numeric的二进制格式：以10000为基数的数字组，weight为第一组的指数，dscale为小数位数
+     */
+    static void writeNumeric(CopyBuffer buffer, BigDecimal value) {
+        int sign = value.signum() < 0 ? NUMERIC_NEG : NUMERIC_POS;
+        BigDecimal abs = value.abs();
+        if (abs.scale() < 0) {
+            abs = abs.setScale(0);
+        }
+        int dscale = abs.scale();
+
+        String plain = abs.toPlainString();
+        int point = plain.indexOf('.');
+        String intPart = point < 0 ? plain : plain.substring(0, point);
+        String fracPart = point < 0 ? "" : plain.substring(point + 1);
+
+        int intLength = intPart.length();
+        int intGroups = (intLength + 3) / 4;
+        int fracGroups = (fracPart.length() + 3) / 4;
+        short[] digits = new short[intGroups + fracGroups];
+
+        // 整数部分从左侧补齐到4的倍数
+        int offset = intGroups * 4 - intLength;
+        for (int g = 0; g < intGroups; g++) {
+            int start = Math.max(0, g * 4 - offset);
+            int end = (g + 1) * 4 - offset;
+            digits[g] = Short.parseShort(intPart.substring(start, end));
+        }
+        // 小数部分从右侧补齐到4的倍数
+        for (int g = 0; g < fracGroups; g++) {
+            int start = g * 4;
+            int end = Math.min(start + 4, fracPart.length());
+            int group = Integer.parseInt(fracPart.substring(start, end));
+            for (int i = end - start; i < 4; i++) {
+                group *= 10;
+            }
+            digits[intGroups + g] = (short) group;
+        }
+
+        int first = 0;
+        while (first < digits.length && digits[first] == 0) {
+            first++;
+        }
+        int last = digits.length - 1;
+        while (last >= first && digits[last] == 0) {
+            last--;
+        }
+
+        int ndigits = last - first + 1;
+        int weight = ndigits == 0 ? 0 : intGroups - 1 - first;
+        if (ndigits == 0) {
+            sign = NUMERIC_POS;
+        }
+
+        buffer.writeInt(8 + ndigits * 2);
+        buffer.writeShort(ndigits);
+        buffer.writeShort(weight);
+        buffer.writeShort(sign);
+        buffer.writeShort(dscale);
+        for (int i = first; i <= last; i++) {
+            buffer.writeShort(digits[i]);
+        }
+    }
+
+    private static boolean toBoolean(Object value) {
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        } else if (value instanceof Number) {
+            return ((Number) value).intValue() != 0;
+        }
+
+        String str = String.valueOf(value).trim().toLowerCase(Locale.ENGLISH);
+        switch (str) {
+            case "t":
+            case "true":
+            case "y":
+            case "yes":
+            case "on":
+            case "1":
+                return true;
+            case "f":
+            case "false":
+            case "n":
+            case "no":
+            case "off":
+            case "0":
+                return false;
+            default:
+                throw new IllegalArgumentException("Can not convert value to boolean:" + str);
+        }
+    }
+
+    private static long toLong(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        } else if (value instanceof Boolean) {
+            return (Boolean) value ? 1L : 0L;
+        }
+        return Long.parseLong(String.valueOf(value).trim());
+    }
+
+    private static double toDouble(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        return Double.parseDouble(String.valueOf(value).trim());
+    }
+
+    private static BigDecimal toBigDecimal(Object value) {
+        if (value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        }
+        return new BigDecimal(String.valueOf(value).trim());
+    }
+
+    private static byte[] toBytes(Object value) {
+        if (value instanceof byte[]) {
+            return (byte[]) value;
+        } else if (value instanceof Byte) {
+            return new byte[]{(Byte) value};
+        }
+        return String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Timestamp toTimestamp(Object value) {
+        if (value instanceof Timestamp) {
+            return (Timestamp) value;
+        }
+        return DateUtil.columnToTimestamp(value, null);
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        if (value instanceof java.sql.Date) {
+            return ((java.sql.Date) value).toLocalDate();
+        } else if (value instanceof java.util.Date) {
+            return new java.sql.Date(((java.util.Date) value).getTime()).toLocalDate();
+        }
+        return DateUtil.columnToDate(value, null).toLocalDate();
+    }
+
+    private static LocalTime toLocalTime(Object value) {
+        if (value instanceof Time) {
+            return ((Time) value).toLocalTime();
+        } else if (value instanceof Timestamp) {
+            return ((Timestamp) value).toLocalDateTime().toLocalTime();
+        }
+        return LocalTime.parse(String.valueOf(value).trim());
+    }
+
+    @FunctionalInterface
+    private interface FieldWriter {
+        /**
+         * 写入字段长度和字段内容，value不为null
+         */
+        void write(CopyBuffer buffer, Object value);
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dtstack.flinkx.postgresql.format;
+
+import java.util.Arrays;
+
+/**
+ * COPY数据的发送缓冲区，按网络字节序写入，发送后调用reset复用底层数组，
+ * 避免每批数据都重新拼接字符串并转换为字节数组
+ *
+ * Company: www.dtstack.com
+ */
+public class CopyBuffer {
+
+    private byte[] buf;
+
+    private int count;
+
+    public CopyBuffer(int initialSize) {
+        buf = new byte[initialSize];
+    }
+
+    public byte[] getBuffer() {
+        return buf;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public void reset() {
+        count = 0;
+    }
+
+    public void writeByte(int b) {
+        ensureCapacity(count + 1);
+        buf[count++] = (byte) b;
+    }
+
+    public void writeShort(int v) {
+        ensureCapacity(count + 2);
+        buf[count++] = (byte) (v >>> 8);
+        buf[count++] = (byte) v;
+    }
+
+    public void writeInt(int v) {
+        ensureCapacity(count + 4);
+        buf[count++] = (byte) (v >>> 24);
+        buf[count++] = (byte) (v >>> 16);
+        buf[count++] = (byte) (v >>> 8);
+        buf[count++] = (byte) v;
+    }
+
+    public void writeLong(long v) {
+        writeInt((int) (v >>> 32));
+        writeInt((int) v);
+    }
+
+    public void writeBytes(byte[] bytes) {
+        writeBytes(bytes, 0, bytes.length);
+    }
+
+    public void writeBytes(byte[] bytes, int off, int len) {
+        ensureCapacity(count + len);
+        System.arraycopy(bytes, off, buf, count, len);
+        count += len;
+    }
+
+    public void writeAscii(String str) {
+        int len = str.length();
+        ensureCapacity(count + len);
+        for (int i = 0; i < len; i++) {
+            buf[count++] = (byte) str.charAt(i);
+        }
+    }
+
+    private void ensureCapacity(int minCapacity) {
+        if (minCapacity > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length << 1, minCapacity));
+        }
+    }
+}
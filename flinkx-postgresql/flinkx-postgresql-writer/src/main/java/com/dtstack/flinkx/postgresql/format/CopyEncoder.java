@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dtstack.flinkx.postgresql.format;
+
+/**
+ * 把Row编码为COPY FROM STDIN的数据流，text和binary两种格式各有一个实现
+ *
+ * Company: www.dtstack.com
+ */
+public interface CopyEncoder {
+
+    /**
+     * 返回COPY语句中的格式选项
+     * @return 追加在COPY语句之后的选项
+     */
+    String copyOptions();
+
+    /**
+     * 每次COPY开始时写入的数据头
+     */
+    void writeHeader(CopyBuffer buffer);
+
+    /**
+     * 每次COPY结束前写入的数据尾
+     */
+    void writeTrailer(CopyBuffer buffer);
+
+    void startRow(CopyBuffer buffer, int arity);
+
+    /**
+     * 写入一个字段，value为null时写入COPY的NULL标记
+     * @param buffer 发送缓冲区
+     * @param index 字段下标
+     * @param value 已经过字段转换器转换的值
+     */
+    void writeField(CopyBuffer buffer, int index, Object value);
+
+    void endRow(CopyBuffer buffer);
+}
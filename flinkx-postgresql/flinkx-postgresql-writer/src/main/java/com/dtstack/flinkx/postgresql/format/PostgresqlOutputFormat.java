@@ -19,18 +19,27 @@ package com.dtstack.flinkx.postgresql.format;
 
 import com.dtstack.flinkx.enums.EWriteMode;
 import com.dtstack.flinkx.exception.WriteRecordException;
+import com.dtstack.flinkx.rdb.outputformat.FieldConverter;
 import com.dtstack.flinkx.rdb.outputformat.JdbcOutputFormat;
 import com.google.common.base.Strings;
 import org.apache.flink.types.Row;
+import org.postgresql.copy.CopyIn;
 import org.postgresql.copy.CopyManager;
 import org.postgresql.core.BaseConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayInputStream;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.function.Function;
 
 /**
  * when  postgresql with mode insert, it use 'copy tableName(columnName) from stdin' syntax
+ *
+ * 断点续传时一个checkpoint周期内的数据写入同一个COPY，在getFormatState提交事务前结束COPY；
+ * 否则每批数据结束一次COPY。数据编码到可复用的缓冲区中，攒够一定大小后发送
+ *
  * Date: 2019/8/5
  * Company: www.dtstack.com
  * @author xuchao
@@ -38,21 +47,34 @@ import java.sql.SQLException;
 
 public class PostgresqlOutputFormat extends JdbcOutputFormat {
 
-    private static final String COPY_SQL_TEMPL = "copy %s(%s) from stdin DELIMITER '%s'";
+    private static final Logger LOG = LoggerFactory.getLogger(PostgresqlOutputFormat.class);
 
-    private static final String DEFAULT_FIELD_DELIM = "\001";
+    private static final String COPY_SQL_TEMPL = "copy %s(%s) from stdin %s";
 
-    private static final String LINE_DELIMITER = "\n";
+    private static final char DEFAULT_FIELD_DELIM = '\001';
 
     /**
      * now just add ext insert mode:copy
      */
     private static final String INSERT_SQL_MODE_TYPE = "copy";
 
+    private static final String COPY_FORMAT_TEXT = "text";
+
+    private static final String COPY_FORMAT_BINARY = "binary";
+
+    /**缓冲区中的数据超过该大小时发送给数据库*/
+    private static final int COPY_FLUSH_SIZE = 64 * 1024;
+
     private String copySql = "";
 
-    private CopyManager copyManager;
+    private transient CopyManager copyManager;
+
+    private transient CopyEncoder copyEncoder;
 
+    private transient CopyBuffer copyBuffer;
+
+    /**断点续传时跨批次保持的COPY，提交事务前结束*/
+    private transient CopyIn copyIn;
 
     @Override
     protected PreparedStatement prepareTemplates() throws SQLException {
@@ -63,7 +85,9 @@ public class PostgresqlOutputFormat extends JdbcOutputFormat {
         //check is use copy mode for insert
         if (EWriteMode.INSERT.name().equalsIgnoreCase(mode) && checkIsCopyMode(insertSqlMode)) {
             copyManager = new CopyManager((BaseConnection) dbConn);
-            copySql = String.format(COPY_SQL_TEMPL, table, String.join(",", column), DEFAULT_FIELD_DELIM);
+            copyEncoder = createCopyEncoder();
+            copyBuffer = new CopyBuffer(COPY_FLUSH_SIZE + COPY_FLUSH_SIZE / 4);
+            copySql = String.format(COPY_SQL_TEMPL, table, String.join(",", column), copyEncoder.copyOptions());
             return null;
         }
 
@@ -77,61 +101,171 @@ public class PostgresqlOutputFormat extends JdbcOutputFormat {
             return;
         }
 
-        //write with copy
+        //write with copy，单条数据使用独立的COPY，出错时只影响当前数据
         int index = 0;
         try {
-            StringBuilder sb = new StringBuilder();
+            endCopy();
+
+            copyBuffer.reset();
+            copyEncoder.writeHeader(copyBuffer);
+            copyEncoder.startRow(copyBuffer, row.getArity());
             for (; index < row.getArity(); index++) {
-                Object rowData = getField(row, index);
-                sb.append(rowData)
-                        .append(DEFAULT_FIELD_DELIM);
+                copyEncoder.writeField(copyBuffer, index, getField(row, index));
             }
+            copyEncoder.endRow(copyBuffer);
+            copyEncoder.writeTrailer(copyBuffer);
 
-            String rowVal = sb.toString();
-            ByteArrayInputStream bi = new ByteArrayInputStream(rowVal.getBytes());
-            copyManager.copyIn(copySql, bi);
+            CopyIn singleCopy = copyManager.copyIn(copySql);
+            try {
+                singleCopy.writeToCopy(copyBuffer.getBuffer(), 0, copyBuffer.size());
+                singleCopy.endCopy();
+            } finally {
+                cancelCopy(singleCopy);
+                copyBuffer.reset();
+            }
         } catch (Exception e) {
             processWriteException(e, index, row);
         }
     }
 
     @Override
-    protected void writeMultipleRecordsInternal() throws Exception {
+    protected void writeMultipleRecordsInternal(List<Row> batch) throws Exception {
         if(!checkIsCopyMode(insertSqlMode)){
-            super.writeMultipleRecordsInternal();
+            super.writeMultipleRecordsInternal(batch);
             return;
         }
 
-        StringBuilder sb = new StringBuilder(128);
-        for (Row row : rows) {
-            int lastIndex = row.getArity() - 1;
-            for (int index =0; index < row.getArity(); index++) {
-                Object rowData = getField(row, index);
-                sb.append(rowData);
-                if(index != lastIndex){
-                    sb.append(DEFAULT_FIELD_DELIM);
+        try {
+            if (copyIn == null) {
+                copyIn = copyManager.copyIn(copySql);
+                copyBuffer.reset();
+                copyEncoder.writeHeader(copyBuffer);
+            }
+
+            for (Row row : batch) {
+                copyEncoder.startRow(copyBuffer, row.getArity());
+                for (int index = 0; index < row.getArity(); index++) {
+                    copyEncoder.writeField(copyBuffer, index, getField(row, index));
+                }
+                copyEncoder.endRow(copyBuffer);
+                trackLastRow(row);
+
+                if (copyBuffer.size() >= COPY_FLUSH_SIZE) {
+                    flushCopyBuffer();
                 }
             }
 
-            sb.append(LINE_DELIMITER);
+            if(restoreConfig.isRestore()){
+                flushCopyBuffer();
+                rowsOfCurrentTransaction += batch.size();
+            } else {
+                endCopy();
+            }
+        } catch (Exception e) {
+            cancelCopy(copyIn);
+            copyIn = null;
+            copyBuffer.reset();
+
+            if (restoreConfig.isRestore()){
+                LOG.warn("writeMultipleRecordsInternal:Start rollback");
+                dbConn.rollback();
+                LOG.warn("writeMultipleRecordsInternal:Rollback success");
+            }
+
+            throw e;
+        }
+    }
+
+    @Override
+    protected void flushBeforeCommit() throws Exception {
+        if(!checkIsCopyMode(insertSqlMode)){
+            super.flushBeforeCommit();
+            return;
         }
 
-        String rowVal = sb.toString();
-        ByteArrayInputStream bi = new ByteArrayInputStream(rowVal.getBytes());
-        copyManager.copyIn(copySql, bi);
+        endCopy();
+    }
 
-        if(restoreConfig.isRestore()){
-            rowsOfCurrentTransaction += rows.size();
+    @Override
+    protected void beforeCloseInternal() {
+        // postSql需要在COPY结束后执行
+        try {
+            endCopy();
+        } catch (SQLException e) {
+            throw new RuntimeException("End copy error:", e);
         }
+
+        super.beforeCloseInternal();
     }
 
     @Override
-    protected Object getField(Row row, int index) {
-        Object field = super.getField(row, index);
-        String type = columnType.get(index);
-        field = typeConverter.convert(field,type);
+    public void closeInternal() {
+        if (copyIn != null) {
+            try {
+                endCopy();
+            } catch (SQLException e) {
+                LOG.error("End copy error:{}", e.getMessage());
+                cancelCopy(copyIn);
+                copyIn = null;
+            }
+        }
+
+        super.closeInternal();
+    }
+
+    private void flushCopyBuffer() throws SQLException {
+        if (copyBuffer.size() > 0) {
+            copyIn.writeToCopy(copyBuffer.getBuffer(), 0, copyBuffer.size());
+            copyBuffer.reset();
+        }
+    }
+
+    /**
+     * 发送剩余数据并结束当前的COPY
+     */
+    private void endCopy() throws SQLException {
+        if (copyIn == null) {
+            return;
+        }
+
+        try {
+            copyEncoder.writeTrailer(copyBuffer);
+            flushCopyBuffer();
+            long rowCount = copyIn.endCopy();
+            LOG.debug("copy end, rows:{}", rowCount);
+        } finally {
+            cancelCopy(copyIn);
+            copyIn = null;
+            copyBuffer.reset();
+        }
+    }
+
+    private void cancelCopy(CopyIn copy) {
+        if (copy == null || !copy.isActive()) {
+            return;
+        }
+
+        try {
+            copy.cancelCopy();
+        } catch (SQLException e) {
+            LOG.warn("Cancel copy error:{}", e.getMessage());
+        }
+    }
+
+    private CopyEncoder createCopyEncoder() {
+        if (Strings.isNullOrEmpty(copyFormat) || COPY_FORMAT_TEXT.equalsIgnoreCase(copyFormat)) {
+            return new TextCopyEncoder(DEFAULT_FIELD_DELIM);
+        } else if (COPY_FORMAT_BINARY.equalsIgnoreCase(copyFormat)) {
+            return new BinaryCopyEncoder(columnType);
+        }
 
-        return field;
+        throw new IllegalArgumentException("not support copyFormat:" + copyFormat);
+    }
+
+    @Override
+    protected FieldConverter createFieldConverter(String type) {
+        Function<Object, Object> converter = typeConverter.getConverter(type);
+        return super.createFieldConverter(type).andThen(converter::apply);
     }
 
     private boolean checkIsCopyMode(String insertMode){
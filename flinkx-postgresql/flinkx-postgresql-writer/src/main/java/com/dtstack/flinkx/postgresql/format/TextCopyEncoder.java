@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dtstack.flinkx.postgresql.format;
+
+/**
+ * text格式的COPY编码，对反斜杠、换行、回车和分隔符做转义，null写为\N，
+ * 保证字段中包含这些字符时不会错位或被当作字符串"null"写入
+ *
+ * Company: www.dtstack.com
+ */
+public class TextCopyEncoder implements CopyEncoder {
+
+    private static final String NULL_VALUE = "\\N";
+
+    private static final char[] HEX_CHARS = "0123456789abcdef".toCharArray();
+
+    /**COPY的text格式默认使用\N表示null，这里只需要指定分隔符*/
+    private static final String OPTIONS_TEMPL = "DELIMITER E'\\%03o'";
+
+    private final char delimiter;
+
+    public TextCopyEncoder(char delimiter) {
+        if (delimiter == '\\' || delimiter == '\n' || delimiter == '\r' || delimiter > 0x7F) {
+            throw new IllegalArgumentException("Illegal copy delimiter:" + (int) delimiter);
+        }
+
+        this.delimiter = delimiter;
+    }
+
+    @Override
+    public String copyOptions() {
+        return String.format(OPTIONS_TEMPL, (int) delimiter);
+    }
+
+    @Override
+    public void writeHeader(CopyBuffer buffer) {
+        // text格式没有数据头
+    }
+
+    @Override
+    public void writeTrailer(CopyBuffer buffer) {
+        // text格式没有数据尾
+    }
+
+    @Override
+    public void startRow(CopyBuffer buffer, int arity) {
+        // nothing
+    }
+
+    @Override
+    public void writeField(CopyBuffer buffer, int index, Object value) {
+        if (index > 0) {
+            buffer.writeByte(delimiter);
+        }
+
+        if (value == null) {
+            buffer.writeAscii(NULL_VALUE);
+        } else if (value instanceof byte[]) {
+            // bytea的hex格式，反斜杠本身需要转义
+            byte[] bytes = (byte[]) value;
+            buffer.writeAscii("\\\\x");
+            for (byte b : bytes) {
+                buffer.writeByte(HEX_CHARS[(b >> 4) & 0xF]);
+                buffer.writeByte(HEX_CHARS[b & 0xF]);
+            }
+        } else {
+            writeEscaped(buffer, String.valueOf(value));
+        }
+    }
+
+    @Override
+    public void endRow(CopyBuffer buffer) {
+        buffer.writeByte('\n');
+    }
+
+    private void writeEscaped(CopyBuffer buffer, String str) {
+        int len = str.length();
+        for (int i = 0; i < len; i++) {
+            char c = str.charAt(i);
+            if (c < 0x80) {
+                if (c == '\\') {
+                    buffer.writeByte('\\');
+                    buffer.writeByte('\\');
+                } else if (c == '\n') {
+                    buffer.writeByte('\\');
+                    buffer.writeByte('n');
+                } else if (c == '\r') {
+                    buffer.writeByte('\\');
+                    buffer.writeByte('r');
+                } else if (c == delimiter) {
+                    buffer.writeByte('\\');
+                    buffer.writeByte(c);
+                } else {
+                    buffer.writeByte(c);
+                }
+            } else if (c < 0x800) {
+                buffer.writeByte(0xC0 | (c >> 6));
+                buffer.writeByte(0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(str.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, str.charAt(++i));
+                buffer.writeByte(0xF0 | (codePoint >> 18));
+                buffer.writeByte(0x80 | ((codePoint >> 12) & 0x3F));
+                buffer.writeByte(0x80 | ((codePoint >> 6) & 0x3F));
+                buffer.writeByte(0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                buffer.writeByte('?');
+            } else {
+                buffer.writeByte(0xE0 | (c >> 12));
+                buffer.writeByte(0x80 | ((c >> 6) & 0x3F));
+                buffer.writeByte(0x80 | (c & 0x3F));
+            }
+        }
+    }
+}
@@ -26,7 +26,6 @@ import com.dtstack.flinkx.rdb.datawriter.JdbcDataWriter;
 import com.dtstack.flinkx.rdb.outputformat.JdbcOutputFormatBuilder;
 import org.apache.flink.streaming.api.datastream.DataStream;
 import org.apache.flink.streaming.api.datastream.DataStreamSink;
-import org.apache.flink.streaming.api.functions.sink.OutputFormatSinkFunction;
 import org.apache.flink.types.Row;
 
 /**
@@ -69,11 +68,9 @@ public class PostgresqlWriter extends JdbcDataWriter {
         builder.setTypeConverter(typeConverter);
         builder.setRestoreConfig(restoreConfig);
         builder.setInsertSqlMode(insertSqlMode);
+        builder.setCopyFormat(copyFormat);
 
-        OutputFormatSinkFunction sinkFunction = new OutputFormatSinkFunction(builder.finish());
-        DataStreamSink<?> dataStreamSink = dataSet.addSink(sinkFunction);
         String sinkName = (databaseInterface.getDatabaseType() + "writer").toLowerCase();
-        dataStreamSink.name(sinkName);
-        return dataStreamSink;
+        return createOutput(dataSet, builder.finish(), sinkName);
     }
 }
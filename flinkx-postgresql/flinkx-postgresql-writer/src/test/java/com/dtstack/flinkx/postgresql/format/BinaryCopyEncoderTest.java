@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dtstack.flinkx.postgresql.format;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+
+public class BinaryCopyEncoderTest {
+
+    @Test
+    public void testHeaderAndTrailer() throws IOException {
+        BinaryCopyEncoder encoder = new BinaryCopyEncoder(Collections.singletonList("int4"));
+        CopyBuffer buffer = new CopyBuffer(4);
+
+        encoder.writeHeader(buffer);
+        encoder.startRow(buffer, 1);
+        encoder.writeField(buffer, 0, null);
+        encoder.endRow(buffer);
+        encoder.writeTrailer(buffer);
+
+        DataInputStream in = read(buffer);
+        byte[] signature = new byte[11];
+        in.readFully(signature);
+        MatcherAssert.assertThat(signature, Matchers.equalTo(new byte[]{'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0}));
+        MatcherAssert.assertThat(in.readInt(), Matchers.equalTo(0));
+        MatcherAssert.assertThat(in.readInt(), Matchers.equalTo(0));
+        MatcherAssert.assertThat(in.readShort(), Matchers.equalTo((short) 1));
+        MatcherAssert.assertThat(in.readInt(), Matchers.equalTo(-1));
+        MatcherAssert.assertThat(in.readShort(), Matchers.equalTo((short) -1));
+        MatcherAssert.assertThat(in.available(), Matchers.equalTo(0));
+    }
+
+    @Test
+    public void testWriteFields() throws IOException {
+        BinaryCopyEncoder encoder = new BinaryCopyEncoder(Arrays.asList(
+                "bool", "int2", "INT4", "int8", "float8", "varchar", "jsonb", "bytea", "uuid", "date", "timestamp"));
+        CopyBuffer buffer = new CopyBuffer(4);
+        UUID uuid = UUID.randomUUID();
+
+        encoder.writeField(buffer, 0, "t");
+        encoder.writeField(buffer, 1, "-2");
+        encoder.writeField(buffer, 2, 123456);
+        encoder.writeField(buffer, 3, Long.MIN_VALUE);
+        encoder.writeField(buffer, 4, 1.5d);
+        encoder.writeField(buffer, 5, "中文");
+        encoder.writeField(buffer, 6, "{}");
+        encoder.writeField(buffer, 7, new byte[]{1, 2});
+        encoder.writeField(buffer, 8, uuid.toString());
+        encoder.writeField(buffer, 9, Date.valueOf("2000-01-02"));
+        encoder.writeField(buffer, 10, Timestamp.valueOf("2000-01-01 00:00:01.000002"));
+
+        DataInputStream in = read(buffer);
+        MatcherAssert.assertThat(in.readInt(), Matchers.equalTo(1));
+        MatcherAssert.assertThat(in.readByte(), Matchers.equalTo((byte) 1));
+        MatcherAssert.assertThat(in.readInt(), Matchers.equalTo(2));
+        MatcherAssert.assertThat(in.readShort(), Matchers.equalTo((short) -2));
+        MatcherAssert.assertThat(in.readInt(), Matchers.equalTo(4));
+        MatcherAssert.assertThat(in.readInt(), Matchers.equalTo(123456));
+        MatcherAssert.assertThat(in.readInt(), Matchers.equalTo(8));
+        MatcherAssert.assertThat(in.readLong(), Matchers.equalTo(Long.MIN_VALUE));
+        MatcherAssert.assertThat(in.readInt(), Matchers.equalTo(8));
+        MatcherAssert.assertThat(in.readDouble(), Matchers.equalTo(1.5d));
+
+        byte[] text = "中文".getBytes(StandardCharsets.UTF_8);
+        MatcherAssert.assertThat(in.readInt(), Matchers.equalTo(text.length));
+        byte[] bytes = new byte[text.length];
+        in.readFully(bytes);
+        MatcherAssert.assertThat(bytes, Matchers.equalTo(text));
+
+        // jsonb带一个字节的版本号
+        MatcherAssert.assertThat(in.readInt(), Matchers.equalTo(3));
+        MatcherAssert.assertThat(in.readByte(), Matchers.equalTo((byte) 1));
+        MatcherAssert.assertThat(in.readByte(), Matchers.equalTo((byte) '{'));
+        MatcherAssert.assertThat(in.readByte(), Matchers.equalTo((byte) '}'));
+
+        MatcherAssert.assertThat(in.readInt(), Matchers.equalTo(2));
+        MatcherAssert.assertThat(in.readShort(), Matchers.equalTo((short) 0x0102));
+
+        MatcherAssert.assertThat(in.readInt(), Matchers.equalTo(16));
+        MatcherAssert.assertThat(in.readLong(), Matchers.equalTo(uuid.getMostSignificantBits()));
+        MatcherAssert.assertThat(in.readLong(), Matchers.equalTo(uuid.getLeastSignificantBits()));
+
+        // 日期和时间从2000-01-01开始计算
+        MatcherAssert.assertThat(in.readInt(), Matchers.equalTo(4));
+        MatcherAssert.assertThat(in.readInt(), Matchers.equalTo(1));
+        MatcherAssert.assertThat(in.readInt(), Matchers.equalTo(8));
+        MatcherAssert.assertThat(in.readLong(), Matchers.equalTo(1000002L));
+        MatcherAssert.assertThat(in.available(), Matchers.equalTo(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedType() {
+        new BinaryCopyEncoder(Collections.singletonList("money"));
+    }
+
+    @Test
+    public void testWriteNumeric() throws IOException {
+        assertNumeric("0.0001", -1, 0x0000, 4, 1);
+        assertNumeric("12345.6", 1, 0x0000, 1, 1, 2345, 6000);
+        assertNumeric("-12345.6", 1, 0x4000, 1, 1, 2345, 6000);
+        assertNumeric("-0.0001", -1, 0x4000, 4, 1);
+        assertNumeric("10000", 1, 0x0000, 0, 1);
+        assertNumeric("1E+5", 1, 0x0000, 0, 10);
+        assertNumeric("123456789.000000001", 2, 0x0000, 9, 1, 2345, 6789, 0, 0, 1000);
+        assertNumeric("0.10", -1, 0x0000, 2, 1000);
+        // 0没有数字组，符号总是正
+        assertNumeric("0", 0, 0x0000, 0);
+        assertNumeric("-0.00", 0, 0x0000, 2);
+    }
+
+    private static void assertNumeric(String value, int weight, int sign, int dscale, int... digits) throws IOException {
+        CopyBuffer buffer = new CopyBuffer(4);
+        BinaryCopyEncoder.writeNumeric(buffer, new BigDecimal(value));
+
+        DataInputStream in = read(buffer);
+        MatcherAssert.assertThat(value, in.readInt(), Matchers.equalTo(8 + digits.length * 2));
+        MatcherAssert.assertThat(value, in.readShort(), Matchers.equalTo((short) digits.length));
+        MatcherAssert.assertThat(value, in.readShort(), Matchers.equalTo((short) weight));
+        MatcherAssert.assertThat(value, in.readShort(), Matchers.equalTo((short) sign));
+        MatcherAssert.assertThat(value, in.readShort(), Matchers.equalTo((short) dscale));
+        for (int digit : digits) {
+            MatcherAssert.assertThat(value, in.readShort(), Matchers.equalTo((short) digit));
+        }
+        MatcherAssert.assertThat(value, in.available(), Matchers.equalTo(0));
+    }
+
+    private static DataInputStream read(CopyBuffer buffer) {
+        return new DataInputStream(new ByteArrayInputStream(buffer.getBuffer(), 0, buffer.size()));
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dtstack.flinkx.postgresql.format;
+
+import com.dtstack.flinkx.postgresql.PostgresqlTypeConverter;
+import com.dtstack.flinkx.rdb.outputformat.FieldConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 比较每条数据按类型名称查找转换逻辑与按列预先生成转换器的开销，
+ * 需要先执行 mvn test-compile -Pbenchmark 生成JMH代码
+ *
+ * Company: www.dtstack.com
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PostgresqlFieldConverterBenchmark {
+
+    private static final String[] TYPES = {"int4", "varchar", "money", "text", "int8", "uuid", "timestamp", "numeric"};
+
+    private static final Object[] VALUES = {"42", "abc", "12.5", "text", 42L, "7f1b", "2019-07-01 00:00:00", "3.14"};
+
+    private PostgresqlTypeConverter typeConverter;
+
+    private FieldConverter[] fieldConverters;
+
+    @Setup
+    public void setup() {
+        typeConverter = new PostgresqlTypeConverter();
+        PostgresqlOutputFormatTest.TestOutputFormat format = new PostgresqlOutputFormatTest.TestOutputFormat();
+        fieldConverters = new FieldConverter[TYPES.length];
+        for (int i = 0; i < TYPES.length; i++) {
+            fieldConverters[i] = format.createFieldConverter(TYPES[i]);
+        }
+    }
+
+    @Benchmark
+    public void convertByTypeName(Blackhole blackhole) {
+        for (int i = 0; i < TYPES.length; i++) {
+            blackhole.consume(typeConverter.convert(VALUES[i], TYPES[i]));
+        }
+    }
+
+    @Benchmark
+    public void convertByColumnConverter(Blackhole blackhole) {
+        for (int i = 0; i < TYPES.length; i++) {
+            blackhole.consume(fieldConverters[i].convert(VALUES[i]));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PostgresqlFieldConverterBenchmark.class.getSimpleName()).build()).run();
+    }
+}
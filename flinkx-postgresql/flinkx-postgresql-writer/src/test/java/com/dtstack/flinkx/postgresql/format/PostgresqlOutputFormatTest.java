@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dtstack.flinkx.postgresql.format;
+
+import com.dtstack.flinkx.postgresql.PostgresqlTypeConverter;
+import com.dtstack.flinkx.rdb.outputformat.FieldConverter;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+import java.sql.Timestamp;
+
+public class PostgresqlOutputFormatTest {
+
+    private final TestOutputFormat format = new TestOutputFormat();
+
+    @Test
+    public void testConvertByColumnType() {
+        MatcherAssert.assertThat(format.createFieldConverter("money").convert("12.5"), Matchers.equalTo((Object) 12.5d));
+        MatcherAssert.assertThat(format.createFieldConverter("int4").convert("42"), Matchers.equalTo((Object) 42));
+        MatcherAssert.assertThat(format.createFieldConverter("int8").convert(42L), Matchers.equalTo((Object) 42L));
+        MatcherAssert.assertThat(format.createFieldConverter("uuid").convert(7), Matchers.equalTo((Object) "7"));
+        MatcherAssert.assertThat(format.createFieldConverter("bytea").convert("1"), Matchers.equalTo((Object) (byte) 1));
+        MatcherAssert.assertThat(format.createFieldConverter("varchar").convert("abc"), Matchers.equalTo((Object) "abc"));
+        MatcherAssert.assertThat(format.createFieldConverter("timestamp").convert("2019-07-01 12:00:00"), Matchers.instanceOf(Timestamp.class));
+    }
+
+    @Test
+    public void testNullValue() {
+        for (String type : new String[]{"money", "int4", "uuid", "bytea", "bit", "varchar"}) {
+            MatcherAssert.assertThat(format.createFieldConverter(type).convert(null), Matchers.nullValue());
+        }
+    }
+
+    @Test
+    public void testSameAsPerValueConvert() {
+        PostgresqlTypeConverter typeConverter = new PostgresqlTypeConverter();
+        String[] types = {"money", "int", "int2", "inet", "xml", "bit", "bit varying", "text", "numeric"};
+        Object[] values = {"1", "127", 3, null};
+        for (String type : types) {
+            FieldConverter converter = format.createFieldConverter(type);
+            for (Object value : values) {
+                MatcherAssert.assertThat(type + ":" + value, converter.convert(value), Matchers.equalTo(typeConverter.convert(value, type)));
+            }
+        }
+    }
+
+    static class TestOutputFormat extends PostgresqlOutputFormat {
+
+        TestOutputFormat() {
+            typeConverter = new PostgresqlTypeConverter();
+        }
+    }
+}
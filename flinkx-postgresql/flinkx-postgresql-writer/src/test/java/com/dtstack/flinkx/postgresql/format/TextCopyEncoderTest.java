@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dtstack.flinkx.postgresql.format;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+public class TextCopyEncoderTest {
+
+    @Test
+    public void testWriteRow() {
+        TextCopyEncoder encoder = new TextCopyEncoder(',');
+        CopyBuffer buffer = new CopyBuffer(4);
+
+        encoder.writeHeader(buffer);
+        encoder.startRow(buffer, 4);
+        encoder.writeField(buffer, 0, 1);
+        encoder.writeField(buffer, 1, null);
+        encoder.writeField(buffer, 2, "null");
+        encoder.writeField(buffer, 3, new byte[]{0x01, (byte) 0xAB});
+        encoder.endRow(buffer);
+        encoder.writeTrailer(buffer);
+
+        MatcherAssert.assertThat(toString(buffer), Matchers.equalTo("1,\\N,null,\\\\x01ab\n"));
+    }
+
+    @Test
+    public void testEscape() {
+        TextCopyEncoder encoder = new TextCopyEncoder('|');
+        CopyBuffer buffer = new CopyBuffer(16);
+
+        encoder.writeField(buffer, 0, "a\\b\nc\rd|e,f\tg");
+        MatcherAssert.assertThat(toString(buffer), Matchers.equalTo("a\\\\b\\nc\\rd\\|e,f\tg"));
+    }
+
+    @Test
+    public void testUtf8() {
+        TextCopyEncoder encoder = new TextCopyEncoder('\t');
+        CopyBuffer buffer = new CopyBuffer(16);
+
+        String str = "é中文😀";
+        encoder.writeField(buffer, 0, str);
+        MatcherAssert.assertThat(toString(buffer), Matchers.equalTo(str));
+
+        // 不成对的代理字符写为?
+        buffer.reset();
+        encoder.writeField(buffer, 0, "a\uD83Db");
+        MatcherAssert.assertThat(toString(buffer), Matchers.equalTo("a?b"));
+    }
+
+    @Test
+    public void testCopyOptions() {
+        MatcherAssert.assertThat(new TextCopyEncoder('\t').copyOptions(), Matchers.equalTo("DELIMITER E'\\011'"));
+        MatcherAssert.assertThat(new TextCopyEncoder(',').copyOptions(), Matchers.equalTo("DELIMITER E'\\054'"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalDelimiter() {
+        new TextCopyEncoder('\\');
+    }
+
+    private static String toString(CopyBuffer buffer) {
+        return new String(buffer.getBuffer(), 0, buffer.size(), StandardCharsets.UTF_8);
+    }
+}
@@ -186,6 +186,11 @@ public abstract class BaseDatabaseMeta implements DatabaseInterface, Serializabl
         return String.format("row_number() over(%s) as FLINKX_ROWNUM", orderBy);
     }
 
+    @Override
+    public String getLimitClause(int limit) {
+        return null;
+    }
+
     @Override
     public int getFetchSize(){
         return 1000;
@@ -65,6 +65,13 @@ public interface DatabaseInterface {
 
     String getRowNumColumn(String orderBy);
 
+    /**
+     * 限制查询结果条数的语句，追加在查询语句的末尾
+     * @param limit 最大条数
+     * @return 不支持时返回null，由调用方通过Statement.setMaxRows限制条数
+     */
+    String getLimitClause(int limit);
+
     int getFetchSize();
 
     int getQueryTimeout();
@@ -19,6 +19,7 @@
 package com.dtstack.flinkx.rdb.type;
 
 import java.io.Serializable;
+import java.util.function.Function;
 
 /**
  * Data type converter
@@ -36,4 +37,13 @@ public interface TypeConverterInterface extends Serializable {
      */
     Object convert(Object data,String typeName);
 
+    /**
+     * 生成某类型的转换函数，实现类可以在这里一次解析数据类型，避免每条数据都按类型名称查找
+     * @param typeName  数据类型
+     * @return 转换函数
+     */
+    default Function<Object, Object> getConverter(String typeName) {
+        return data -> convert(data, typeName);
+    }
+
 }
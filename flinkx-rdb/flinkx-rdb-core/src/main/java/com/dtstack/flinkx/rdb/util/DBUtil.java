@@ -33,9 +33,12 @@ import java.io.BufferedReader;
 import java.math.BigDecimal;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
 import java.util.regex.Pattern;
 
 /**
@@ -85,12 +88,18 @@ public class DBUtil {
      */
     public static final String RESTORE_FILTER_PLACEHOLDER = "${restoreFilter}";
 
+    /**
+     * 按范围切分时分片过滤条件占位符
+     */
+    public static final String SPLIT_RANGE_FILTER_PLACEHOLDER = "${splitRangeFilter}";
+
     public static final String TEMPORARY_TABLE_NAME = "flinkx_tmp";
 
     public static final String NULL_STRING = "null";
 
     /**
      * 获取jdbc连接(超时10S)
+     * 查找驱动时可能触发驱动的加载和注册，和ClassUtil.forName使用同一个锁，建立连接时不再持有全局锁
      * @param url       url
      * @param username  账号
      * @param password  密码
@@ -98,18 +107,26 @@ public class DBUtil {
      * @throws SQLException
      */
     private static Connection getConnectionInternal(String url, String username, String password) throws SQLException {
-        Connection dbConn;
+        Driver driver;
         synchronized (ClassUtil.lock_str){
             DriverManager.setLoginTimeout(10);
+            driver = DriverManager.getDriver(url);
+        }
 
-            // telnet
-            TelnetUtil.telnet(url);
+        // telnet
+        TelnetUtil.telnet(url);
 
-            if (username == null) {
-                dbConn = DriverManager.getConnection(url);
-            } else {
-                dbConn = DriverManager.getConnection(url, username, password);
-            }
+        Properties info = new Properties();
+        if (username != null) {
+            info.put("user", username);
+        }
+        if (password != null) {
+            info.put("password", password);
+        }
+
+        Connection dbConn = driver.connect(url, info);
+        if (dbConn == null) {
+            throw new SQLException("No suitable driver found for " + url, "08001");
         }
 
         return dbConn;
@@ -286,32 +303,84 @@ public class DBUtil {
      */
     public static List<String> analyzeTable(String dbURL, String username, String password, DatabaseInterface databaseInterface,
                                             String table, List<MetaColumn> metaColumns) {
-        List<String> ret = new ArrayList<>(metaColumns.size());
-        Connection dbConn = null;
+        try {
+            Map<String,String> nameTypeMap = TableMetaCache.get(dbURL, username, table, TableMetaCache.TYPE_COLUMN_TYPES, () -> {
+                Connection dbConn = JdbcConnectionPool.getConnection(dbURL, username, password);
+                try {
+                    return queryColumnTypes(dbConn, databaseInterface, table);
+                } finally {
+                    closeDBResources(null, null, dbConn, false);
+                }
+            });
+
+            return getColumnTypeList(nameTypeMap, metaColumns);
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 使用已有的连接获取表列名类型列表，结果按url、账号和表名缓存
+     * @param dbConn            数据库连接，不能有未读取完的流式结果集
+     * @param dbURL             jdbc url
+     * @param username          数据库账号
+     * @param databaseInterface DatabaseInterface
+     * @param table             表名
+     * @param metaColumns       MetaColumn列表
+     * @return
+     */
+    public static List<String> analyzeTable(Connection dbConn, String dbURL, String username, DatabaseInterface databaseInterface,
+                                            String table, List<MetaColumn> metaColumns) {
+        try {
+            return getColumnTypeList(getColumnTypes(dbConn, dbURL, username, databaseInterface, table), metaColumns);
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 获取表的列名和类型，按表中列的顺序排列，结果按url、账号和表名缓存
+     * @param dbConn            数据库连接
+     * @param dbURL             jdbc url
+     * @param username          数据库账号
+     * @param databaseInterface DatabaseInterface
+     * @param table             表名
+     * @return 不可修改的列名和类型
+     * @throws SQLException
+     */
+    public static Map<String,String> getColumnTypes(Connection dbConn, String dbURL, String username,
+                                                    DatabaseInterface databaseInterface, String table) throws SQLException {
+        return TableMetaCache.get(dbURL, username, table, TableMetaCache.TYPE_COLUMN_TYPES,
+                () -> queryColumnTypes(dbConn, databaseInterface, table));
+    }
+
+    private static Map<String,String> queryColumnTypes(Connection dbConn, DatabaseInterface databaseInterface, String table) throws SQLException {
         Statement stmt = null;
         ResultSet rs = null;
         try {
-            dbConn = getConnection(dbURL, username, password);
             stmt = dbConn.createStatement();
             rs = stmt.executeQuery(databaseInterface.getSQLQueryFields(databaseInterface.quoteTable(table)));
             ResultSetMetaData rd = rs.getMetaData();
 
-            Map<String,String> nameTypeMap = new HashMap<>((rd.getColumnCount() << 2) / 3);
+            Map<String,String> nameTypeMap = new LinkedHashMap<>((rd.getColumnCount() << 2) / 3);
             for(int i = 0; i < rd.getColumnCount(); ++i) {
                 nameTypeMap.put(rd.getColumnName(i+1),rd.getColumnTypeName(i+1));
             }
 
-            for (MetaColumn metaColumn : metaColumns) {
-                if(metaColumn.getValue() != null){
-                    ret.add("string");
-                } else {
-                    ret.add(nameTypeMap.get(metaColumn.getName()));
-                }
-            }
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
+            return Collections.unmodifiableMap(nameTypeMap);
         } finally {
-            closeDBResources(rs, stmt, dbConn, false);
+            closeDBResources(rs, stmt, null, false);
+        }
+    }
+
+    private static List<String> getColumnTypeList(Map<String,String> nameTypeMap, List<MetaColumn> metaColumns) {
+        List<String> ret = new ArrayList<>(metaColumns.size());
+        for (MetaColumn metaColumn : metaColumns) {
+            if(metaColumn.getValue() != null){
+                ret.add("string");
+            } else {
+                ret.add(nameTypeMap.get(metaColumn.getName()));
+            }
         }
 
         return ret;
@@ -0,0 +1,412 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dtstack.flinkx.rdb.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TaskManager内共享的jdbc连接池，按url、用户名和密码区分，密码只以摘要的形式保存在连接池的key中。
+ * 同一个TaskManager中的多个分片、多个format以及查询最大值、切分范围等辅助查询复用空闲的连接，
+ * 不再每次都重新建立连接。
+ *
+ * 每个连接池最多同时借出{@link #MAX_ACTIVE_PER_KEY}个连接，达到上限时等待其它连接归还，
+ * 超过{@link #BORROW_TIMEOUT_MS}仍没有可用的连接时抛出异常。
+ *
+ * 返回的连接调用close时归还到连接池，归还时回滚未提交的事务、恢复自动提交，
+ * 并把借出期间修改过的只读、事务隔离级别和catalog恢复为借出前的值，无法恢复的连接直接关闭；
+ * 没有被借出的连接时，空闲超过{@link #IDLE_TIMEOUT_MS}的连接由后台线程关闭，连接池为空时后台线程退出
+ *
+ * Company: www.dtstack.com
+ */
+public class JdbcConnectionPool {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JdbcConnectionPool.class);
+
+    private static final long IDLE_TIMEOUT_MS = 60 * 1000L;
+
+    /** 空闲超过该时间的连接在借出前检查是否可用 */
+    private static final long VALIDATE_AFTER_IDLE_MS = 5 * 1000L;
+
+    private static final int VALIDATE_TIMEOUT_SECONDS = 5;
+
+    private static final int MAX_IDLE_PER_KEY = 8;
+
+    static final int MAX_ACTIVE_PER_KEY = 64;
+
+    private static final long BORROW_TIMEOUT_MS = 60 * 1000L;
+
+    private static final Map<String, Pool> POOLS = new HashMap<>();
+
+    private static ScheduledExecutorService evictor;
+
+    private JdbcConnectionPool() {
+    }
+
+    /**
+     * 从连接池获取连接，没有可用的空闲连接时通过{@link DBUtil#getConnection}新建
+     */
+    public static Connection getConnection(String url, String username, String password) throws SQLException {
+        Pool pool = retainPool(url, url + "|" + username + "|" + digest(password));
+
+        boolean acquired = false;
+        try {
+            acquired = pool.acquire();
+            if (!acquired) {
+                throw new SQLException(String.format("Timeout waiting for a pooled connection of [%s] after %s ms, %s connections are in use",
+                        url, BORROW_TIMEOUT_MS, MAX_ACTIVE_PER_KEY));
+            }
+
+            Connection conn = pool.pollIdle();
+            if (conn == null) {
+                conn = DBUtil.getConnection(url, username, password);
+                LOG.info("create new connection for pool, url:{}", url);
+            }
+
+            return (Connection) Proxy.newProxyInstance(JdbcConnectionPool.class.getClassLoader(),
+                    new Class[]{Connection.class}, new PooledConnectionHandler(pool, conn));
+        } catch (SQLException | RuntimeException e) {
+            if (acquired) {
+                pool.release();
+            }
+            releasePool(pool);
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            releasePool(pool);
+            throw new SQLException("Interrupted while waiting for a pooled connection of " + url, e);
+        }
+    }
+
+    private static String digest(String password) {
+        if (password == null) {
+            return "";
+        }
+
+        try {
+            byte[] bytes = MessageDigest.getInstance("SHA-256").digest(password.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(bytes.length * 2);
+            for (byte b : bytes) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Pool retainPool(String url, String key) {
+        synchronized (POOLS) {
+            Pool pool = POOLS.computeIfAbsent(key, k -> new Pool(url));
+            pool.borrowed++;
+
+            if (evictor == null) {
+                evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread thread = new Thread(r, "jdbc-connection-pool-evictor");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                evictor.scheduleWithFixedDelay(() -> evictIdleConnections(System.currentTimeMillis()),
+                        IDLE_TIMEOUT_MS / 2, IDLE_TIMEOUT_MS / 2, TimeUnit.MILLISECONDS);
+            }
+
+            return pool;
+        }
+    }
+
+    private static void releasePool(Pool pool) {
+        synchronized (POOLS) {
+            pool.borrowed--;
+        }
+    }
+
+    static void evictIdleConnections(long now) {
+        synchronized (POOLS) {
+            Iterator<Pool> it = POOLS.values().iterator();
+            while (it.hasNext()) {
+                Pool pool = it.next();
+                pool.closeIdle(now - IDLE_TIMEOUT_MS);
+                if (pool.borrowed == 0 && pool.isEmpty()) {
+                    it.remove();
+                }
+            }
+
+            if (POOLS.isEmpty() && evictor != null) {
+                evictor.shutdown();
+                evictor = null;
+            }
+        }
+    }
+
+    private static void closeQuietly(Connection conn) {
+        try {
+            conn.close();
+        } catch (SQLException e) {
+            LOG.warn("Close pooled connection error:{}", e.getMessage());
+        }
+    }
+
+    private static class Pool {
+
+        private final String url;
+
+        private final Deque<IdleConnection> idle = new ArrayDeque<>();
+
+        /** 可以借出的连接数 */
+        private final Semaphore permits = new Semaphore(MAX_ACTIVE_PER_KEY, true);
+
+        /** 借出和等待借出的连接数，由POOLS加锁保护 */
+        private int borrowed;
+
+        Pool(String url) {
+            this.url = url;
+        }
+
+        boolean acquire() throws InterruptedException {
+            return permits.tryAcquire(BORROW_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        }
+
+        void release() {
+            permits.release();
+        }
+
+        Connection pollIdle() {
+            IdleConnection idleConn;
+            while ((idleConn = poll()) != null) {
+                if (isUsable(idleConn)) {
+                    return idleConn.conn;
+                }
+                closeQuietly(idleConn.conn);
+            }
+
+            return null;
+        }
+
+        private synchronized IdleConnection poll() {
+            // 后进先出，尽量复用最近使用过的连接，让其余连接空闲超时后关闭
+            return idle.pollFirst();
+        }
+
+        private boolean isUsable(IdleConnection idleConn) {
+            try {
+                if (idleConn.conn.isClosed()) {
+                    return false;
+                }
+
+                return System.currentTimeMillis() - idleConn.idleSince < VALIDATE_AFTER_IDLE_MS
+                        || idleConn.conn.isValid(VALIDATE_TIMEOUT_SECONDS);
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        /**
+         * 归还连接，重置连接状态失败或者空闲连接已满时直接关闭
+         */
+        void giveBack(Connection conn, ConnectionState originalState) {
+            boolean reusable;
+            try {
+                if (!conn.isClosed() && !conn.getAutoCommit()) {
+                    conn.rollback();
+                    conn.setAutoCommit(true);
+                }
+                originalState.restore(conn);
+                conn.clearWarnings();
+                reusable = !conn.isClosed();
+            } catch (SQLException e) {
+                LOG.warn("Reset pooled connection error, close it:{}", e.getMessage());
+                reusable = false;
+            }
+
+            if (reusable) {
+                synchronized (this) {
+                    if (idle.size() < MAX_IDLE_PER_KEY) {
+                        idle.addFirst(new IdleConnection(conn, System.currentTimeMillis()));
+                        conn = null;
+                    }
+                }
+            }
+
+            if (conn != null) {
+                closeQuietly(conn);
+            }
+        }
+
+        synchronized void closeIdle(long idleBefore) {
+            Iterator<IdleConnection> it = idle.iterator();
+            while (it.hasNext()) {
+                IdleConnection idleConn = it.next();
+                if (idleConn.idleSince < idleBefore) {
+                    it.remove();
+                    closeQuietly(idleConn.conn);
+                    LOG.debug("close idle connection of pool:{}", url);
+                }
+            }
+        }
+
+        synchronized boolean isEmpty() {
+            return idle.isEmpty();
+        }
+    }
+
+    private static class IdleConnection {
+
+        private final Connection conn;
+
+        private final long idleSince;
+
+        IdleConnection(Connection conn, long idleSince) {
+            this.conn = conn;
+            this.idleSince = idleSince;
+        }
+    }
+
+    /**
+     * 借出期间被修改的连接属性在修改前的值，没有修改过的属性为null
+     */
+    private static class ConnectionState {
+
+        private Boolean readOnly;
+
+        private Integer transactionIsolation;
+
+        private boolean catalogChanged;
+
+        private String catalog;
+
+        /**
+         * 在调用setter之前记录第一次修改前的值
+         */
+        void beforeInvoke(Connection conn, String method) throws SQLException {
+            switch (method) {
+                case "setReadOnly":
+                    if (readOnly == null) {
+                        readOnly = conn.isReadOnly();
+                    }
+                    break;
+                case "setTransactionIsolation":
+                    if (transactionIsolation == null) {
+                        transactionIsolation = conn.getTransactionIsolation();
+                    }
+                    break;
+                case "setCatalog":
+                    if (!catalogChanged) {
+                        catalog = conn.getCatalog();
+                        catalogChanged = true;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        void restore(Connection conn) throws SQLException {
+            if (readOnly != null) {
+                conn.setReadOnly(readOnly);
+            }
+            if (transactionIsolation != null) {
+                conn.setTransactionIsolation(transactionIsolation);
+            }
+            if (catalogChanged) {
+                conn.setCatalog(catalog);
+            }
+        }
+    }
+
+    /**
+     * 借出连接的代理，close时归还连接而不是关闭，归还后不能再使用
+     */
+    private static class PooledConnectionHandler implements InvocationHandler {
+
+        private final Pool pool;
+
+        private final ConnectionState originalState = new ConnectionState();
+
+        private volatile Connection conn;
+
+        PooledConnectionHandler(Pool pool, Connection conn) {
+            this.pool = pool;
+            this.conn = conn;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    close();
+                    return null;
+                case "isClosed":
+                    return conn == null || conn.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + conn + "]";
+                default:
+                    break;
+            }
+
+            Connection target = conn;
+            if (target == null) {
+                throw new SQLException("Connection has been returned to the pool");
+            }
+
+            try {
+                originalState.beforeInvoke(target, method.getName());
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private synchronized void close() {
+            if (conn == null) {
+                return;
+            }
+
+            Connection target = conn;
+            conn = null;
+            try {
+                pool.giveBack(target, originalState);
+            } finally {
+                pool.release();
+                releasePool(pool);
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dtstack.flinkx.rdb.util;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import java.sql.SQLException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TaskManager内共享的表元数据缓存，按数据库url、用户名和表名缓存字段类型、主键等信息，
+ * 同一张表的多个分片和多个并行度只查询一次元数据。缓存的值不可修改
+ *
+ * Company: www.dtstack.com
+ */
+public class TableMetaCache {
+
+    public static final String TYPE_COLUMN_TYPES = "columnTypes";
+
+    public static final String TYPE_FULL_COLUMNS = "fullColumns";
+
+    public static final String TYPE_PRIMARY_KEYS = "primaryKeys";
+
+    private static final long EXPIRE_MINUTES = 5;
+
+    private static final long MAXIMUM_SIZE = 1024;
+
+    private static final Cache<String, Object> CACHE = CacheBuilder.newBuilder()
+            .expireAfterWrite(EXPIRE_MINUTES, TimeUnit.MINUTES)
+            .maximumSize(MAXIMUM_SIZE)
+            .build();
+
+    private TableMetaCache() {
+    }
+
+    /**
+     * 获取缓存的元数据，不存在或者已过期时调用loader加载，同一个key并发加载时只有一个线程查询数据库
+     * @param url       jdbc url
+     * @param username  用户名
+     * @param table     表名
+     * @param type      元数据类型
+     * @param loader    查询元数据，返回值不能为null
+     * @return 缓存的元数据
+     * @throws SQLException 查询元数据出错
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T get(String url, String username, String table, String type, Callable<T> loader) throws SQLException {
+        String key = type + "|" + url + "|" + username + "|" + table;
+        try {
+            return (T) CACHE.get(key, loader);
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            throw new SQLException("Load " + type + " of table " + table + " error", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,410 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dtstack.flinkx.rdb.util;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestName;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.net.ServerSocket;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Logger;
+
+public class JdbcConnectionPoolTest {
+
+    private static final StubDriver DRIVER = new StubDriver();
+
+    /** 建立连接前会telnet url中的端口，需要一个可以连接的端口 */
+    private static ServerSocket serverSocket;
+
+    @Rule
+    public TestName testName = new TestName();
+
+    private String url;
+
+    @BeforeClass
+    public static void registerDriver() throws Exception {
+        serverSocket = new ServerSocket(0);
+        // 接受并关闭telnet的连接，避免连接数较多时占满backlog
+        Thread acceptor = new Thread(() -> {
+            while (!serverSocket.isClosed()) {
+                try {
+                    serverSocket.accept().close();
+                } catch (IOException ignore) {
+                }
+            }
+        }, "stub-server-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        DriverManager.registerDriver(DRIVER);
+    }
+
+    @AfterClass
+    public static void deregisterDriver() throws Exception {
+        DriverManager.deregisterDriver(DRIVER);
+        serverSocket.close();
+    }
+
+    @Before
+    public void setUp() {
+        // 连接池是静态的，每个用例使用不同的url
+        url = "jdbc:stub://127.0.0.1:" + serverSocket.getLocalPort() + "/" + testName.getMethodName();
+    }
+
+    @Test
+    public void testBorrowAndReturn() throws SQLException {
+        Connection conn = JdbcConnectionPool.getConnection(url, "user", "pass");
+        MatcherAssert.assertThat(created().size(), Matchers.equalTo(1));
+        StubConnection physical = created().get(0);
+        MatcherAssert.assertThat(physical.properties.getProperty("user"), Matchers.equalTo("user"));
+
+        conn.setAutoCommit(false);
+        conn.close();
+        MatcherAssert.assertThat(conn.isClosed(), Matchers.equalTo(true));
+        // 归还时回滚并恢复自动提交，物理连接不关闭
+        MatcherAssert.assertThat(physical.rollbacks, Matchers.equalTo(1));
+        MatcherAssert.assertThat(physical.autoCommit, Matchers.equalTo(true));
+        MatcherAssert.assertThat(physical.closed, Matchers.equalTo(false));
+
+        // 重复close不会重复归还
+        conn.close();
+
+        Connection reused = JdbcConnectionPool.getConnection(url, "user", "pass");
+        MatcherAssert.assertThat(created().size(), Matchers.equalTo(1));
+        MatcherAssert.assertThat(reused.getAutoCommit(), Matchers.equalTo(true));
+
+        // 借出中的连接不会被复用
+        Connection other = JdbcConnectionPool.getConnection(url, "user", "pass");
+        MatcherAssert.assertThat(created().size(), Matchers.equalTo(2));
+
+        reused.close();
+        other.close();
+    }
+
+    @Test(expected = SQLException.class)
+    public void testUseAfterReturn() throws SQLException {
+        Connection conn = JdbcConnectionPool.getConnection(url, "user", "pass");
+        conn.close();
+        conn.getAutoCommit();
+    }
+
+    @Test
+    public void testSeparateByUser() throws SQLException {
+        JdbcConnectionPool.getConnection(url, "user1", "pass").close();
+        JdbcConnectionPool.getConnection(url, "user2", "pass").close();
+        MatcherAssert.assertThat(created().size(), Matchers.equalTo(2));
+    }
+
+    @Test
+    public void testSeparateByPassword() throws SQLException {
+        JdbcConnectionPool.getConnection(url, "user", "pass1").close();
+        JdbcConnectionPool.getConnection(url, "user", "pass2").close();
+        MatcherAssert.assertThat(created().size(), Matchers.equalTo(2));
+
+        // 相同的密码复用同一个连接池
+        JdbcConnectionPool.getConnection(url, "user", "pass1").close();
+        MatcherAssert.assertThat(created().size(), Matchers.equalTo(2));
+        MatcherAssert.assertThat(created().get(0).properties.getProperty("password"), Matchers.equalTo("pass1"));
+    }
+
+    @Test
+    public void testRestoreChangedState() throws SQLException {
+        Connection conn = JdbcConnectionPool.getConnection(url, "user", "pass");
+        conn.setReadOnly(true);
+        conn.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
+        conn.setCatalog("other");
+        conn.setCatalog("another");
+        conn.close();
+
+        // 归还时恢复为借出前的值，物理连接不关闭
+        StubConnection physical = created().get(0);
+        MatcherAssert.assertThat(physical.readOnly, Matchers.equalTo(false));
+        MatcherAssert.assertThat(physical.transactionIsolation, Matchers.equalTo(Connection.TRANSACTION_READ_COMMITTED));
+        MatcherAssert.assertThat(physical.catalog, Matchers.equalTo("db"));
+        MatcherAssert.assertThat(physical.closed, Matchers.equalTo(false));
+
+        Connection reused = JdbcConnectionPool.getConnection(url, "user", "pass");
+        MatcherAssert.assertThat(created().size(), Matchers.equalTo(1));
+        MatcherAssert.assertThat(reused.isReadOnly(), Matchers.equalTo(false));
+        MatcherAssert.assertThat(reused.getTransactionIsolation(), Matchers.equalTo(Connection.TRANSACTION_READ_COMMITTED));
+        MatcherAssert.assertThat(reused.getCatalog(), Matchers.equalTo("db"));
+        reused.close();
+    }
+
+    @Test
+    public void testCloseConnectionFailedToRestore() throws SQLException {
+        Connection conn = JdbcConnectionPool.getConnection(url, "user", "pass");
+        conn.setCatalog("other");
+        StubConnection physical = created().get(0);
+        physical.failOnSetCatalog = true;
+        conn.close();
+
+        // 无法恢复的连接不能再借出
+        MatcherAssert.assertThat(physical.closed, Matchers.equalTo(true));
+        JdbcConnectionPool.getConnection(url, "user", "pass").close();
+        MatcherAssert.assertThat(created().size(), Matchers.equalTo(2));
+    }
+
+    @Test
+    public void testMaxActiveConnections() throws Exception {
+        List<Connection> connections = new ArrayList<>();
+        for (int i = 0; i < JdbcConnectionPool.MAX_ACTIVE_PER_KEY; i++) {
+            connections.add(JdbcConnectionPool.getConnection(url, "user", "pass"));
+        }
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Connection> waiting = executor.submit(() -> JdbcConnectionPool.getConnection(url, "user", "pass"));
+            try {
+                waiting.get(200, TimeUnit.MILLISECONDS);
+                MatcherAssert.assertThat("borrowed more than the max active connections", false);
+            } catch (TimeoutException e) {
+                // 达到上限时等待其它连接归还
+            }
+
+            connections.remove(0).close();
+            Connection conn = waiting.get(10, TimeUnit.SECONDS);
+            MatcherAssert.assertThat(created().size(), Matchers.equalTo(JdbcConnectionPool.MAX_ACTIVE_PER_KEY));
+            connections.add(conn);
+        } finally {
+            executor.shutdownNow();
+            for (Connection conn : connections) {
+                conn.close();
+            }
+        }
+
+        // 其它连接池不受影响
+        JdbcConnectionPool.getConnection(url, "other", "pass").close();
+    }
+
+    @Test
+    public void testDiscardBrokenConnection() throws SQLException {
+        Connection conn = JdbcConnectionPool.getConnection(url, "user", "pass");
+        conn.close();
+        // 空闲时被服务端断开
+        created().get(0).closed = true;
+
+        JdbcConnectionPool.getConnection(url, "user", "pass").close();
+        MatcherAssert.assertThat(created().size(), Matchers.equalTo(2));
+    }
+
+    @Test
+    public void testCloseConnectionFailedToReset() throws SQLException {
+        Connection conn = JdbcConnectionPool.getConnection(url, "user", "pass");
+        conn.setAutoCommit(false);
+        StubConnection physical = created().get(0);
+        physical.failOnRollback = true;
+        conn.close();
+
+        MatcherAssert.assertThat(physical.closed, Matchers.equalTo(true));
+        JdbcConnectionPool.getConnection(url, "user", "pass").close();
+        MatcherAssert.assertThat(created().size(), Matchers.equalTo(2));
+    }
+
+    @Test
+    public void testMaxIdleConnections() throws SQLException {
+        List<Connection> connections = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            connections.add(JdbcConnectionPool.getConnection(url, "user", "pass"));
+        }
+        for (Connection conn : connections) {
+            conn.close();
+        }
+
+        MatcherAssert.assertThat(countClosed(), Matchers.equalTo(2));
+    }
+
+    @Test
+    public void testEvictIdleConnections() throws SQLException {
+        Connection idle = JdbcConnectionPool.getConnection(url, "user", "pass");
+        Connection borrowed = JdbcConnectionPool.getConnection(url, "user", "pass");
+        idle.close();
+
+        JdbcConnectionPool.evictIdleConnections(System.currentTimeMillis() + 2 * 60 * 1000L);
+        MatcherAssert.assertThat(created().get(0).closed, Matchers.equalTo(true));
+        MatcherAssert.assertThat(created().get(1).closed, Matchers.equalTo(false));
+
+        // 借出的连接归还后仍可复用
+        borrowed.close();
+        JdbcConnectionPool.getConnection(url, "user", "pass").close();
+        MatcherAssert.assertThat(created().size(), Matchers.equalTo(2));
+    }
+
+    private List<StubConnection> created() {
+        List<StubConnection> connections = new ArrayList<>();
+        for (StubConnection conn : DRIVER.connections) {
+            if (conn.url.equals(url)) {
+                connections.add(conn);
+            }
+        }
+        return connections;
+    }
+
+    private int countClosed() {
+        int closed = 0;
+        for (StubConnection conn : created()) {
+            if (conn.closed) {
+                closed++;
+            }
+        }
+        return closed;
+    }
+
+    private static class StubDriver implements Driver {
+
+        private final List<StubConnection> connections = new CopyOnWriteArrayList<>();
+
+        @Override
+        public Connection connect(String url, Properties info) {
+            if (!acceptsURL(url)) {
+                return null;
+            }
+
+            StubConnection conn = new StubConnection(url, info);
+            connections.add(conn);
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{Connection.class},
+                    (proxy, method, args) -> conn.invoke(method.getName(), args));
+        }
+
+        @Override
+        public boolean acceptsURL(String url) {
+            return url.startsWith("jdbc:stub:");
+        }
+
+        @Override
+        public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+            return new DriverPropertyInfo[0];
+        }
+
+        @Override
+        public int getMajorVersion() {
+            return 1;
+        }
+
+        @Override
+        public int getMinorVersion() {
+            return 0;
+        }
+
+        @Override
+        public boolean jdbcCompliant() {
+            return false;
+        }
+
+        @Override
+        public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            throw new SQLFeatureNotSupportedException();
+        }
+    }
+
+    private static class StubConnection {
+
+        private final String url;
+
+        private final Properties properties;
+
+        private volatile boolean closed;
+
+        private boolean autoCommit = true;
+
+        private boolean failOnRollback;
+
+        private boolean readOnly;
+
+        private int transactionIsolation = Connection.TRANSACTION_READ_COMMITTED;
+
+        private String catalog = "db";
+
+        private boolean failOnSetCatalog;
+
+        private int rollbacks;
+
+        StubConnection(String url, Properties properties) {
+            this.url = url;
+            this.properties = properties;
+        }
+
+        Object invoke(String method, Object[] args) throws SQLException {
+            switch (method) {
+                case "isClosed":
+                    return closed;
+                case "isValid":
+                    return !closed;
+                case "close":
+                    closed = true;
+                    return null;
+                case "getAutoCommit":
+                    return autoCommit;
+                case "setAutoCommit":
+                    autoCommit = (Boolean) args[0];
+                    return null;
+                case "rollback":
+                    if (failOnRollback) {
+                        throw new SQLException("connection reset");
+                    }
+                    rollbacks++;
+                    return null;
+                case "clearWarnings":
+                    return null;
+                case "isReadOnly":
+                    return readOnly;
+                case "setReadOnly":
+                    readOnly = (Boolean) args[0];
+                    return null;
+                case "getTransactionIsolation":
+                    return transactionIsolation;
+                case "setTransactionIsolation":
+                    transactionIsolation = (Integer) args[0];
+                    return null;
+                case "getCatalog":
+                    return catalog;
+                case "setCatalog":
+                    if (failOnSetCatalog) {
+                        throw new SQLException("unknown database");
+                    }
+                    catalog = (String) args[0];
+                    return null;
+                default:
+                    throw new UnsupportedOperationException(method);
+            }
+        }
+    }
+}
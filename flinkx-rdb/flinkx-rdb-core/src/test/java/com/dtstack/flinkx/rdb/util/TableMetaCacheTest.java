@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dtstack.flinkx.rdb.util;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TableMetaCacheTest {
+
+    private static final String URL = "jdbc:stub://127.0.0.1:3306/";
+
+    @Test
+    public void testLoadOnce() throws SQLException {
+        AtomicInteger loads = new AtomicInteger();
+        String url = URL + "testLoadOnce";
+
+        for (int i = 0; i < 3; i++) {
+            List<String> keys = TableMetaCache.get(url, "user", "t1", TableMetaCache.TYPE_PRIMARY_KEYS, () -> {
+                loads.incrementAndGet();
+                return Collections.singletonList("id");
+            });
+            MatcherAssert.assertThat(keys, Matchers.contains("id"));
+        }
+        MatcherAssert.assertThat(loads.get(), Matchers.equalTo(1));
+
+        // 类型、表、用户和url不同时分别加载
+        TableMetaCache.get(url, "user", "t1", TableMetaCache.TYPE_FULL_COLUMNS, () -> loads.incrementAndGet());
+        TableMetaCache.get(url, "user", "t2", TableMetaCache.TYPE_PRIMARY_KEYS, () -> loads.incrementAndGet());
+        TableMetaCache.get(url, "user2", "t1", TableMetaCache.TYPE_PRIMARY_KEYS, () -> loads.incrementAndGet());
+        TableMetaCache.get(url + "_other", "user", "t1", TableMetaCache.TYPE_PRIMARY_KEYS, () -> loads.incrementAndGet());
+        MatcherAssert.assertThat(loads.get(), Matchers.equalTo(5));
+    }
+
+    @Test
+    public void testSqlExceptionNotCached() throws SQLException {
+        String url = URL + "testSqlExceptionNotCached";
+        SQLException error = new SQLException("table not found");
+        try {
+            TableMetaCache.get(url, "user", "t1", TableMetaCache.TYPE_COLUMN_TYPES, () -> {
+                throw error;
+            });
+            MatcherAssert.assertThat("should fail", false);
+        } catch (SQLException e) {
+            MatcherAssert.assertThat(e, Matchers.sameInstance(error));
+        }
+
+        String value = TableMetaCache.get(url, "user", "t1", TableMetaCache.TYPE_COLUMN_TYPES, () -> "loaded");
+        MatcherAssert.assertThat(value, Matchers.equalTo("loaded"));
+    }
+
+    @Test
+    public void testWrapOtherException() {
+        String url = URL + "testWrapOtherException";
+        IllegalStateException error = new IllegalStateException("bad metadata");
+        for (int i = 0; i < 2; i++) {
+            try {
+                TableMetaCache.get(url, "user", "t1", TableMetaCache.TYPE_COLUMN_TYPES, () -> {
+                    throw error;
+                });
+                MatcherAssert.assertThat("should fail", false);
+            } catch (SQLException e) {
+                MatcherAssert.assertThat(e.getMessage(), Matchers.containsString("t1"));
+                MatcherAssert.assertThat(e.getCause(), Matchers.sameInstance((Throwable) error));
+            }
+        }
+    }
+
+    @Test
+    public void testConcurrentLoad() throws Exception {
+        String url = URL + "testConcurrentLoad";
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Object>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return TableMetaCache.get(url, "user", "t1", TableMetaCache.TYPE_COLUMN_TYPES, () -> {
+                        loads.incrementAndGet();
+                        Thread.sleep(50);
+                        return "types";
+                    });
+                }));
+            }
+            start.countDown();
+
+            for (Future<Object> future : futures) {
+                MatcherAssert.assertThat(future.get(10, TimeUnit.SECONDS), Matchers.equalTo((Object) "types"));
+            }
+            MatcherAssert.assertThat(loads.get(), Matchers.equalTo(1));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -28,6 +28,7 @@ import com.dtstack.flinkx.rdb.type.TypeConverterInterface;
 import com.dtstack.flinkx.rdb.util.DBUtil;
 import com.dtstack.flinkx.reader.DataReader;
 import com.dtstack.flinkx.reader.MetaColumn;
+import com.dtstack.flinkx.reader.RowHandoffQueue;
 import org.apache.commons.lang.StringUtils;
 import org.apache.flink.streaming.api.datastream.DataStream;
 import org.apache.flink.streaming.api.environment.StreamExecutionEnvironment;
@@ -64,6 +65,10 @@ public class DistributedJdbcDataReader extends DataReader {
 
     protected int queryTimeOut;
 
+    protected int sourceParallelism;
+
+    protected int queueSize;
+
     protected List<ReaderConfig.ParameterConfig.ConnectionConfig> connectionConfigs;
 
     private static String DISTRIBUTED_TAG = "d";
@@ -81,6 +86,8 @@ public class DistributedJdbcDataReader extends DataReader {
         fetchSize = readerConfig.getParameter().getIntVal(JdbcConfigKeys.KEY_FETCH_SIZE,0);
         queryTimeOut = readerConfig.getParameter().getIntVal(JdbcConfigKeys.KEY_QUERY_TIME_OUT,0);
         pluginName = readerConfig.getName();
+        sourceParallelism = readerConfig.getParameter().getIntVal(JdbcConfigKeys.KEY_SOURCE_PARALLELISM, 1);
+        queueSize = readerConfig.getParameter().getIntVal(JdbcConfigKeys.KEY_QUEUE_SIZE, RowHandoffQueue.DEFAULT_CAPACITY);
     }
 
     @Override
@@ -100,6 +107,8 @@ public class DistributedJdbcDataReader extends DataReader {
         builder.setWhere(where);
         builder.setFetchSize(fetchSize == 0 ? databaseInterface.getFetchSize() : fetchSize);
         builder.setQueryTimeOut(queryTimeOut == 0 ? databaseInterface.getQueryTimeout() : queryTimeOut);
+        builder.setSourceParallelism(sourceParallelism);
+        builder.setQueueSize(queueSize);
 
         RichInputFormat format =  builder.finish();
         return createInput(format, (databaseInterface.getDatabaseType() + DISTRIBUTED_TAG + "reader").toLowerCase());
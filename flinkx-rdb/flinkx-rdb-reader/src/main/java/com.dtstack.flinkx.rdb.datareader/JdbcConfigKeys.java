@@ -49,4 +49,16 @@ public class JdbcConfigKeys {
     public static final String KEY_ORDER_BY_COLUMN = "orderByColumn";
 
     public static final String KEY_USE_MAX_FUNC = "useMaxFunc";
+
+    public static final String KEY_SPLIT_STRATEGY = "splitStrategy";
+
+    public static final String KEY_SPLIT_FACTOR = "splitFactor";
+
+    public static final String KEY_SOURCE_PARALLELISM = "sourceParallelism";
+
+    public static final String KEY_QUEUE_SIZE = "queueSize";
+
+    public static final String KEY_PAGE_SIZE = "pageSize";
+
+    public static final String KEY_PREFETCH_PAGE = "prefetchPage";
 }
@@ -70,6 +70,14 @@ public class JdbcDataReader extends DataReader {
 
     protected IncrementConfig incrementConfig;
 
+    protected SplitStrategy splitStrategy;
+
+    protected int splitFactor;
+
+    protected int pageSize;
+
+    protected boolean prefetchPage;
+
     public void setDatabaseInterface(DatabaseInterface databaseInterface) {
         this.databaseInterface = databaseInterface;
     }
@@ -93,6 +101,10 @@ public class JdbcDataReader extends DataReader {
         splitKey = readerConfig.getParameter().getStringVal(JdbcConfigKeys.KEY_SPLIK_KEY);
         customSql = readerConfig.getParameter().getStringVal(JdbcConfigKeys.KEY_CUSTOM_SQL,null);
         orderByColumn = readerConfig.getParameter().getStringVal(JdbcConfigKeys.KEY_ORDER_BY_COLUMN,null);
+        splitStrategy = SplitStrategy.getByName(readerConfig.getParameter().getStringVal(JdbcConfigKeys.KEY_SPLIT_STRATEGY, null));
+        splitFactor = readerConfig.getParameter().getIntVal(JdbcConfigKeys.KEY_SPLIT_FACTOR, 1);
+        pageSize = readerConfig.getParameter().getIntVal(JdbcConfigKeys.KEY_PAGE_SIZE, 0);
+        prefetchPage = readerConfig.getParameter().getBooleanVal(JdbcConfigKeys.KEY_PREFETCH_PAGE, false);
 
         buildIncrementConfig(readerConfig);
     }
@@ -116,6 +128,11 @@ public class JdbcDataReader extends DataReader {
         builder.setSplitKey(splitKey);
         builder.setNumPartitions(numPartitions);
         builder.setCustomSql(customSql);
+        builder.setWhere(where);
+        builder.setSplitStrategy(splitStrategy);
+        builder.setSplitFactor(splitFactor);
+        builder.setPageSize(pageSize);
+        builder.setPrefetchPage(prefetchPage);
         builder.setRestoreConfig(restoreConfig);
         builder.setHadoopConfig(hadoopConfig);
 
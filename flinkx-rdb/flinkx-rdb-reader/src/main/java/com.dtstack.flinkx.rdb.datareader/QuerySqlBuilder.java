@@ -36,6 +36,7 @@ public class QuerySqlBuilder {
     protected static final String TEMPORARY_TABLE_NAME = "flinkx_tmp";
     protected static final String INCREMENT_FILTER_PLACEHOLDER = "${incrementFilter}";
     protected static final String RESTORE_FILTER_PLACEHOLDER = "${restoreFilter}";
+    protected static final String SPLIT_RANGE_FILTER_PLACEHOLDER = "${splitRangeFilter}";
     protected static final String SQL_SPLIT_WITH_ROW_NUM = "SELECT * FROM (%s) tmp WHERE %s";
     protected static final String ROW_NUM_COLUMN_ALIAS = "FLINKX_ROWNUM";
 
@@ -51,6 +52,8 @@ public class QuerySqlBuilder {
     protected String restoreColumn;
     protected boolean isRestore;
     protected String orderByColumn;
+    protected SplitStrategy splitStrategy = SplitStrategy.MOD;
+    protected String keysetColumn;
 
     public QuerySqlBuilder(JdbcDataReader reader) {
         databaseInterface = reader.databaseInterface;
@@ -65,6 +68,8 @@ public class QuerySqlBuilder {
         isRestore = reader.getRestoreConfig().isRestore();
         restoreColumn = reader.getRestoreConfig().getRestoreColumnName();
         orderByColumn = reader.orderByColumn;
+        splitStrategy = reader.splitStrategy;
+        keysetColumn = reader.pageSize > 0 ? splitKey : null;
     }
 
     public QuerySqlBuilder(DatabaseInterface databaseInterface,String table,List<MetaColumn> metaColumns,
@@ -93,6 +98,7 @@ public class QuerySqlBuilder {
     protected String buildQuerySql(){
         List<String> selectColumns = buildSelectColumns(databaseInterface, metaColumns);
         boolean splitWithRowNum = addRowNumColumn(databaseInterface, selectColumns, isSplitByKey, splitKey);
+        addKeysetColumn(selectColumns);
 
         StringBuilder sb = new StringBuilder();
         sb.append("SELECT ").append(StringUtils.join(selectColumns,",")).append(" FROM ");
@@ -102,7 +108,7 @@ public class QuerySqlBuilder {
         StringBuilder filter = new StringBuilder();
 
         if(isSplitByKey && !splitWithRowNum) {
-            filter.append(" AND ").append(databaseInterface.getSplitFilter(splitKey));
+            filter.append(" AND ").append(buildSplitFilter());
         }
 
         if (customFilter != null){
@@ -130,6 +136,11 @@ public class QuerySqlBuilder {
     }
 
     protected String buildOrderSql(){
+        // 按主键分页读取时由JdbcInputFormat在每页的查询语句后追加主键排序
+        if(StringUtils.isNotEmpty(keysetColumn)){
+            return "";
+        }
+
         String column;
         if(isIncrement){
             column = incrementColumn;
@@ -148,7 +159,11 @@ public class QuerySqlBuilder {
         querySql.append(" WHERE 1=1 ");
 
         if (isSplitByKey){
-            querySql.append(" And ").append(databaseInterface.getSplitFilterWithTmpTable(TEMPORARY_TABLE_NAME, splitKey));
+            if (splitStrategy == SplitStrategy.RANGE){
+                querySql.append(" And ").append(SPLIT_RANGE_FILTER_PLACEHOLDER);
+            } else {
+                querySql.append(" And ").append(databaseInterface.getSplitFilterWithTmpTable(TEMPORARY_TABLE_NAME, splitKey));
+            }
         }
 
         if(isIncrement){
@@ -162,6 +177,17 @@ public class QuerySqlBuilder {
         return querySql.toString();
     }
 
+    /**
+     * 按范围切分时先写入占位符，由JdbcInputFormat根据分片的上下界替换
+     */
+    protected String buildSplitFilter(){
+        if (splitStrategy == SplitStrategy.RANGE){
+            return SPLIT_RANGE_FILTER_PLACEHOLDER;
+        }
+
+        return databaseInterface.getSplitFilter(splitKey);
+    }
+
     protected static List<String> buildSelectColumns(DatabaseInterface databaseInterface, List<MetaColumn> metaColumns){
         List<String> selectColumns = new ArrayList<>();
         if(metaColumns.size() == 1 && "*".equals(metaColumns.get(0).getName())){
@@ -179,6 +205,23 @@ public class QuerySqlBuilder {
         return selectColumns;
     }
 
+    /**
+     * 按主键分页读取时用主键记录每页的读取位置，column中没有主键时追加到查询字段的末尾
+     */
+    protected void addKeysetColumn(List<String> selectColumns){
+        if(StringUtils.isEmpty(keysetColumn) || "*".equals(metaColumns.get(0).getName())){
+            return;
+        }
+
+        for (MetaColumn metaColumn : metaColumns) {
+            if (metaColumn.getValue() == null && keysetColumn.equalsIgnoreCase(metaColumn.getName())){
+                return;
+            }
+        }
+
+        selectColumns.add(databaseInterface.quoteColumn(keysetColumn));
+    }
+
     protected static boolean addRowNumColumn(DatabaseInterface databaseInterface, List<String> selectColumns, boolean isSplitByKey,String splitKey){
         if(!isSplitByKey || !splitKey.contains("(")){
             return false;
@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.flinkx.rdb.datareader;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * How the rows are divided between the channels when splitPk is set
+ *
+ * Company: www.dtstack.com
+ */
+public enum SplitStrategy {
+
+    /**
+     * Each channel reads the rows where splitPk mod N = M, every channel scans the whole table
+     */
+    MOD,
+
+    /**
+     * The range [min(splitPk), max(splitPk)] is divided into N parts, each channel scans one part
+     */
+    RANGE;
+
+    public static SplitStrategy getByName(String name) {
+        if (StringUtils.isEmpty(name)) {
+            return MOD;
+        }
+
+        for (SplitStrategy strategy : values()) {
+            if (strategy.name().equalsIgnoreCase(name)) {
+                return strategy;
+            }
+        }
+
+        throw new IllegalArgumentException("Unsupported split strategy:" + name);
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dtstack.flinkx.rdb.inputformat;
+
+import java.sql.ResultSet;
+import java.util.function.Function;
+
+/**
+ * 从ResultSet当前行读取某一列的值，在打开分片时按字段类型生成一次，
+ * 读取数据时按列直接调用，避免每行都判断字段类型
+ *
+ * Company: www.dtstack.com
+ */
+@FunctionalInterface
+public interface ColumnExtractor {
+
+    /**
+     * 读取当前行的字段值
+     * @param resultSet 结果集
+     * @return 字段值
+     * @throws Exception 读取失败
+     */
+    Object extract(ResultSet resultSet) throws Exception;
+
+    /**
+     * 对读取到的非null值继续做转换
+     * @param converter 转换函数
+     * @return 组合后的读取器
+     */
+    default ColumnExtractor andThen(Function<Object, Object> converter) {
+        return resultSet -> {
+            Object value = extract(resultSet);
+            return value == null ? null : converter.apply(value);
+        };
+    }
+}
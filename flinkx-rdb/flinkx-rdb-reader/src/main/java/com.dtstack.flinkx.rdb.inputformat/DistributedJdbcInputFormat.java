@@ -25,6 +25,7 @@ import com.dtstack.flinkx.rdb.datareader.QuerySqlBuilder;
 import com.dtstack.flinkx.rdb.type.TypeConverterInterface;
 import com.dtstack.flinkx.rdb.util.DBUtil;
 import com.dtstack.flinkx.reader.MetaColumn;
+import com.dtstack.flinkx.reader.RowHandoffQueue;
 import com.dtstack.flinkx.util.ClassUtil;
 import com.dtstack.flinkx.util.StringUtil;
 import org.apache.flink.configuration.Configuration;
@@ -94,6 +95,15 @@ public class DistributedJdbcInputFormat extends RichInputFormat {
 
     protected int queryTimeOut;
 
+    /**
+     * 同时读取的数据源数量，大于1时由后台线程预先打开后续的数据源并读取数据
+     */
+    protected int sourceParallelism = 1;
+
+    protected int queueSize = RowHandoffQueue.DEFAULT_CAPACITY;
+
+    protected transient ParallelSourceReader parallelSourceReader;
+
     public DistributedJdbcInputFormat() {
         resultSetType = ResultSet.TYPE_FORWARD_ONLY;
         resultSetConcurrency = ResultSet.CONCUR_READ_ONLY;
@@ -109,6 +119,15 @@ public class DistributedJdbcInputFormat extends RichInputFormat {
         try{
             ClassUtil.forName(driverName, getClass().getClassLoader());
             sourceList = ((DistributedJdbcInputSplit) inputSplit).getSourceList();
+
+            if (sourceParallelism > 1 && sourceList.size() > 1){
+                DataSource firstSource = sourceList.get(0);
+                descColumnTypeList = DBUtil.analyzeTable(firstSource.getJdbcUrl(), firstSource.getUserName(),
+                        firstSource.getPassword(), databaseInterface, firstSource.getTable(), metaColumns);
+
+                parallelSourceReader = new ParallelSourceReader(this, sourceList, sourceParallelism, queueSize);
+                parallelSourceReader.start(getRuntimeContext().getMetricGroup(), "jdbc-source-reader-" + jobName + "-" + indexOfSubtask);
+            }
         }catch (Exception e){
             throw new IllegalArgumentException("open() failed." + e.getMessage(), e);
         }
@@ -120,35 +139,89 @@ public class DistributedJdbcInputFormat extends RichInputFormat {
         DataSource currentSource = sourceList.get(sourceIndex);
         currentConn = DBUtil.getConnection(currentSource.getJdbcUrl(), currentSource.getUserName(), currentSource.getPassword());
         currentConn.setAutoCommit(false);
-        String queryTemplate = new QuerySqlBuilder(databaseInterface, currentSource.getTable(),metaColumns,splitKey,
-                where, currentSource.isSplitByKey(), false, false).buildSql();
         currentStatement = currentConn.createStatement(resultSetType, resultSetConcurrency);
+        currentResultSet = executeSourceQuery(currentSource, currentStatement);
+        columnCount = currentResultSet.getMetaData().getColumnCount();
 
-        if (currentSource.isSplitByKey()){
-            String n = currentSource.getParameterValues()[0].toString();
-            String m = currentSource.getParameterValues()[1].toString();
+        if(descColumnTypeList == null) {
+            descColumnTypeList = DBUtil.analyzeTable(currentSource.getJdbcUrl(), currentSource.getUserName(),
+                    currentSource.getPassword(),databaseInterface, currentSource.getTable(),metaColumns);
+        }
+
+        LOG.info("open source: {} ,table: {}", currentSource.getJdbcUrl(), currentSource.getTable());
+    }
+
+    /**
+     * 构建数据源的查询sql并执行
+     * @param source    数据源
+     * @param statement 数据源连接创建的statement
+     * @return 查询结果
+     */
+    protected ResultSet executeSourceQuery(DataSource source, Statement statement) throws SQLException {
+        String queryTemplate = new QuerySqlBuilder(databaseInterface, source.getTable(),metaColumns,splitKey,
+                where, source.isSplitByKey(), false, false).buildSql();
+
+        if (source.isSplitByKey()){
+            String n = source.getParameterValues()[0].toString();
+            String m = source.getParameterValues()[1].toString();
             queryTemplate = queryTemplate.replace("${N}",n).replace("${M}",m);
 
             if (LOG.isDebugEnabled()) {
                 LOG.debug(String.format("Executing '%s' with parameters %s", queryTemplate,
-                        Arrays.deepToString(currentSource.getParameterValues())));
+                        Arrays.deepToString(source.getParameterValues())));
             }
         }
 
-        currentStatement.setFetchSize(fetchSize);
-        currentStatement.setQueryTimeout(queryTimeOut);
-        currentResultSet = currentStatement.executeQuery(queryTemplate);
-        columnCount = currentResultSet.getMetaData().getColumnCount();
+        setStatementOptions(statement);
+        return statement.executeQuery(queryTemplate);
+    }
 
-        if(descColumnTypeList == null) {
-            descColumnTypeList = DBUtil.analyzeTable(currentSource.getJdbcUrl(), currentSource.getUserName(),
-                    currentSource.getPassword(),databaseInterface, currentSource.getTable(),metaColumns);
+    protected void setStatementOptions(Statement statement) throws SQLException {
+        statement.setFetchSize(fetchSize);
+        statement.setQueryTimeout(queryTimeOut);
+    }
+
+    /**
+     * 将结果集的当前行转换为Row，并行读取时会被多个线程同时调用
+     * @param resultSet   结果集
+     * @param columnCount 字段数量
+     * @return 转换后的数据
+     */
+    protected Row buildRecord(ResultSet resultSet, int columnCount) throws Exception {
+        Row record = new Row(columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            record.setField(i, resultSet.getObject(i + 1));
         }
 
-        LOG.info("open source: {} ,table: {}", currentSource.getJdbcUrl(), currentSource.getTable());
+        fillMetaColumnValues(record, columnCount);
+        return record;
+    }
+
+    protected void fillMetaColumnValues(Row record, int columnCount){
+        if("*".equals(metaColumns.get(0).getName())){
+            return;
+        }
+
+        for (int i = 0; i < columnCount; i++) {
+            Object val = record.getField(i);
+            if(val == null && metaColumns.get(i).getValue() != null){
+                val = metaColumns.get(i).getValue();
+            }
+
+            if (val instanceof String){
+                val = StringUtil.string2col(String.valueOf(val),metaColumns.get(i).getType(),metaColumns.get(i).getTimeFormat());
+                record.setField(i,val);
+            }
+        }
     }
 
     protected boolean readNextRecord() throws IOException{
+        if (parallelSourceReader != null){
+            currentRecord = parallelSourceReader.next();
+            hasNext = currentRecord != null;
+            return !hasNext;
+        }
+
         try{
             if(currentConn == null){
                 openNextSource();
@@ -156,20 +229,7 @@ public class DistributedJdbcInputFormat extends RichInputFormat {
 
             hasNext = currentResultSet.next();
             if (hasNext){
-                currentRecord = new Row(columnCount);
-                if(!"*".equals(metaColumns.get(0).getName())){
-                    for (int i = 0; i < columnCount; i++) {
-                        Object val = currentRecord.getField(i);
-                        if(val == null && metaColumns.get(i).getValue() != null){
-                            val = metaColumns.get(i).getValue();
-                        }
-
-                        if (val instanceof String){
-                            val = StringUtil.string2col(String.valueOf(val),metaColumns.get(i).getType(),metaColumns.get(i).getTimeFormat());
-                            currentRecord.setField(i,val);
-                        }
-                    }
-                }
+                currentRecord = buildRecord(currentResultSet, columnCount);
             } else {
                 if(sourceIndex + 1 < sourceList.size()){
                     closeCurrentSource();
@@ -204,7 +264,10 @@ public class DistributedJdbcInputFormat extends RichInputFormat {
 
     @Override
     protected void closeInternal() throws IOException {
-
+        if (parallelSourceReader != null){
+            parallelSourceReader.close();
+            parallelSourceReader = null;
+        }
     }
 
     @Override
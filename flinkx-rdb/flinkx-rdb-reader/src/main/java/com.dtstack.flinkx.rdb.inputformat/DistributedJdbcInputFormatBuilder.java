@@ -92,6 +92,14 @@ public class DistributedJdbcInputFormatBuilder extends RichInputFormatBuilder {
         format.queryTimeOut = queryTimeOut;
     }
 
+    public void setSourceParallelism(int sourceParallelism){
+        format.sourceParallelism = sourceParallelism;
+    }
+
+    public void setQueueSize(int queueSize){
+        format.queueSize = queueSize;
+    }
+
     @Override
     protected void checkFormat() {
 
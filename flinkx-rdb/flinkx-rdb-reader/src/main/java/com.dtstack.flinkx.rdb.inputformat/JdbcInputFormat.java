@@ -23,11 +23,15 @@ import com.dtstack.flinkx.enums.ColumnType;
 import com.dtstack.flinkx.inputformat.RichInputFormat;
 import com.dtstack.flinkx.rdb.DatabaseInterface;
 import com.dtstack.flinkx.rdb.datareader.IncrementConfig;
+import com.dtstack.flinkx.rdb.datareader.SplitStrategy;
 import com.dtstack.flinkx.rdb.type.TypeConverterInterface;
 import com.dtstack.flinkx.rdb.util.DBUtil;
+import com.dtstack.flinkx.rdb.util.JdbcConnectionPool;
+import com.dtstack.flinkx.rdb.util.TableMetaCache;
 import com.dtstack.flinkx.reader.MetaColumn;
 import com.dtstack.flinkx.util.*;
 import com.dtstack.flinkx.restore.FormatState;
+import com.dtstack.flinkx.restore.SplitState;
 import com.dtstack.flinkx.util.ClassUtil;
 import com.dtstack.flinkx.util.DateUtil;
 import com.dtstack.flinkx.util.StringUtil;
@@ -51,9 +55,16 @@ import org.apache.hadoop.io.IOUtils;
 import org.codehaus.jackson.map.ObjectMapper;
 
 import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.sql.*;
+import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * InputFormat for reading data from a database and generate Rows.
@@ -99,6 +110,11 @@ public class JdbcInputFormat extends RichInputFormat {
 
     protected List<MetaColumn> metaColumns;
 
+    /**
+     * 当前分片的读取计划，下标与结果集中的列一一对应
+     */
+    protected transient ColumnExtractor[] columnExtractors;
+
     protected String splitKey;
 
     protected int fetchSize;
@@ -109,6 +125,61 @@ public class JdbcInputFormat extends RichInputFormat {
 
     protected String customSql;
 
+    protected String where;
+
+    protected SplitStrategy splitStrategy;
+
+    /**
+     * 按范围切分时每个通道平均分到的分片数量，大于1时分片由通道按需领取
+     */
+    protected int splitFactor = 1;
+
+    /**
+     * 按主键分页读取时每页的数据条数，大于0时开启分页读取，使用splitPk作为分页主键
+     */
+    protected int pageSize;
+
+    /**
+     * 分页读取时是否在发送当前页数据的同时预读下一页
+     */
+    protected boolean prefetchPage;
+
+    private transient String firstPageSql;
+
+    private transient String nextPageSql;
+
+    /**
+     * 数据库不支持在语句中限制条数时通过Statement.setMaxRows限制每页条数
+     */
+    private transient boolean limitByMaxRows;
+
+    /**
+     * 分页主键在结果集中的下标，从1开始
+     */
+    private transient int keyIndex;
+
+    private transient KeysetPage currentPage;
+
+    private transient int pageCursor;
+
+    private transient ExecutorService pageExecutor;
+
+    private transient Future<KeysetPage> nextPage;
+
+    /**
+     * 各分片的断点续传状态，key为分片编号
+     */
+    private transient Map<Integer, SplitState> splitStates;
+
+    private transient JdbcInputSplit currentSplit;
+
+    /**
+     * 分片状态对应的切分点，恢复时沿用上次的切分点，避免数据变化后分片编号对应的范围发生变化
+     */
+    private transient List<String> splitPlan;
+
+    private transient boolean restoredSplitPlan;
+
     protected IncrementConfig incrementConfig;
 
     protected StringAccumulator tableColAccumulator;
@@ -144,6 +215,11 @@ public class JdbcInputFormat extends RichInputFormat {
         }
 
         restoreColumn = metaColumns.get(restoreConfig.getRestoreColumnIndex());
+
+        // 分页读取按主键恢复，断点续传字段需要和分页主键一致
+        if (pageSize > 0 && !restoreColumn.getName().equalsIgnoreCase(splitKey)){
+            throw new IllegalArgumentException("The restore column must be the split column when reading by page");
+        }
     }
 
     @Override
@@ -165,11 +241,26 @@ public class JdbcInputFormat extends RichInputFormat {
                 return;
             }
 
-            dbConn = DBUtil.getConnection(dbURL, username, password);
+            if (pageSize > 0){
+                openKeysetPages(inputSplit);
+                return;
+            }
+
+            dbConn = JdbcConnectionPool.getConnection(dbURL, username, password);
+
+            // 流式读取时同一个连接上不能执行其它查询，先获取字段类型
+            if (StringUtils.isEmpty(customSql)){
+                descColumnTypeList = DBUtil.analyzeTable(dbConn, dbURL, username, databaseInterface, table, metaColumns);
+            } else {
+                descColumnTypeList = new ArrayList<>();
+                for (MetaColumn metaColumn : metaColumns) {
+                    descColumnTypeList.add(metaColumn.getName());
+                }
+            }
 
             // 部分驱动需要关闭事务自动提交，fetchSize参数才会起作用
             dbConn.setAutoCommit(false);
-            Statement statement = dbConn.createStatement(resultSetType, resultSetConcurrency);
+            statement = dbConn.createStatement(resultSetType, resultSetConcurrency);
             statement.setFetchSize(fetchSize);
             statement.setQueryTimeout(queryTimeOut);
             String querySql = buildQuerySql(inputSplit);
@@ -183,14 +274,7 @@ public class JdbcInputFormat extends RichInputFormat {
 
             hasNext = resultSet.next();
 
-            if (StringUtils.isEmpty(customSql)){
-                descColumnTypeList = DBUtil.analyzeTable(dbURL, username, password,databaseInterface,table,metaColumns);
-            } else {
-                descColumnTypeList = new ArrayList<>();
-                for (MetaColumn metaColumn : metaColumns) {
-                    descColumnTypeList.add(metaColumn.getName());
-                }
-            }
+            buildExtractionPlan(resultSet.getMetaData());
 
         } catch (SQLException se) {
             throw new IllegalArgumentException("open() failed." + se.getMessage(), se);
@@ -207,6 +291,13 @@ public class JdbcInputFormat extends RichInputFormat {
 
     @Override
     public InputSplit[] createInputSplits(int minNumSplits) throws IOException {
+        if (isSplitByRange()){
+            JdbcInputSplit[] splits = createRangeSplits(minNumSplits);
+            if (splits != null){
+                return splits;
+            }
+        }
+
         JdbcInputSplit[] splits = new JdbcInputSplit[minNumSplits];
         for (int i = 0; i < minNumSplits; i++) {
             splits[i] = new JdbcInputSplit(i, numPartitions, i, incrementConfig.getStartLocation(), null);
@@ -215,8 +306,218 @@ public class JdbcInputFormat extends RichInputFormat {
         return splits;
     }
 
+    /**
+     * 是否按splitPk的范围切分，使用row_number切分时不支持
+     */
+    protected boolean isSplitByRange(){
+        return splitStrategy == SplitStrategy.RANGE
+                && numPartitions > 1
+                && StringUtils.isNotEmpty(splitKey)
+                && !splitKey.contains("(");
+    }
+
+    /**
+     * 查询splitPk的最小值和最大值，按范围切分数据，无法按范围切分时返回null
+     * @param minNumSplits 分片数量
+     * @return 数据分片
+     */
+    protected JdbcInputSplit[] createRangeSplits(int minNumSplits) throws IOException {
+        Object[] range = getSplitKeyRange();
+        int numChunks = isSplitByChunk() ? minNumSplits * splitFactor : minNumSplits;
+        List<String> cuts = getRangeCuts(range[0], range[1], numChunks);
+        if (cuts.isEmpty()){
+            LOG.warn("Can not split by the range of [{}], min = {}, max = {}, split by mod instead", splitKey, range[0], range[1]);
+            return null;
+        }
+
+        int numSplits = getNumOfRangeSplits(cuts, minNumSplits);
+        JdbcInputSplit[] splits = new JdbcInputSplit[numSplits];
+        for (int i = 0; i < numSplits; i++) {
+            String[] bounds = getRangeBounds(cuts, i);
+            splits[i] = new JdbcInputSplit(i, numSplits, incrementConfig.getStartLocation(), bounds[0], bounds[1]);
+        }
+
+        LOG.info("Split by the range of [{}] into {} splits, cuts = {}", splitKey, numSplits, cuts);
+        return splits;
+    }
+
+    protected static int getNumOfRangeSplits(List<String> cuts, int minNumSplits){
+        return Math.max(cuts.size() + 1, minNumSplits);
+    }
+
+    /**
+     * 获取第index个分片的上下界
+     * @param cuts  切分点
+     * @param index 分片编号
+     * @return [lowerBound, upperBound]
+     */
+    protected static String[] getRangeBounds(List<String> cuts, int index){
+        if (index <= cuts.size()){
+            return new String[]{index == 0 ? null : cuts.get(index - 1), index == cuts.size() ? null : cuts.get(index)};
+        }
+
+        // 切分点少于通道数时，多余的通道读取空范围
+        String bound = cuts.get(cuts.size() - 1);
+        return new String[]{bound, bound};
+    }
+
+    /**
+     * 是否将数据切分为多于通道数的分片，由通道按需领取。
+     * 增量任务每个通道只能打开一次分片，不支持
+     */
+    protected boolean isSplitByChunk(){
+        return splitFactor > 1 && isSplitByRange() && !incrementConfig.isIncrement();
+    }
+
+    /**
+     * 查询splitPk的最小值和最大值
+     * @return [min, max]
+     */
+    private Object[] getSplitKeyRange() throws IOException {
+        Connection conn = null;
+        Statement st = null;
+        ResultSet rs = null;
+        try {
+            long startTime = System.currentTimeMillis();
+
+            String column = getSplitKeyColumn();
+            String querySql;
+            if (StringUtils.isNotEmpty(customSql)){
+                querySql = String.format("select min(%s) as min_value, max(%s) as max_value from ( %s ) %s",
+                        column, column, customSql, DBUtil.TEMPORARY_TABLE_NAME);
+            } else {
+                querySql = String.format("select min(%s) as min_value, max(%s) as max_value from %s",
+                        column, column, databaseInterface.quoteTable(table));
+                if (StringUtils.isNotBlank(where)){
+                    querySql += " where " + where;
+                }
+            }
+
+            LOG.info("Query the range of split key, sql = {}", querySql);
+
+            ClassUtil.forName(drivername, getClass().getClassLoader());
+            conn = JdbcConnectionPool.getConnection(dbURL, username, password);
+            st = conn.createStatement();
+            st.setQueryTimeout(queryTimeOut);
+            rs = st.executeQuery(querySql);
+
+            Object[] range = new Object[2];
+            if (rs.next()){
+                range[0] = rs.getObject("min_value");
+                range[1] = rs.getObject("max_value");
+            }
+
+            LOG.info("Takes [{}] milliseconds to get the range of split key: [{}, {}]", System.currentTimeMillis() - startTime, range[0], range[1]);
+            return range;
+        } catch (Exception e){
+            throw new IOException("Get the range of split key [" + splitKey + "] from " + table + " error", e);
+        } finally {
+            DBUtil.closeDBResources(rs, st, conn, false);
+        }
+    }
+
+    /**
+     * 计算切分点，整数按数值切分，字符串按ascii切分，其余类型返回空列表
+     * @param min       splitPk最小值
+     * @param max       splitPk最大值
+     * @param numSplits 分片数量
+     * @return 严格递增的切分点(sql字面量)
+     */
+    protected static List<String> getRangeCuts(Object min, Object max, int numSplits){
+        List<String> cuts = new ArrayList<>();
+        if (min == null || max == null){
+            return cuts;
+        }
+
+        if (min instanceof Number && max instanceof Number){
+            BigInteger[] bounds = RangeSplitUtil.doBigIntegerSplit(toBigInteger(min), toBigInteger(max), numSplits);
+            for (int i = 1; i < bounds.length - 1; i++) {
+                cuts.add(bounds[i].toString());
+            }
+        } else if (min instanceof String && max instanceof String){
+            String[] bounds;
+            try {
+                bounds = RangeSplitUtil.doAsciiStringSplit((String) min, (String) max, numSplits);
+            } catch (IllegalArgumentException e){
+                return cuts;
+            }
+
+            // 只保留由数字和同一种大小写的字母组成的前缀，这部分字符在常见排序规则下与ascii顺序一致，保证切分点严格递增
+            boolean upperCase = Character.isUpperCase(((String) min).isEmpty() ? 'a' : ((String) min).charAt(0));
+            String last = null;
+            for (int i = 1; i < bounds.length - 1; i++) {
+                String cut = getComparablePrefix(bounds[i], upperCase);
+                if (cut.isEmpty() || (last != null && cut.compareTo(last) <= 0)){
+                    continue;
+                }
+
+                cuts.add("'" + cut + "'");
+                last = cut;
+            }
+        }
+
+        return cuts;
+    }
+
+    private static BigInteger toBigInteger(Object value){
+        if (value instanceof BigInteger){
+            return (BigInteger) value;
+        }
+
+        return new BigDecimal(value.toString()).toBigInteger();
+    }
+
+    private static String getComparablePrefix(String value, boolean upperCase){
+        char firstLetter = upperCase ? 'A' : 'a';
+        char lastLetter = upperCase ? 'Z' : 'z';
+        int i = 0;
+        while (i < value.length()){
+            char c = value.charAt(i);
+            if (!((c >= '0' && c <= '9') || (c >= firstLetter && c <= lastLetter))){
+                break;
+            }
+            i++;
+        }
+
+        return value.substring(0, i);
+    }
+
+    private String getSplitKeyColumn(){
+        if (StringUtils.isNotEmpty(customSql)){
+            return String.format("%s.%s", DBUtil.TEMPORARY_TABLE_NAME, databaseInterface.quoteColumn(splitKey));
+        }
+
+        return databaseInterface.quoteColumn(splitKey);
+    }
+
+    /**
+     * 构建按范围切分的过滤条件，没有下界的分片同时读取splitPk为null的数据
+     * @param split 数据分片
+     * @return 过滤条件
+     */
+    protected String buildSplitRangeFilter(JdbcInputSplit split){
+        String column = getSplitKeyColumn();
+        String lowerBound = split.getLowerBound();
+        String upperBound = split.getUpperBound();
+
+        if (lowerBound == null && upperBound == null){
+            return "1=1";
+        } else if (lowerBound == null){
+            return String.format("(%s < %s OR %s IS NULL)", column, upperBound, column);
+        } else if (upperBound == null){
+            return String.format("%s >= %s", column, lowerBound);
+        } else {
+            return String.format("%s >= %s AND %s < %s", column, lowerBound, column, upperBound);
+        }
+    }
+
     @Override
     public InputSplitAssigner getInputSplitAssigner(InputSplit[] inputSplits) {
+        if (inputSplits.length > 0 && ((JdbcInputSplit) inputSplits[0]).isRangeSplit()){
+            // 不按需领取分片时，断点续传的状态只对应通道上次读取的分片，分片必须固定分配给同一个通道
+            return isSplitByChunk() ? new JdbcInputSplitAssigner(inputSplits) : new SubtaskInputSplitAssigner(inputSplits);
+        }
+
         return new DefaultInputSplitAssigner(inputSplits);
     }
 
@@ -227,19 +528,19 @@ public class JdbcInputFormat extends RichInputFormat {
 
     @Override
     public Row nextRecordInternal(Row row) throws IOException {
-        try {
-            if(!"*".equals(metaColumns.get(0).getName())){
-                for (int i = 0; i < columnCount; i++) {
-                    Object val = row.getField(i);
-                    if(val == null && metaColumns.get(i).getValue() != null){
-                        val = metaColumns.get(i).getValue();
-                    }
+        if (!hasNext) {
+            return null;
+        }
 
-                    if (val instanceof String){
-                        val = StringUtil.string2col(String.valueOf(val),metaColumns.get(i).getType(),metaColumns.get(i).getTimeFormat());
-                        row.setField(i,val);
-                    }
-                }
+        if (pageSize > 0){
+            return nextPageRecord();
+        }
+
+        row = new Row(columnCount);
+
+        try {
+            for (int pos = 0; pos < columnCount; pos++) {
+                row.setField(pos, columnExtractors[pos].extract(resultSet));
             }
 
             if(incrementConfig.isIncrement() && !incrementConfig.isUseMaxFunc()){
@@ -257,11 +558,350 @@ public class JdbcInputFormat extends RichInputFormat {
             return row;
         } catch (SQLException se) {
             throw new IOException("Couldn't read data - " + se.getMessage(), se);
-        } catch (Exception npe) {
-            throw new IOException("Couldn't access resultSet", npe);
+        } catch (Exception e) {
+            throw new IOException("Couldn't read data - " + e.getMessage(), e);
         }
     }
 
+    /**
+     * 按主键分页读取，每页从连接池获取连接执行一次 pk > ? ORDER BY pk 的查询，读完即归还连接，
+     * 不在整个分片的读取过程中占用连接和游标
+     * @param inputSplit 数据分片
+     * @throws IOException 读取第一页数据失败
+     */
+    protected void openKeysetPages(InputSplit inputSplit) throws IOException {
+        try {
+            if (StringUtils.isEmpty(customSql)){
+                try (Connection conn = JdbcConnectionPool.getConnection(dbURL, username, password)) {
+                    descColumnTypeList = DBUtil.analyzeTable(conn, dbURL, username, databaseInterface, table, metaColumns);
+                    checkPageKey(conn);
+                }
+            } else {
+                descColumnTypeList = new ArrayList<>();
+                for (MetaColumn metaColumn : metaColumns) {
+                    descColumnTypeList.add(metaColumn.getName());
+                }
+            }
+
+            String keyColumn = getSplitKeyColumn();
+            String querySql = buildQuerySql(inputSplit);
+            String limitClause = databaseInterface.getLimitClause(pageSize);
+            limitByMaxRows = limitClause == null;
+            firstPageSql = buildPageSql(querySql, keyColumn, limitClause, true);
+            nextPageSql = buildPageSql(querySql, keyColumn, limitClause, false);
+            LOG.info("Read by page, pageSize:{}, prefetchPage:{}, sql:{}", pageSize, prefetchPage, nextPageSql);
+
+            readFirstPage();
+        } catch (Exception e) {
+            throw new IOException("open() failed. " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 读取第一页数据，开启预读时同时开始读取第二页
+     * @throws Exception 读取第一页数据失败
+     */
+    void readFirstPage() throws Exception {
+        if (prefetchPage){
+            pageExecutor = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "page-prefetch-" + jobName + "-" + indexOfSubtask);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        columnExtractors = null;
+        currentPage = fetchPage(null);
+        pageCursor = 0;
+        hasNext = currentPage.size() > 0;
+        prefetchNextPage();
+    }
+
+    /**
+     * 分页主键不唯一时相同主键值的数据可能跨页，按 pk > ? 读取下一页会漏掉这些数据，因此分页主键必须是主键或唯一索引
+     * @param conn 数据库连接
+     * @throws SQLException 读取索引信息失败
+     */
+    protected void checkPageKey(Connection conn) throws SQLException {
+        Map<String, List<String>> keys = TableMetaCache.get(dbURL, username, table, TableMetaCache.TYPE_PRIMARY_KEYS,
+                () -> Collections.unmodifiableMap(DBUtil.getPrimaryOrUniqueKeys(table, conn)));
+        if (!isUniqueKey(keys, splitKey)){
+            throw new IllegalArgumentException("The split column [" + splitKey + "] must be a primary key or unique key when reading by page");
+        }
+    }
+
+    /**
+     * 判断字段本身是否为主键或唯一索引，联合索引中的字段不能保证唯一
+     * @param keys   索引名和索引字段
+     * @param column 字段名
+     * @return 是否唯一
+     */
+    static boolean isUniqueKey(Map<String, List<String>> keys, String column) {
+        for (List<String> keyColumns : keys.values()) {
+            if (keyColumns.size() == 1 && column.equalsIgnoreCase(keyColumns.get(0))){
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * 构建分页查询语句
+     * @param querySql    分片的查询语句
+     * @param keyColumn   分页主键
+     * @param limitClause 限制条数的语句，为null时不在语句中限制条数
+     * @param firstPage   是否为第一页，其余页从上一页最后一行的主键之后读取
+     * @return 分页查询语句
+     */
+    static String buildPageSql(String querySql, String keyColumn, String limitClause, boolean firstPage) {
+        StringBuilder sb = new StringBuilder(querySql);
+        if (!firstPage){
+            sb.append(String.format(" AND %s > ?", keyColumn));
+        }
+
+        sb.append(String.format(" ORDER BY %s", keyColumn));
+        if (limitClause != null){
+            sb.append(limitClause);
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * 读取分页主键之后的一页数据
+     * @param lastKey 上一页最后一行的主键值，读取第一页时为null
+     * @return 一页数据
+     * @throws Exception 查询或读取字段失败
+     */
+    KeysetPage fetchPage(Object lastKey) throws Exception {
+        try (Connection conn = JdbcConnectionPool.getConnection(dbURL, username, password);
+             PreparedStatement ps = conn.prepareStatement(lastKey == null ? firstPageSql : nextPageSql, resultSetType, resultSetConcurrency)) {
+            ps.setFetchSize(fetchSize);
+            if (limitByMaxRows){
+                ps.setMaxRows(pageSize);
+            }
+            ps.setQueryTimeout(queryTimeOut);
+            if (lastKey != null){
+                ps.setObject(1, lastKey);
+            }
+
+            try (ResultSet rs = ps.executeQuery()) {
+                if (columnExtractors == null){
+                    buildPagePlan(rs.getMetaData());
+                }
+
+                boolean withIncrementValue = incrementConfig.isIncrement() && !incrementConfig.isUseMaxFunc();
+                KeysetPage page = new KeysetPage(pageSize, withIncrementValue);
+                while (!page.isFull() && rs.next()) {
+                    Row row = new Row(columnCount);
+                    for (int pos = 0; pos < columnCount; pos++) {
+                        row.setField(pos, columnExtractors[pos].extract(rs));
+                    }
+
+                    Object incrementValue = withIncrementValue ? rs.getObject(incrementConfig.getColumnIndex() + 1) : null;
+                    page.add(row, rs.getObject(keyIndex), incrementValue);
+                }
+
+                if (page.isFull() && page.getLastKey() == null){
+                    throw new IllegalStateException("The value of split column [" + splitKey + "] can not be null when reading by page");
+                }
+
+                return page;
+            }
+        }
+    }
+
+    /**
+     * 根据第一页的结果集确定分页主键的位置，column中没有主键时QuerySqlBuilder把主键追加在查询字段的末尾
+     * @param metaData 结果集元数据
+     * @throws SQLException 读取元数据失败
+     */
+    private void buildPagePlan(ResultSetMetaData metaData) throws SQLException {
+        columnCount = metaData.getColumnCount();
+        keyIndex = getKeyIndex(metaColumns, splitKey, StringUtils.isNotEmpty(customSql), metaData);
+        if (keyIndex == 0){
+            throw new IllegalArgumentException("Can not find the split column [" + splitKey + "] in the query result");
+        }
+
+        // QuerySqlBuilder追加的主键列不发送到下游
+        boolean keyAppended = !"*".equals(metaColumns.get(0).getName()) && StringUtils.isEmpty(customSql);
+        if (keyAppended && keyIndex > metaColumns.size()){
+            columnCount = columnCount - 1;
+        }
+
+        buildExtractionPlan(metaData);
+    }
+
+    /**
+     * 查找分页主键在结果集中的下标
+     * @param metaColumns 读取的字段
+     * @param splitKey    分页主键
+     * @param customSql   是否为自定义sql，自定义sql的结果集中不会追加主键列
+     * @param metaData    结果集元数据
+     * @return 下标，从1开始，找不到时返回0
+     * @throws SQLException 读取元数据失败
+     */
+    static int getKeyIndex(List<MetaColumn> metaColumns, String splitKey, boolean customSql, ResultSetMetaData metaData) throws SQLException {
+        if (!"*".equals(metaColumns.get(0).getName())){
+            for (int i = 0; i < metaColumns.size(); i++) {
+                MetaColumn metaColumn = metaColumns.get(i);
+                if (metaColumn.getValue() == null && splitKey.equalsIgnoreCase(metaColumn.getName())){
+                    return i + 1;
+                }
+            }
+
+            if (!customSql){
+                return metaData.getColumnCount();
+            }
+        }
+
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            if (splitKey.equalsIgnoreCase(metaData.getColumnLabel(i))){
+                return i;
+            }
+        }
+
+        return 0;
+    }
+
+    private Row nextPageRecord() throws IOException {
+        try {
+            Row row = currentPage.getRow(pageCursor);
+            if(incrementConfig.isIncrement() && !incrementConfig.isUseMaxFunc()){
+                endLocationAccumulator.add(getLocation(incrementConfig.getColumnType(), currentPage.getIncrementValue(pageCursor)));
+            }
+
+            pageCursor++;
+            if (pageCursor >= currentPage.size()){
+                moveToNextPage();
+            }
+
+            if (restoreConfig.isRestore()) {
+                lastRow = row;
+            }
+
+            return row;
+        } catch (Exception e) {
+            throw new IOException("Couldn't read data - " + e.getMessage(), e);
+        }
+    }
+
+    private void moveToNextPage() throws Exception {
+        if (!currentPage.isFull()){
+            hasNext = false;
+            return;
+        }
+
+        if (nextPage != null){
+            try {
+                currentPage = nextPage.get();
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            } finally {
+                nextPage = null;
+            }
+        } else {
+            currentPage = fetchPage(currentPage.getLastKey());
+        }
+
+        pageCursor = 0;
+        hasNext = currentPage.size() > 0;
+        prefetchNextPage();
+    }
+
+    private void prefetchNextPage() {
+        if (pageExecutor == null || !currentPage.isFull()){
+            return;
+        }
+
+        Object lastKey = currentPage.getLastKey();
+        nextPage = pageExecutor.submit(() -> fetchPage(lastKey));
+    }
+
+    /**
+     * 根据结果集元数据和metaColumns为每一列生成读取器，常量列和字符串转换在这里一次性确定
+     * @param metaData 结果集元数据
+     * @throws SQLException 读取元数据失败
+     */
+    protected void buildExtractionPlan(ResultSetMetaData metaData) throws SQLException {
+        boolean convertByMetaColumn = !"*".equals(metaColumns.get(0).getName());
+        columnExtractors = new ColumnExtractor[columnCount];
+        for (int pos = 0; pos < columnCount; pos++) {
+            String typeName = descColumnTypeList != null && pos < descColumnTypeList.size() ? descColumnTypeList.get(pos) : null;
+            ColumnExtractor extractor = createColumnExtractor(pos + 1, metaData.getColumnType(pos + 1), metaData.isSigned(pos + 1), typeName);
+            if (convertByMetaColumn && pos < metaColumns.size()) {
+                extractor = bindMetaColumn(extractor, metaColumns.get(pos));
+            }
+            columnExtractors[pos] = extractor;
+        }
+    }
+
+    /**
+     * 生成读取单个字段的读取器，子类可在返回的读取器上追加数据库特有的转换
+     * @param columnIndex 字段下标，从1开始
+     * @param sqlType     java.sql.Types中的字段类型
+     * @param signed      是否为有符号数值
+     * @param typeName    数据库中的字段类型名称，可能为null
+     * @return 字段读取器
+     */
+    protected ColumnExtractor createColumnExtractor(int columnIndex, int sqlType, boolean signed, String typeName) {
+        switch (sqlType) {
+            case Types.INTEGER:
+                if (signed) {
+                    return resultSet -> {
+                        int value = resultSet.getInt(columnIndex);
+                        return resultSet.wasNull() ? null : value;
+                    };
+                }
+                break;
+            case Types.BIGINT:
+                if (signed) {
+                    return resultSet -> {
+                        long value = resultSet.getLong(columnIndex);
+                        return resultSet.wasNull() ? null : value;
+                    };
+                }
+                break;
+            case Types.DOUBLE:
+                return resultSet -> {
+                    double value = resultSet.getDouble(columnIndex);
+                    return resultSet.wasNull() ? null : value;
+                };
+            case Types.CLOB:
+            case Types.NCLOB:
+                return resultSet -> DBUtil.clobToString(resultSet.getObject(columnIndex));
+            default:
+                break;
+        }
+
+        // 部分驱动的clob字段类型不是CLOB，按值判断
+        return resultSet -> {
+            Object value = resultSet.getObject(columnIndex);
+            return value instanceof Clob ? DBUtil.clobToString(value) : value;
+        };
+    }
+
+    static ColumnExtractor bindMetaColumn(ColumnExtractor extractor, MetaColumn metaColumn) {
+        ColumnType columnType = metaColumn.getType() == null ? null : ColumnType.getType(metaColumn.getType().toUpperCase());
+        SimpleDateFormat timeFormat = metaColumn.getTimeFormat();
+        Object constant = StringUtil.string2col(metaColumn.getValue(), columnType, timeFormat);
+
+        return resultSet -> {
+            Object value = extractor.extract(resultSet);
+            if (value == null) {
+                // Date和Timestamp是可变对象，每行返回一个副本，避免下游修改后影响其它行
+                return constant instanceof Date ? ((Date) constant).clone() : constant;
+            }
+
+            if (value instanceof String) {
+                return StringUtil.string2col((String) value, columnType, timeFormat);
+            }
+
+            return value;
+        };
+    }
+
     @Override
     public FormatState getFormatState() {
         super.getFormatState();
@@ -269,11 +909,43 @@ public class JdbcInputFormat extends RichInputFormat {
         if (formatState != null && lastRow != null) {
             formatState.setState(lastRow.getField(restoreConfig.getRestoreColumnIndex()));
         }
+
+        if (formatState != null && splitStates != null) {
+            formatState.setSplitPlan(splitPlan);
+
+            if (currentSplit != null && lastRow != null) {
+                splitStates.get(currentSplit.getSplitNumber()).setLocation(lastRow.getField(restoreConfig.getRestoreColumnIndex()));
+            }
+
+            Map<Integer, SplitState> states = new HashMap<>(splitStates.size());
+            for (Map.Entry<Integer, SplitState> entry : splitStates.entrySet()) {
+                SplitState state = entry.getValue();
+                states.put(entry.getKey(), new SplitState(state.getLocation(), state.isFinished(), state.getVersion()));
+            }
+            formatState.setSplitStates(states);
+        }
         return formatState;
     }
 
     @Override
     public void closeInternal() throws IOException {
+        if (splitStates != null && currentSplit != null && !hasNext) {
+            splitStates.get(currentSplit.getSplitNumber()).setFinished(true);
+            currentSplit = null;
+        }
+
+        // 正在预读的页由预读线程读完后自行归还连接
+        if (nextPage != null){
+            nextPage.cancel(false);
+            nextPage = null;
+        }
+
+        if (pageExecutor != null){
+            pageExecutor.shutdown();
+            pageExecutor = null;
+        }
+        currentPage = null;
+
         if(incrementConfig.isIncrement() && hadoopConfig != null) {
             uploadMetricData();
         }
@@ -414,6 +1086,10 @@ public class JdbcInputFormat extends RichInputFormat {
      * @return
      */
     protected boolean canReadData(InputSplit split){
+        if (isSplitByChunk() && restoreConfig.isRestore()){
+            return openSplitState((JdbcInputSplit) split);
+        }
+
         if (!incrementConfig.isIncrement()){
             return true;
         }
@@ -426,6 +1102,81 @@ public class JdbcInputFormat extends RichInputFormat {
         return !StringUtils.equals(jdbcInputSplit.getStartLocation(), jdbcInputSplit.getEndLocation());
     }
 
+    /**
+     * 开始读取一个分片，记录分片的断点续传状态
+     * @param split 数据分片
+     * @return 分片已经读取完成时返回false
+     */
+    private boolean openSplitState(JdbcInputSplit split){
+        if (splitStates == null){
+            splitStates = new HashMap<>();
+            if (allRestoreStates != null){
+                for (FormatState state : allRestoreStates) {
+                    if (state.getSplitStates() != null){
+                        for (Map.Entry<Integer, SplitState> entry : state.getSplitStates().entrySet()) {
+                            splitStates.put(entry.getKey(), SplitState.merge(splitStates.get(entry.getKey()), entry.getValue()));
+                        }
+                    }
+                }
+                LOG.info("Restored split states:{}", splitStates);
+            }
+        }
+
+        if (splitPlan == null){
+            splitPlan = getRestoredSplitPlan();
+            restoredSplitPlan = splitPlan != null;
+            if (splitPlan == null){
+                splitPlan = split.getRangeCuts();
+            }
+        }
+
+        // 分片只携带自己的上下界，与上次的切分点对应的上下界不同时说明数据发生了变化，沿用上次的范围
+        if (restoredSplitPlan){
+            if (getNumOfRangeSplits(splitPlan, numPartitions) != split.getTotalNumberOfSplits()){
+                throw new IllegalStateException(String.format("The number of splits has changed from %s to %s since the last checkpoint, can not restore",
+                        getNumOfRangeSplits(splitPlan, numPartitions), split.getTotalNumberOfSplits()));
+            }
+
+            String[] bounds = getRangeBounds(splitPlan, split.getSplitNumber());
+            if (!StringUtils.equals(bounds[0], split.getLowerBound()) || !StringUtils.equals(bounds[1], split.getUpperBound())){
+                split.setLowerBound(bounds[0]);
+                split.setUpperBound(bounds[1]);
+            }
+        }
+
+        lastRow = null;
+        SplitState state = splitStates.get(split.getSplitNumber());
+        if (state != null && state.isFinished()){
+            LOG.info("Split {} has been read, skip it", split.getSplitNumber());
+            currentSplit = null;
+            return false;
+        }
+
+        if (state == null){
+            state = new SplitState(null, false, 0);
+        } else {
+            state = new SplitState(state.getLocation(), false, state.getVersion() + 1);
+        }
+        splitStates.put(split.getSplitNumber(), state);
+        currentSplit = split;
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> getRestoredSplitPlan(){
+        if (allRestoreStates == null){
+            return null;
+        }
+
+        for (FormatState state : allRestoreStates) {
+            if (state.getSplitPlan() != null){
+                return (List<String>) state.getSplitPlan();
+            }
+        }
+
+        return null;
+    }
+
     /**
      * 构造查询sql
      * @param inputSplit 数据切片
@@ -442,13 +1193,38 @@ public class JdbcInputFormat extends RichInputFormat {
 
         JdbcInputSplit jdbcInputSplit = (JdbcInputSplit) inputSplit;
 
+        if (querySql.contains(DBUtil.SPLIT_RANGE_FILTER_PLACEHOLDER)){
+            String splitFilter;
+            if (jdbcInputSplit.isRangeSplit()){
+                splitFilter = buildSplitRangeFilter(jdbcInputSplit);
+            } else if (StringUtils.isNotEmpty(customSql)){
+                splitFilter = databaseInterface.getSplitFilterWithTmpTable(DBUtil.TEMPORARY_TABLE_NAME, splitKey);
+            } else {
+                splitFilter = databaseInterface.getSplitFilter(splitKey);
+            }
+            querySql = querySql.replace(DBUtil.SPLIT_RANGE_FILTER_PLACEHOLDER, splitFilter);
+        }
+
         if (StringUtils.isNotEmpty(splitKey)){
-            querySql = queryTemplate.replace("${N}", String.valueOf(numPartitions)) .replace("${M}", String.valueOf(indexOfSubtask));
+            querySql = querySql.replace("${N}", String.valueOf(numPartitions)) .replace("${M}", String.valueOf(indexOfSubtask));
         }
 
         //是否开启断点续传
         if (restoreConfig.isRestore()){
-            if(formatState == null){
+            if (splitStates != null){
+                Object location = splitStates.get(jdbcInputSplit.getSplitNumber()).getLocation();
+                String restoreFilter = buildIncrementFilter(restoreColumn.getType(),
+                                                            restoreColumn.getName(),
+                                                            getLocation(restoreColumn.getType(), location),
+                                                            null,
+                                                            customSql,
+                                                            false);
+                if(StringUtils.isNotEmpty(restoreFilter)){
+                    restoreFilter = " and " + restoreFilter;
+                }
+
+                querySql = querySql.replace(DBUtil.RESTORE_FILTER_PLACEHOLDER, restoreFilter);
+            } else if(formatState == null){
                 querySql = querySql.replace(DBUtil.RESTORE_FILTER_PLACEHOLDER, StringUtils.EMPTY);
 
                 if (incrementConfig.isIncrement()){
@@ -646,7 +1422,7 @@ public class JdbcInputFormat extends RichInputFormat {
 
             LOG.info(String.format("Query max value sql is '%s'", queryMaxValueSql));
 
-            conn = DBUtil.getConnection(dbURL, username, password);
+            conn = JdbcConnectionPool.getConnection(dbURL, username, password);
             st = conn.createStatement();
             rs = st.executeQuery(queryMaxValueSql);
             if (rs.next()){
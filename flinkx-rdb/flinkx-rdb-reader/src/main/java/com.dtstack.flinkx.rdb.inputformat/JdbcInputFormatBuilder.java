@@ -21,6 +21,7 @@ package com.dtstack.flinkx.rdb.inputformat;
 import com.dtstack.flinkx.inputformat.RichInputFormatBuilder;
 import com.dtstack.flinkx.rdb.DatabaseInterface;
 import com.dtstack.flinkx.rdb.datareader.IncrementConfig;
+import com.dtstack.flinkx.rdb.datareader.SplitStrategy;
 import com.dtstack.flinkx.rdb.loader.JdbcFormatLoader;
 import com.dtstack.flinkx.rdb.type.TypeConverterInterface;
 import com.dtstack.flinkx.reader.MetaColumn;
@@ -100,6 +101,26 @@ public class JdbcInputFormatBuilder extends RichInputFormatBuilder {
         format.customSql = customSql;
     }
 
+    public void setWhere(String where){
+        format.where = where;
+    }
+
+    public void setSplitFactor(int splitFactor){
+        format.splitFactor = splitFactor;
+    }
+
+    public void setSplitStrategy(SplitStrategy splitStrategy){
+        format.splitStrategy = splitStrategy;
+    }
+
+    public void setPageSize(int pageSize){
+        format.pageSize = pageSize;
+    }
+
+    public void setPrefetchPage(boolean prefetchPage){
+        format.prefetchPage = prefetchPage;
+    }
+
     public void setHadoopConfig(Map<String,Object> dirtyHadoopConfig) {
         format.hadoopConfig = dirtyHadoopConfig;
     }
@@ -130,6 +151,16 @@ public class JdbcInputFormatBuilder extends RichInputFormatBuilder {
         if (StringUtils.isEmpty(format.splitKey) && format.numPartitions > 1){
             throw new IllegalArgumentException("Must specify the split column when the channel is greater than 1");
         }
+
+        if (format.pageSize > 0){
+            if (StringUtils.isEmpty(format.splitKey)){
+                throw new IllegalArgumentException("Must specify the split column when reading by page");
+            }
+
+            if (format.splitKey.contains("(")){
+                throw new IllegalArgumentException("Can not read by page when split with row number:" + format.splitKey);
+            }
+        }
     }
 
 }
@@ -20,6 +20,8 @@ package com.dtstack.flinkx.rdb.inputformat;
 
 import org.apache.flink.core.io.GenericInputSplit;
 
+import java.util.List;
+
 /**
  * @author jiangbo
  * @explanation
@@ -33,6 +35,26 @@ public class JdbcInputSplit extends GenericInputSplit {
 
     private String startLocation;
 
+    /**
+     * 按范围切分时为true，此时分片读取 lowerBound <= splitPk < upperBound 的数据
+     */
+    private boolean rangeSplit;
+
+    /**
+     * 分片下界(sql字面量)，为null时表示没有下界，同时读取splitPk为null的数据
+     */
+    private String lowerBound;
+
+    /**
+     * 分片上界(sql字面量)，为null时表示没有上界
+     */
+    private String upperBound;
+
+    /**
+     * 所有分片共用的切分点，只有分配给每个通道的第一个分片携带，其余分片只记录自己的上下界
+     */
+    private List<String> rangeCuts;
+
     /**
      * Creates a generic input split with the given split number.
      *
@@ -46,6 +68,16 @@ public class JdbcInputSplit extends GenericInputSplit {
         this.endLocation = endLocation;
     }
 
+    /**
+     * Creates a split that reads the rows whose split key is in [lowerBound, upperBound).
+     */
+    public JdbcInputSplit(int partitionNumber, int totalNumberOfPartitions, String startLocation, String lowerBound, String upperBound) {
+        this(partitionNumber, totalNumberOfPartitions, partitionNumber, startLocation, null);
+        this.rangeSplit = true;
+        this.lowerBound = lowerBound;
+        this.upperBound = upperBound;
+    }
+
     public int getMod() {
         return mod;
     }
@@ -70,12 +102,43 @@ public class JdbcInputSplit extends GenericInputSplit {
         this.startLocation = startLocation;
     }
 
+    public boolean isRangeSplit() {
+        return rangeSplit;
+    }
+
+    public String getLowerBound() {
+        return lowerBound;
+    }
+
+    public String getUpperBound() {
+        return upperBound;
+    }
+
+    public void setLowerBound(String lowerBound) {
+        this.lowerBound = lowerBound;
+    }
+
+    public void setUpperBound(String upperBound) {
+        this.upperBound = upperBound;
+    }
+
+    public List<String> getRangeCuts() {
+        return rangeCuts;
+    }
+
+    public void setRangeCuts(List<String> rangeCuts) {
+        this.rangeCuts = rangeCuts;
+    }
+
     @Override
     public String toString() {
         return "JdbcInputSplit{" +
                 "mod=" + mod +
                 ", endLocation='" + endLocation + '\'' +
                 ", startLocation='" + startLocation + '\'' +
+                ", rangeSplit=" + rangeSplit +
+                ", lowerBound='" + lowerBound + '\'' +
+                ", upperBound='" + upperBound + '\'' +
                 '}';
     }
 }
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.flinkx.rdb.inputformat;
+
+import org.apache.flink.core.io.InputSplit;
+import org.apache.flink.core.io.InputSplitAssigner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hands out the range splits of a JDBC table to the channels on demand,
+ * a channel that finished its split early just asks for the next one.
+ *
+ * The splits without lower or upper bound are handed out first,
+ * they also read the null keys and the rows inserted after the splits were planned,
+ * so they are the most likely to be the largest.
+ *
+ * A split only carries its own bounds, the cuts of the whole plan are attached to the first split
+ * handed to each task so the task can record them in its state.
+ *
+ * Company: www.dtstack.com
+ */
+public class JdbcInputSplitAssigner implements InputSplitAssigner {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JdbcInputSplitAssigner.class);
+
+    private final Deque<InputSplit> splits;
+
+    private final Map<Integer, Integer> assignedNumOfTask = new HashMap<>();
+
+    private final List<String> rangeCuts;
+
+    public JdbcInputSplitAssigner(InputSplit[] inputSplits) {
+        rangeCuts = getRangeCuts(inputSplits);
+
+        List<InputSplit> unbounded = new ArrayList<>();
+        List<InputSplit> bounded = new ArrayList<>();
+        for (InputSplit inputSplit : inputSplits) {
+            JdbcInputSplit split = (JdbcInputSplit) inputSplit;
+            if (split.getLowerBound() == null || split.getUpperBound() == null) {
+                unbounded.add(split);
+            } else {
+                bounded.add(split);
+            }
+        }
+
+        splits = new ArrayDeque<>(inputSplits.length);
+        splits.addAll(unbounded);
+        splits.addAll(bounded);
+    }
+
+    @Override
+    public synchronized InputSplit getNextInputSplit(String host, int taskId) {
+        InputSplit split = splits.poll();
+        if (split == null) {
+            LOG.info("No more splits for task {}, splits assigned to each task: {}", taskId, assignedNumOfTask);
+            return null;
+        }
+
+        if (assignedNumOfTask.merge(taskId, 1, Integer::sum) == 1) {
+            ((JdbcInputSplit) split).setRangeCuts(rangeCuts);
+        }
+        LOG.debug("Assign split {} to task {}, {} splits remaining", split, taskId, splits.size());
+        return split;
+    }
+
+    /**
+     * The upper bound of split i is the i-th cut, until the split without upper bound
+     */
+    static List<String> getRangeCuts(InputSplit[] inputSplits) {
+        JdbcInputSplit[] sortedSplits = new JdbcInputSplit[inputSplits.length];
+        for (InputSplit inputSplit : inputSplits) {
+            sortedSplits[inputSplit.getSplitNumber()] = (JdbcInputSplit) inputSplit;
+        }
+
+        List<String> cuts = new ArrayList<>();
+        for (JdbcInputSplit split : sortedSplits) {
+            if (split.getUpperBound() == null) {
+                break;
+            }
+            cuts.add(split.getUpperBound());
+        }
+        return cuts;
+    }
+}
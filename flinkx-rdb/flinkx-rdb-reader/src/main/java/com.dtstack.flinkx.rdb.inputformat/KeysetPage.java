@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.flinkx.rdb.inputformat;
+
+import org.apache.flink.types.Row;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 按主键分页读取时的一页数据，读取完成后立即归还连接，数据在内存中发送
+ *
+ * Company: www.dtstack.com
+ */
+class KeysetPage {
+
+    private final List<Row> rows;
+
+    /**
+     * 增量同步时每行数据的增量字段值，不需要时为null
+     */
+    private final List<Object> incrementValues;
+
+    private final int pageSize;
+
+    private Object lastKey;
+
+    KeysetPage(int pageSize, boolean withIncrementValue) {
+        this.pageSize = pageSize;
+        this.rows = new ArrayList<>(pageSize);
+        this.incrementValues = withIncrementValue ? new ArrayList<>(pageSize) : null;
+    }
+
+    void add(Row row, Object key, Object incrementValue) {
+        rows.add(row);
+        lastKey = key;
+        if (incrementValues != null) {
+            incrementValues.add(incrementValue);
+        }
+    }
+
+    Row getRow(int index) {
+        return rows.get(index);
+    }
+
+    Object getIncrementValue(int index) {
+        return incrementValues.get(index);
+    }
+
+    int size() {
+        return rows.size();
+    }
+
+    /**
+     * 数据条数小于分页大小时说明已经读到最后一页
+     */
+    boolean isFull() {
+        return rows.size() >= pageSize;
+    }
+
+    /**
+     * @return 本页最后一行的主键值，下一页从这个值之后开始读取
+     */
+    Object getLastKey() {
+        return lastKey;
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.flinkx.rdb.inputformat;
+
+import com.dtstack.flinkx.constants.Metrics;
+import com.dtstack.flinkx.rdb.DataSource;
+import com.dtstack.flinkx.rdb.util.DBUtil;
+import com.dtstack.flinkx.reader.RowHandoffQueue;
+import org.apache.flink.metrics.Gauge;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.types.Row;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Reads the sources of a DistributedJdbcInputSplit with a bounded number of background threads,
+ * the rows of all sources are handed to the task thread through a bounded queue.
+ *
+ * A failed source does not stop the other sources, the failures are thrown after all the sources are read.
+ *
+ * Company: www.dtstack.com
+ */
+public class ParallelSourceReader {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ParallelSourceReader.class);
+
+    private static final long POLL_TIMEOUT_MILLIS = 100L;
+
+    private final DistributedJdbcInputFormat format;
+
+    private final List<DataSource> sourceList;
+
+    private final int parallelism;
+
+    private final RowHandoffQueue queue;
+
+    private final AtomicInteger remainingSources;
+
+    private final AtomicLongArray rowsOfSource;
+
+    private final Map<String, Throwable> failedSources = new ConcurrentHashMap<>();
+
+    private ExecutorService executor;
+
+    private volatile boolean closed;
+
+    public ParallelSourceReader(DistributedJdbcInputFormat format, List<DataSource> sourceList, int parallelism, int queueSize) {
+        this.format = format;
+        this.sourceList = sourceList;
+        this.parallelism = Math.min(parallelism, sourceList.size());
+        this.queue = new RowHandoffQueue(queueSize, RowHandoffQueue.DEFAULT_DRAIN_BATCH_SIZE);
+        this.remainingSources = new AtomicInteger(sourceList.size());
+        this.rowsOfSource = new AtomicLongArray(sourceList.size());
+    }
+
+    public void start(MetricGroup metricGroup, String threadName) {
+        queue.registerMetrics(metricGroup);
+        MetricGroup group = metricGroup.addGroup(Metrics.METRIC_GROUP_KEY_FLINKX, Metrics.METRIC_GROUP_VALUE_INPUT);
+        for (int i = 0; i < sourceList.size(); i++) {
+            final int index = i;
+            group.addGroup(Metrics.METRIC_GROUP_KEY_SOURCE, String.valueOf(index))
+                    .gauge(Metrics.SOURCE_NUM_READS, (Gauge<Long>) () -> rowsOfSource.get(index));
+        }
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread thread = new Thread(r, threadName + "-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        for (int i = 0; i < sourceList.size(); i++) {
+            final int index = i;
+            executor.execute(() -> readSource(index));
+        }
+        executor.shutdown();
+
+        LOG.info("Start reading {} sources with {} threads", sourceList.size(), parallelism);
+    }
+
+    private void readSource(int index) {
+        DataSource source = sourceList.get(index);
+        Connection conn = null;
+        Statement statement = null;
+        ResultSet resultSet = null;
+        try {
+            if (closed) {
+                return;
+            }
+
+            long startTime = System.currentTimeMillis();
+            conn = DBUtil.getConnection(source.getJdbcUrl(), source.getUserName(), source.getPassword());
+            conn.setAutoCommit(false);
+            statement = conn.createStatement(format.resultSetType, format.resultSetConcurrency);
+            resultSet = format.executeSourceQuery(source, statement);
+            int columnCount = resultSet.getMetaData().getColumnCount();
+
+            while (!closed && resultSet.next()) {
+                queue.put(format.buildRecord(resultSet, columnCount));
+                rowsOfSource.incrementAndGet(index);
+            }
+
+            LOG.info("Finished reading source: {}, table: {}, rows: {}, takes {} ms", source.getJdbcUrl(),
+                    source.getTable(), rowsOfSource.get(index), System.currentTimeMillis() - startTime);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable e) {
+            if (!closed) {
+                LOG.error("Read source: {}, table: {} error", source.getJdbcUrl(), source.getTable(), e);
+                failedSources.put(source.getJdbcUrl() + "/" + source.getTable(), e);
+            }
+        } finally {
+            DBUtil.closeDBResources(resultSet, statement, conn, true);
+            remainingSources.decrementAndGet();
+        }
+    }
+
+    /**
+     * Get the next row of any source, blocks until there is a row or all the sources have been read
+     * @return the next row, or null if all the sources have been read
+     */
+    public Row next() throws IOException {
+        try {
+            while (true) {
+                boolean finished = remainingSources.get() == 0;
+                Row row = queue.poll(finished ? 0 : POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (row != null) {
+                    return row;
+                }
+
+                if (finished) {
+                    checkFailedSources();
+                    return null;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the rows of the sources", e);
+        }
+    }
+
+    private void checkFailedSources() throws IOException {
+        if (failedSources.isEmpty()) {
+            return;
+        }
+
+        Map.Entry<String, Throwable> first = failedSources.entrySet().iterator().next();
+        throw new IOException(String.format("Failed to read %s of %s sources: %s", failedSources.size(),
+                sourceList.size(), failedSources.keySet()), first.getValue());
+    }
+
+    public void close() {
+        closed = true;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
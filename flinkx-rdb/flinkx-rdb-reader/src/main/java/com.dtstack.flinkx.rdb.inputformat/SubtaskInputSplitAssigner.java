@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dtstack.flinkx.rdb.inputformat;
+
+import org.apache.flink.core.io.InputSplit;
+import org.apache.flink.core.io.InputSplitAssigner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Hands split i to the task i only, whatever order the tasks ask for their splits.
+ *
+ * Without split states the restore state of a task is a single location, it is only valid
+ * for the range split that the task read before the failover, so the range splits
+ * that are not handed out on demand must always go to the same task.
+ *
+ * Company: www.dtstack.com
+ */
+public class SubtaskInputSplitAssigner implements InputSplitAssigner {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SubtaskInputSplitAssigner.class);
+
+    private final Map<Integer, InputSplit> splits;
+
+    public SubtaskInputSplitAssigner(InputSplit[] inputSplits) {
+        splits = new HashMap<>(inputSplits.length);
+        for (InputSplit inputSplit : inputSplits) {
+            splits.put(inputSplit.getSplitNumber(), inputSplit);
+        }
+    }
+
+    @Override
+    public synchronized InputSplit getNextInputSplit(String host, int taskId) {
+        InputSplit split = splits.remove(taskId);
+        LOG.debug("Assign split {} to task {}", split, taskId);
+        return split;
+    }
+}
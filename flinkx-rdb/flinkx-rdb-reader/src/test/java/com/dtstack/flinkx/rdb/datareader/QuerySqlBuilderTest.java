@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dtstack.flinkx.rdb.datareader;
+
+import com.dtstack.flinkx.enums.EDatabaseType;
+import com.dtstack.flinkx.rdb.BaseDatabaseMeta;
+import com.dtstack.flinkx.reader.MetaColumn;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class QuerySqlBuilderTest {
+
+    @Test
+    public void testKeysetColumnInColumns() {
+        QuerySqlBuilder builder = builder("id", "name", "ID");
+        MatcherAssert.assertThat(builder.buildSql(), Matchers.equalTo("SELECT \"name\",\"ID\" FROM \"t\" WHERE 1=1 "));
+    }
+
+    @Test
+    public void testAppendKeysetColumn() {
+        QuerySqlBuilder builder = builder("id", "name", "age");
+        MatcherAssert.assertThat(builder.buildSql(), Matchers.equalTo("SELECT \"name\",\"age\",\"id\" FROM \"t\" WHERE 1=1 "));
+
+        // 同名的常量列不是主键
+        builder = builder("id", "name", "id");
+        builder.metaColumns.get(1).setValue("1");
+        MatcherAssert.assertThat(builder.buildSql(), Matchers.endsWith(",\"id\" FROM \"t\" WHERE 1=1 "));
+    }
+
+    @Test
+    public void testAllColumns() {
+        QuerySqlBuilder builder = builder("id", "*");
+        MatcherAssert.assertThat(builder.buildSql(), Matchers.equalTo("SELECT * FROM \"t\" WHERE 1=1 "));
+    }
+
+    @Test
+    public void testOrderByKeysetColumn() {
+        // 分页读取时由JdbcInputFormat按主键排序
+        QuerySqlBuilder builder = builder("id", "name");
+        builder.orderByColumn = "name";
+        MatcherAssert.assertThat(builder.buildOrderSql(), Matchers.isEmptyString());
+
+        builder = builder(null, "name");
+        builder.orderByColumn = "name";
+        MatcherAssert.assertThat(builder.buildOrderSql(), Matchers.equalTo(" order by name"));
+    }
+
+    private QuerySqlBuilder builder(String keysetColumn, String... columns) {
+        List<MetaColumn> metaColumns = new ArrayList<>();
+        for (String column : columns) {
+            MetaColumn metaColumn = new MetaColumn();
+            metaColumn.setName(column);
+            metaColumns.add(metaColumn);
+        }
+
+        QuerySqlBuilder builder = new QuerySqlBuilder(new TestDatabaseMeta(), "t", metaColumns, keysetColumn, null, false, false, false);
+        builder.keysetColumn = keysetColumn;
+        return builder;
+    }
+
+    private static class TestDatabaseMeta extends BaseDatabaseMeta {
+
+        @Override
+        public EDatabaseType getDatabaseType() {
+            return EDatabaseType.PostgreSQL;
+        }
+
+        @Override
+        public String getDriverClass() {
+            return null;
+        }
+
+        @Override
+        public String getSQLQueryFields(String tableName) {
+            return null;
+        }
+
+        @Override
+        public String getSQLQueryColumnFields(List<String> column, String table) {
+            return null;
+        }
+
+        @Override
+        public String quoteValue(String value, String column) {
+            return String.format("'%s' as %s", value, column);
+        }
+
+        @Override
+        public String getSplitFilter(String columnName) {
+            return null;
+        }
+
+        @Override
+        public String getSplitFilterWithTmpTable(String tmpTable, String columnName) {
+            return null;
+        }
+
+        @Override
+        protected String makeValues(List<String> column) {
+            return null;
+        }
+    }
+}
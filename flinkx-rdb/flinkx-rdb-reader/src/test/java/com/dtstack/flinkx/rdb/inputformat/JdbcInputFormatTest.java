@@ -0,0 +1,309 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dtstack.flinkx.rdb.inputformat;
+
+import com.dtstack.flinkx.reader.MetaColumn;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Clob;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class JdbcInputFormatTest {
+
+    @Test
+    public void testNumericCuts() {
+        List<String> cuts = JdbcInputFormat.getRangeCuts(0L, 100L, 4);
+        MatcherAssert.assertThat(cuts, Matchers.contains("25", "50", "75"));
+    }
+
+    @Test
+    public void testSkewedNumericRange() {
+        List<String> cuts = JdbcInputFormat.getRangeCuts(1, Long.MAX_VALUE, 3);
+        MatcherAssert.assertThat(cuts.size(), Matchers.equalTo(2));
+        assertStrictlyIncreasing(cuts);
+        MatcherAssert.assertThat(new BigInteger(cuts.get(0)), Matchers.greaterThan(BigInteger.ONE));
+        MatcherAssert.assertThat(new BigInteger(cuts.get(1)), Matchers.lessThan(BigInteger.valueOf(Long.MAX_VALUE)));
+
+        // decimal类型的切分键按整数部分切分
+        cuts = JdbcInputFormat.getRangeCuts(new BigDecimal("0.5"), new BigDecimal("10.9"), 2);
+        MatcherAssert.assertThat(cuts, Matchers.contains("5"));
+    }
+
+    @Test
+    public void testEmptyRange() {
+        MatcherAssert.assertThat(JdbcInputFormat.getRangeCuts(null, null, 4), Matchers.empty());
+        MatcherAssert.assertThat(JdbcInputFormat.getRangeCuts(1, null, 4), Matchers.empty());
+        MatcherAssert.assertThat(JdbcInputFormat.getRangeCuts(7, 7, 4), Matchers.empty());
+        MatcherAssert.assertThat(JdbcInputFormat.getRangeCuts("abc", "abc", 4), Matchers.empty());
+        MatcherAssert.assertThat(JdbcInputFormat.getRangeCuts(Date.valueOf("2019-01-01"), Date.valueOf("2019-12-31"), 4), Matchers.empty());
+        // 非ascii字符串无法切分
+        MatcherAssert.assertThat(JdbcInputFormat.getRangeCuts("中", "文", 4), Matchers.empty());
+    }
+
+    @Test
+    public void testFewerValuesThanSplits() {
+        List<String> cuts = JdbcInputFormat.getRangeCuts(1, 3, 10);
+        MatcherAssert.assertThat(cuts, Matchers.contains("2"));
+        MatcherAssert.assertThat(JdbcInputFormat.getNumOfRangeSplits(cuts, 10), Matchers.equalTo(10));
+
+        MatcherAssert.assertThat(JdbcInputFormat.getRangeBounds(cuts, 0), Matchers.arrayContaining(null, "2"));
+        MatcherAssert.assertThat(JdbcInputFormat.getRangeBounds(cuts, 1), Matchers.arrayContaining("2", null));
+        // 多余的分片读取空范围
+        MatcherAssert.assertThat(JdbcInputFormat.getRangeBounds(cuts, 9), Matchers.arrayContaining("2", "2"));
+    }
+
+    @Test
+    public void testBoundsCoverWholeRange() {
+        List<String> cuts = Arrays.asList("10", "20", "30");
+        int numSplits = JdbcInputFormat.getNumOfRangeSplits(cuts, 2);
+        MatcherAssert.assertThat(numSplits, Matchers.equalTo(4));
+
+        String lastUpperBound = null;
+        for (int i = 0; i < numSplits; i++) {
+            String[] bounds = JdbcInputFormat.getRangeBounds(cuts, i);
+            MatcherAssert.assertThat(bounds[0], Matchers.equalTo(lastUpperBound));
+            lastUpperBound = bounds[1];
+        }
+        MatcherAssert.assertThat(lastUpperBound, Matchers.nullValue());
+
+        MatcherAssert.assertThat(JdbcInputFormat.getRangeBounds(Collections.emptyList(), 0), Matchers.equalTo(new String[]{null, null}));
+    }
+
+    @Test
+    public void testStringCuts() {
+        List<String> cuts = JdbcInputFormat.getRangeCuts("a", "z", 4);
+        MatcherAssert.assertThat(cuts, Matchers.not(Matchers.empty()));
+        MatcherAssert.assertThat(cuts, Matchers.everyItem(Matchers.allOf(Matchers.startsWith("'"), Matchers.endsWith("'"))));
+        assertStrictlyIncreasing(cuts);
+        for (String cut : cuts) {
+            MatcherAssert.assertThat(cut, Matchers.greaterThan("'a"));
+            MatcherAssert.assertThat(cut, Matchers.lessThan("'z"));
+        }
+    }
+
+    @Test
+    public void testBuildPageSql() {
+        String querySql = "SELECT `id`,`name` FROM `t` WHERE 1=1";
+        MatcherAssert.assertThat(JdbcInputFormat.buildPageSql(querySql, "`id`", " LIMIT 100", true),
+                Matchers.equalTo("SELECT `id`,`name` FROM `t` WHERE 1=1 ORDER BY `id` LIMIT 100"));
+        MatcherAssert.assertThat(JdbcInputFormat.buildPageSql(querySql, "`id`", " LIMIT 100", false),
+                Matchers.equalTo("SELECT `id`,`name` FROM `t` WHERE 1=1 AND `id` > ? ORDER BY `id` LIMIT 100"));
+
+        // 不支持limit的数据库由setMaxRows限制条数
+        MatcherAssert.assertThat(JdbcInputFormat.buildPageSql(querySql, "`id`", null, false),
+                Matchers.equalTo("SELECT `id`,`name` FROM `t` WHERE 1=1 AND `id` > ? ORDER BY `id`"));
+    }
+
+    @Test
+    public void testIsUniqueKey() {
+        Map<String, List<String>> keys = new HashMap<>();
+        keys.put("PRIMARY", Collections.singletonList("ID"));
+        keys.put("uk_name_type", Arrays.asList("name", "type"));
+
+        MatcherAssert.assertThat(JdbcInputFormat.isUniqueKey(keys, "id"), Matchers.equalTo(true));
+        // 联合唯一索引中的单个字段不唯一
+        MatcherAssert.assertThat(JdbcInputFormat.isUniqueKey(keys, "name"), Matchers.equalTo(false));
+        MatcherAssert.assertThat(JdbcInputFormat.isUniqueKey(keys, "age"), Matchers.equalTo(false));
+        MatcherAssert.assertThat(JdbcInputFormat.isUniqueKey(Collections.emptyMap(), "id"), Matchers.equalTo(false));
+    }
+
+    @Test
+    public void testKeyIndexInColumns() throws SQLException {
+        List<MetaColumn> metaColumns = metaColumns("name", "ID", "age");
+        ResultSetMetaData metaData = metaData("name", "id", "age");
+        MatcherAssert.assertThat(JdbcInputFormat.getKeyIndex(metaColumns, "id", false, metaData), Matchers.equalTo(2));
+        MatcherAssert.assertThat(JdbcInputFormat.getKeyIndex(metaColumns, "id", true, metaData), Matchers.equalTo(2));
+    }
+
+    @Test
+    public void testKeyIndexAppended() throws SQLException {
+        // 同名的常量列不是主键，QuerySqlBuilder把主键追加在末尾
+        List<MetaColumn> metaColumns = metaColumns("name", "id");
+        metaColumns.get(1).setValue("1");
+        ResultSetMetaData metaData = metaData("name", "id", "id");
+        MatcherAssert.assertThat(JdbcInputFormat.getKeyIndex(metaColumns, "id", false, metaData), Matchers.equalTo(3));
+    }
+
+    @Test
+    public void testKeyIndexByLabel() throws SQLException {
+        ResultSetMetaData metaData = metaData("name", "id");
+        MatcherAssert.assertThat(JdbcInputFormat.getKeyIndex(metaColumns("*"), "ID", false, metaData), Matchers.equalTo(2));
+
+        // 自定义sql的结果集中按字段名查找
+        MatcherAssert.assertThat(JdbcInputFormat.getKeyIndex(metaColumns("name"), "id", true, metaData), Matchers.equalTo(2));
+        MatcherAssert.assertThat(JdbcInputFormat.getKeyIndex(metaColumns("name"), "age", true, metaData), Matchers.equalTo(0));
+    }
+
+    @Test
+    public void testExtractNull() throws Exception {
+        JdbcInputFormat format = new JdbcInputFormat();
+        ResultSet resultSet = resultSet((Object) null);
+
+        // 基本类型读取null时返回0，需要通过wasNull判断
+        MatcherAssert.assertThat(format.createColumnExtractor(1, Types.INTEGER, true, null).extract(resultSet), Matchers.nullValue());
+        MatcherAssert.assertThat(format.createColumnExtractor(1, Types.BIGINT, true, null).extract(resultSet), Matchers.nullValue());
+        MatcherAssert.assertThat(format.createColumnExtractor(1, Types.DOUBLE, true, null).extract(resultSet), Matchers.nullValue());
+        MatcherAssert.assertThat(format.createColumnExtractor(1, Types.CLOB, true, null).extract(resultSet), Matchers.nullValue());
+        MatcherAssert.assertThat(format.createColumnExtractor(1, Types.VARCHAR, true, null).extract(resultSet), Matchers.nullValue());
+
+        MatcherAssert.assertThat(format.createColumnExtractor(1, Types.BIGINT, true, null).extract(resultSet(10L)), Matchers.equalTo((Object) 10L));
+    }
+
+    @Test
+    public void testExtractClob() throws Exception {
+        JdbcInputFormat format = new JdbcInputFormat();
+        MatcherAssert.assertThat(format.createColumnExtractor(1, Types.CLOB, true, null).extract(resultSet(clob("text"))), Matchers.equalTo((Object) "text"));
+        MatcherAssert.assertThat(format.createColumnExtractor(1, Types.NCLOB, true, null).extract(resultSet(clob("text"))), Matchers.equalTo((Object) "text"));
+
+        // 字段类型不是CLOB时按值判断
+        MatcherAssert.assertThat(format.createColumnExtractor(1, Types.LONGVARCHAR, true, null).extract(resultSet(clob("text"))), Matchers.equalTo((Object) "text"));
+        MatcherAssert.assertThat(format.createColumnExtractor(1, Types.OTHER, true, null).extract(resultSet(clob("text"))), Matchers.equalTo((Object) "text"));
+    }
+
+    @Test
+    public void testExtractDateAndTimestamp() throws Exception {
+        JdbcInputFormat format = new JdbcInputFormat();
+        Date date = Date.valueOf("2020-01-02");
+        Timestamp timestamp = Timestamp.valueOf("2020-01-02 03:04:05.123456");
+        MatcherAssert.assertThat(format.createColumnExtractor(1, Types.DATE, true, null).extract(resultSet(date)), Matchers.equalTo((Object) date));
+        MatcherAssert.assertThat(format.createColumnExtractor(1, Types.TIMESTAMP, true, null).extract(resultSet(timestamp)), Matchers.equalTo((Object) timestamp));
+    }
+
+    @Test
+    public void testMetaColumnConstantCopiedPerRow() throws Exception {
+        JdbcInputFormat format = new JdbcInputFormat();
+        ColumnExtractor extractor = JdbcInputFormat.bindMetaColumn(format.createColumnExtractor(1, Types.TIMESTAMP, true, null),
+                metaColumn("timestamp", "2020-01-02 03:04:05"));
+
+        Timestamp first = (Timestamp) extractor.extract(resultSet((Object) null));
+        Timestamp second = (Timestamp) extractor.extract(resultSet((Object) null));
+        MatcherAssert.assertThat(first, Matchers.equalTo(second));
+        MatcherAssert.assertThat(second, Matchers.not(Matchers.sameInstance(first)));
+
+        // 修改一行的常量不影响其它行
+        first.setTime(0L);
+        MatcherAssert.assertThat(extractor.extract(resultSet((Object) null)), Matchers.equalTo((Object) second));
+
+        extractor = JdbcInputFormat.bindMetaColumn(format.createColumnExtractor(1, Types.DATE, true, null), metaColumn("date", "2020-01-02"));
+        java.util.Date date = (java.util.Date) extractor.extract(resultSet((Object) null));
+        MatcherAssert.assertThat(extractor.extract(resultSet((Object) null)), Matchers.allOf(Matchers.equalTo((Object) date), Matchers.not(Matchers.sameInstance((Object) date))));
+
+        // 有值时按字段类型转换读取到的字符串，不使用常量
+        MatcherAssert.assertThat(extractor.extract(resultSet("2021-03-04")), Matchers.not(Matchers.equalTo((Object) date)));
+        MatcherAssert.assertThat(extractor.extract(resultSet("2021-03-04")), Matchers.instanceOf(java.util.Date.class));
+    }
+
+    private MetaColumn metaColumn(String type, String value) {
+        MetaColumn metaColumn = new MetaColumn();
+        metaColumn.setName("c");
+        metaColumn.setType(type);
+        metaColumn.setValue(value);
+        return metaColumn;
+    }
+
+    private Clob clob(String text) {
+        return (Clob) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{Clob.class},
+                (proxy, method, args) -> {
+                    if ("getCharacterStream".equals(method.getName())) {
+                        return new StringReader(text);
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    /**
+     * 只有一行数据的结果集，按下标读取字段值
+     */
+    private ResultSet resultSet(Object... values) {
+        Object[] lastValue = new Object[1];
+        return (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "wasNull":
+                            return lastValue[0] == null;
+                        case "getObject":
+                            lastValue[0] = values[(Integer) args[0] - 1];
+                            return lastValue[0];
+                        case "getInt":
+                            lastValue[0] = values[(Integer) args[0] - 1];
+                            return lastValue[0] == null ? 0 : ((Number) lastValue[0]).intValue();
+                        case "getLong":
+                            lastValue[0] = values[(Integer) args[0] - 1];
+                            return lastValue[0] == null ? 0L : ((Number) lastValue[0]).longValue();
+                        case "getDouble":
+                            lastValue[0] = values[(Integer) args[0] - 1];
+                            return lastValue[0] == null ? 0D : ((Number) lastValue[0]).doubleValue();
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private List<MetaColumn> metaColumns(String... names) {
+        List<MetaColumn> metaColumns = new ArrayList<>();
+        for (String name : names) {
+            MetaColumn metaColumn = new MetaColumn();
+            metaColumn.setName(name);
+            metaColumns.add(metaColumn);
+        }
+        return metaColumns;
+    }
+
+    private ResultSetMetaData metaData(String... labels) {
+        return (ResultSetMetaData) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{ResultSetMetaData.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getColumnCount":
+                            return labels.length;
+                        case "getColumnLabel":
+                            return labels[(Integer) args[0] - 1];
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private void assertStrictlyIncreasing(List<String> cuts) {
+        for (int i = 1; i < cuts.size(); i++) {
+            if (cuts.get(0).startsWith("'")) {
+                MatcherAssert.assertThat(cuts.get(i), Matchers.greaterThan(cuts.get(i - 1)));
+            } else {
+                MatcherAssert.assertThat(new BigInteger(cuts.get(i)), Matchers.greaterThan(new BigInteger(cuts.get(i - 1))));
+            }
+        }
+    }
+}
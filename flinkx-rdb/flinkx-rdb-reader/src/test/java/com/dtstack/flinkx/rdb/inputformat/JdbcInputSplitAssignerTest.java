@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dtstack.flinkx.rdb.inputformat;
+
+import com.dtstack.flinkx.rdb.datareader.IncrementConfig;
+import com.dtstack.flinkx.rdb.datareader.SplitStrategy;
+import org.apache.flink.core.io.InputSplit;
+import org.apache.flink.core.io.InputSplitAssigner;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class JdbcInputSplitAssignerTest {
+
+    private static final List<String> CUTS = Arrays.asList("10", "20", "30");
+
+    @Test
+    public void testRebuildCutsFromBounds() {
+        MatcherAssert.assertThat(JdbcInputSplitAssigner.getRangeCuts(createSplits(6)), Matchers.equalTo(CUTS));
+        MatcherAssert.assertThat(JdbcInputSplitAssigner.getRangeCuts(createSplits(4)), Matchers.equalTo(CUTS));
+    }
+
+    @Test
+    public void testCutsOnlyOnFirstSplitOfTask() {
+        JdbcInputSplitAssigner assigner = new JdbcInputSplitAssigner(createSplits(6));
+
+        JdbcInputSplit first = (JdbcInputSplit) assigner.getNextInputSplit("localhost", 0);
+        JdbcInputSplit second = (JdbcInputSplit) assigner.getNextInputSplit("localhost", 0);
+        JdbcInputSplit otherTask = (JdbcInputSplit) assigner.getNextInputSplit("localhost", 1);
+
+        MatcherAssert.assertThat(first.getRangeCuts(), Matchers.equalTo(CUTS));
+        MatcherAssert.assertThat(second.getRangeCuts(), Matchers.nullValue());
+        MatcherAssert.assertThat(otherTask.getRangeCuts(), Matchers.equalTo(CUTS));
+
+        // 没有上界或下界的分片优先分配
+        MatcherAssert.assertThat(first.getLowerBound(), Matchers.nullValue());
+        MatcherAssert.assertThat(second.getUpperBound(), Matchers.nullValue());
+    }
+
+    @Test
+    public void testRangeSplitPinnedToTaskWithoutChunks() {
+        JdbcInputFormat format = createRangeFormat(4, 1);
+        InputSplit[] splits = createSplits(4);
+        InputSplitAssigner assigner = format.getInputSplitAssigner(splits);
+        MatcherAssert.assertThat(assigner, Matchers.instanceOf(SubtaskInputSplitAssigner.class));
+
+        // 故障恢复后通道请求分片的顺序和上次不同，每个通道仍然拿到上次读取的分片，断点续传的位置才对应同一个范围
+        for (int taskId : new int[]{2, 0, 3, 1}) {
+            JdbcInputSplit split = (JdbcInputSplit) assigner.getNextInputSplit("localhost", taskId);
+            MatcherAssert.assertThat(split.getSplitNumber(), Matchers.equalTo(taskId));
+            MatcherAssert.assertThat(split.getLowerBound(), Matchers.equalTo(((JdbcInputSplit) splits[taskId]).getLowerBound()));
+            MatcherAssert.assertThat(assigner.getNextInputSplit("localhost", taskId), Matchers.nullValue());
+        }
+    }
+
+    @Test
+    public void testChunksAssignedOnDemand() {
+        JdbcInputFormat format = createRangeFormat(2, 3);
+        MatcherAssert.assertThat(format.getInputSplitAssigner(createSplits(6)), Matchers.instanceOf(JdbcInputSplitAssigner.class));
+
+        // 增量任务不按需领取分片
+        format.incrementConfig.setIncrement(true);
+        MatcherAssert.assertThat(format.getInputSplitAssigner(createSplits(6)), Matchers.instanceOf(SubtaskInputSplitAssigner.class));
+    }
+
+    private JdbcInputFormat createRangeFormat(int numPartitions, int splitFactor) {
+        JdbcInputFormat format = new JdbcInputFormat();
+        format.splitStrategy = SplitStrategy.RANGE;
+        format.splitKey = "id";
+        format.numPartitions = numPartitions;
+        format.splitFactor = splitFactor;
+        format.incrementConfig = new IncrementConfig();
+        return format;
+    }
+
+    private InputSplit[] createSplits(int minNumSplits) {
+        int numSplits = JdbcInputFormat.getNumOfRangeSplits(CUTS, minNumSplits);
+        InputSplit[] splits = new InputSplit[numSplits];
+        for (int i = 0; i < numSplits; i++) {
+            String[] bounds = JdbcInputFormat.getRangeBounds(CUTS, i);
+            splits[i] = new JdbcInputSplit(i, numSplits, null, bounds[0], bounds[1]);
+        }
+        return splits;
+    }
+}
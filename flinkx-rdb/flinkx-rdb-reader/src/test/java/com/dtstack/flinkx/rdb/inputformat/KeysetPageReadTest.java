@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dtstack.flinkx.rdb.inputformat;
+
+import com.dtstack.flinkx.config.RestoreConfig;
+import com.dtstack.flinkx.rdb.datareader.IncrementConfig;
+import org.apache.flink.types.Row;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class KeysetPageReadTest {
+
+    @Test
+    public void testReadByPage() throws Exception {
+        PagedInputFormat format = new PagedInputFormat(10, 4, false);
+        MatcherAssert.assertThat(readAll(format), Matchers.equalTo(keys(10)));
+
+        // 每页从上一页最后一行的主键之后读取，不足一页时结束
+        MatcherAssert.assertThat(format.lastKeys, Matchers.contains(null, 4, 8));
+        MatcherAssert.assertThat(format.threads, Matchers.everyItem(Matchers.equalTo(Thread.currentThread().getName())));
+    }
+
+    @Test
+    public void testLastPageFull() throws Exception {
+        PagedInputFormat format = new PagedInputFormat(8, 4, false);
+        MatcherAssert.assertThat(readAll(format), Matchers.equalTo(keys(8)));
+        // 最后一页刚好读满时需要再读一次空页才能确定读取结束
+        MatcherAssert.assertThat(format.lastKeys, Matchers.contains(null, 4, 8));
+    }
+
+    @Test
+    public void testEmptyTable() throws Exception {
+        PagedInputFormat format = new PagedInputFormat(0, 4, true);
+        format.readFirstPage();
+        MatcherAssert.assertThat(format.reachedEnd(), Matchers.equalTo(true));
+        format.closeInternal();
+
+        // 第一页不满时不预读
+        MatcherAssert.assertThat(format.lastKeys, Matchers.contains((Object) null));
+    }
+
+    @Test
+    public void testPrefetchPage() throws Exception {
+        PagedInputFormat format = new PagedInputFormat(10, 4, true);
+        MatcherAssert.assertThat(readAll(format), Matchers.equalTo(keys(10)));
+        MatcherAssert.assertThat(format.lastKeys, Matchers.contains(null, 4, 8));
+
+        // 第一页在当前线程读取，之后的页由预读线程读取
+        MatcherAssert.assertThat(format.threads.get(0), Matchers.equalTo(Thread.currentThread().getName()));
+        MatcherAssert.assertThat(format.threads.subList(1, 3), Matchers.everyItem(Matchers.startsWith("page-prefetch-")));
+    }
+
+    @Test
+    public void testPrefetchPageFailed() throws Exception {
+        PagedInputFormat format = new PagedInputFormat(10, 4, true);
+        format.failedKey = 4;
+        format.readFirstPage();
+
+        List<Integer> values = new ArrayList<>();
+        try {
+            while (!format.reachedEnd()) {
+                values.add((Integer) format.nextRecordInternal(null).getField(0));
+            }
+            MatcherAssert.assertThat("should fail", false);
+        } catch (IOException e) {
+            MatcherAssert.assertThat(e.getCause().getMessage(), Matchers.equalTo("connection reset"));
+        } finally {
+            format.closeInternal();
+        }
+
+        // 预读失败在切换到下一页时抛出，当前页的数据已经全部发送
+        MatcherAssert.assertThat(values, Matchers.contains(1, 2, 3));
+    }
+
+    private List<Integer> readAll(PagedInputFormat format) throws Exception {
+        List<Integer> values = new ArrayList<>();
+        format.readFirstPage();
+        try {
+            while (!format.reachedEnd()) {
+                values.add((Integer) format.nextRecordInternal(null).getField(0));
+            }
+        } finally {
+            format.closeInternal();
+        }
+        return values;
+    }
+
+    private List<Integer> keys(int rows) {
+        Integer[] keys = new Integer[rows];
+        for (int i = 0; i < rows; i++) {
+            keys[i] = i + 1;
+        }
+        return Arrays.asList(keys);
+    }
+
+    /**
+     * 主键从1到rows的表，按主键分页返回数据
+     */
+    private static class PagedInputFormat extends JdbcInputFormat {
+
+        private final int rows;
+
+        private final List<Object> lastKeys = new CopyOnWriteArrayList<>();
+
+        private final List<String> threads = new CopyOnWriteArrayList<>();
+
+        private Integer failedKey;
+
+        PagedInputFormat(int rows, int pageSize, boolean prefetchPage) {
+            this.rows = rows;
+            this.pageSize = pageSize;
+            this.prefetchPage = prefetchPage;
+            this.incrementConfig = new IncrementConfig();
+            this.restoreConfig = RestoreConfig.defaultConfig();
+        }
+
+        @Override
+        KeysetPage fetchPage(Object lastKey) throws Exception {
+            lastKeys.add(lastKey);
+            threads.add(Thread.currentThread().getName());
+            if (failedKey != null && failedKey.equals(lastKey)) {
+                throw new IllegalStateException("connection reset");
+            }
+
+            KeysetPage page = new KeysetPage(pageSize, false);
+            int key = lastKey == null ? 1 : (Integer) lastKey + 1;
+            for (; key <= rows && !page.isFull(); key++) {
+                Row row = new Row(1);
+                row.setField(0, key);
+                page.add(row, key, null);
+            }
+            return page;
+        }
+    }
+}
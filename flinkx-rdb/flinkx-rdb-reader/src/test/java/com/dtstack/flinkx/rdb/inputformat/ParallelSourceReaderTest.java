@@ -0,0 +1,274 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dtstack.flinkx.rdb.inputformat;
+
+import com.dtstack.flinkx.rdb.DataSource;
+import org.apache.flink.metrics.Gauge;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.metrics.groups.UnregisteredMetricsGroup;
+import org.apache.flink.types.Row;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.net.ServerSocket;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+public class ParallelSourceReaderTest {
+
+    private static final String URL_PREFIX = "jdbc:stub://";
+
+    private static ServerSocket server;
+
+    private static Driver driver;
+
+    @BeforeClass
+    public static void registerDriver() throws Exception {
+        // DBUtil会先telnet数据库地址
+        server = new ServerSocket(0);
+        driver = new StubDriver();
+        DriverManager.registerDriver(driver);
+    }
+
+    @AfterClass
+    public static void deregisterDriver() throws Exception {
+        DriverManager.deregisterDriver(driver);
+        server.close();
+    }
+
+    @Test(timeout = 30000)
+    public void testReadAllSources() throws Exception {
+        StubInputFormat format = new StubInputFormat();
+        List<DataSource> sources = createSources(100, 0, 250, 1);
+        ParallelSourceReader reader = new ParallelSourceReader(format, sources, 2, 16);
+        RecordingMetricGroup metricGroup = new RecordingMetricGroup("");
+        reader.start(metricGroup, "test-reader");
+
+        Map<String, Integer> rowsOfTable = readAll(reader);
+        reader.close();
+
+        MatcherAssert.assertThat(rowsOfTable.get("t0"), Matchers.equalTo(100));
+        MatcherAssert.assertThat(rowsOfTable.get("t1"), Matchers.nullValue());
+        MatcherAssert.assertThat(rowsOfTable.get("t2"), Matchers.equalTo(250));
+        MatcherAssert.assertThat(rowsOfTable.get("t3"), Matchers.equalTo(1));
+
+        // 每个数据源的读取条数注册在input指标组下
+        MatcherAssert.assertThat(metricGroup.gauges.get("flinkx.input.source.2.sourceNumRead").getValue(), Matchers.equalTo(250L));
+        MatcherAssert.assertThat(metricGroup.gauges.keySet(), Matchers.hasItem("flinkx.input.handoffQueueSize"));
+        MatcherAssert.assertThat(metricGroup.gauges.keySet(), Matchers.everyItem(Matchers.startsWith("flinkx.input.")));
+    }
+
+    @Test(timeout = 30000)
+    public void testFailedSourceDoesNotStopOthers() throws Exception {
+        StubInputFormat format = new StubInputFormat();
+        format.failedTable = "t1";
+        List<DataSource> sources = createSources(10, 20, 30);
+        ParallelSourceReader reader = new ParallelSourceReader(format, sources, 3, 4);
+        reader.start(new UnregisteredMetricsGroup(), "test-reader");
+
+        Map<String, Integer> rowsOfTable = new HashMap<>();
+        try {
+            Row row;
+            while ((row = reader.next()) != null) {
+                rowsOfTable.merge((String) row.getField(0), 1, Integer::sum);
+            }
+            MatcherAssert.assertThat("the failure of the source should be thrown", false);
+        } catch (IOException e) {
+            MatcherAssert.assertThat(e.getMessage(), Matchers.containsString("1 of 3 sources"));
+            MatcherAssert.assertThat(e.getCause(), Matchers.instanceOf(SQLException.class));
+        } finally {
+            reader.close();
+        }
+
+        MatcherAssert.assertThat(rowsOfTable.get("t0"), Matchers.equalTo(10));
+        MatcherAssert.assertThat(rowsOfTable.get("t2"), Matchers.equalTo(30));
+    }
+
+    private Map<String, Integer> readAll(ParallelSourceReader reader) throws IOException {
+        Map<String, Integer> rowsOfTable = new HashMap<>();
+        Row row;
+        while ((row = reader.next()) != null) {
+            rowsOfTable.merge((String) row.getField(0), 1, Integer::sum);
+        }
+        return rowsOfTable;
+    }
+
+    private List<DataSource> createSources(int... rowsOfSource) {
+        List<DataSource> sources = new ArrayList<>();
+        for (int i = 0; i < rowsOfSource.length; i++) {
+            DataSource source = new DataSource();
+            source.setJdbcUrl(URL_PREFIX + "127.0.0.1:" + server.getLocalPort() + "/" + rowsOfSource[i]);
+            source.setTable("t" + i);
+            sources.add(source);
+        }
+        return sources;
+    }
+
+    private static class StubInputFormat extends DistributedJdbcInputFormat {
+
+        String failedTable;
+
+        @Override
+        protected ResultSet executeSourceQuery(DataSource source, Statement statement) throws SQLException {
+            if (source.getTable().equals(failedTable)) {
+                throw new SQLException("table not found: " + source.getTable());
+            }
+
+            String url = source.getJdbcUrl();
+            int numRows = Integer.parseInt(url.substring(url.lastIndexOf('/') + 1));
+            return createResultSet(source.getTable(), numRows);
+        }
+
+        @Override
+        protected Row buildRecord(ResultSet resultSet, int columnCount) throws Exception {
+            return Row.of(resultSet.getObject(1));
+        }
+    }
+
+    private static ResultSet createResultSet(String table, int numRows) {
+        ResultSetMetaData metaData = (ResultSetMetaData) Proxy.newProxyInstance(ResultSetMetaData.class.getClassLoader(),
+                new Class[]{ResultSetMetaData.class}, (proxy, method, args) -> {
+                    if ("getColumnCount".equals(method.getName())) {
+                        return 1;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+
+        int[] cursor = new int[1];
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class[]{ResultSet.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "next":
+                    return ++cursor[0] <= numRows;
+                case "getMetaData":
+                    return metaData;
+                case "getObject":
+                    return table;
+                case "close":
+                    return null;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    private static Connection createConnection() {
+        Statement statement = (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class[]{Statement.class},
+                (proxy, method, args) -> null);
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class[]{Connection.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "createStatement":
+                    return statement;
+                case "isClosed":
+                case "getAutoCommit":
+                    return false;
+                default:
+                    return null;
+            }
+        });
+    }
+
+    private static class StubDriver implements Driver {
+
+        @Override
+        public Connection connect(String url, Properties info) {
+            return acceptsURL(url) ? createConnection() : null;
+        }
+
+        @Override
+        public boolean acceptsURL(String url) {
+            return url.startsWith(URL_PREFIX);
+        }
+
+        @Override
+        public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+            return new DriverPropertyInfo[0];
+        }
+
+        @Override
+        public int getMajorVersion() {
+            return 1;
+        }
+
+        @Override
+        public int getMinorVersion() {
+            return 0;
+        }
+
+        @Override
+        public boolean jdbcCompliant() {
+            return false;
+        }
+
+        @Override
+        public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            throw new SQLFeatureNotSupportedException();
+        }
+    }
+
+    private static class RecordingMetricGroup extends UnregisteredMetricsGroup {
+
+        private final String prefix;
+
+        private final Map<String, Gauge<?>> gauges;
+
+        RecordingMetricGroup(String prefix) {
+            this(prefix, new HashMap<>());
+        }
+
+        private RecordingMetricGroup(String prefix, Map<String, Gauge<?>> gauges) {
+            this.prefix = prefix;
+            this.gauges = gauges;
+        }
+
+        @Override
+        public MetricGroup addGroup(String name) {
+            return new RecordingMetricGroup(prefix + name + ".", gauges);
+        }
+
+        @Override
+        public MetricGroup addGroup(String key, String value) {
+            return new RecordingMetricGroup(prefix + key + "." + value + ".", gauges);
+        }
+
+        @Override
+        public <T, G extends Gauge<T>> G gauge(String name, G gauge) {
+            gauges.put(prefix + name, gauge);
+            return gauge;
+        }
+    }
+}
@@ -58,6 +58,9 @@ public class JdbcDataWriter extends DataWriter {
     /**just for postgresql,use copy replace insert*/
     protected String insertSqlMode;
 
+    /**just for postgresql,copy数据的格式：text或binary*/
+    protected String copyFormat;
+
     private static final int DEFAULT_BATCH_SIZE = 1024;
 
     public void setTypeConverterInterface(TypeConverterInterface typeConverter) {
@@ -89,6 +92,7 @@ public class JdbcDataWriter extends DataWriter {
         fullColumn = (List<String>) writerConfig.getParameter().getVal(KEY_FULL_COLUMN);
 
         insertSqlMode = writerConfig.getParameter().getStringVal(KEY_INSERT_SQL_MODE);
+        copyFormat = writerConfig.getParameter().getStringVal(KEY_COPY_FORMAT);
     }
 
     @Override
@@ -116,6 +120,7 @@ public class JdbcDataWriter extends DataWriter {
         builder.setTypeConverter(typeConverter);
         builder.setRestoreConfig(restoreConfig);
         builder.setInsertSqlMode(insertSqlMode);
+        builder.setCopyFormat(copyFormat);
 
         String sinkName = (databaseInterface.getDatabaseType() + "writer").toLowerCase();
         return createOutput(dataSet, builder.finish(), sinkName);
@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dtstack.flinkx.rdb.outputformat;
+
+/**
+ * 字段值转换器，在openInternal中根据目标字段类型生成一次，写入时按列直接调用，
+ * 避免每条记录都对字段类型做正则匹配
+ *
+ * Company: www.dtstack.com
+ */
+@FunctionalInterface
+public interface FieldConverter {
+
+    FieldConverter IDENTITY = field -> field;
+
+    /**
+     * 将Row中的字段值转换为写入数据库时使用的值
+     * @param field 原始字段值
+     * @return 转换后的值
+     */
+    Object convert(Object field);
+
+    /**
+     * 在当前转换结果上继续执行下一个转换
+     * @param next 下一个转换器
+     * @return 组合后的转换器
+     */
+    default FieldConverter andThen(FieldConverter next) {
+        return field -> next.convert(convert(field));
+    }
+}
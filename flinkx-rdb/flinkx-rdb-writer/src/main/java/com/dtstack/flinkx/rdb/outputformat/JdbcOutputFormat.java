@@ -24,6 +24,7 @@ import com.dtstack.flinkx.outputformat.RichOutputFormat;
 import com.dtstack.flinkx.rdb.DatabaseInterface;
 import com.dtstack.flinkx.rdb.type.TypeConverterInterface;
 import com.dtstack.flinkx.rdb.util.DBUtil;
+import com.dtstack.flinkx.rdb.util.TableMetaCache;
 import com.dtstack.flinkx.restore.FormatState;
 import com.dtstack.flinkx.util.ClassUtil;
 import com.dtstack.flinkx.util.DateUtil;
@@ -35,6 +36,7 @@ import org.slf4j.LoggerFactory;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -74,6 +76,9 @@ public class JdbcOutputFormat extends RichOutputFormat {
     /**just for postgresql,use copy replace insert*/
     protected String insertSqlMode;
 
+    /**just for postgresql,copy数据的格式：text或binary*/
+    protected String copyFormat;
+
     protected String table;
 
     protected List<String> column;
@@ -88,6 +93,12 @@ public class JdbcOutputFormat extends RichOutputFormat {
 
     protected TypeConverterInterface typeConverter;
 
+    /**按列预先生成的字段转换器，下标与column一致*/
+    protected transient FieldConverter[] fieldConverters;
+
+    /**按列预先生成的参数赋值器，下标与column一致*/
+    protected transient ParameterSetter[] parameterSetters;
+
     private Row lastRow = null;
 
     private boolean readyCheckpoint;
@@ -138,13 +149,16 @@ public class JdbcOutputFormat extends RichOutputFormat {
                 dbConn.setAutoCommit(false);
             }
 
+            // 同一个TaskManager中的多个并行度共享表的元数据，缓存的值不可修改，这里复制一份
             if(CollectionUtils.isEmpty(fullColumn)) {
-                fullColumn = probeFullColumns(table, dbConn);
+                fullColumn = new ArrayList<>(TableMetaCache.get(dbURL, username, table, TableMetaCache.TYPE_FULL_COLUMNS,
+                        () -> Collections.unmodifiableList(probeFullColumns(table, dbConn))));
             }
 
             if (!EWriteMode.INSERT.name().equalsIgnoreCase(mode)){
                 if(updateKey == null || updateKey.size() == 0) {
-                    updateKey = probePrimaryKeys(table, dbConn);
+                    updateKey = new HashMap<>(TableMetaCache.get(dbURL, username, table, TableMetaCache.TYPE_PRIMARY_KEYS,
+                            () -> Collections.unmodifiableMap(probePrimaryKeys(table, dbConn))));
                 }
             }
 
@@ -161,6 +175,8 @@ public class JdbcOutputFormat extends RichOutputFormat {
                 }
             }
 
+            buildFieldConverters();
+
             preparedStatement = prepareTemplates();
             readyCheckpoint = false;
 
@@ -171,29 +187,16 @@ public class JdbcOutputFormat extends RichOutputFormat {
     }
 
     private List<String> analyzeTable() {
-        List<String> ret = new ArrayList<>();
-        Statement stmt = null;
-        ResultSet rs = null;
         try {
-            stmt = dbConn.createStatement();
-            rs = stmt.executeQuery(databaseInterface.getSQLQueryFields(databaseInterface.quoteTable(table)));
-            ResultSetMetaData rd = rs.getMetaData();
-            for(int i = 0; i < rd.getColumnCount(); ++i) {
-                ret.add(rd.getColumnTypeName(i+1));
-            }
-
+            Map<String,String> nameTypeMap = DBUtil.getColumnTypes(dbConn, dbURL, username, databaseInterface, table);
             if(CollectionUtils.isEmpty(fullColumn)){
-                for(int i = 0; i < rd.getColumnCount(); ++i) {
-                    fullColumn.add(rd.getColumnName(i+1));
-                }
+                fullColumn.addAll(nameTypeMap.keySet());
             }
+
+            return new ArrayList<>(nameTypeMap.values());
         } catch (SQLException e) {
             throw new RuntimeException(e);
-        } finally {
-            DBUtil.closeDBResources(rs, stmt,null, false);
         }
-
-        return ret;
     }
 
     @Override
@@ -201,7 +204,7 @@ public class JdbcOutputFormat extends RichOutputFormat {
         int index = 0;
         try {
             for (; index < row.getArity(); index++) {
-                preparedStatement.setObject(index+1,getField(row,index));
+                parameterSetters[index].set(preparedStatement, getField(row, index));
             }
 
             preparedStatement.execute();
@@ -230,29 +233,42 @@ public class JdbcOutputFormat extends RichOutputFormat {
 
     @Override
     protected void writeMultipleRecordsInternal() throws Exception {
+        writeMultipleRecordsInternal(rows);
+    }
+
+    @Override
+    protected boolean supportsAsyncFlush() {
+        return true;
+    }
+
+    /**
+     * 批次写入失败时会清空batch，可以按更小的批次重试，驱动返回的每条数据的执行结果用于直接取出失败的数据
+     */
+    @Override
+    protected boolean supportsBatchBisection() {
+        return true;
+    }
+
+    @Override
+    protected void writeMultipleRecordsInternal(List<Row> batch) throws Exception {
         try {
-            for (Row row : rows) {
+            for (Row row : batch) {
                 for (int j = 0; j < row.getArity(); ++j) {
-                    preparedStatement.setObject(j + 1, getField(row, j));
+                    parameterSetters[j].set(preparedStatement, getField(row, j));
                 }
                 preparedStatement.addBatch();
-
-                if (restoreConfig.isRestore()) {
-                    if (lastRow != null){
-                        readyCheckpoint = !ObjectUtils.equals(lastRow.getField(restoreConfig.getRestoreColumnIndex()),
-                                row.getField(restoreConfig.getRestoreColumnIndex()));
-                    }
-
-                    lastRow = row;
-                }
+                trackLastRow(row);
             }
 
             preparedStatement.executeBatch();
 
             if(restoreConfig.isRestore()){
-                rowsOfCurrentTransaction += rows.size();
+                rowsOfCurrentTransaction += batch.size();
             }
         } catch (Exception e){
+            // 字段转换出错时已经加入batch的数据不会被执行，清空后再重试
+            preparedStatement.clearBatch();
+
             if (restoreConfig.isRestore()){
                 LOG.warn("writeMultipleRecordsInternal:Start rollback");
                 dbConn.rollback();
@@ -263,6 +279,28 @@ public class JdbcOutputFormat extends RichOutputFormat {
         }
     }
 
+    /**
+     * 记录断点续传需要的最后一行数据，并判断当前位置是否可以做checkpoint
+     * @param row 已写入当前事务的数据
+     */
+    protected void trackLastRow(Row row) {
+        if (restoreConfig.isRestore()) {
+            if (lastRow != null){
+                readyCheckpoint = !ObjectUtils.equals(lastRow.getField(restoreConfig.getRestoreColumnIndex()),
+                        row.getField(restoreConfig.getRestoreColumnIndex()));
+            }
+
+            lastRow = row;
+        }
+    }
+
+    /**
+     * 提交事务前把还未发送的数据全部发送到数据库
+     */
+    protected void flushBeforeCommit() throws Exception {
+        preparedStatement.executeBatch();
+    }
+
     @Override
     public FormatState getFormatState(){
         if (!restoreConfig.isRestore() || lastRow == null){
@@ -276,7 +314,7 @@ public class JdbcOutputFormat extends RichOutputFormat {
             if (readyCheckpoint || rowsOfCurrentTransaction > restoreConfig.getMaxRowNumForCheckpoint()){
 
                 LOG.info("getFormatState:Start commit connection");
-                preparedStatement.executeBatch();
+                flushBeforeCommit();
                 dbConn.commit();
                 LOG.info("getFormatState:Commit connection success");
 
@@ -306,19 +344,38 @@ public class JdbcOutputFormat extends RichOutputFormat {
     }
 
     protected Object getField(Row row, int index) {
-        Object field = row.getField(index);
-        String type = columnType.get(index);
+        return fieldConverters[index].convert(row.getField(index));
+    }
+
+    /**
+     * 根据columnType为每一列生成字段转换器和参数赋值器，写入时不再解析字段类型
+     */
+    protected void buildFieldConverters() {
+        fieldConverters = new FieldConverter[columnType.size()];
+        parameterSetters = new ParameterSetter[columnType.size()];
+        for (int i = 0; i < columnType.size(); i++) {
+            fieldConverters[i] = createFieldConverter(columnType.get(i));
+            parameterSetters[i] = ParameterSetter.forType(columnType.get(i), i + 1);
+        }
+    }
+
+    /**
+     * 生成指定字段类型的转换器，子类可在此基础上追加数据库特有的转换
+     * @param type 字段类型
+     * @return 字段转换器
+     */
+    protected FieldConverter createFieldConverter(String type) {
         if(type.matches(DateUtil.DATE_REGEX)) {
-            field = DateUtil.columnToDate(field,null);
+            return field -> DateUtil.columnToDate(field,null);
         } else if(type.matches(DateUtil.DATETIME_REGEX) || type.matches(DateUtil.TIMESTAMP_REGEX)){
-            field = DateUtil.columnToTimestamp(field,null);
+            return field -> DateUtil.columnToTimestamp(field,null);
         }
 
-        if (type.equalsIgnoreCase(ColumnType.BIGINT.name()) && field instanceof java.util.Date){
-            field = ((java.util.Date) field).getTime();
+        if (type.equalsIgnoreCase(ColumnType.BIGINT.name())){
+            return field -> field instanceof java.util.Date ? ((java.util.Date) field).getTime() : field;
         }
 
-        return field;
+        return FieldConverter.IDENTITY;
     }
 
     protected List<String> probeFullColumns(String table, Connection dbConn) throws SQLException {
@@ -98,6 +98,10 @@ public class JdbcOutputFormatBuilder extends RichOutputFormatBuilder {
         format.insertSqlMode = insertSqlMode;
     }
 
+    public void setCopyFormat(String copyFormat){
+        format.copyFormat = copyFormat;
+    }
+
     @Override
     protected void checkFormat() {
         if (format.username == null) {
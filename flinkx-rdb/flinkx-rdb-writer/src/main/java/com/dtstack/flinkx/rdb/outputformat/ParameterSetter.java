@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dtstack.flinkx.rdb.outputformat;
+
+import com.dtstack.flinkx.enums.ColumnType;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+/**
+ * 绑定了参数下标的PreparedStatement赋值器，按目标字段类型在openInternal中生成。
+ * 值的类型与字段类型匹配时调用对应的setXxx方法，否则退回到setObject，由驱动完成转换
+ *
+ * Company: www.dtstack.com
+ */
+@FunctionalInterface
+public interface ParameterSetter {
+
+    void set(PreparedStatement statement, Object value) throws SQLException;
+
+    /**
+     * 根据字段类型生成赋值器
+     * @param type 字段类型，如BIGINT、VARCHAR(32)
+     * @param parameterIndex 参数下标，从1开始
+     * @return 赋值器
+     */
+    static ParameterSetter forType(String type, int parameterIndex) {
+        switch (ColumnType.getType(type.trim().split("\\s+")[0])) {
+            case VARCHAR:
+            case VARCHAR2:
+            case CHAR:
+            case NVARCHAR:
+            case TEXT:
+                return (statement, value) -> {
+                    if (value instanceof String) {
+                        statement.setString(parameterIndex, (String) value);
+                    } else {
+                        statement.setObject(parameterIndex, value);
+                    }
+                };
+            case INT:
+            case INTEGER:
+            case MEDIUMINT:
+                return (statement, value) -> {
+                    if (value instanceof Integer) {
+                        statement.setInt(parameterIndex, (Integer) value);
+                    } else {
+                        statement.setObject(parameterIndex, value);
+                    }
+                };
+            case BIGINT:
+            case LONG:
+                return (statement, value) -> {
+                    if (value instanceof Long) {
+                        statement.setLong(parameterIndex, (Long) value);
+                    } else {
+                        statement.setObject(parameterIndex, value);
+                    }
+                };
+            case DOUBLE:
+                return (statement, value) -> {
+                    if (value instanceof Double) {
+                        statement.setDouble(parameterIndex, (Double) value);
+                    } else {
+                        statement.setObject(parameterIndex, value);
+                    }
+                };
+            case DECIMAL:
+                return (statement, value) -> {
+                    if (value instanceof BigDecimal) {
+                        statement.setBigDecimal(parameterIndex, (BigDecimal) value);
+                    } else {
+                        statement.setObject(parameterIndex, value);
+                    }
+                };
+            case DATE:
+                return (statement, value) -> {
+                    if (value instanceof java.sql.Date) {
+                        statement.setDate(parameterIndex, (java.sql.Date) value);
+                    } else {
+                        statement.setObject(parameterIndex, value);
+                    }
+                };
+            case DATETIME:
+            case TIMESTAMP:
+                return (statement, value) -> {
+                    if (value instanceof Timestamp) {
+                        statement.setTimestamp(parameterIndex, (Timestamp) value);
+                    } else {
+                        statement.setObject(parameterIndex, value);
+                    }
+                };
+            default:
+                return (statement, value) -> statement.setObject(parameterIndex, value);
+        }
+    }
+}
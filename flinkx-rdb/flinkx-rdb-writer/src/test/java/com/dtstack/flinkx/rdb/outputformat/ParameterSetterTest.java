@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dtstack.flinkx.rdb.outputformat;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ParameterSetterTest {
+
+    private final List<String> calls = new ArrayList<>();
+
+    private final PreparedStatement statement = (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+            new Class[]{PreparedStatement.class}, (proxy, method, args) -> {
+                calls.add(method.getName() + "(" + args[0] + "," + args[1] + ")");
+                return null;
+            });
+
+    @Test
+    public void testTypedSetter() throws Exception {
+        ParameterSetter.forType("BIGINT", 1).set(statement, 1L);
+        ParameterSetter.forType("varchar(32)", 2).set(statement, "a");
+        ParameterSetter.forType("int unsigned", 3).set(statement, 3);
+        ParameterSetter.forType("decimal", 4).set(statement, BigDecimal.ONE);
+        ParameterSetter.forType("timestamp", 5).set(statement, new Timestamp(0));
+        ParameterSetter.forType("double", 6).set(statement, 1.5d);
+
+        MatcherAssert.assertThat(calls, Matchers.contains(
+                "setLong(1,1)",
+                "setString(2,a)",
+                "setInt(3,3)",
+                "setBigDecimal(4,1)",
+                "setTimestamp(5," + new Timestamp(0) + ")",
+                "setDouble(6,1.5)"));
+    }
+
+    @Test
+    public void testFallbackToSetObject() throws Exception {
+        // 值的类型与字段类型不一致时由驱动转换
+        ParameterSetter.forType("BIGINT", 1).set(statement, "1");
+        ParameterSetter.forType("int", 2).set(statement, null);
+        ParameterSetter.forType("jsonb", 3).set(statement, "{}");
+
+        MatcherAssert.assertThat(calls, Matchers.contains("setObject(1,1)", "setObject(2,null)", "setObject(3,{})"));
+    }
+}
@@ -18,16 +18,12 @@
 package com.dtstack.flinkx.sqlserver.format;
 
 import com.dtstack.flinkx.enums.ColumnType;
+import com.dtstack.flinkx.rdb.inputformat.ColumnExtractor;
 import com.dtstack.flinkx.rdb.inputformat.JdbcInputFormat;
 import com.dtstack.flinkx.rdb.util.DBUtil;
-import org.apache.commons.collections.CollectionUtils;
-import org.apache.flink.types.Row;
 
-import java.io.IOException;
 import java.sql.Timestamp;
 
-import static com.dtstack.flinkx.rdb.util.DBUtil.clobToString;
-
 /**
  * Date: 2019/09/19
  * Company: www.dtstack.com
@@ -37,32 +33,13 @@ import static com.dtstack.flinkx.rdb.util.DBUtil.clobToString;
 public class SqlserverInputFormat extends JdbcInputFormat {
 
     @Override
-    public Row nextRecordInternal(Row row) throws IOException {
-        if (!hasNext) {
-            return null;
+    protected ColumnExtractor createColumnExtractor(int columnIndex, int sqlType, boolean signed, String typeName) {
+        ColumnExtractor extractor = super.createColumnExtractor(columnIndex, sqlType, signed, typeName);
+        if("bit".equalsIgnoreCase(typeName)) {
+            return extractor.andThen(obj -> obj instanceof Boolean ? ((Boolean) obj ? 1 : 0) : obj);
         }
-        row = new Row(columnCount);
-
-        try {
-            for (int pos = 0; pos < row.getArity(); pos++) {
-                Object obj = resultSet.getObject(pos + 1);
-                if(obj != null) {
-                    if(CollectionUtils.isNotEmpty(descColumnTypeList)) {
-                        if(descColumnTypeList.get(pos).equalsIgnoreCase("bit")) {
-                            if(obj instanceof Boolean) {
-                                obj = ((Boolean) obj ? 1 : 0);
-                            }
-                        }
-                    }
-                    obj = clobToString(obj);
-                }
 
-                row.setField(pos, obj);
-            }
-            return super.nextRecordInternal(row);
-        }catch (Exception e) {
-            throw new IOException("Couldn't read data - " + e.getMessage(), e);
-        }
+        return extractor;
     }
 
     /**